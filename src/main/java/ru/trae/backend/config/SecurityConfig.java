@@ -148,16 +148,23 @@ public class SecurityConfig {
             "/api/operation/employee/finish-operation")
         .hasAuthority(ROLE_EMPLOYEE.name())
 
+        //operation events
+        .antMatchers(
+            "/api/events")
+        .hasAuthority(ROLE_ADMINISTRATOR.name())
+
         //working shifts
         .antMatchers(
-            "/api/working-shift/active")
+            "/api/working-shift/active",
+            "/api/working-shift/presence-metrics",
+            "/api/working-shift/scheduler-metrics")
         .hasAuthority(ROLE_ADMINISTRATOR.name())
         .antMatchers(
             "/api/working-shift/on-shift/*")
         .hasAnyAuthority(ROLE_ADMINISTRATOR.name(), ROLE_EMPLOYEE.name())
 
         //reports
-        .antMatchers("/api/report/*")
+        .antMatchers("/api/report/*", "/api/report/jobs/**")
         .hasAuthority(ROLE_ADMINISTRATOR.name())
 
         .anyRequest().authenticated()
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * This class configures the executors of the asynchronous processing. The export of
+ * the timesheet runs on its own bounded executor, which is used only by the export.
+ * The application executor of Spring Boot, which is not created when the context contains
+ * another executor, is declared explicitly: it remains the executor of all other asynchronous
+ * requests and of {@code @Async} methods.
+ *
+ * @author Vladimir Olennikov
+ */
+@Configuration
+public class WebMvcAsyncConfig {
+  public static final String REPORT_EXPORT_EXECUTOR = "reportExportExecutor";
+  @Value("${report.export.threads}")
+  private int exportThreads;
+  @Value("${report.export.queue-capacity}")
+  private int exportQueueCapacity;
+
+  /**
+   * Creates the application executor with the settings of Spring Boot.
+   *
+   * @param builder the builder configured by the spring.task.execution properties
+   * @return the ThreadPoolTaskExecutor bean
+   */
+  @Primary
+  @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+      AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+  public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+    return builder.build();
+  }
+
+  /**
+   * Creates the executor of the timesheet export. If all threads are busy and the queue is
+   * full, the export is rejected.
+   *
+   * @return the ThreadPoolTaskExecutor bean
+   */
+  @Bean(name = REPORT_EXPORT_EXECUTOR)
+  public ThreadPoolTaskExecutor reportExportExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(exportThreads);
+    executor.setMaxPoolSize(exportThreads);
+    executor.setQueueCapacity(exportQueueCapacity);
+    executor.setThreadNamePrefix("report-export-");
+    return executor;
+  }
+}
@@ -171,6 +171,12 @@ public class EmployeeController {
       Boolean isActive) {
     
     Sort employeeSort = pageSetting.buildManagerOrEmpSort();
+    //режим курсора: следующая страница выбирается по ключу сортировки без подсчета количества
+    if (pageSetting.getAfter() != null) {
+      return ResponseEntity.ok(employeeService.getEmployeeDtoPageAfter(
+          employeeSort, pageSetting.getElementPerPage(), pageSetting.getAfter(),
+          typeWorkId, isActive));
+    }
     Pageable employeePage = PageRequest.of(
         pageSetting.getPage(), pageSetting.getElementPerPage(), employeeSort);
     return ResponseEntity.ok(
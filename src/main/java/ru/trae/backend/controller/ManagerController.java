@@ -189,6 +189,11 @@ public class ManagerController {
       Boolean status) {
 
     Sort managerSort = pageSetting.buildManagerOrEmpSort();
+    //режим курсора: следующая страница выбирается по ключу сортировки без подсчета количества
+    if (pageSetting.getAfter() != null) {
+      return ResponseEntity.ok(managerService.getManagerDtoPageAfter(
+          managerSort, pageSetting.getElementPerPage(), pageSetting.getAfter(), role, status));
+    }
     Pageable managerPage = PageRequest.of(
         pageSetting.getPage(), pageSetting.getElementPerPage(), managerSort);
     return ResponseEntity.ok(managerService.getManagerDtoPage(managerPage, role, status));
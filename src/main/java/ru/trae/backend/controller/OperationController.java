@@ -33,6 +33,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.trae.backend.dto.operation.BulkOperationReq;
+import ru.trae.backend.dto.operation.BulkOperationResultDto;
 import ru.trae.backend.dto.operation.FinishOpReq;
 import ru.trae.backend.dto.operation.InsertingOperationDto;
 import ru.trae.backend.dto.operation.OperationForEmpDto;
@@ -41,6 +43,7 @@ import ru.trae.backend.dto.operation.ReceiveOpReq;
 import ru.trae.backend.entity.task.Operation;
 import ru.trae.backend.entity.task.Project;
 import ru.trae.backend.projection.OperationIdNameProjectNumberDto;
+import ru.trae.backend.service.OperationBulkActionService;
 import ru.trae.backend.service.OperationService;
 import ru.trae.backend.service.ProjectService;
 
@@ -57,6 +60,7 @@ public class OperationController {
   
   private final OperationService operationService;
   private final ProjectService projectService;
+  private final OperationBulkActionService operationBulkActionService;
   
   /**
    * Inserts new {@link Operation} to the database.
@@ -167,6 +171,38 @@ public class OperationController {
     return ResponseEntity.ok().build();
   }
   
+  /**
+   * Applies the action to a list of operations at once.
+   *
+   * @param req the action and the ids of the operations
+   * @return the result of the action for every operation
+   */
+  @io.swagger.v3.oas.annotations.Operation(summary = "Массовое действие над операциями",
+      description = "Доступен администратору. Закрывает или удаляет операции из списка "
+          + "(не более " + OperationBulkActionService.MAX_BULK_SIZE + " идентификаторов) "
+          + "в одной транзакции. Операции, которые не найдены или не могут быть обработаны "
+          + "в текущем состоянии, пропускаются. Возвращает результат для каждого идентификатора. "
+          + "В примере указан единичный объект из списка")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Результаты действия по операциям",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = BulkOperationResultDto.class))}),
+      @ApiResponse(responseCode = "400", description = "Не указано действие, список "
+          + "идентификаторов пуст или превышает допустимый размер", content = @Content),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "409", description = "Операции изменены во время выполнения "
+          + "действия, изменения отменены", content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkOperationResultDto>> bulkAction(
+      @Valid @RequestBody BulkOperationReq req) {
+    return ResponseEntity.ok(operationBulkActionService.applyAction(req));
+  }
+  
   /**
    * Endpoint for getting a list of operations without pagination.
    *
@@ -290,6 +326,8 @@ public class OperationController {
       @ApiResponse(responseCode = "404",
           description = "Операция и/или сотрудник с таким идентификатором не найдена",
           content = @Content),
+      @ApiResponse(responseCode = "409",
+          description = "Операция уже принята другим сотрудником", content = @Content),
       @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
           content = @Content)})
   @PostMapping("/employee/receive-operation")
@@ -327,6 +365,8 @@ public class OperationController {
       @ApiResponse(responseCode = "404",
           description = "Операция и/или сотрудник с таким идентификатором не найдена",
           content = @Content),
+      @ApiResponse(responseCode = "409",
+          description = "Операция уже завершена или не находится в работе", content = @Content),
       @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
           content = @Content)})
   @PostMapping("/employee/finish-operation")
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.controller;
+
+import static ru.trae.backend.service.OperationEventService.MAX_LIMIT;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.trae.backend.dto.event.OperationEventPageDto;
+import ru.trae.backend.service.OperationEventService;
+
+/**
+ * OperationEventController is used to provide the endpoint for the incremental reading
+ * of the operation event log.
+ *
+ * @author Vladimir Olennikov
+ */
+@RestController
+@RequiredArgsConstructor
+@Validated
+@RequestMapping("/api/events")
+public class OperationEventController {
+  private final OperationEventService operationEventService;
+
+  /**
+   * Returns the events of the operation event log following the cursor.
+   *
+   * @param after the cursor returned by the previous request, 0 for the first request
+   * @param limit the maximum number of the events
+   * @return the events and the cursor for the next request
+   */
+  @Operation(summary = "Журнал событий операций",
+      description = "Доступен администратору. Возвращает события операций и проектов "
+          + "(создание, готовность к принятию, принятие, завершение, закрытие, вставка, удаление "
+          + "операций и изменение планируемой даты окончания проектов), следующие за курсором, "
+          + "в порядке их идентификаторов, и курсор для следующего запроса.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "События и курсор для следующего запроса",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = OperationEventPageDto.class))}),
+      @ApiResponse(responseCode = "400", description = "Неправильный курсор или размер выборки",
+          content = @Content),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping
+  public ResponseEntity<OperationEventPageDto> events(
+      @RequestParam(name = "after", defaultValue = "0")
+      @Min(value = 0, message = "The cursor cannot be less than 0") long after,
+      @RequestParam(name = "limit", defaultValue = "100")
+      @Min(value = 1, message = "The limit cannot be less than 1")
+      @Max(value = MAX_LIMIT, message = "The limit cannot be more than " + MAX_LIMIT) int limit) {
+    return ResponseEntity.ok(operationEventService.getEventsAfter(after, limit));
+  }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -186,6 +187,14 @@ public class ProjectController {
       Boolean isOverdueCurrentOpInProject) {
     
     Sort projectSort = pageSetting.buildProjectSort();
+    //режим курсора: следующая страница выбирается по ключу сортировки без подсчета количества
+    if (pageSetting.getAfter() != null) {
+      return ResponseEntity.ok(projectService.getProjectDtoPageAfter(
+          projectSort, pageSetting.getElementPerPage(), pageSetting.getAfter(),
+          isEnded, isOnlyFirstOpReadyToAcceptance,
+          isOnlyLastOpReadyToAcceptance, isOverdueCurrentOpInProject,
+          isCurrentOpInWorkOrReadyToAcceptance, isOverdueProject));
+    }
     Pageable projectPage = PageRequest.of(
         pageSetting.getPage(), pageSetting.getElementPerPage(), projectSort);
     
@@ -247,13 +256,14 @@ public class ProjectController {
    * Get list of available projects for employee.
    *
    * @param employeeId employee id
+   * @param limit      maximum number of projects
    * @return list of projects
    */
   @Operation(summary = "Список проектов доступных конкретному работнику",
       description = "Доступен сотрудникам. Возвращает список проектов, "
           + "в которых есть доступные для принятия операции(этапы) "
-          + "согласно типам работ конкретного работника. "
-          + "Возвращает пустой список, если такие проекты не найдены в системе.")
+          + "согласно типам работ конкретного работника, отсортированных по дате окончания "
+          + "по контракту. Возвращает пустой список, если такие проекты не найдены в системе.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200",
           description = "Список доступных проектов. В примере указан единичный объект из списка",
@@ -267,8 +277,10 @@ public class ProjectController {
           content = @Content)})
   @GetMapping("/employee/available-projects/{employeeId}")
   public ResponseEntity<List<ProjectAvailableForEmpDto>> availableProjectsByEmpId(
-      @PathVariable long employeeId) {
-    return ResponseEntity.ok(projectService.getAvailableProjects(employeeId));
+      @PathVariable long employeeId,
+      @RequestParam(required = false)
+      @Parameter(description = "Максимальное количество проектов") @Positive Integer limit) {
+    return ResponseEntity.ok(projectService.getAvailableProjects(employeeId, limit));
   }
   
   /**
@@ -404,14 +416,16 @@ public class ProjectController {
    */
   @Operation(summary = "Поиск проектов с пагинацией и сортировкой",
       description = "Доступен администратору. Возвращает результаты поиска(список ДТО проектов с "
-          + "сортировкой по дате окончания) по номеру проекта или данным заказчика")
+          + "сортировкой по релевантности) по номеру проекта или по данным заказчика, названию "
+          + "и комментарию проекта. Возвращается не более 100 результатов")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Список ДТО проектов. "
           + "В примере указан единичный объект из списка",
           content = {@Content(mediaType = "application/json",
               schema = @Schema(implementation = ProjectShortDto.class))}),
       @ApiResponse(responseCode = "400",
-          description = "Поисковой запрос пустой, короче 1 знака или длиннее 30 знаков",
+          description = "Поисковой запрос пустой, длиннее 30 знаков или, если это не номер "
+              + "проекта, короче 3 знаков",
           content = @Content),
       @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
           content = @Content),
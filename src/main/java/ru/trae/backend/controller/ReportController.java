@@ -16,25 +16,52 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Set;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.trae.backend.config.WebMvcAsyncConfig;
 import ru.trae.backend.dto.report.DeadlineReq;
+import ru.trae.backend.dto.report.ReportCacheMetricsDto;
+import ru.trae.backend.dto.report.ReportDashboardCacheMetricsDto;
 import ru.trae.backend.dto.report.ReportDashboardStatsDto;
 import ru.trae.backend.dto.report.ReportDeadlineDto;
+import ru.trae.backend.dto.report.ReportJobDto;
+import ru.trae.backend.dto.report.ReportJobReq;
 import ru.trae.backend.dto.report.ReportProjectsForPeriodDto;
 import ru.trae.backend.dto.report.ReportWorkingShiftForPeriodDto;
+import ru.trae.backend.service.ReportDashboardStatsBroadcaster;
+import ru.trae.backend.service.ReportJobService;
 import ru.trae.backend.service.ReportService;
+import ru.trae.backend.util.ReportJobType;
+import springfox.documentation.annotations.ApiIgnore;
 
 /**
  * ReportController is used to provide endpoints to handle requests related to Report
@@ -48,6 +75,12 @@ import ru.trae.backend.service.ReportService;
 @RequestMapping("/api/report")
 public class ReportController {
   private final ReportService reportService;
+  private final ReportDashboardStatsBroadcaster reportDashboardStatsBroadcaster;
+  private final ReportJobService reportJobService;
+  @Qualifier(WebMvcAsyncConfig.REPORT_EXPORT_EXECUTOR)
+  private final AsyncTaskExecutor reportExportExecutor;
+  @Value("${report.export.timeout}")
+  private Duration exportTimeout;
 
   @Operation(summary = "Список отчетов по рабочим сменам за указанный период, список сотрудников, "
       + "входящих в отчет, список общего количества часов по каждому сотруднику",
@@ -85,6 +118,54 @@ public class ReportController {
         startOfPeriod, endOfPeriod, employeeIds));
   }
 
+  @Operation(summary = "Выгрузка табеля по рабочим сменам за указанный период в CSV",
+      description = "Доступен администратору. Возвращает CSV-файл со строкой на каждый день "
+          + "сотрудника на смене: id, фамилия и имя сотрудника, дата смены, признак "
+          + "автоматического закрытия смены и доля отработанной смены. Файл передается потоком "
+          + "по мере чтения из базы данных, поэтому период выгрузки не ограничен.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "CSV-файл с табелем по рабочим сменам за указанный период",
+          content = {@Content(mediaType = "text/csv")}),
+      @ApiResponse(responseCode = "400",
+          description = "Неправильный формат даты начала и/или конца периода",
+          content = @Content),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content),
+      @ApiResponse(responseCode = "503", description = "Очередь выгрузок заполнена",
+          content = @Content)})
+  @GetMapping("/working-shifts-export")
+  public WebAsyncTask<Void> workingShiftsExport(
+      @RequestParam(name = "startOfPeriod") @DateTimeFormat(pattern = "yyyy-MM-dd")
+      @Parameter(description = "Начало периода выгрузки рабочих смен") LocalDate startOfPeriod,
+      @RequestParam(name = "endOfPeriod") @DateTimeFormat(pattern = "yyyy-MM-dd")
+      @Parameter(description = "Конец периода выгрузки рабочих смен") LocalDate endOfPeriod,
+      @RequestParam(name = "employeeIds", required = false)
+      @Parameter(description = "Список ID конкретных сотрудников") Set<Long> employeeIds,
+      @ApiIgnore HttpServletResponse response
+  ) {
+    StreamingResponseBody body =
+        reportService.exportWorkingShiftsForPeriod(startOfPeriod, endOfPeriod, employeeIds);
+    ContentDisposition disposition = ContentDisposition.attachment()
+        .filename("timesheet_" + startOfPeriod + "_" + endOfPeriod + ".csv")
+        .build();
+
+    //только выгрузка выполняется в своем пуле потоков и с увеличенным таймаутом,
+    //заголовки задаются при начале записи, чтобы отказ пула вернулся как ошибка в JSON
+    return new WebAsyncTask<>(exportTimeout.toMillis(), reportExportExecutor, () -> {
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+      response.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8).toString());
+      body.writeTo(response.getOutputStream());
+      response.flushBuffer();
+      return null;
+    });
+  }
+
+
 
   @Operation(summary = "Отчет со списком проектов попадающих в указанный период",
       description = "Доступен администратору. Возвращает даты с началом и концом запрошенного "
@@ -182,4 +263,285 @@ public class ReportController {
   public ResponseEntity<ReportDashboardStatsDto> dashboardStats() {
     return ResponseEntity.ok(reportService.getDashboardStatsDto());
   }
+
+  /**
+   * Subscribes to the dashboard statistics by server-sent events.
+   *
+   * @return the {@link SseEmitter} sending the dashboard statistics.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Поток статистики для дашборда",
+      description = "Доступен администратору. Server-sent events: при подключении отправляется "
+          + "событие snapshot с ДТО статистики для дашборда, затем при изменении статистики "
+          + "отправляются события delta только с изменившимися счетчиками. Изменения рассылаются "
+          + "не чаще одного раза в 2 секунды")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "Поток событий со статистикой для дашборда",
+          content = {@Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+              schema = @Schema(implementation = ReportDashboardStatsDto.class))}),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping(value = "/dashboard-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter dashboardStream() {
+    return reportDashboardStatsBroadcaster.subscribe();
+  }
+
+  /**
+   * Retrieves the metrics of the dashboard statistics cache.
+   *
+   * @return A ResponseEntity containing the {@link ReportDashboardCacheMetricsDto} object.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Метрики кэша статистики для дашборда",
+      description = "Доступен администратору. Возвращает ДТО с количеством попаданий в кэш "
+          + "(в том числе устаревших данных), промахов, долей попаданий, количеством расчетов "
+          + "статистики, временем последнего расчета и средним временем расчета в миллисекундах")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "ДТО с метриками кэша статистики для дашборда",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = ReportDashboardCacheMetricsDto.class))}),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping("/dashboard-cache-metrics")
+  public ResponseEntity<ReportDashboardCacheMetricsDto> dashboardCacheMetrics() {
+    return ResponseEntity.ok(reportService.getDashboardCacheMetrics());
+  }
+
+  /**
+   * Retrieves the metrics of the cache of the reports over closed periods.
+   *
+   * @return A ResponseEntity containing the {@link ReportCacheMetricsDto} object.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Метрики кэша отчетов за закрытые периоды",
+      description = "Доступен администратору. Возвращает ДТО с количеством попаданий в кэш, "
+          + "промахов, долей попаданий, количеством сохраненных и отклоненных отчетов, "
+          + "вытеснений и инвалидаций, количеством отчетов в кэше, их весом в строках "
+          + "и максимальным весом")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "ДТО с метриками кэша отчетов",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = ReportCacheMetricsDto.class))}),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping("/cache-metrics")
+  public ResponseEntity<ReportCacheMetricsDto> cacheMetrics() {
+    return ResponseEntity.ok(reportService.getReportCacheMetrics());
+  }
+
+  /**
+   * Removes all reports from the cache of the reports over closed periods.
+   *
+   * @return A ResponseEntity with the status of the request.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Очистка кэша отчетов за закрытые периоды",
+      description = "Доступен администратору. Удаляет из кэша все отчеты, следующие запросы "
+          + "отчетов строятся заново")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "Кэш отчетов очищен",
+          content = @Content),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @PostMapping("/cache-evict")
+  public ResponseEntity<HttpStatus> cacheEvict() {
+    reportService.evictReportCache();
+    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+  }
+
+  /**
+   * Submits the report job, which builds the report in the background.
+   *
+   * @param req       the request of the report
+   * @param principal the {@link Principal} provided from the client
+   * @return A ResponseEntity containing the {@link ReportJobDto} object of the queued job.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Постановка отчета в очередь на фоновое построение",
+      description = "Доступен администратору. Принимает тип отчета и его параметры: период "
+          + "и список ID сотрудников для отчетов за период или запрос отчета по срокам. "
+          + "Возвращает ДТО задания с его идентификатором. Состояние задания запрашивается "
+          + "по идентификатору или по подписке, результат скачивается после завершения задания. "
+          + "Для небольших периодов остаются доступны синхронные отчеты")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "202",
+          description = "ДТО задания, поставленного в очередь",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = ReportJobDto.class))}),
+      @ApiResponse(responseCode = "400",
+          description = "Не указан тип отчета, период или запрос отчета по срокам",
+          content = @Content),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content),
+      @ApiResponse(responseCode = "429",
+          description = "Превышено количество незавершенных заданий пользователя",
+          content = @Content),
+      @ApiResponse(responseCode = "503", description = "Очередь заданий заполнена",
+          content = @Content)})
+  @PostMapping("/jobs")
+  public ResponseEntity<ReportJobDto> submitJob(
+      @Valid @RequestBody ReportJobReq req, @ApiIgnore Principal principal) {
+    return new ResponseEntity<>(reportJobService.submit(req, principal.getName()),
+        HttpStatus.ACCEPTED);
+  }
+
+  /**
+   * Retrieves the state of the report job.
+   *
+   * @param jobId     the id of the job
+   * @param principal the {@link Principal} provided from the client
+   * @return A ResponseEntity containing the {@link ReportJobDto} object.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Состояние задания на построение отчета",
+      description = "Доступен администратору, поставившему задание. Возвращает ДТО задания "
+          + "со статусом, позицией в очереди, размером записанного результата в байтах, "
+          + "временем постановки, начала, завершения и удаления результата")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "ДТО задания",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = ReportJobDto.class))}),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "404", description = "Задание не найдено",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping("/jobs/{jobId}")
+  public ResponseEntity<ReportJobDto> job(
+      @PathVariable @Parameter(description = "Идентификатор задания") String jobId,
+      @ApiIgnore Principal principal) {
+    return ResponseEntity.ok(reportJobService.get(jobId, principal.getName()));
+  }
+
+  /**
+   * Subscribes to the state of the report job.
+   *
+   * @param jobId     the id of the job
+   * @param principal the {@link Principal} provided from the client
+   * @return the {@link SseEmitter} of the subscriber.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Поток состояния задания на построение отчета",
+      description = "Доступен администратору, поставившему задание. Server-sent events: "
+          + "при подключении и при каждом изменении состояния отправляется событие status "
+          + "с ДТО задания, поток закрывается после завершения задания")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Поток событий с состоянием задания",
+          content = {@Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+              schema = @Schema(implementation = ReportJobDto.class))}),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "404", description = "Задание не найдено",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter jobEvents(
+      @PathVariable @Parameter(description = "Идентификатор задания") String jobId,
+      @ApiIgnore Principal principal) {
+    return reportJobService.subscribe(jobId, principal.getName());
+  }
+
+  /**
+   * Downloads the result of the finished report job.
+   *
+   * @param jobId     the id of the job
+   * @param principal the {@link Principal} provided from the client
+   * @return A ResponseEntity containing the file of the result.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Скачивание результата задания на построение отчета",
+      description = "Доступен администратору, поставившему задание. Возвращает файл отчета: "
+          + "JSON с тем же ДТО, что и синхронный отчет, или CSV для выгрузки табеля. "
+          + "Результат доступен до удаления задания или истечения срока хранения")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Файл отчета",
+          content = {@Content(mediaType = "application/json"),
+              @Content(mediaType = "text/csv")}),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "404", description = "Задание не найдено",
+          content = @Content),
+      @ApiResponse(responseCode = "409", description = "Задание еще не завершено успешно",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping("/jobs/{jobId}/result")
+  public ResponseEntity<Resource> jobResult(
+      @PathVariable @Parameter(description = "Идентификатор задания") String jobId,
+      @ApiIgnore Principal principal) {
+    ReportJobService.ReportJobResult result =
+        reportJobService.getResult(jobId, principal.getName());
+    boolean csv = result.type() == ReportJobType.WORKING_SHIFTS_EXPORT;
+    ContentDisposition disposition = ContentDisposition.attachment()
+        .filename("report_" + result.type().name().toLowerCase() + "_" + jobId
+            + (csv ? ".csv" : ".json"))
+        .build();
+
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+        .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+            : MediaType.APPLICATION_JSON)
+        .body(new FileSystemResource(result.file()));
+  }
+
+  /**
+   * Cancels the report job and removes it with its result.
+   *
+   * @param jobId     the id of the job
+   * @param principal the {@link Principal} provided from the client
+   * @return A ResponseEntity with the status of the request.
+   */
+  @io.swagger.v3.oas.annotations.Operation(
+      summary = "Отмена и удаление задания на построение отчета",
+      description = "Доступен администратору, поставившему задание. Незавершенное задание "
+          + "отменяется, задание и его результат удаляются")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "Задание удалено",
+          content = @Content),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "404", description = "Задание не найдено",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @DeleteMapping("/jobs/{jobId}")
+  public ResponseEntity<HttpStatus> cancelJob(
+      @PathVariable @Parameter(description = "Идентификатор задания") String jobId,
+      @ApiIgnore Principal principal) {
+    reportJobService.cancel(jobId, principal.getName());
+    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+  }
 }
@@ -77,6 +77,11 @@ public class TypeWorkController {
       Boolean isActive) {
     
     Sort typeWorkSort = pageSetting.buildTypeWorkSort();
+    //режим курсора: следующая страница выбирается по ключу сортировки без подсчета количества
+    if (pageSetting.getAfter() != null) {
+      return ResponseEntity.ok(typeWorkService.getTypeWorkDtoPageAfter(
+          typeWorkSort, pageSetting.getElementPerPage(), pageSetting.getAfter(), isActive));
+    }
     Pageable typeWorkPage = PageRequest.of(
         pageSetting.getPage(), pageSetting.getElementPerPage(), typeWorkSort);
     return ResponseEntity.ok(typeWorkService.getTypeWorkDtoPage(typeWorkPage, isActive));
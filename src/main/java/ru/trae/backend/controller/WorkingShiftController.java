@@ -22,7 +22,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import ru.trae.backend.dto.workingshift.PresenceRegistryMetricsDto;
+import ru.trae.backend.dto.workingshift.SchedulerLeaderMetricsDto;
 import ru.trae.backend.dto.workingshift.WorkingShiftDto;
+import ru.trae.backend.service.SchedulerLeaderElection;
 import ru.trae.backend.service.WorkingShiftService;
 
 /**
@@ -37,6 +40,7 @@ import ru.trae.backend.service.WorkingShiftService;
 @RequestMapping("/api/working-shift")
 public class WorkingShiftController {
   private final WorkingShiftService workingShiftService;
+  private final SchedulerLeaderElection schedulerLeaderElection;
 
   @GetMapping("/active")
   public ResponseEntity<WorkingShiftDto> activeWorkingShift() {
@@ -65,4 +69,44 @@ public class WorkingShiftController {
   public ResponseEntity<Boolean> statusEmployee(@PathVariable long employeeId) {
     return ResponseEntity.ok(workingShiftService.employeeOnShift(true, employeeId));
   }
+
+  @Operation(summary = "Метрики реестра сотрудников на смене",
+      description = "Доступен администратору. Возвращает ДТО с количеством сотрудников на смене "
+          + "в реестре, количеством выполненных и пропущенных сверок реестра с отметками "
+          + "о приходе, количеством расхождений при последней сверке и за все время")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "ДТО с метриками реестра сотрудников на смене",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = PresenceRegistryMetricsDto.class))}),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping("/presence-metrics")
+  public ResponseEntity<PresenceRegistryMetricsDto> presenceMetrics() {
+    return ResponseEntity.ok(workingShiftService.getPresenceMetrics());
+  }
+
+  @Operation(summary = "Метрики выбора ведущего экземпляра планировщика смен",
+      description = "Доступен администратору. Возвращает ДТО с признаком ведущего экземпляра, "
+          + "количеством полученных и потерянных блокировок планировщика, количеством "
+          + "успешных и отклоненных проверок и временем удержания блокировки в миллисекундах")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "ДТО с метриками выбора ведущего экземпляра планировщика смен",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = SchedulerLeaderMetricsDto.class))}),
+      @ApiResponse(responseCode = "401", description = "Требуется аутентификация",
+          content = @Content),
+      @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+          content = @Content),
+      @ApiResponse(responseCode = "423", description = "Учетная запись заблокирована",
+          content = @Content)})
+  @GetMapping("/scheduler-metrics")
+  public ResponseEntity<SchedulerLeaderMetricsDto> schedulerMetrics() {
+    return ResponseEntity.ok(schedulerLeaderElection.getMetrics());
+  }
 }
@@ -13,14 +13,29 @@ package ru.trae.backend.dto;
 import java.util.List;
 
 /**
- * PageDto.
+ * A page of elements. In the keyset (cursor) mode the total number of elements is not counted:
+ * {@code totalElements} and {@code totalPages} are -1 and {@code nextCursor} is used to request
+ * the next page.
  *
- * @param <T> the type parameter
+ * @param content           the elements of the page
+ * @param totalElements     the total number of elements or -1 in the keyset mode
+ * @param totalPages        the total number of pages or -1 in the keyset mode
+ * @param currentNumberPage the number of the current page
+ * @param nextCursor        the cursor of the next page or null if there are no more elements
+ * @param <T>               the type of the elements
  */
 public record PageDto<T>(
     List<T> content,
     long totalElements,
     long totalPages,
-    int currentNumberPage
+    int currentNumberPage,
+    String nextCursor
 ) {
+  public PageDto(List<T> content, long totalElements, long totalPages, int currentNumberPage) {
+    this(content, totalElements, totalPages, currentNumberPage, null);
+  }
+
+  public PageDto(List<T> content, String nextCursor) {
+    this(content, -1, -1, 0, nextCursor);
+  }
 }
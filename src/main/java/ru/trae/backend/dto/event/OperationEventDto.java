@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.dto.event;
+
+import java.time.LocalDateTime;
+import ru.trae.backend.util.OperationEventType;
+
+/**
+ * DTO of the event of the operation event log.
+ *
+ * @param id             the id of the event, it is also the cursor of the event
+ * @param type           the type of the event
+ * @param operationId    the id of the operation, null for the events of the project
+ * @param projectId      the id of the project
+ * @param employeeId     the id of the employee, who has received or finished the operation
+ * @param plannedEndDate the planned end date of the operation or the new planned end date
+ *                       of the project
+ * @param createdAt      the date of the event
+ * @author Vladimir Olennikov
+ */
+public record OperationEventDto(
+    long id,
+    OperationEventType type,
+    Long operationId,
+    long projectId,
+    Long employeeId,
+    LocalDateTime plannedEndDate,
+    LocalDateTime createdAt
+) {
+}
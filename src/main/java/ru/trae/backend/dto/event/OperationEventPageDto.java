@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.dto.event;
+
+import java.util.List;
+
+/**
+ * DTO of the page of the operation event log.
+ *
+ * @param events the events ordered by id
+ * @param cursor the cursor for the next request: the id of the last event of the page,
+ *               or the requested cursor if there are no new events
+ * @author Vladimir Olennikov
+ */
+public record OperationEventPageDto(
+    List<OperationEventDto> events,
+    long cursor
+) {
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.dto.mapper;
+
+import java.util.function.Function;
+import org.springframework.stereotype.Service;
+import ru.trae.backend.dto.event.OperationEventDto;
+import ru.trae.backend.entity.OperationEvent;
+
+/**
+ * This class is a mapper for OperationEvent entities to OperationEventDto objects.
+ *
+ * @author Vladimir Olennikov
+ */
+@Service
+public class OperationEventDtoMapper implements Function<OperationEvent, OperationEventDto> {
+
+  @Override
+  public OperationEventDto apply(OperationEvent e) {
+    return new OperationEventDto(e.getId(), e.getType(), e.getOperationId(), e.getProjectId(),
+        e.getEmployeeId(), e.getPlannedEndDate(), e.getCreatedAt());
+  }
+}
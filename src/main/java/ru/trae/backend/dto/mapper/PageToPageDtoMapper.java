@@ -10,6 +10,9 @@
 
 package ru.trae.backend.dto.mapper;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
@@ -19,9 +22,11 @@ import ru.trae.backend.dto.manager.ManagerShortDto;
 import ru.trae.backend.dto.project.ProjectShortDto;
 import ru.trae.backend.dto.type.TypeWorkDto;
 import ru.trae.backend.entity.TypeWork;
-import ru.trae.backend.entity.task.Project;
 import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.projection.OperationShortRowDto;
+import ru.trae.backend.projection.ProjectShortRowDto;
+import ru.trae.backend.repository.KeysetSlice;
 
 /**
  * This class is used for mapping a Page of a certain model to a PageDto with corresponding Dtos.
@@ -74,14 +79,47 @@ public class PageToPageDtoMapper {
   }
 
   /**
-   * Converts a page of projects to page DTO.
+   * Converts a page of project rows to page DTO.
    *
-   * @param page page of projects
+   * @param page page of project rows
+   * @param ops  current and last operations of the projects on the page, grouped by project id
    * @return page DTO
    */
-  public PageDto<ProjectShortDto> projectPageToPageDto(Page<Project> page) {
+  public PageDto<ProjectShortDto> projectPageToPageDto(
+      Page<ProjectShortRowDto> page, Map<Long, List<OperationShortRowDto>> ops) {
     return new PageDto<>(page.getContent().stream()
-        .map(projectShortDtoMapper)
+        .map(p -> projectShortDtoMapper.apply(p, ops.getOrDefault(p.getId(), List.of())))
         .toList(), page.getTotalElements(), page.getTotalPages(), page.getNumber());
   }
+
+  /**
+   * Converts project rows selected by keyset pagination to page DTO.
+   *
+   * @param rows       project rows
+   * @param ops        current and last operations of the projects, grouped by project id
+   * @param nextCursor cursor of the next page
+   * @return page DTO
+   */
+  public PageDto<ProjectShortDto> projectRowsToPageDto(
+      List<ProjectShortRowDto> rows, Map<Long, List<OperationShortRowDto>> ops,
+      String nextCursor) {
+    return new PageDto<>(rows.stream()
+        .map(p -> projectShortDtoMapper.apply(p, ops.getOrDefault(p.getId(), List.of())))
+        .toList(), nextCursor);
+  }
+
+  /**
+   * Maps a slice selected by keyset pagination to page DTO.
+   *
+   * @param slice  slice of elements
+   * @param mapper mapper of the elements
+   * @param <S>    type of the elements
+   * @param <T>    type of the DTO
+   * @return page DTO
+   */
+  public <S, T> PageDto<T> sliceToPageDto(KeysetSlice<S> slice, Function<S, T> mapper) {
+    return new PageDto<>(slice.content().stream()
+        .map(mapper)
+        .toList(), slice.nextCursor());
+  }
 }
@@ -12,69 +12,83 @@ package ru.trae.backend.dto.mapper;
 
 import static ru.trae.backend.service.OperationService.SHIPMENT_PERIOD;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.trae.backend.dto.operation.OperationForReportDto;
 import ru.trae.backend.dto.project.ProjectForReportDto;
-import ru.trae.backend.entity.task.Operation;
-import ru.trae.backend.entity.task.Project;
-import ru.trae.backend.util.Util;
+import ru.trae.backend.dto.report.ProjectOperationRowDto;
 
 /**
- * A mapper for mapping a {@link Project} to a {@link ProjectForReportDto}.
+ * A mapper for mapping the rows of a project, one row for each operation ordered
+ * by the priority, to a {@link ProjectForReportDto}. The dates of the operations which
+ * are not started yet are projected from the previous operations, the rows are not changed.
  *
  * @author Vladimir Olennikov
  */
 @Service
-@RequiredArgsConstructor
-public class ProjectForReportDtoMapper implements Function<Project, ProjectForReportDto> {
-  private final OperationForReportDtoMapper operationForReportDtoMapper;
+public class ProjectForReportDtoMapper
+    implements Function<List<ProjectOperationRowDto>, ProjectForReportDto> {
   
   @Override
-  public ProjectForReportDto apply(Project p) {
-    
-    List<Operation> operations = p.getOperations().stream()
-        .sorted(Util::prioritySorting)
+  public ProjectForReportDto apply(List<ProjectOperationRowDto> rows) {
+    ProjectOperationRowDto p = rows.get(0);
+    List<OperationForReportDto> operations = rows.stream()
+        .map(ProjectOperationRowDto::operation)
+        .filter(Objects::nonNull)
         .toList();
     
-    List<OperationForReportDto> operationForReportDtoList = new ArrayList<>();
+    return new ProjectForReportDto(
+        p.projectId(),
+        p.number(),
+        p.name(),
+        p.startDate(),
+        p.startFirstOperationDate(),
+        p.plannedEndDate(),
+        p.endDateInContract(),
+        p.realEndDate(),
+        p.isEnded(),
+        p.operationPeriod(),
+        projectSchedule(operations, p.startFirstOperationDate(), p.operationPeriod()),
+        p.customer(),
+        p.comment()
+    );
+  }
+  
+  /**
+   * Projects the schedule of the operations: an operation which is not started yet starts
+   * at the planned end of the previous operation, the first one at the start of the first
+   * operation of the project, and lasts for the operation period, the shipment lasts
+   * for the shipment period.
+   *
+   * @param operations              the operations of the project ordered by the priority
+   * @param startFirstOperationDate the start of the first operation of the project
+   * @param operationPeriod         the period of an operation in hours
+   * @return the operations with the projected start and planned end dates
+   */
+  public static List<OperationForReportDto> projectSchedule(
+      List<OperationForReportDto> operations, LocalDateTime startFirstOperationDate,
+      int operationPeriod) {
+    List<OperationForReportDto> scheduled = new ArrayList<>(operations.size());
+    LocalDateTime previousPlannedEndDate = startFirstOperationDate;
     for (int i = 0; i < operations.size(); i++) {
-      Operation o = operations.get(i);
-      if (o.getStartDate() == null) {
-        if (i == 0) {
-          //обработка случая, когда первая операция не имеет предыдущей операции
-          o.setStartDate(p.getStartFirstOperationDate());
-        } else {
-          o.setStartDate(operations.get(i - 1).getPlannedEndDate());
-        }
+      OperationForReportDto o = operations.get(i);
+      if (o.startDate() == null) {
         //проверка на последнюю операцию в списке
         //если это отгрузка, то добавляется другое количество часов
-        if (i == operations.size() - 1) {
-          o.setPlannedEndDate(o.getStartDate().plusHours(SHIPMENT_PERIOD));
-        } else {
-          o.setPlannedEndDate(o.getStartDate().plusHours(p.getOperationPeriod()));
-        }
+        int period = i == operations.size() - 1 ? SHIPMENT_PERIOD : operationPeriod;
+        LocalDateTime plannedEndDate =
+            previousPlannedEndDate == null ? null : previousPlannedEndDate.plusHours(period);
+        o = new OperationForReportDto(o.id(), o.priority(), o.name(), previousPlannedEndDate,
+            o.acceptanceDate(), plannedEndDate, o.realEndDate(), o.isEnded(), o.inWork(),
+            o.readyToAcceptance());
       }
-      operationForReportDtoList.add(operationForReportDtoMapper.apply(o));
+      scheduled.add(o);
+      previousPlannedEndDate = o.plannedEndDate();
     }
-    
-    return new ProjectForReportDto(
-        p.getId(),
-        p.getNumber(),
-        p.getName(),
-        p.getStartDate(),
-        p.getStartFirstOperationDate(),
-        p.getPlannedEndDate(),
-        p.getEndDateInContract(),
-        p.getRealEndDate(),
-        p.isEnded(),
-        p.getOperationPeriod(),
-        operationForReportDtoList,
-        p.getCustomer(),
-        p.getComment() != null ? p.getComment() : null
-    );
+    return scheduled;
   }
 }
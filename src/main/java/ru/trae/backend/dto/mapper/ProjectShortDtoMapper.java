@@ -13,42 +13,50 @@ package ru.trae.backend.dto.mapper;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Function;
+import java.util.function.BiFunction;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.trae.backend.dto.operation.OperationInfoForProjectTemplateDto;
 import ru.trae.backend.dto.project.ProjectShortDto;
-import ru.trae.backend.entity.task.Operation;
-import ru.trae.backend.entity.task.Project;
-import ru.trae.backend.util.Util;
+import ru.trae.backend.projection.OperationShortRowDto;
+import ru.trae.backend.projection.ProjectShortRowDto;
 
 /**
- * A mapper for mapping a {@link Project} to a {@link ru.trae.backend.dto.project.ProjectShortDto}.
+ * A mapper for mapping a {@link ProjectShortRowDto} and its current and last operations
+ * to a {@link ProjectShortDto}.
  *
  * @author Vladimir Olennikov
  */
 @Service
 @RequiredArgsConstructor
-public class ProjectShortDtoMapper implements Function<Project, ProjectShortDto> {
-  private final OperationInfoForProjectTemplateDtoMapper operationInfoForProjectTemplateDtoMapper;
+public class ProjectShortDtoMapper implements
+    BiFunction<ProjectShortRowDto, List<OperationShortRowDto>, ProjectShortDto> {
 
+  /**
+   * Maps the project row to the short project dto.
+   *
+   * @param p   the project row
+   * @param ops the operations of the project that are in work or ready to acceptance and the last
+   *            operation of the project, sorted by priority
+   * @return the short project dto
+   */
   @Override
-  public ProjectShortDto apply(Project p) {
-    OperationInfoForProjectTemplateDto opDto = p.getOperations().stream()
-        .filter(Util.opIsAcceptanceOrInWork())
-        .findFirst()
-        .map(operationInfoForProjectTemplateDtoMapper)
-        .orElse(operationInfoForProjectTemplateDtoMapper.apply(
-            p.getOperations().stream()
-                .sorted(Util::prioritySorting)
-                .toList()
-                .get(p.getOperations().size() - 1)));
+  public ProjectShortDto apply(ProjectShortRowDto p, List<OperationShortRowDto> ops) {
+    Optional<OperationShortRowDto> currentOp = ops.stream()
+        .filter(o -> o.isInWork() || o.isReadyToAcceptance())
+        .findFirst();
+
+    OperationInfoForProjectTemplateDto opDto = currentOp
+        .or(() -> ops.isEmpty() ? Optional.empty() : Optional.of(ops.get(ops.size() - 1)))
+        .map(o -> new OperationInfoForProjectTemplateDto(
+            o.getName(), o.isEnded(), o.isInWork(), o.isReadyToAcceptance()))
+        .orElse(null);
 
     return new ProjectShortDto(
         p.getId(),
         p.isEnded(),
         checkIsOverdue(p),
-        checkIsOverdueByCurrentOp(p.getOperations()),
+        checkIsOverdueByCurrentOp(currentOp),
         p.getNumber(),
         p.getName(),
         p.getCustomer(),
@@ -56,7 +64,7 @@ public class ProjectShortDtoMapper implements Function<Project, ProjectShortDto>
     );
   }
 
-  private boolean checkIsOverdue(Project p) {
+  private boolean checkIsOverdue(ProjectShortRowDto p) {
     boolean result;
     if (p.isEnded()) {
       result = p.getEndDateInContract().isBefore(p.getRealEndDate());
@@ -66,11 +74,7 @@ public class ProjectShortDtoMapper implements Function<Project, ProjectShortDto>
     return result;
   }
 
-  private boolean checkIsOverdueByCurrentOp(List<Operation> operations) {
-    Optional<Operation> currentOp = operations.stream()
-        .filter(o -> o.isInWork() || o.isReadyToAcceptance())
-        .findFirst();
-
+  private boolean checkIsOverdueByCurrentOp(Optional<OperationShortRowDto> currentOp) {
     return currentOp.isEmpty() || currentOp.get().getPlannedEndDate().isBefore(LocalDateTime.now());
   }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.dto.operation;
+
+import static ru.trae.backend.service.OperationBulkActionService.MAX_BULK_SIZE;
+
+import java.util.List;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import ru.trae.backend.util.BulkOperationAction;
+
+/**
+ * Request of the bulk action applied to a list of operations.
+ *
+ * @param action       the action applied to the operations
+ * @param operationIds the ids of the operations, the size of the list is limited
+ * @author Vladimir Olennikov
+ */
+public record BulkOperationReq(
+    @NotNull(message = "Invalid action: action is NULL")
+    BulkOperationAction action,
+    @NotEmpty(message = "The list of operation ids cannot be empty")
+    @Size(max = MAX_BULK_SIZE, message =
+        "The list of operation ids cannot contain more than " + MAX_BULK_SIZE + " ids")
+    List<@NotNull(message = "Invalid operation id: id is NULL") Long> operationIds
+) {
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.dto.operation;
+
+import ru.trae.backend.util.BulkOperationStatus;
+
+/**
+ * Result of the bulk action for a single operation.
+ *
+ * @param operationId the id of the operation
+ * @param status      the result of the action
+ * @param message     the reason of the rejection, null if the action has been applied
+ * @author Vladimir Olennikov
+ */
+public record BulkOperationResultDto(
+    long operationId,
+    BulkOperationStatus status,
+    String message
+) {
+}
@@ -8,7 +8,7 @@ package ru.trae.backend.dto.project;
  */
 public record ProjectAvailableForEmpDto(
     long id,
-    long number,
+    int number,
     String customer,
     String projectName,
     String availableOperationName
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.dto.report;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data transfer object for an operation of the deadline report: the dates of the operation
+ * with the project and the employee of the operation. The employee is null if the operation
+ * has not been assigned.
+ *
+ * @author Vladimir Olennikov
+ */
+public record OperationDeadlineRowDto(
+    Long id,
+    String name,
+    LocalDateTime plannedEndDate,
+    LocalDateTime realEndDate,
+    Long projectId,
+    int projectNumber,
+    Long employeeId,
+    String employeeLastName
+) {
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.dto.report;
+
+import java.time.LocalDateTime;
+import ru.trae.backend.dto.operation.OperationForReportDto;
+
+/**
+ * Data transfer object for a row of the report on the projects for the period: the project
+ * with one of its operations, as it is stored in the database. The operation is null
+ * for a project without operations.
+ *
+ * @author Vladimir Olennikov
+ */
+public record ProjectOperationRowDto(
+    long projectId,
+    int number,
+    String name,
+    LocalDateTime startDate,
+    LocalDateTime startFirstOperationDate,
+    LocalDateTime plannedEndDate,
+    LocalDateTime endDateInContract,
+    LocalDateTime realEndDate,
+    boolean isEnded,
+    int operationPeriod,
+    String customer,
+    String comment,
+    OperationForReportDto operation
+) {
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.dto.report;
+
+/**
+ * Data transfer object for the metrics of the cache of the reports over closed periods.
+ *
+ * @author Vladimir Olennikov
+ */
+public record ReportCacheMetricsDto(
+    long hits,
+    long misses,
+    double hitRate,
+    long puts,
+    long rejectedPuts,
+    long evictions,
+    long invalidations,
+    int entries,
+    long weight,
+    long maxWeight
+) {
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.dto.report;
+
+/**
+ * Data transfer object for the metrics of the dashboard statistics cache.
+ *
+ * @author Vladimir Olennikov
+ */
+public record ReportDashboardCacheMetricsDto(
+    long hits,
+    long staleHits,
+    long misses,
+    double hitRate,
+    long computations,
+    double lastComputationMillis,
+    double averageComputationMillis
+) {
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.dto.report;
+
+import java.time.LocalDateTime;
+import ru.trae.backend.util.ReportJobStatus;
+import ru.trae.backend.util.ReportJobType;
+
+/**
+ * Data transfer object for the state of a report job. The position in the queue is set
+ * for a queued job only, the size of the result grows while the result is being written.
+ *
+ * @author Vladimir Olennikov
+ */
+public record ReportJobDto(
+    String id,
+    ReportJobType type,
+    ReportJobStatus status,
+    int queuePosition,
+    long resultSize,
+    LocalDateTime submittedAt,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt,
+    LocalDateTime expiresAt,
+    String error
+) {
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.dto.report;
+
+import java.time.LocalDate;
+import java.util.Set;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import ru.trae.backend.util.ReportJobType;
+
+/**
+ * Request to submit a report job. The period is required by the reports for the period,
+ * the deadline request is required by the deadline report.
+ *
+ * @author Vladimir Olennikov
+ */
+public record ReportJobReq(
+    @NotNull(message = "Type of report is NULL")
+    ReportJobType type,
+    LocalDate startOfPeriod,
+    LocalDate endOfPeriod,
+    Set<Long> employeeIds,
+    @Valid
+    DeadlineReq deadlines
+) {
+}
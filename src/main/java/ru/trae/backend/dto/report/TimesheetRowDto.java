@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.dto.report;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data transfer object for a row of the exported timesheet: the part of the shift worked
+ * by the employee on the day.
+ *
+ * @author Vladimir Olennikov
+ */
+public record TimesheetRowDto(
+    long employeeId,
+    String lastName,
+    String firstName,
+    LocalDate shiftDate,
+    boolean autoClosed,
+    BigDecimal partOfShift
+) {
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.dto.workingshift;
+
+/**
+ * Data transfer object for the metrics of the registry of the employees on shift.
+ *
+ * @author Vladimir Olennikov
+ */
+public record PresenceRegistryMetricsDto(
+    int size,
+    long reconciliations,
+    long skippedReconciliations,
+    long lastDrift,
+    long totalDrift
+) {
+}
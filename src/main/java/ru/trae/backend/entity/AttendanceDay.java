@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * This class represents the daily attendance rollup of an employee: the part of the 9-hour
+ * shift worked on the day, separately for the time controls closed by the employee and
+ * the ones closed automatically. The rows are added when the working shift is closed.
+ *
+ * @author Vladimir Olennikov
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "attendance_days",
+    uniqueConstraints = @UniqueConstraint(name = "attendance_days_shift_date_employee_id_key",
+        columnNames = {"shift_date", "employee_id", "auto_closed"}),
+    indexes = @Index(name = "attendance_days_employee_id_idx", columnList = "employee_id"))
+public class AttendanceDay {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id", nullable = false)
+  private Long id;
+  @Column(name = "employee_id", nullable = false)
+  private Long employeeId;
+  @Column(name = "shift_date", nullable = false)
+  private LocalDate shiftDate;
+  @Column(name = "auto_closed", nullable = false)
+  private boolean autoClosed;
+  @Column(name = "part_of_shift", nullable = false, precision = 10, scale = 4)
+  private BigDecimal partOfShift;
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    AttendanceDay that = (AttendanceDay) o;
+    return Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.entity;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import ru.trae.backend.util.OperationEventType;
+
+/**
+ * This class represents an entry of the append-only log of the operation transitions.
+ * The entry refers to the operation and the project by their ids only, so the history of
+ * the deleted operations is kept.
+ *
+ * @author Vladimir Olennikov
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "operation_events")
+public class OperationEvent {
+  @Id
+  //идентификатор служит курсором потребителей, поэтому выделяется по одному под блокировкой
+  //журнала: заранее выделенный блок нарушил бы порядок фиксации между экземплярами
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operation_events_id_seq")
+  @SequenceGenerator(name = "operation_events_id_seq", sequenceName = "operation_events_id_seq",
+      allocationSize = 1)
+  @Column(name = "id", nullable = false)
+  private Long id;
+  @Enumerated(EnumType.STRING)
+  @Column(name = "type", nullable = false, length = 40)
+  private OperationEventType type;
+  @Column(name = "operation_id")
+  private Long operationId;
+  @Column(name = "project_id", nullable = false)
+  private Long projectId;
+  @Column(name = "employee_id")
+  private Long employeeId;
+  @Column(name = "planned_end_date")
+  private LocalDateTime plannedEndDate;
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    OperationEvent that = (OperationEvent) o;
+    return Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id);
+  }
+}
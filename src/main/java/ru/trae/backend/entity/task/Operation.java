@@ -14,18 +14,23 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.Max;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.util.OperationState;
 
 /**
  * The Operation class represents a task of a project.
@@ -35,15 +40,24 @@ import ru.trae.backend.entity.user.Employee;
 @Entity
 @Getter
 @Setter
-@Table(name = "operations")
+@Table(name = "operations", uniqueConstraints = @UniqueConstraint(
+    name = Operation.PROJECT_PRIORITY_CONSTRAINT, columnNames = {"project_id", "priority"}))
 public class Operation extends Task {
+  public static final String PROJECT_PRIORITY_CONSTRAINT = "operations_project_id_priority_uidx";
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  //идентификаторы выделяются блоками, чтобы Hibernate мог вставлять записи пакетами
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operations_id_seq")
+  @SequenceGenerator(name = "operations_id_seq", sequenceName = "operations_id_seq",
+      allocationSize = 50)
   @Column(name = "id", nullable = false)
   private Long id;
   @Max(999)
   @Column(name = "priority", nullable = false)
   private int priority;
+  //флаги inWork, readyToAcceptance и isEnded повторяют состояние для запросов и индексов
+  @Enumerated(EnumType.STRING)
+  @Column(name = "state", nullable = false, length = 20)
+  private OperationState state = OperationState.WAITING;
   @Column(name = "in_work")
   private boolean inWork;
   @Column(name = "ready_to_acceptance")
@@ -63,6 +77,18 @@ public class Operation extends Task {
   @JoinColumn(name = "type_work_id", nullable = false)
   private TypeWork typeWork;
 
+  /**
+   * Sets the state of the operation and the flags corresponding to the state.
+   *
+   * @param state the new state of the operation
+   */
+  public void setState(OperationState state) {
+    this.state = state;
+    setInWork(state.isInWork());
+    setReadyToAcceptance(state.isReadyToAcceptance());
+    setEnded(state.isEnded());
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
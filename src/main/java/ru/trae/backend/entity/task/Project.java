@@ -24,6 +24,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
@@ -45,7 +46,10 @@ import ru.trae.backend.entity.user.Manager;
 @Table(name = "projects")
 public class Project extends Task {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  //идентификаторы выделяются блоками, чтобы Hibernate мог вставлять записи пакетами
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "projects_id_seq")
+  @SequenceGenerator(name = "projects_id_seq", sequenceName = "projects_id_seq",
+      allocationSize = 50)
   @Column(name = "id", nullable = false)
   private Long id;
   @Min(1)
@@ -74,6 +78,18 @@ public class Project extends Task {
   @ToString.Exclude
   @OneToMany(mappedBy = "project", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
   private List<Operation> operations = new ArrayList<>();
+  //состояние проекта для фильтров списка, поддерживается ProjectListStateService
+  @Column(name = "current_op_id", insertable = false, updatable = false)
+  private Long currentOpId;
+  @Column(name = "current_op_priority", insertable = false, updatable = false)
+  private Integer currentOpPriority;
+  @Column(name = "current_op_in_work", insertable = false, updatable = false)
+  private Boolean currentOpInWork;
+  @Column(name = "current_op_planned_end_date", insertable = false, updatable = false)
+  private LocalDateTime currentOpPlannedEndDate;
+  @Column(name = "last_op_ready_to_acceptance", insertable = false, updatable = false,
+      columnDefinition = "boolean default false not null")
+  private boolean lastOpReadyToAcceptance;
 
   @Override
   public boolean equals(Object o) {
@@ -30,13 +30,13 @@ import lombok.Setter;
 @MappedSuperclass
 public abstract class User {
   @Size(min = 1, max = 100)
-  @Column(name = "first_name", columnDefinition = "varchar(100)")
+  @Column(name = "first_name", nullable = false, columnDefinition = "varchar(100)")
   private String firstName;
   @Size(max = 100)
   @Column(name = "middle_name", columnDefinition = "varchar(100)")
   private String middleName;
   @Size(min = 2, max = 100)
-  @Column(name = "last_name", columnDefinition = "varchar(100)")
+  @Column(name = "last_name", nullable = false, columnDefinition = "varchar(100)")
   private String lastName;
   @Size(min = 7, max = 30)
   @Column(name = "phone", columnDefinition = "varchar(30)")
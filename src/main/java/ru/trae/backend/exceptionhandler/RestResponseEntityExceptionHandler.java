@@ -16,6 +16,7 @@ import java.util.stream.Collectors;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -33,6 +34,7 @@ import ru.trae.backend.exceptionhandler.exception.EmployeeException;
 import ru.trae.backend.exceptionhandler.exception.LoginCredentialException;
 import ru.trae.backend.exceptionhandler.exception.ManagerException;
 import ru.trae.backend.exceptionhandler.exception.OperationException;
+import ru.trae.backend.exceptionhandler.exception.PaginationException;
 import ru.trae.backend.exceptionhandler.exception.PayloadPieceException;
 import ru.trae.backend.exceptionhandler.exception.ProjectException;
 import ru.trae.backend.exceptionhandler.exception.ReportException;
@@ -90,6 +92,11 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
     return new ResponseEntity<>(buildResponse(e), e.getStatus());
   }
   
+  @ExceptionHandler(PaginationException.class)
+  protected ResponseEntity<Response> handleException(PaginationException e) {
+    return new ResponseEntity<>(buildResponse(e), e.getStatus());
+  }
+  
   @ExceptionHandler(LoginCredentialException.class)
   protected ResponseEntity<Response> handleException(LoginCredentialException e) {
     return new ResponseEntity<>(buildResponse(e), e.getStatus());
@@ -125,6 +132,18 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
     return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
   }
   
+  @ExceptionHandler(TaskRejectedException.class)
+  protected ResponseEntity<Response> handleException(TaskRejectedException e) {
+    
+    Response response = Response.builder()
+        .timestamp(LocalDateTime.now().toString())
+        .error("The queue of the export is full, try again later")
+        .status(HttpStatus.SERVICE_UNAVAILABLE)
+        .build();
+    
+    return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+  
   @ExceptionHandler(ConstraintViolationException.class)
   protected ResponseEntity<Response> handleValidException(ConstraintViolationException e) {
     
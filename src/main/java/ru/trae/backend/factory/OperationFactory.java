@@ -17,6 +17,7 @@ import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.entity.task.Operation;
 import ru.trae.backend.entity.task.Project;
 import ru.trae.backend.service.TypeWorkService;
+import ru.trae.backend.util.OperationState;
 
 /**
  * Service class for creation operation objects.
@@ -26,6 +27,8 @@ import ru.trae.backend.service.TypeWorkService;
 @Component
 @RequiredArgsConstructor
 public class OperationFactory {
+  //у типа работы "Отгрузка" ID всегда = 1
+  public static final long SHIPMENT_TYPE_WORK_ID = 1;
   private final TypeWorkService typeWorkService;
   
   /**
@@ -43,6 +46,27 @@ public class OperationFactory {
   public Operation create(Project p, String name, int period, int priority,
                           LocalDateTime start,
                           boolean ready, long typeWorkId
+  ) {
+    return create(p, name, period, priority, start, ready,
+        typeWorkService.getTypeWorkById(typeWorkId));
+  }
+  
+  /**
+   * Creates a new Operation object with the specified details and the already loaded
+   * type of work.
+   *
+   * @param p        the project to which the operation belongs
+   * @param name     the name of the operation
+   * @param period   the duration of the operation in hours
+   * @param priority the priority of the operation
+   * @param start    the start date/time of the operation
+   * @param ready    a flag indicating if the operation is ready for acceptance
+   * @param typeWork the type of work associated with the operation
+   * @return a newly created Operation object with the specified details
+   */
+  public Operation create(Project p, String name, int period, int priority,
+                          LocalDateTime start,
+                          boolean ready, TypeWork typeWork
   ) {
     Operation o = new Operation();
     
@@ -53,10 +77,8 @@ public class OperationFactory {
     o.setStartDate(start);
     o.setPlannedEndDate(start != null ? start.plusHours(period) : null);
     o.setAcceptanceDate(null);
-    o.setEnded(false);
-    o.setInWork(false);
-    o.setReadyToAcceptance(ready);
-    o.setTypeWork(typeWorkService.getTypeWorkById(typeWorkId));
+    o.setState(ready ? OperationState.READY_TO_ACCEPTANCE : OperationState.WAITING);
+    o.setTypeWork(typeWork);
     
     return o;
   }
@@ -69,16 +91,26 @@ public class OperationFactory {
    * @return a newly created Operation object representing the shipment operation
    */
   public Operation createShipmentOp(Project p, int priority) {
-    //у типа работы "Отгрузка" ID всегда = 1
-    TypeWork shipment = typeWorkService.getTypeWorkById(1);
-    
+    return createShipmentOp(p, priority, typeWorkService.getTypeWorkById(SHIPMENT_TYPE_WORK_ID));
+  }
+  
+  /**
+   * Creates a shipment operation for the specified project with the given priority and
+   * the already loaded shipment type of work.
+   *
+   * @param p        the project for which the shipment operation is created
+   * @param priority the priority of the shipment operation
+   * @param shipment the shipment type of work
+   * @return a newly created Operation object representing the shipment operation
+   */
+  public Operation createShipmentOp(Project p, int priority, TypeWork shipment) {
     return create(
         p,
         shipment.getName(),
         24, priority,
         null,
         false,
-        shipment.getId()
+        shipment
     );
   }
 }
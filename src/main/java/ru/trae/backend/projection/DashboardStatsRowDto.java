@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.projection;
+
+/**
+ * Projection interface representing all the counters of the dashboard, selected by one query.
+ *
+ * @author Vladimir Olennikov
+ */
+public interface DashboardStatsRowDto {
+  long getCountEmpsOnActiveWorkingShift();
+  
+  long getCountNotEndedProjects();
+  
+  long getCountProjectsWithOverdueCurrentOperation();
+  
+  long getCountOverdueProjects();
+  
+  long getCountProjectsWithLastOpReadyToAcceptance();
+}
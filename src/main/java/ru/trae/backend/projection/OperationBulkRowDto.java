@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.projection;
+
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import ru.trae.backend.util.OperationState;
+
+/**
+ * Projection interface representing an operation with the data of its project, which is needed
+ * to validate and apply the bulk action.
+ *
+ * @author Vladimir Olennikov
+ */
+public interface OperationBulkRowDto {
+  @Value("#{target.id}")
+  long getId();
+  
+  @Value("#{target.projectId}")
+  long getProjectId();
+  
+  @Value("#{target.state}")
+  OperationState getState();
+  
+  @Value("#{target.typeWorkId}")
+  long getTypeWorkId();
+  
+  @Value("#{target.priority}")
+  int getPriority();
+  
+  @Value("#{target.plannedEndDate}")
+  LocalDateTime getPlannedEndDate();
+  
+  @Value("#{target.operationPeriod}")
+  int getOperationPeriod();
+  
+  @Value("#{target.projectPlannedEndDate}")
+  LocalDateTime getProjectPlannedEndDate();
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.projection;
+
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Projection interface representing the current or the last operation of a project
+ * in the project list.
+ *
+ * @author Vladimir Olennikov
+ */
+public interface OperationShortRowDto {
+  @Value("#{target.projectId}")
+  long getProjectId();
+  
+  @Value("#{target.name}")
+  String getName();
+  
+  @Value("#{target.isEnded}")
+  boolean isEnded();
+  
+  @Value("#{target.inWork}")
+  boolean isInWork();
+  
+  @Value("#{target.readyToAcceptance}")
+  boolean isReadyToAcceptance();
+  
+  @Value("#{target.plannedEndDate}")
+  LocalDateTime getPlannedEndDate();
+}
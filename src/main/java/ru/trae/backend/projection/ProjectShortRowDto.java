@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.projection;
+
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Projection interface representing a row of the project list without its operations.
+ *
+ * @author Vladimir Olennikov
+ */
+public interface ProjectShortRowDto {
+  @Value("#{target.id}")
+  long getId();
+  
+  @Value("#{target.isEnded}")
+  boolean isEnded();
+  
+  @Value("#{target.number}")
+  int getNumber();
+  
+  @Value("#{target.name}")
+  String getName();
+  
+  @Value("#{target.customer}")
+  String getCustomer();
+  
+  @Value("#{target.endDateInContract}")
+  LocalDateTime getEndDateInContract();
+  
+  @Value("#{target.realEndDate}")
+  LocalDateTime getRealEndDate();
+}
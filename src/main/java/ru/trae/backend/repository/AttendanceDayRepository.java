@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.trae.backend.entity.AttendanceDay;
+import ru.trae.backend.projection.WorkingShiftEmployeeDto;
+
+/**
+ * Repository interface for AttendanceDay entity, the daily attendance rollup of the employees.
+ *
+ * @author Vladimir Olennikov
+ */
+@Repository
+public interface AttendanceDayRepository extends JpaRepository<AttendanceDay, Long> {
+  /**
+   * Adds the attendance of the employees on the closed working shift to the rollup.
+   * If the day already has a rollup row (several shifts on one day), the part of the shift
+   * is added to it.
+   *
+   * @param workingShiftId the id of the closed working shift
+   * @return the number of inserted or updated rows
+   */
+  //32400 - количество секунд в 9-часовой смене
+  @Transactional
+  @Modifying
+  @Query(value = """
+      merge into attendance_days ad
+      using (select tc.employee_id,
+                    cast(ws.start_shift as date) as shift_date,
+                    coalesce(tc.auto_closing_shift, false) as auto_closed,
+                    sum(extract(epoch from
+                                (case
+                                     when cast(ws.start_shift as date) + time '18:00' < tc.departure
+                                         then cast(ws.start_shift as date) + time '18:00'
+                                     else tc.departure end) -
+                                (case
+                                     when cast(ws.start_shift as date) + time '09:00' > tc.arrival
+                                         then cast(ws.start_shift as date) + time '09:00'
+                                     else tc.arrival end))) / 32400 as part_of_shift
+             from working_shifts ws
+                      inner join time_controls tc on ws.id = tc.working_shift_id
+             where ws.id = ?1 and tc.departure is not null
+             group by tc.employee_id, cast(ws.start_shift as date),
+                      coalesce(tc.auto_closing_shift, false)) s
+      on ad.shift_date = s.shift_date and ad.employee_id = s.employee_id
+          and ad.auto_closed = s.auto_closed
+      when matched then
+          update set part_of_shift = ad.part_of_shift + s.part_of_shift
+      when not matched then
+          insert (employee_id, shift_date, auto_closed, part_of_shift)
+          values (s.employee_id, s.shift_date, s.auto_closed, s.part_of_shift)""",
+      nativeQuery = true)
+  int rollupWorkingShift(long workingShiftId);
+
+  /**
+   * Returns the attendance of all employees for the period.
+   *
+   * @param startOfPeriod the first day of the period
+   * @param endOfPeriod   the last day of the period
+   * @return the part of the shift worked by the employees per day
+   */
+  @Query(value = """
+      select employee_id,
+             auto_closed as auto_closing_shift,
+             shift_date,
+             round(part_of_shift, 1) as part_of_shift
+      from attendance_days
+      where shift_date between ?1 and ?2
+      order by shift_date, employee_id""", nativeQuery = true)
+  List<WorkingShiftEmployeeDto> findByPeriod(LocalDate startOfPeriod, LocalDate endOfPeriod);
+
+  /**
+   * Returns the attendance of the given employees for the period.
+   *
+   * @param startOfPeriod the first day of the period
+   * @param endOfPeriod   the last day of the period
+   * @param employeeIds   the ids of the employees
+   * @return the part of the shift worked by the employees per day
+   */
+  @Query(value = """
+      select employee_id,
+             auto_closed as auto_closing_shift,
+             shift_date,
+             round(part_of_shift, 1) as part_of_shift
+      from attendance_days
+      where shift_date between ?1 and ?2 and employee_id in ?3
+      order by shift_date, employee_id""", nativeQuery = true)
+  List<WorkingShiftEmployeeDto> findByPeriodAndEmployeeIds(
+      LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds);
+}
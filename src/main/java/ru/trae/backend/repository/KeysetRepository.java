@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import java.lang.reflect.AnnotatedElement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.persistence.Column;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.SingularAttribute;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Repository;
+import ru.trae.backend.exceptionhandler.exception.PaginationException;
+import ru.trae.backend.util.KeysetCursor;
+
+/**
+ * This repository provides keyset (seek) pagination for entities: the next slice is selected
+ * by the condition {@code (key, id) > (?, ?)} with a limit instead of an offset, and the total
+ * number of elements is not counted. The id is always added as the last sort key, so the order
+ * is stable.
+ *
+ * @author Vladimir Olennikov
+ */
+@Repository
+@RequiredArgsConstructor
+public class KeysetRepository {
+  private static final String ID = "id";
+  private final EntityManager entityManager;
+
+  /**
+   * Finds a slice of entities after the cursor.
+   *
+   * @param type   the type of the entities
+   * @param filter the filter of the entities, can be null
+   * @param sort   the sort of the entities
+   * @param after  the cursor of the previous slice, null or empty for the first slice
+   * @param limit  the maximum number of entities in the slice
+   * @param <T>    the type of the entities
+   * @return the slice of entities with the cursor of the next slice
+   */
+  public <T> KeysetSlice<T> findSlice(
+      Class<T> type, Specification<T> filter, Sort sort, String after, int limit) {
+    return find(type, filter, sort, after, limit, root -> root);
+  }
+
+  /**
+   * Finds a slice of entity ids after the cursor.
+   *
+   * @param type   the type of the entities
+   * @param filter the filter of the entities, can be null
+   * @param sort   the sort of the entities
+   * @param after  the cursor of the previous slice, null or empty for the first slice
+   * @param limit  the maximum number of ids in the slice
+   * @param <T>    the type of the entities
+   * @return the slice of ids with the cursor of the next slice
+   */
+  public <T> KeysetSlice<Long> findIdSlice(
+      Class<T> type, Specification<T> filter, Sort sort, String after, int limit) {
+    return find(type, filter, sort, after, limit, root -> root.get(ID));
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T, R> KeysetSlice<R> find(Class<T> type, Specification<T> filter, Sort sort,
+                                     String after, int limit,
+                                     Function<Root<T>, Selection<?>> selection) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = cb.createTupleQuery();
+    Root<T> root = query.from(type);
+
+    List<Sort.Order> sortOrders = withIdOrder(sort);
+    List<Path<?>> paths = new ArrayList<>();
+    List<Expression<?>> keys = new ArrayList<>();
+    sortOrders.forEach(o -> {
+      Path<?> path = root.get(o.getProperty());
+      paths.add(path);
+      keys.add(keyExpression(cb, path));
+    });
+
+    List<Selection<?>> selections = new ArrayList<>();
+    selections.add(selection.apply(root));
+    selections.addAll(keys);
+    query.multiselect(selections);
+
+    List<Predicate> predicates = new ArrayList<>();
+    if (filter != null) {
+      Predicate predicate = filter.toPredicate(root, query, cb);
+      if (predicate != null) {
+        predicates.add(predicate);
+      }
+    }
+    if (after != null && !after.isEmpty()) {
+      List<String> values = KeysetCursor.decode(after, keys.size());
+      predicates.add(afterPredicate(cb, keys, paths, sortOrders, values));
+    }
+    query.where(predicates.toArray(Predicate[]::new));
+
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i++) {
+      orders.add(sortOrders.get(i).isAscending() ? cb.asc(keys.get(i)) : cb.desc(keys.get(i)));
+    }
+    query.orderBy(orders);
+
+    //выбирается на один элемент больше, чтобы определить наличие следующей страницы
+    List<Tuple> rows = entityManager.createQuery(query)
+        .setMaxResults(limit + 1)
+        .getResultList();
+
+    boolean hasNext = rows.size() > limit;
+    List<Tuple> page = hasNext ? rows.subList(0, limit) : rows;
+    List<R> content = page.stream()
+        .map(t -> (R) t.get(0))
+        .toList();
+
+    String nextCursor = null;
+    if (hasNext) {
+      Tuple last = page.get(page.size() - 1);
+      List<Object> values = new ArrayList<>();
+      for (int i = 1; i <= keys.size(); i++) {
+        values.add(last.get(i));
+      }
+      nextCursor = KeysetCursor.encode(values);
+    }
+
+    return new KeysetSlice<>(content, nextCursor);
+  }
+
+  private List<Sort.Order> withIdOrder(Sort sort) {
+    List<Sort.Order> orders = new ArrayList<>(sort.toList());
+    if (orders.stream().noneMatch(o -> o.getProperty().equals(ID))) {
+      Sort.Direction direction = orders.isEmpty()
+          ? Sort.Direction.ASC : orders.get(orders.size() - 1).getDirection();
+      orders.add(new Sort.Order(direction, ID));
+    }
+    return orders;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Expression<?> keyExpression(CriteriaBuilder cb, Path<?> path) {
+    //ключи сравниваются как есть, чтобы использовались индексы столбцов; null допускается только
+    //в необязательных строковых столбцах и сравнивается как пустая строка
+    if (String.class.equals(path.getJavaType()) && isNullable(path)) {
+      return cb.coalesce((Expression<String>) path, "");
+    }
+    return path;
+  }
+
+  private boolean isNullable(Path<?> path) {
+    //атрибуты Hibernate всегда помечены необязательными, поэтому учитывается описание столбца
+    if (path.getModel() instanceof SingularAttribute<?, ?> attribute
+        && attribute.getJavaMember() instanceof AnnotatedElement member) {
+      Column column = member.getAnnotation(Column.class);
+      return column == null || column.nullable();
+    }
+    return true;
+  }
+
+  /**
+   * Builds the condition (k1, k2, ..., id) > (v1, v2, ..., vid) as
+   * k1 > v1 or (k1 = v1 and (k2 > v2 or (k2 = v2 and ...))), where ">" is replaced by "<"
+   * for the keys in descending order.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Predicate afterPredicate(CriteriaBuilder cb, List<Expression<?>> keys,
+                                   List<Path<?>> paths, List<Sort.Order> sortOrders,
+                                   List<String> values) {
+    Predicate predicate = null;
+    for (int i = keys.size() - 1; i >= 0; i--) {
+      Expression key = keys.get(i);
+      Comparable value = toKeyValue(values.get(i), paths.get(i).getJavaType());
+
+      Predicate strictlyAfter = sortOrders.get(i).isAscending()
+          ? cb.greaterThan(key, value)
+          : cb.lessThan(key, value);
+      predicate = predicate == null
+          ? strictlyAfter
+          : cb.or(strictlyAfter, cb.and(cb.equal(key, value), predicate));
+    }
+    return predicate;
+  }
+
+  private Comparable<?> toKeyValue(String value, Class<?> javaType) {
+    try {
+      if (Long.class.equals(javaType) || long.class.equals(javaType)) {
+        return Long.valueOf(value);
+      } else if (Integer.class.equals(javaType) || int.class.equals(javaType)) {
+        return Integer.valueOf(value);
+      } else if (LocalDateTime.class.equals(javaType)) {
+        return LocalDateTime.parse(value);
+      } else if (LocalDate.class.equals(javaType)) {
+        return LocalDate.parse(value);
+      } else if (Boolean.class.equals(javaType) || boolean.class.equals(javaType)) {
+        return Boolean.valueOf(value);
+      }
+      return value;
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new PaginationException(HttpStatus.BAD_REQUEST, "Incorrect cursor value: " + value);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import java.util.List;
+
+/**
+ * A slice of elements selected by keyset pagination.
+ *
+ * @param content    the elements of the slice
+ * @param nextCursor the cursor of the next slice or null if there are no more elements
+ * @param <T>        the type of the elements
+ */
+public record KeysetSlice<T>(
+    List<T> content,
+    String nextCursor
+) {
+}
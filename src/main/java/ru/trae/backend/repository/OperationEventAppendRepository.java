@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import java.util.List;
+import ru.trae.backend.entity.OperationEvent;
+
+/**
+ * Repository fragment for appending the events to the operation event log in the order
+ * of their commits.
+ *
+ * @author Vladimir Olennikov
+ */
+public interface OperationEventAppendRepository {
+  /**
+   * Appends the events to the log in one transaction. The ids of the events are allocated
+   * after the lock of the log is taken, and the lock is held until the commit, so the events
+   * of the different instances are committed in the order of their ids.
+   *
+   * @param events the events to append
+   */
+  void appendAll(List<OperationEvent> events);
+}
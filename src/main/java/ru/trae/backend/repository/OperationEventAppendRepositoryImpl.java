@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.trae.backend.entity.OperationEvent;
+
+/**
+ * Implementation of the {@link OperationEventAppendRepository}. The log is locked by
+ * a transaction-level PostgreSQL advisory lock, which is released by the commit or
+ * the rollback. The readers of the log are not blocked. Other databases are not shared
+ * between instances, there the lock is not taken.
+ *
+ * @author Vladimir Olennikov
+ */
+public class OperationEventAppendRepositoryImpl implements OperationEventAppendRepository {
+  private static final String POSTGRESQL = "PostgreSQL";
+  private final EntityManager entityManager;
+  private final JdbcTemplate jdbcTemplate;
+  private final long lockKey;
+  private volatile Boolean shared;
+
+  /**
+   * Constructor for the repository fragment.
+   *
+   * @param entityManager the entity manager used to persist the events
+   * @param jdbcTemplate  the template used to take the lock of the log
+   * @param lockKey       the key of the advisory lock of the log
+   */
+  @Autowired
+  public OperationEventAppendRepositoryImpl(EntityManager entityManager,
+                                            JdbcTemplate jdbcTemplate,
+                                            @Value("${events.lock-key}") long lockKey) {
+    this.entityManager = entityManager;
+    this.jdbcTemplate = jdbcTemplate;
+    this.lockKey = lockKey;
+  }
+
+  @Override
+  @Transactional
+  public void appendAll(List<OperationEvent> events) {
+    if (isShared()) {
+      jdbcTemplate.query("select pg_advisory_xact_lock(?)", rs -> null, lockKey);
+    }
+    //идентификатор выделяется последовательностью при сохранении, то есть уже под блокировкой
+    events.forEach(entityManager::persist);
+  }
+
+  private boolean isShared() {
+    if (shared == null) {
+      shared = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+          POSTGRESQL.equals(connection.getMetaData().getDatabaseProductName()));
+    }
+    return Boolean.TRUE.equals(shared);
+  }
+}
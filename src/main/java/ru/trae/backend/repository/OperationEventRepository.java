@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.repository;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.trae.backend.entity.OperationEvent;
+
+/**
+ * Repository interface for the {@link OperationEvent} entity. The events are appended by
+ * {@link #appendAll(List)}, so the id is the position of the event in the order of commits
+ * and can be used as the cursor of the consumers.
+ *
+ * @author Vladimir Olennikov
+ */
+@Repository
+public interface OperationEventRepository extends JpaRepository<OperationEvent, Long>,
+    OperationEventAppendRepository {
+  @Query("select e from OperationEvent e where e.id > ?1 order by e.id")
+  List<OperationEvent> findAfter(long id, Pageable pageable);
+}
@@ -14,14 +14,24 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import javax.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import ru.trae.backend.dto.operation.OperationForEmpDto;
+import ru.trae.backend.dto.operation.OperationInWorkForEmpDto;
+import ru.trae.backend.dto.report.OperationDeadlineRowDto;
 import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.projection.OperationBulkRowDto;
 import ru.trae.backend.projection.OperationIdNameProjectNumberDto;
+import ru.trae.backend.projection.OperationShortRowDto;
+import ru.trae.backend.util.OperationState;
 
 /**
  * Repository interface for the {@link Operation} entity.
@@ -33,27 +43,37 @@ public interface OperationRepository extends JpaRepository<Operation, Long> {
   @Query("select o from Operation o where o.id in ?1")
   List<Operation> findByIdIn(Collection<Long> ids);
   
-  @Query("select (count(o) > 0) from Operation o where o.id = ?1 and o.typeWork.id = ?2")
-  boolean existsByTypeWorkIdEqualsShipment(long operationId, long shipmentId);
-  
   /**
-   * Retrieve all operations associated with a given project.
+   * Retrieve the operations of a given project for the employee kiosk, ordered by priority.
+   * Only the columns of the DTO are selected, the entities are not loaded.
    *
    * @param projectId the ID of the project to find operations for
-   * @return a list of all operations associated with the given project
+   * @return a list of the operations of the given project
    */
-  @Query("select o from Operation o where o.project.id = ?1")
-  List<Operation> findByProjectId(long projectId);
+  @Query("""
+      select new ru.trae.backend.dto.operation.OperationForEmpDto(
+      o.id, o.priority, o.name, o.readyToAcceptance, o.isEnded, o.inWork,
+      e.firstName, e.lastName)
+      from Operation o left join o.employee e
+      where o.project.id = ?1
+      order by o.priority""")
+  List<OperationForEmpDto> findForEmpByProjectId(long projectId);
   
   /**
-   * Retrieve all operations that are currently in-work for a given employee.
+   * Retrieve the operations that are currently in-work for a given employee for the employee
+   * kiosk, ordered by the acceptance date. Only the columns of the DTO are selected,
+   * the entities are not loaded.
    *
    * @param employeeId the ID of the employee to find operations for
-   * @return a list of all operations that are currently in-work for the given employee
+   * @return a list of the operations that are currently in-work for the given employee
    */
-  @Query("select o from Operation o where o.inWork = true and o.employee.id = ?1 "
-      + "order by o.acceptanceDate")
-  List<Operation> findByEmpIdAndInWork(long employeeId);
+  @Query("""
+      select new ru.trae.backend.dto.operation.OperationInWorkForEmpDto(
+      o.id, p.id, cast(p.number as long), p.name, o.name, p.customer)
+      from Operation o inner join o.project p
+      where o.inWork = true and o.employee.id = ?1
+      order by o.acceptanceDate""")
+  List<OperationInWorkForEmpDto> findInWorkForEmpByEmployeeId(long employeeId);
   
   /**
    * Returns a list of operations based on the project id, ordered by priority in ascending order.
@@ -69,42 +89,113 @@ public interface OperationRepository extends JpaRepository<Operation, Long> {
   @Query("update Operation o set o.priority = ?1 where o.id = ?2")
   void updatePriorityById(int priority, Long id);
   
+  @Query("select o.project.id from Operation o where o.id = ?1")
+  Optional<Long> findProjectIdById(long id);
+  
+  @Query("select o.state from Operation o where o.id = ?1")
+  Optional<OperationState> findStateById(long id);
+  
+  @Query("""
+      select o.id from Operation o
+      where o.project.id = ?1 and o.priority > ?2
+      order by o.priority""")
+  List<Long> findNextIdsByProjectIdAndPriority(long projectId, int priority, Pageable pageable);
+  
+  long countByProjectIdAndStateNot(long projectId, OperationState state);
+  
+  //переходы между состояниями выполняются одним условным обновлением: если состояние
+  //операции уже изменилось, ни одна строка не обновляется и переход отклоняется
   @Transactional
   @Modifying
-  @Query("""
-      update Operation o\s
-      set o.realEndDate = ?1, o.isEnded = ?2, o.readyToAcceptance = ?3, o.inWork = ?4
-      where o.id = ?5""")
-  void updateRealEndDateAndIsEndedAndReadyToAcceptanceAndInWorkById(
-      LocalDateTime realEndDate,
-      boolean isEnded,
-      boolean readyToAcceptance,
-      boolean inWork,
-      Long id);
+  @Query(value = """
+      update operations
+      set state = 'IN_WORK', in_work = true, ready_to_acceptance = false,
+          employee_id = ?2, acceptance_date = ?3
+      where id = ?1 and state = 'READY_TO_ACCEPTANCE'
+        and exists (select 1 from employees_type_works etw
+                    where etw.employee_id = ?2
+                      and etw.type_works_id = operations.type_work_id)""", nativeQuery = true)
+  int updateStateToInWorkIfReadyToAcceptance(
+      long id, long employeeId, LocalDateTime acceptanceDate);
   
+  @Transactional
+  @Modifying
+  @Query(value = """
+      update operations
+      set state = 'ENDED', is_ended = true, in_work = false, ready_to_acceptance = false,
+          real_end_date = ?3
+      where id = ?1 and state = 'IN_WORK' and employee_id = ?2""", nativeQuery = true)
+  int updateStateToEndedIfInWork(long id, long employeeId, LocalDateTime realEndDate);
+  
+  @Transactional
+  @Modifying
+  @Query(value = """
+      update operations
+      set state = 'ENDED', is_ended = true, in_work = false, ready_to_acceptance = false,
+          real_end_date = ?2
+      where id = ?1 and state in ('READY_TO_ACCEPTANCE', 'IN_WORK')""", nativeQuery = true)
+  int updateStateToEndedIfReadyToAcceptanceOrInWork(long id, LocalDateTime realEndDate);
+  
+  @Transactional
+  @Modifying
+  @Query(value = """
+      update operations
+      set state = 'READY_TO_ACCEPTANCE', ready_to_acceptance = true,
+          start_date = ?2, period = ?3, planned_end_date = ?4
+      where id = ?1 and state = 'WAITING'""", nativeQuery = true)
+  int updateStateToReadyToAcceptanceIfWaiting(
+      long id, LocalDateTime startDate, int period, LocalDateTime plannedEndDate);
+  
+  @Transactional
+  @Modifying
+  @Query(value = """
+      delete from operations
+      where id = ?1 and state = 'WAITING' and type_work_id <> ?2""", nativeQuery = true)
+  int deleteByIdIfWaitingAndNotTypeWork(long id, long typeWorkId);
+  
+  //строки операций и их проектов блокируются до конца транзакции, поэтому состояние,
+  //проверенное при выборке, не меняется до применения массового действия
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
   @Query("""
-      select (count(o) > 0) from Operation o
-      where o.id = ?1 and (o.isEnded = ?2 or o.inWork = ?3 or o.readyToAcceptance = ?4)""")
-  boolean existsByIdOrIsEndedOrInWorkOrReadyToAcceptance(
-      Long id, boolean isEnded, boolean inWork, boolean readyToAcceptance);
+      select o.id as id, p.id as projectId, o.state as state, o.typeWork.id as typeWorkId,
+      o.priority as priority, o.plannedEndDate as plannedEndDate,
+      p.operationPeriod as operationPeriod, p.plannedEndDate as projectPlannedEndDate
+      from Operation o join o.project p
+      where o.id in ?1""")
+  List<OperationBulkRowDto> findForBulkActionByIds(Collection<Long> ids);
   
+  @Transactional
+  @Modifying
+  @Query(value = """
+      update operations
+      set state = 'ENDED', is_ended = true, in_work = false, ready_to_acceptance = false,
+          real_end_date = ?2
+      where id in (?1) and state in ('READY_TO_ACCEPTANCE', 'IN_WORK')""", nativeQuery = true)
+  int updateStateToEndedByIdsIfReadyToAcceptanceOrInWork(
+      Collection<Long> ids, LocalDateTime realEndDate);
+  
+  @Transactional
   @Modifying
-  @Query("delete from Operation o where o.id = ?1")
-  void deleteById(long operationId);
+  @Query(value = """
+      delete from operations
+      where id in (?1) and state = 'WAITING' and type_work_id <> ?2""", nativeQuery = true)
+  int deleteByIdsIfWaitingAndNotTypeWork(Collection<Long> ids, long typeWorkId);
   
   @Query("select (count(o) > 0) from Operation o where o.id = ?1 and o.priority = ?2")
   boolean existsByIdAndPriority(Long id, int priority);
   
+  //дата входит в период [?1, ?2], если ?1 <= дата < ?2 + 1 день: сравнение столбцов без
+  //приведения к дате позволяет использовать индексы по датам начала и окончания
   @Query(value = """
       select o.id, o.name, (select p.number from projects p where p.id = o.project_id)\s
       as project_number from operations o where\s
       o.employee_id is not NULL and\s
-      (cast(?1 as date) is null and cast(?2 as date) is null)\s
-      or (cast(o.start_date as date) between ?1 and ?2)\s
-      or (cast(o.planned_end_date as date) between ?1 and ?2)\s
-      or (cast(o.real_end_date as date) between ?1 and ?2)
-      or (?1 between cast(o.start_date as date) and cast(o.real_end_date as date))
-      or (?1 between cast(o.start_date as date) and cast(o.planned_end_date as date))""",
+      ((cast(?1 as date) is null and cast(?2 as date) is null)\s
+      or (o.start_date >= ?1 and o.start_date < cast(?2 as date) + 1)
+      or (o.planned_end_date >= ?1 and o.planned_end_date < cast(?2 as date) + 1)
+      or (o.real_end_date >= ?1 and o.real_end_date < cast(?2 as date) + 1)
+      or (o.start_date < cast(?1 as date) + 1 and o.real_end_date >= ?1)
+      or (o.start_date < cast(?1 as date) + 1 and o.planned_end_date >= ?1))""",
       nativeQuery = true)
   List<OperationIdNameProjectNumberDto> findByPeriod(
       LocalDate startOfPeriod, LocalDate endOfPeriod);
@@ -115,11 +206,11 @@ public interface OperationRepository extends JpaRepository<Operation, Long> {
       where o.employee_id is not NULL and\s
       o.project_id in (select p.id from projects p where p.id in (?3))\s
       and ((cast(?1 as date) is null and cast(?2 as date) is null)\s
-      or (cast(o.start_date as date) between ?1 and ?2)\s
-      or (cast(o.planned_end_date as date) between ?1 and ?2)\s
-      or (cast(o.real_end_date as date) between ?1 and ?2)
-      or (?1 between cast(o.start_date as date) and cast(o.real_end_date as date))
-      or (?1 between cast(o.start_date as date) and cast(o.planned_end_date as date)))""",
+      or (o.start_date >= ?1 and o.start_date < cast(?2 as date) + 1)
+      or (o.planned_end_date >= ?1 and o.planned_end_date < cast(?2 as date) + 1)
+      or (o.real_end_date >= ?1 and o.real_end_date < cast(?2 as date) + 1)
+      or (o.start_date < cast(?1 as date) + 1 and o.real_end_date >= ?1)
+      or (o.start_date < cast(?1 as date) + 1 and o.planned_end_date >= ?1))""",
       nativeQuery = true)
   List<OperationIdNameProjectNumberDto> findByPeriodAndProjectIds(
       LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> projectIds);
@@ -129,11 +220,11 @@ public interface OperationRepository extends JpaRepository<Operation, Long> {
       as project_number from operations o\s
       where o.employee_id in (select e.id from employees e where e.id in (?3))\s
       and ((cast(?1 as date) is null and cast(?2 as date) is null)\s
-      or (cast(o.start_date as date) between ?1 and ?2)\s
-      or (cast(o.planned_end_date as date) between ?1 and ?2)\s
-      or (cast(o.real_end_date as date) between ?1 and ?2)
-      or (?1 between cast(o.start_date as date) and cast(o.real_end_date as date))
-      or (?1 between cast(o.start_date as date) and cast(o.planned_end_date as date)))""",
+      or (o.start_date >= ?1 and o.start_date < cast(?2 as date) + 1)
+      or (o.planned_end_date >= ?1 and o.planned_end_date < cast(?2 as date) + 1)
+      or (o.real_end_date >= ?1 and o.real_end_date < cast(?2 as date) + 1)
+      or (o.start_date < cast(?1 as date) + 1 and o.real_end_date >= ?1)
+      or (o.start_date < cast(?1 as date) + 1 and o.planned_end_date >= ?1))""",
       nativeQuery = true)
   List<OperationIdNameProjectNumberDto> findByPeriodAndEmployeeIds(
       LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds);
@@ -144,15 +235,46 @@ public interface OperationRepository extends JpaRepository<Operation, Long> {
       where o.employee_id in (select e.id from employees e where e.id in (?3))\s
       and o.project_id in (select p.id from projects p where p.id in (?4))\s
       and ((cast(?1 as date) is null and cast(?2 as date) is null)\s
-      or (cast(o.start_date as date) between ?1 and ?2)\s
-      or (cast(o.planned_end_date as date) between ?1 and ?2)\s
-      or (cast(o.real_end_date as date) between ?1 and ?2)
-      or (?1 between cast(o.start_date as date) and cast(o.real_end_date as date))
-      or (?1 between cast(o.start_date as date) and cast(o.planned_end_date as date)))""",
+      or (o.start_date >= ?1 and o.start_date < cast(?2 as date) + 1)
+      or (o.planned_end_date >= ?1 and o.planned_end_date < cast(?2 as date) + 1)
+      or (o.real_end_date >= ?1 and o.real_end_date < cast(?2 as date) + 1)
+      or (o.start_date < cast(?1 as date) + 1 and o.real_end_date >= ?1)
+      or (o.start_date < cast(?1 as date) + 1 and o.planned_end_date >= ?1))""",
       nativeQuery = true)
   List<OperationIdNameProjectNumberDto> findByPeriodAndEmployeeAndProjectIds(
       LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds, Set<Long> projectIds);
   
-  @Query("select o from Operation o where o.id in (?1)")
-  List<Operation> findOpsByIds(Set<Long> operationIds);
+  /**
+   * Retrieves the operations of the deadline report with their projects and employees as flat
+   * rows, ordered by id. Only the columns of the report are selected, the entities are not
+   * loaded.
+   *
+   * @param operationIds the ids of the operations
+   * @return the rows of the operations, the employee is null if the operation is not assigned
+   */
+  @Query("""
+      select new ru.trae.backend.dto.report.OperationDeadlineRowDto(
+      o.id, o.name, o.plannedEndDate, o.realEndDate, p.id, p.number, e.id, e.lastName)
+      from Operation o inner join o.project p left join o.employee e
+      where o.id in ?1
+      order by o.id""")
+  List<OperationDeadlineRowDto> findDeadlineRowsByIds(Set<Long> operationIds);
+  
+  /**
+   * Retrieves the operations that are in work or ready to acceptance, together with the last
+   * (by priority) operation, for each of the given projects. The result is ordered by project id
+   * and priority, so that the whole page of the project list is served by a single query.
+   *
+   * @param projectIds the ids of the projects on the page
+   * @return a list of current and last operations of the given projects
+   */
+  @Query("""
+      select o.project.id as projectId, o.name as name, o.isEnded as isEnded,\s
+      o.inWork as inWork, o.readyToAcceptance as readyToAcceptance,\s
+      o.plannedEndDate as plannedEndDate
+      from Operation o
+      where o.project.id in ?1 and (o.inWork = true or o.readyToAcceptance = true\s
+      or o.priority = (select max(lo.priority) from Operation lo where lo.project.id = o.project.id))
+      order by o.project.id, o.priority""")
+  List<OperationShortRowDto> findCurrentAndLastByProjectIds(Collection<Long> projectIds);
 }
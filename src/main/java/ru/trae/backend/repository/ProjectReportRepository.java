@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.trae.backend.dto.operation.OperationForReportDto;
+import ru.trae.backend.dto.report.ProjectOperationRowDto;
+
+/**
+ * This repository reads the projects for the period with their operations for the report.
+ * The rows are read by a forward-only cursor with a fixed fetch size and passed to
+ * the consumer one by one, without loading the entities into the persistence context.
+ * PostgreSQL reads the rows by the cursor only inside a transaction.
+ *
+ * @author Vladimir Olennikov
+ */
+@Repository
+public class ProjectReportRepository {
+  //дата входит в период, если начало <= дата < окончание + 1 день, как в ProjectRepository
+  private static final String SELECT_FOR_PERIOD = """
+      select p.id, p.number, p.name, p.start_date, p.start_first_operation_date,
+             p.planned_end_date, p.end_date_in_contract, p.real_end_date, p.is_ended,
+             p.operation_period, p.customer, p.comment,
+             o.id, o.priority, o.name, o.start_date, o.acceptance_date, o.planned_end_date,
+             o.real_end_date, o.is_ended, o.in_work, o.ready_to_acceptance
+      from projects p
+               left join operations o on o.project_id = p.id
+      where (p.start_date >= ? and p.start_date < cast(? as date) + 1)
+      or (p.end_date_in_contract >= ? and p.end_date_in_contract < cast(? as date) + 1)
+      or (p.planned_end_date >= ? and p.planned_end_date < cast(? as date) + 1)
+      or (p.start_date < cast(? as date) + 1 and p.end_date_in_contract >= ?)
+      or (p.start_date < cast(? as date) + 1 and p.planned_end_date >= ?)
+      order by p.id, o.priority""";
+  private final JdbcTemplate jdbcTemplate;
+  private final int fetchSize;
+
+  /**
+   * Constructor for the project report repository.
+   *
+   * @param jdbcTemplate the template used to read the rows
+   * @param fetchSize    the number of the rows fetched from the database at once
+   */
+  @Autowired
+  public ProjectReportRepository(JdbcTemplate jdbcTemplate,
+                                 @Value("${report.projects.fetch-size}") int fetchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Reads the projects for the period with their operations, one row for each operation.
+   * The rows are ordered by the project and the priority of the operation.
+   *
+   * @param startOfPeriod the first day of the period
+   * @param endOfPeriod   the last day of the period
+   * @param consumer      the consumer of the rows
+   */
+  public void streamForPeriod(LocalDate startOfPeriod, LocalDate endOfPeriod,
+                              Consumer<ProjectOperationRowDto> consumer) {
+    //параметры в порядке их следования в условии выборки
+    Object[] parameters = {
+        startOfPeriod, endOfPeriod, startOfPeriod, endOfPeriod, startOfPeriod, endOfPeriod,
+        startOfPeriod, startOfPeriod, startOfPeriod, startOfPeriod};
+
+    jdbcTemplate.query(con -> {
+      PreparedStatement ps = con.prepareStatement(
+          SELECT_FOR_PERIOD, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      ps.setFetchSize(fetchSize);
+      for (int i = 0; i < parameters.length; i++) {
+        ps.setObject(i + 1, parameters[i]);
+      }
+      return ps;
+    }, (RowCallbackHandler) rs -> consumer.accept(toRow(rs)));
+  }
+
+  private static ProjectOperationRowDto toRow(ResultSet rs) throws SQLException {
+    long operationId = rs.getLong(13);
+    OperationForReportDto operation = rs.wasNull() ? null : new OperationForReportDto(
+        operationId,
+        rs.getInt(14),
+        rs.getString(15),
+        rs.getObject(16, LocalDateTime.class),
+        rs.getObject(17, LocalDateTime.class),
+        rs.getObject(18, LocalDateTime.class),
+        rs.getObject(19, LocalDateTime.class),
+        rs.getBoolean(20),
+        rs.getBoolean(21),
+        rs.getBoolean(22));
+
+    return new ProjectOperationRowDto(
+        rs.getLong(1),
+        rs.getInt(2),
+        rs.getString(3),
+        rs.getObject(4, LocalDateTime.class),
+        rs.getObject(5, LocalDateTime.class),
+        rs.getObject(6, LocalDateTime.class),
+        rs.getObject(7, LocalDateTime.class),
+        rs.getObject(8, LocalDateTime.class),
+        rs.getBoolean(9),
+        rs.getInt(10),
+        rs.getString(11),
+        rs.getString(12),
+        operation);
+  }
+}
@@ -12,6 +12,7 @@ package ru.trae.backend.repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -24,8 +25,11 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.trae.backend.dto.project.ChangingCommonDataResp;
 import ru.trae.backend.dto.project.ChangingEndDatesResp;
+import ru.trae.backend.dto.project.ProjectAvailableForEmpDto;
 import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.projection.DashboardStatsRowDto;
 import ru.trae.backend.projection.ProjectIdNumberDto;
+import ru.trae.backend.projection.ProjectShortRowDto;
 
 /**
  * This repository provides the necessary CRUD operations for working with {@link Project} objects.
@@ -39,10 +43,8 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
   long getCountNotEndedProjects();
 
   @Query("""
-      select count(p) from Project p left join p.operations operations
-      where p.isEnded = false\s
-      and (operations.inWork = true or operations.readyToAcceptance = true)\s
-      and operations.plannedEndDate < current_timestamp""")
+      select count(p) from Project p
+      where p.isEnded = false and p.currentOpPlannedEndDate < current_timestamp""")
   long getCountProjectsWithOverdueCurrentOperation();
 
   @Query("""
@@ -52,21 +54,42 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
   long getCountOverdueProjects();
 
   @Query("""
-      select count(p) from Project p inner join p.operations operations
-      where p.isEnded = false and operations.priority = (select max(o.priority)\s
-      from Operation o where o.project.id = p.id) and operations.readyToAcceptance = true""")
+      select count(p) from Project p
+      where p.isEnded = false and p.lastOpReadyToAcceptance = true""")
   long getCountProjectsWithLastOpReadyToAcceptance();
 
+  @Query(value = """
+      select (select count(tc.id) from time_controls tc
+              inner join working_shifts w on w.id = tc.working_shift_id
+              where w.is_ended = false and tc.is_on_shift = true)
+                 as "countEmpsOnActiveWorkingShift",
+             count(*) as "countNotEndedProjects",
+             count(*) filter (where p.current_op_planned_end_date < current_timestamp)
+                 as "countProjectsWithOverdueCurrentOperation",
+             count(*) filter (where p.planned_end_date > p.end_date_in_contract
+                 or current_timestamp > p.end_date_in_contract) as "countOverdueProjects",
+             count(*) filter (where p.last_op_ready_to_acceptance = true)
+                 as "countProjectsWithLastOpReadyToAcceptance"
+      from projects p
+      where p.is_ended = false""", nativeQuery = true)
+  DashboardStatsRowDto getDashboardStats();
+
   @Query("""
-      select p from Project p inner join p.operations operations
-      where p.isEnded = false and operations.priority = (select max(o.priority)\s
-      from Operation o where o.project.id = p.id) and operations.readyToAcceptance = true""")
-  Page<Project> findLastByIsEndedAndOpPriorityAndReadyToAcceptanceTrue(Pageable pageable);
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p
+      where p.isEnded = false and p.lastOpReadyToAcceptance = true""")
+  Page<ProjectShortRowDto> findLastByIsEndedAndOpPriorityAndReadyToAcceptanceTrue(
+      Pageable pageable);
 
   @Query("""
-      select p from Project p inner join p.operations o
-      where p.isEnded = false and o.priority = ?1 and o.readyToAcceptance = true""")
-  Page<Project> findFirstByIsEndedAndOpPriorityAndReadyToAcceptance(
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p
+      where p.isEnded = false and p.currentOpPriority = ?1 and p.currentOpInWork = false""")
+  Page<ProjectShortRowDto> findFirstByIsEndedAndOpPriorityAndReadyToAcceptance(
       int priority, Pageable pageable);
 
   @Query("""
@@ -79,36 +102,32 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
   Page<Project> findFirstAndLast(Pageable pageable);
 
   @Query("""
-      select p from Project p left join p.operations operations
-      where p.isEnded = false\s
-      and (operations.inWork = true or operations.readyToAcceptance = true)\s
-      and operations.plannedEndDate < ?1""")
-  Page<Project> findProjectsWithOverdueCurrentOperation(
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p
+      where p.isEnded = false and p.currentOpPlannedEndDate < ?1""")
+  Page<ProjectShortRowDto> findProjectsWithOverdueCurrentOperation(
       LocalDateTime currentDate, Pageable pageable);
 
   @Query("""
-      select p from Project p
-      where p.isEnded = false and exists (
-                                          select o from Operation o\s
-                                          where o.project.id = p.id and\s
-                                          (o.inWork = true or\s
-                                          (o.readyToAcceptance = true and o.priority != 0)))""")
-  Page<Project> findOpsInWorkOrReadyToAcceptanceExceptFirstOpReadyToAcceptance(Pageable pageable);
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p
+      where p.isEnded = false and\s
+      (p.currentOpInWork = true or (p.currentOpInWork = false and p.currentOpPriority != 0))""")
+  Page<ProjectShortRowDto> findOpsInWorkOrReadyToAcceptanceExceptFirstOpReadyToAcceptance(
+      Pageable pageable);
 
   @Query("""
-      select p from Project p
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p
       where p.isEnded = false and\s
       (p.plannedEndDate > p.endDateInContract or current_timestamp > p.endDateInContract)""")
-  Page<Project> findOverdueProjects(Pageable pageable);
-
-  @Query(value = """
-      select p.* from projects p where (cast(p.start_date as date) between ?1 and ?2)\s
-      or (cast(p.end_date_in_contract as date) between ?1 and ?2)\s
-      or (cast(p.planned_end_date as date) between ?1 and ?2)
-      or (?1 between cast(p.start_date as date) and cast(p.end_date_in_contract as date))
-      or (?1 between cast(p.start_date as date) and cast(p.planned_end_date as date))""",
-      nativeQuery = true)
-  List<Project> findProjectsForPeriod(LocalDate startOfPeriod, LocalDate endOfPeriod);
+  Page<ProjectShortRowDto> findOverdueProjects(Pageable pageable);
 
   @Transactional
   @Modifying
@@ -116,24 +135,118 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
   void updatePlannedEndDateById(LocalDateTime plannedEndDate, Long id);
 
   @Query("""
-      select p from Project p inner join p.operations operations
-      where p.isEnded = false and operations.readyToAcceptance = true\s
-      and operations.typeWork.id = ?1""")
-  List<Project> findAvailableProjectsByTypeWork(long typeWorkId);
+      select new ru.trae.backend.dto.project.ProjectAvailableForEmpDto(
+      p.id, p.number, p.customer, p.name, o.name)
+      from Operation o inner join o.project p
+      where p.isEnded = false and o.readyToAcceptance = true and o.typeWork.id in ?1
+      and o.priority = (select min(ro.priority) from Operation ro
+      where ro.project = p and ro.readyToAcceptance = true and ro.typeWork.id in ?1)
+      order by p.endDateInContract, p.id""")
+  List<ProjectAvailableForEmpDto> findAvailableProjectsByTypeWorkIds(
+      Collection<Long> typeWorkIds, Pageable pageable);
 
   @Transactional
   @Modifying
   @Query("update Project p set p.isEnded = ?1, p.realEndDate = ?2 where p.id = ?3")
   void updateIsEndedAndRealEndDateById(boolean isEnded, LocalDateTime realEndDate, Long id);
 
-  @Query("select p from Project p where p.isEnded = ?1")
-  Page<Project> findByIsEnded(boolean isEnded, Pageable pageable);
+  @Query("""
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p""")
+  Page<ProjectShortRowDto> findAllShort(Pageable pageable);
+
+  @Query("""
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p where p.id in ?1""")
+  List<ProjectShortRowDto> findShortByIdIn(Collection<Long> ids);
+
+  @Query("""
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p where p.isEnded = ?1""")
+  Page<ProjectShortRowDto> findByIsEnded(boolean isEnded, Pageable pageable);
+
+  @Query("""
+      select p.id as id, p.isEnded as isEnded, p.number as number, p.name as name,\s
+      p.customer as customer, p.endDateInContract as endDateInContract,\s
+      p.realEndDate as realEndDate
+      from Project p where p.number = ?1""")
+  Page<ProjectShortRowDto> findByNumber(int number, Pageable pageable);
+
+  /**
+   * Finds the ids of the projects, whose customer, name or comment contain the search query.
+   * The expression in the condition matches the trigram index projects_search_trgm_idx.
+   *
+   * @param query   the search query used for ranking
+   * @param pattern the escaped like pattern of the search query
+   * @param limit   the maximum number of ids
+   * @return the ids ordered by word similarity to the search query
+   */
+  @Query(value = """
+      select p.id from projects p
+      where (p.customer || ' ' || p.name || ' ' || coalesce(p.comment, '')) ilike ?2
+      order by word_similarity(?1,
+          p.customer || ' ' || p.name || ' ' || coalesce(p.comment, '')) desc, p.id desc
+      limit ?3""", nativeQuery = true)
+  List<Number> searchIdsByText(String query, String pattern, int limit);
+
+  @Query("select p.id from Project p where p.id > ?1 order by p.id")
+  List<Long> findIdsAfter(long lastId, Pageable pageable);
 
-  @Query("select p from Project p where p.number = ?1")
-  Page<Project> findByNumber(int number, Pageable pageable);
+  @Transactional
+  @Modifying
+  @Query(value = """
+      update projects p
+      set current_op_id               = (select o.id from operations o
+                                         where o.project_id = p.id
+                                           and (o.in_work = true or o.ready_to_acceptance = true)
+                                         order by o.priority limit 1),
+          current_op_priority         = (select o.priority from operations o
+                                         where o.project_id = p.id
+                                           and (o.in_work = true or o.ready_to_acceptance = true)
+                                         order by o.priority limit 1),
+          current_op_in_work          = (select o.in_work from operations o
+                                         where o.project_id = p.id
+                                           and (o.in_work = true or o.ready_to_acceptance = true)
+                                         order by o.priority limit 1),
+          current_op_planned_end_date = (select o.planned_end_date from operations o
+                                         where o.project_id = p.id
+                                           and (o.in_work = true or o.ready_to_acceptance = true)
+                                         order by o.priority limit 1),
+          last_op_ready_to_acceptance = coalesce((select o.ready_to_acceptance from operations o
+                                                  where o.project_id = p.id
+                                                  order by o.priority desc limit 1), false)
+      where p.id in (?1)""", nativeQuery = true)
+  int refreshListStateByIds(Collection<Long> projectIds);
 
-  @Query("select p from Project p where upper(p.customer) like %?1%")
-  Page<Project> findByCustomerLikeIgnoreCase(String customer, Pageable pageable);
+  @Query(value = """
+      select count(*) from projects p
+      where p.current_op_id is distinct from
+         (select o.id from operations o
+          where o.project_id = p.id and (o.in_work = true or o.ready_to_acceptance = true)
+          order by o.priority limit 1)
+      or p.current_op_priority is distinct from
+         (select o.priority from operations o
+          where o.project_id = p.id and (o.in_work = true or o.ready_to_acceptance = true)
+          order by o.priority limit 1)
+      or p.current_op_in_work is distinct from
+         (select o.in_work from operations o
+          where o.project_id = p.id and (o.in_work = true or o.ready_to_acceptance = true)
+          order by o.priority limit 1)
+      or p.current_op_planned_end_date is distinct from
+         (select o.planned_end_date from operations o
+          where o.project_id = p.id and (o.in_work = true or o.ready_to_acceptance = true)
+          order by o.priority limit 1)
+      or p.last_op_ready_to_acceptance is distinct from
+         coalesce((select o.ready_to_acceptance from operations o
+                   where o.project_id = p.id
+                   order by o.priority desc limit 1), false)""", nativeQuery = true)
+  long countInconsistentListState();
 
   ChangingCommonDataResp findChangedCommonDataById(long projectId);
 
@@ -158,11 +271,11 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
   @Query(value = """
       select p.id, p.number from projects p where\s
       (cast(?1 as date) is null and cast(?2 as date) is null)\s
-      or (cast(p.start_date as date) between ?1 and ?2)\s
-      or (cast(p.end_date_in_contract as date) between ?1 and ?2)\s
-      or (cast(p.planned_end_date as date) between ?1 and ?2)
-      or (?1 between cast(p.start_date as date) and cast(p.end_date_in_contract as date))
-      or (?1 between cast(p.start_date as date) and cast(p.planned_end_date as date))""",
+      or (p.start_date >= ?1 and p.start_date < cast(?2 as date) + 1)
+      or (p.end_date_in_contract >= ?1 and p.end_date_in_contract < cast(?2 as date) + 1)
+      or (p.planned_end_date >= ?1 and p.planned_end_date < cast(?2 as date) + 1)
+      or (p.start_date < cast(?1 as date) + 1 and p.end_date_in_contract >= ?1)
+      or (p.start_date < cast(?1 as date) + 1 and p.planned_end_date >= ?1)""",
       nativeQuery = true)
   List<ProjectIdNumberDto> findByPeriod(LocalDate startOfPeriod, LocalDate endOfPeriod);
 
@@ -170,11 +283,11 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
       select p.id, p.number from projects p where\s
       p.id in (select o.project_id from operations o where o.employee_id in (?3))\s
       and ((cast(?1 as date) is null and cast(?2 as date) is null)\s
-      or (cast(p.start_date as date) between ?1 and ?2)\s
-      or (cast(p.end_date_in_contract as date) between ?1 and ?2)\s
-      or (cast(p.planned_end_date as date) between ?1 and ?2)
-      or (?1 between cast(p.start_date as date) and cast(p.end_date_in_contract as date))
-      or (?1 between cast(p.start_date as date) and cast(p.planned_end_date as date)))""",
+      or (p.start_date >= ?1 and p.start_date < cast(?2 as date) + 1)
+      or (p.end_date_in_contract >= ?1 and p.end_date_in_contract < cast(?2 as date) + 1)
+      or (p.planned_end_date >= ?1 and p.planned_end_date < cast(?2 as date) + 1)
+      or (p.start_date < cast(?1 as date) + 1 and p.end_date_in_contract >= ?1)
+      or (p.start_date < cast(?1 as date) + 1 and p.planned_end_date >= ?1))""",
       nativeQuery = true)
   List<ProjectIdNumberDto> findByPeriodAndEmployeeIds(
       LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds);
@@ -183,11 +296,11 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
       select p.id, p.number from projects p where\s
       p.id in (select o.project_id from operations o where o.id in (?3))\s
       and ((cast(?1 as date) is null and cast(?2 as date) is null)\s
-      or (cast(p.start_date as date) between ?1 and ?2)\s
-      or (cast(p.end_date_in_contract as date) between ?1 and ?2)\s
-      or (cast(p.planned_end_date as date) between ?1 and ?2)
-      or (?1 between cast(p.start_date as date) and cast(p.end_date_in_contract as date))
-      or (?1 between cast(p.start_date as date) and cast(p.planned_end_date as date)))""",
+      or (p.start_date >= ?1 and p.start_date < cast(?2 as date) + 1)
+      or (p.end_date_in_contract >= ?1 and p.end_date_in_contract < cast(?2 as date) + 1)
+      or (p.planned_end_date >= ?1 and p.planned_end_date < cast(?2 as date) + 1)
+      or (p.start_date < cast(?1 as date) + 1 and p.end_date_in_contract >= ?1)
+      or (p.start_date < cast(?1 as date) + 1 and p.planned_end_date >= ?1))""",
       nativeQuery = true)
   List<ProjectIdNumberDto> findByPeriodAndOperationIds(
       LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> operationIds);
@@ -10,9 +10,14 @@
 
 package ru.trae.backend.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import ru.trae.backend.entity.TimeControl;
+import ru.trae.backend.projection.TimeControlEmployeeIdDto;
 
 /**
  * JpaRepository interface for the TimeControl entity.
@@ -33,4 +38,31 @@ public interface TimeControlRepository extends JpaRepository<TimeControl, Long>
               inner join working_shifts ws on ws.id = tc.working_shift_id
       where tc.is_on_shift = true and ws.is_ended = false and e.id = ?1""", nativeQuery = true)
   TimeControl findByEmployeeIdAndIsOnShiftTrueAndWorkingShiftIsEndedFalse(Long id);
+
+  /**
+   * Finds the open time controls of the active working shift.
+   *
+   * @return The ids of the employees on shift with the ids of their time controls
+   */
+  @Query("""
+      select tc.employee.id as employeeId, tc.id as timeControlId
+      from TimeControl tc
+      where tc.isOnShift = true and tc.workingShift.isEnded = false""")
+  List<TimeControlEmployeeIdDto> findOnShiftOfActiveWorkingShift();
+
+  /**
+   * Closes all open time controls of the working shift with a single update: the employees
+   * are taken off the shift with the given departure time and marked as auto-closed.
+   *
+   * @param workingShiftId The ID of the working shift
+   * @param departure      The departure time to set
+   * @return The number of closed time controls
+   */
+  @Transactional
+  @Modifying
+  @Query(value = """
+      update time_controls
+      set is_on_shift = false, auto_closing_shift = true, departure = ?2
+      where working_shift_id = ?1 and is_on_shift = true""", nativeQuery = true)
+  int autoCloseOnShiftByWorkingShiftId(long workingShiftId, LocalDateTime departure);
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.trae.backend.dto.report.TimesheetRowDto;
+
+/**
+ * This repository reads the daily attendance rollup for the timesheet export. The rows are read
+ * by a forward-only cursor with a fixed fetch size and passed to the consumer one by one,
+ * so the rows of the period are never held in memory together. PostgreSQL reads the rows
+ * by the cursor only inside a transaction, otherwise the whole result is fetched at once.
+ *
+ * @author Vladimir Olennikov
+ */
+@Repository
+public class TimesheetExportRepository {
+  private static final String SELECT = """
+      select ad.employee_id, e.last_name, e.first_name, ad.shift_date, ad.auto_closed,
+             ad.part_of_shift
+      from attendance_days ad
+               inner join employees e on e.id = ad.employee_id
+      where ad.shift_date between ? and ?""";
+  private static final String ORDER = " order by ad.shift_date, ad.employee_id, ad.auto_closed";
+  private final JdbcTemplate jdbcTemplate;
+  private final int fetchSize;
+
+  /**
+   * Constructor for the timesheet export repository.
+   *
+   * @param jdbcTemplate the template used to read the rows
+   * @param fetchSize    the number of the rows fetched from the database at once
+   */
+  @Autowired
+  public TimesheetExportRepository(JdbcTemplate jdbcTemplate,
+                                   @Value("${report.export.fetch-size}") int fetchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Reads the attendance of the employees for the period ordered by the day and the employee.
+   *
+   * @param startOfPeriod the first day of the period
+   * @param endOfPeriod   the last day of the period
+   * @param employeeIds   the ids of the employees, if null or empty, all employees are read
+   * @param consumer      the consumer of the rows
+   */
+  public void streamByPeriod(LocalDate startOfPeriod, LocalDate endOfPeriod,
+                             Set<Long> employeeIds, Consumer<TimesheetRowDto> consumer) {
+    List<Long> ids = employeeIds == null ? List.of() : List.copyOf(employeeIds);
+    String sql = selectByPeriod(ids.size());
+
+    jdbcTemplate.query(con -> {
+      PreparedStatement ps =
+          con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      ps.setFetchSize(fetchSize);
+      ps.setObject(1, startOfPeriod);
+      ps.setObject(2, endOfPeriod);
+      for (int i = 0; i < ids.size(); i++) {
+        ps.setLong(i + 3, ids.get(i));
+      }
+      return ps;
+    }, (RowCallbackHandler) rs -> consumer.accept(new TimesheetRowDto(
+        rs.getLong(1),
+        rs.getString(2),
+        rs.getString(3),
+        rs.getObject(4, LocalDate.class),
+        rs.getBoolean(5),
+        //доля смены округляется так же, как в отчете по рабочим сменам
+        rs.getBigDecimal(6).setScale(1, RoundingMode.HALF_UP))));
+  }
+
+  private static String selectByPeriod(int employeeIds) {
+    if (employeeIds == 0) {
+      return SELECT + ORDER;
+    }
+    return SELECT + " and ad.employee_id in ("
+        + String.join(", ", Collections.nCopies(employeeIds, "?")) + ")" + ORDER;
+  }
+}
@@ -10,15 +10,16 @@
 
 package ru.trae.backend.repository;
 
-import java.time.LocalDate;
-import java.util.List;
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.trae.backend.entity.WorkingShift;
-import ru.trae.backend.projection.WorkingShiftEmployeeDto;
+import ru.trae.backend.projection.WorkingShiftIdStartDto;
 
 /**
  * Repository interface for WorkingShift entity which enables basic CRUD operations.
@@ -51,6 +52,38 @@ public interface WorkingShiftRepository extends JpaRepository<WorkingShift, Long
    */
   WorkingShift findByIsEndedFalse();
 
+  /**
+   * Find the id and the start of the active WorkingShift without loading its time controls.
+   *
+   * @return the id and the start of the active WorkingShift if there is one.
+   */
+  @Query("""
+      select w.id as id, w.startShift as startShift
+      from WorkingShift w where w.isEnded = false""")
+  Optional<WorkingShiftIdStartDto> findActiveIdAndStartShift();
+
+  /**
+   * Find the start of the last closed WorkingShift.
+   *
+   * @return the start of the last closed WorkingShift if there is one.
+   */
+  @Query("select max(w.startShift) from WorkingShift w where w.isEnded = true")
+  Optional<LocalDateTime> findLastClosedStartShift();
+
+  /**
+   * Marks the WorkingShift as ended if it is still active.
+   *
+   * @param id       the id of the WorkingShift
+   * @param endShift the end of the WorkingShift
+   * @return the number of updated WorkingShifts
+   */
+  @Transactional
+  @Modifying
+  @Query(value = """
+      update working_shifts set is_ended = true, end_shift = ?2
+      where id = ?1 and is_ended = false""", nativeQuery = true)
+  int updateEndedById(long id, LocalDateTime endShift);
+
   /**
    * Checks if there exists a working shift that is not ended and has a start shift date
    * different from the current date.
@@ -79,49 +112,4 @@ public interface WorkingShiftRepository extends JpaRepository<WorkingShift, Long
       + "where ws.is_ended = false and tc.is_on_shift = :isOnShift and e.id = :id)",
       nativeQuery = true)
   boolean existsEmpOnShift(@Param("isOnShift") boolean isOnShift, @Param("id") Long id);
-
-  //32400 - количество секунд в 9-часовой смене
-  @Query(value = """
-      select employee_id,
-             auto_closing_shift,
-             cast(ws.start_shift as date) as shift_date,
-             round(sum(extract(epoch from
-                               (case
-                                    when cast(ws.start_shift as date) + time '18:00' < tc.departure
-                                        then cast(ws.start_shift as date) + time '18:00'
-                                    else tc.departure end) -
-                               (case
-                                    when cast(ws.start_shift as date) + time '09:00' > tc.arrival
-                                        then cast(ws.start_shift as date) + time '09:00'
-                                    else tc.arrival end))) / 32400, 1) as part_of_shift
-      from working_shifts ws
-               inner join time_controls tc on ws.id = tc.working_shift_id
-      group by tc.employee_id, tc.auto_closing_shift, ws.is_ended, ws.start_shift
-      having ws.is_ended = true
-         and cast(ws.start_shift as date) between ?1 and ?2""", nativeQuery = true)
-  List<WorkingShiftEmployeeDto> getWorkingShiftsDates(
-      LocalDate startOfPeriod, LocalDate endOfPeriod);
-
-  //32400 - количество секунд в 9-часовой смене
-  @Query(value = """
-      select employee_id,
-             auto_closing_shift,
-             cast(ws.start_shift as date) as shift_date,
-             round(sum(extract(epoch from
-                               (case
-                                    when cast(ws.start_shift as date) + time '18:00' < tc.departure
-                                        then cast(ws.start_shift as date) + time '18:00'
-                                    else tc.departure end) -
-                               (case
-                                    when cast(ws.start_shift as date) + time '09:00' > tc.arrival
-                                        then cast(ws.start_shift as date) + time '09:00'
-                                    else tc.arrival end))) / 32400, 1) as part_of_shift
-      from working_shifts ws
-               inner join time_controls tc on ws.id = tc.working_shift_id
-      group by tc.employee_id, tc.auto_closing_shift, ws.is_ended, ws.start_shift
-      having ws.is_ended = true
-         and cast(ws.start_shift as date) between ?1 and ?2
-         and tc.employee_id in ?3""", nativeQuery = true)
-  List<WorkingShiftEmployeeDto> getWorkingShiftsDatesByEmpIds(
-      LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds);
 }
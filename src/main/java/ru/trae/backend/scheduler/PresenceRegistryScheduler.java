@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.scheduler;
+
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.trae.backend.service.PresenceRegistry;
+
+/**
+ * This is a configuration class used to load the registry of the employees on shift during
+ * initialization and then to reconcile it with the open time controls periodically.
+ * The registry is kept in the memory of each instance and the reconciliation only reads
+ * the database, so unlike the jobs that change data, it is executed by every instance and is
+ * not gated by the leader election: otherwise the registries of the other instances would
+ * never be reconciled.
+ *
+ * @author Vladimir Olennikov
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduler.enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PresenceRegistryScheduler {
+  private final PresenceRegistry presenceRegistry;
+
+  /**
+   * This job is used to reconcile the registry of the employees on shift.
+   */
+  @Scheduled(fixedDelayString = "${scheduler.presence-reconcile}",
+      initialDelayString = "${scheduler.presence-reconcile}")
+  protected void reconcileHandler() {
+    presenceRegistry.reconcile();
+  }
+
+  /**
+   * This method is used to load the registry of the employees on shift during initialization.
+   */
+  @PostConstruct
+  protected void loadAfterInit() {
+    presenceRegistry.reconcile();
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.scheduler;
+
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.trae.backend.service.ProjectListStateService;
+import ru.trae.backend.service.SchedulerLeaderElection;
+
+/**
+ * This is a configuration class used to check the list state of the projects against their
+ * operations. The check runs during initialization and then by cron, inconsistent list state
+ * is rebuilt in batches. When several instances share one database, the check is executed only
+ * by the leader instance.
+ *
+ * @author Vladimir Olennikov
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduler.enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ProjectListStateScheduler {
+  private final ProjectListStateService projectListStateService;
+  private final SchedulerLeaderElection schedulerLeaderElection;
+
+  /**
+   * This cron job is used to check and rebuild the list state of the projects.
+   */
+  @Scheduled(cron = "${scheduler.list-state-check}")
+  protected void listStateCheckHandler() {
+    if (!schedulerLeaderElection.isLeader()) {
+      return;
+    }
+
+    projectListStateService.checkAndRebuild();
+  }
+
+  /**
+   * This method is used to check the list state of the projects during initialization.
+   */
+  @PostConstruct
+  protected void checkListStateAfterInit() {
+    if (!schedulerLeaderElection.isLeader()) {
+      return;
+    }
+
+    projectListStateService.checkAndRebuild();
+  }
+}
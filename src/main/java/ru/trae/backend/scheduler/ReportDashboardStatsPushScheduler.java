@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.trae.backend.service.ReportDashboardStatsBroadcaster;
+
+/**
+ * This is a configuration class used to push the changes of the dashboard statistics to
+ * the subscribers. The changes made between two runs are coalesced into one push.
+ *
+ * @author Vladimir Olennikov
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduler.enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReportDashboardStatsPushScheduler {
+  private final ReportDashboardStatsBroadcaster reportDashboardStatsBroadcaster;
+
+  /**
+   * This job is used to push the changes of the dashboard statistics.
+   */
+  @Scheduled(fixedDelayString = "${dashboard.push-interval}")
+  protected void pushHandler() {
+    reportDashboardStatsBroadcaster.pushChanges();
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.trae.backend.service.ReportJobService;
+
+/**
+ * This is a configuration class used to remove the report jobs, the results of which
+ * have expired. The jobs are kept by each instance, so the job runs on every instance.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduler.enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReportJobCleanupScheduler {
+  private final ReportJobService reportJobService;
+
+  /**
+   * This job is used to remove the expired report jobs with their results.
+   */
+  @Scheduled(fixedDelayString = "${report.jobs.cleanup-interval}")
+  protected void cleanupHandler() {
+    int removed = reportJobService.removeExpired();
+    if (removed > 0) {
+      log.info("expired report jobs removed: " + removed);
+    }
+  }
+}
@@ -17,12 +17,14 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
+import ru.trae.backend.service.SchedulerLeaderElection;
 import ru.trae.backend.service.WorkingShiftService;
 
 /**
  * This is a configuration class used to enable scheduling of tasks related to work shifting.
  * It also defines two cron jobs, one to start a new work shifting day, and another to end the day.
  * A working shift is also created during initialization, if one doesn't already exist.
+ * When several instances share one database, the jobs are executed only by the leader instance.
  *
  * @author Vladimir Olennikov
  */
@@ -32,12 +34,27 @@ import ru.trae.backend.service.WorkingShiftService;
 @RequiredArgsConstructor
 public class WorkShiftingScheduler {
   private final WorkingShiftService workingShiftService;
+  private final SchedulerLeaderElection schedulerLeaderElection;
+
+  /**
+   * This job is used to keep or take the leadership between the cron jobs, so the lock
+   * of a stopped leader is taken over before the next job.
+   */
+  @Scheduled(fixedDelayString = "${scheduler.leader-check}",
+      initialDelayString = "${scheduler.leader-check}")
+  protected void leaderCheckHandler() {
+    schedulerLeaderElection.isLeader();
+  }
 
   /**
    * This cron job is used to start a new work shifting day.
    */
   @Scheduled(cron = "${scheduler.start-day}")
   protected void workShiftingDayHandler() {
+    if (!schedulerLeaderElection.isLeader()) {
+      return;
+    }
+
     if (!workingShiftService.existsActiveWorkingShift()) {
       workingShiftService.closeWorkingShift();
     }
@@ -50,6 +67,10 @@ public class WorkShiftingScheduler {
    */
   @Scheduled(cron = "${scheduler.end-day}")
   protected void workShiftingDayEndHandler() {
+    if (!schedulerLeaderElection.isLeader()) {
+      return;
+    }
+
     workingShiftService.closeWorkingShift();
   }
 
@@ -59,6 +80,10 @@ public class WorkShiftingScheduler {
    */
   @PostConstruct
   protected void createWorkingShiftAfterInit() {
+    if (!schedulerLeaderElection.isLeader()) {
+      return;
+    }
+
     LocalTime start = LocalTime.of(7, 0, 0);
     LocalTime end = LocalTime.of(23, 0, 0);
 
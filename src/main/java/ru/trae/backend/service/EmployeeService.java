@@ -20,6 +20,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,6 +38,8 @@ import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.exceptionhandler.exception.EmployeeException;
 import ru.trae.backend.repository.EmployeeRepository;
+import ru.trae.backend.repository.KeysetRepository;
+import ru.trae.backend.specification.EmployeeSpecification;
 import ru.trae.backend.util.Util;
 
 /**
@@ -53,6 +57,8 @@ public class EmployeeService {
   private final TimeControlService timeControlService;
   private final TypeWorkService typeWorkService;
   private final PageToPageDtoMapper pageToPageDtoMapper;
+  private final KeysetRepository keysetRepository;
+  private final ReportResultCache reportResultCache;
   
   /**
    * Method for saving new employee to the database.
@@ -141,16 +147,14 @@ public class EmployeeService {
   public ShortEmployeeDto checkInEmployee(long employeeId) {
     Employee e = getEmployeeById(employeeId);
     
-    if (!workingShiftService.employeeOnShift(true, e.getId())) {
+    //отметка могла быть сделана на другом экземпляре, поэтому проверяется по базе данных
+    if (!workingShiftService.employeeOnShiftInDatabase(true, e.getId())) {
       workingShiftService.arrivalEmployeeOnShift(e);
       log.info("employee with id: " + e.getId() + " successful arrival on working shift");
     }
     
-    return new ShortEmployeeDto(
-        e.getId(),
-        e.getFirstName(),
-        e.getLastName(),
-        workingShiftService.employeeOnShift(true, e.getId()));
+    //после отметки или при уже существующей отметке сотрудник находится на смене
+    return new ShortEmployeeDto(e.getId(), e.getFirstName(), e.getLastName(), true);
   }
   
   /**
@@ -163,16 +167,12 @@ public class EmployeeService {
   public ShortEmployeeDto departureEmployee(long employeeId) {
     Employee e = getEmployeeById(employeeId);
     
-    if (workingShiftService.employeeOnShift(true, e.getId())) {
+    if (workingShiftService.employeeOnShiftInDatabase(true, e.getId())) {
       timeControlService.updateTimeControlForDeparture(employeeId, LocalDateTime.now());
       log.info("employee with id: " + employeeId + " successful departed from working shift");
     }
     
-    return new ShortEmployeeDto(
-        e.getId(),
-        e.getFirstName(),
-        e.getLastName(),
-        workingShiftService.employeeOnShift(true, e.getId()));
+    return new ShortEmployeeDto(e.getId(), e.getFirstName(), e.getLastName(), false);
   }
   
   /**
@@ -205,6 +205,31 @@ public class EmployeeService {
         getEmployeePage(employeePage, typeWorkId, isActive));
   }
   
+  /**
+   * Get the next page of employees selected by keyset pagination without counting the total
+   * number of employees.
+   *
+   * @param sort       sort of employees
+   * @param limit      maximum number of employees on the page
+   * @param after      cursor of the previous page, empty for the first page
+   * @param typeWorkId type work id
+   * @param isActive   is active
+   * @return page of employees with the cursor of the next page
+   */
+  public PageDto<EmployeeDto> getEmployeeDtoPageAfter(
+      Sort sort, int limit, String after, List<Long> typeWorkId, Boolean isActive) {
+    Specification<Employee> filter = null;
+    if (isActive != null) {
+      filter = EmployeeSpecification.isActive(isActive);
+    }
+    if (typeWorkId != null) {
+      filter = Specification.where(filter).and(EmployeeSpecification.hasAllTypeWorks(typeWorkId));
+    }
+
+    return pageToPageDtoMapper.sliceToPageDto(
+        keysetRepository.findSlice(Employee.class, filter, sort, after, limit), employeeDtoMapper);
+  }
+  
   public List<EmployeeIdFirstLastNameDto> getEmployeeDtoByListId(List<Long> listEmpId) {
     return employeeRepository.findByIdIn(listEmpId);
   }
@@ -290,6 +315,7 @@ public class EmployeeService {
     changeEmployeeTypesWork(dto, e);
     
     employeeRepository.save(e);
+    reportResultCache.invalidate();
     
     log.info("employee data successfully changed on this data: " + dto);
   }
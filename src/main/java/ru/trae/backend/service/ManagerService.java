@@ -19,6 +19,8 @@ import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -35,10 +37,13 @@ import ru.trae.backend.dto.manager.ManagerRegisterDto;
 import ru.trae.backend.dto.manager.ManagerShortDto;
 import ru.trae.backend.dto.manager.ResetPassResp;
 import ru.trae.backend.dto.mapper.ManagerDtoMapper;
+import ru.trae.backend.dto.mapper.ManagerShortDtoMapper;
 import ru.trae.backend.dto.mapper.PageToPageDtoMapper;
 import ru.trae.backend.entity.user.Manager;
 import ru.trae.backend.exceptionhandler.exception.ManagerException;
+import ru.trae.backend.repository.KeysetRepository;
 import ru.trae.backend.repository.ManagerRepository;
+import ru.trae.backend.specification.ManagerSpecification;
 import ru.trae.backend.util.PasswordGenerator;
 import ru.trae.backend.util.Role;
 import ru.trae.backend.util.jwt.JwtUtil;
@@ -54,6 +59,8 @@ public class ManagerService {
   private final ManagerRepository managerRepository;
   private final ManagerDtoMapper managerDtoMapper;
   private final PageToPageDtoMapper pageToPageDtoMapper;
+  private final ManagerShortDtoMapper managerShortDtoMapper;
+  private final KeysetRepository keysetRepository;
   private final BCryptPasswordEncoder encoder;
   private final JwtUtil jwtUtil;
 
@@ -169,6 +176,33 @@ public class ManagerService {
     return pageToPageDtoMapper.managerPageToPageDto(getManagerPage(managerPage, role, status));
   }
 
+  /**
+   * Gets the next page of managers selected by keyset pagination without counting the total
+   * number of managers.
+   *
+   * @param sort   the sort of managers
+   * @param limit  the maximum number of managers on the page
+   * @param after  the cursor of the previous page, empty for the first page
+   * @param role   the role of the manager
+   * @param status the status of the manager
+   * @return a page of managers with the cursor of the next page
+   */
+  public PageDto<ManagerShortDto> getManagerDtoPageAfter(
+      Sort sort, int limit, String after, String role, Boolean status) {
+    Specification<Manager> filter = null;
+    if (status != null) {
+      filter = ManagerSpecification.accountNonLocked(status);
+    }
+    if (role != null) {
+      filter = Specification.where(filter)
+          .and(ManagerSpecification.hasRole(Role.getRoleByValue(role)));
+    }
+
+    return pageToPageDtoMapper.sliceToPageDto(
+        keysetRepository.findSlice(Manager.class, filter, sort, after, limit),
+        managerShortDtoMapper);
+  }
+
   /**
    * This method is used to reset a manager's password using their username.
    * It randomly generates a 6 character alphanumeric password and then encodes the password using
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import static java.time.temporal.ChronoUnit.HOURS;
+import static ru.trae.backend.factory.OperationFactory.SHIPMENT_TYPE_WORK_ID;
+import static ru.trae.backend.util.Constant.OPERATION_WITH_ID;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.trae.backend.dto.operation.BulkOperationReq;
+import ru.trae.backend.dto.operation.BulkOperationResultDto;
+import ru.trae.backend.exceptionhandler.exception.OperationException;
+import ru.trae.backend.projection.OperationBulkRowDto;
+import ru.trae.backend.repository.OperationRepository;
+import ru.trae.backend.util.BulkOperationAction;
+import ru.trae.backend.util.BulkOperationStatus;
+import ru.trae.backend.util.OperationEventType;
+import ru.trae.backend.util.OperationState;
+
+/**
+ * Service class for applying an action to a list of operations at once.
+ * The operations are validated by one query, the action is applied by one statement, and every
+ * affected project is advanced once, all in one transaction.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OperationBulkActionService {
+  public static final int MAX_BULK_SIZE = 500;
+  private final OperationRepository operationRepository;
+  private final OperationService operationService;
+  private final ProjectService projectService;
+  private final ProjectListStateService projectListStateService;
+  private final OperationEventWriter operationEventWriter;
+
+  /**
+   * Applies the action to the operations. The operations, which are not found or cannot be
+   * processed in their current state, are skipped, the action is applied to all the others.
+   *
+   * @param req the action and the ids of the operations
+   * @return the result for every id of the request, in the order of the request
+   * @throws OperationException if the number of the ids exceeds {@link #MAX_BULK_SIZE}
+   */
+  @Transactional
+  public List<BulkOperationResultDto> applyAction(BulkOperationReq req) {
+    List<Long> ids = new ArrayList<>(new LinkedHashSet<>(req.operationIds()));
+    if (ids.size() > MAX_BULK_SIZE) {
+      throw new OperationException(HttpStatus.BAD_REQUEST,
+          "The list of operation ids cannot contain more than " + MAX_BULK_SIZE + " ids");
+    }
+
+    Map<Long, OperationBulkRowDto> rows = operationRepository.findForBulkActionByIds(ids)
+        .stream()
+        .collect(Collectors.toMap(OperationBulkRowDto::getId, Function.identity()));
+
+    List<BulkOperationResultDto> results = new ArrayList<>(ids.size());
+    List<OperationBulkRowDto> accepted = new ArrayList<>();
+    for (long id : ids) {
+      OperationBulkRowDto row = rows.get(id);
+      if (row == null) {
+        results.add(new BulkOperationResultDto(id, BulkOperationStatus.NOT_FOUND,
+            OPERATION_WITH_ID.value + id + " not found"));
+        continue;
+      }
+
+      String rejection = req.action() == BulkOperationAction.CLOSE
+          ? checkForClose(row)
+          : checkForDelete(row);
+      if (rejection != null) {
+        results.add(new BulkOperationResultDto(id, BulkOperationStatus.REJECTED, rejection));
+      } else {
+        results.add(new BulkOperationResultDto(id, BulkOperationStatus.DONE, null));
+        accepted.add(row);
+      }
+    }
+
+    if (accepted.isEmpty()) {
+      return results;
+    }
+
+    Map<Long, List<OperationBulkRowDto>> rowsByProjectId = accepted.stream()
+        .collect(Collectors.groupingBy(
+            OperationBulkRowDto::getProjectId, LinkedHashMap::new, Collectors.toList()));
+    List<Long> acceptedIds = accepted.stream().map(OperationBulkRowDto::getId).toList();
+
+    if (req.action() == BulkOperationAction.CLOSE) {
+      close(acceptedIds, rowsByProjectId);
+    } else {
+      delete(acceptedIds, rowsByProjectId);
+    }
+
+    projectListStateService.refresh(rowsByProjectId.keySet());
+    log.info("{} of {} operations have been processed by the bulk action {}",
+        accepted.size(), ids.size(), req.action());
+    return results;
+  }
+
+  private void close(List<Long> ids, Map<Long, List<OperationBulkRowDto>> rowsByProjectId) {
+    LocalDateTime now = LocalDateTime.now();
+    checkAllProcessed(
+        operationRepository.updateStateToEndedByIdsIfReadyToAcceptanceOrInWork(ids, now), ids);
+
+    rowsByProjectId.forEach((projectId, rows) -> {
+      rows.forEach(r -> operationEventWriter.append(
+          OperationEventType.CLOSED, r.getId(), projectId, null, r.getPlannedEndDate()));
+      OperationBulkRowDto last = rows.stream()
+          .max(Comparator.comparingInt(OperationBulkRowDto::getPriority))
+          .orElseThrow();
+      operationService.startNextOperation(projectId, last.getOperationPeriod(),
+          last.getPriority());
+
+      //сдвиги планируемой даты окончания по всем закрытым операциям проекта суммируются,
+      //и проект обновляется один раз
+      long hours = rows.stream()
+          .filter(r -> r.getPlannedEndDate() != null)
+          .mapToLong(r -> HOURS.between(r.getPlannedEndDate(), now))
+          .sum();
+      if (hours != 0 && last.getProjectPlannedEndDate() != null) {
+        projectService.shiftPlannedEndDate(projectId, last.getProjectPlannedEndDate(), hours);
+      }
+    });
+  }
+
+  private void delete(List<Long> ids, Map<Long, List<OperationBulkRowDto>> rowsByProjectId) {
+    checkAllProcessed(
+        operationRepository.deleteByIdsIfWaitingAndNotTypeWork(ids, SHIPMENT_TYPE_WORK_ID), ids);
+
+    rowsByProjectId.forEach((projectId, rows) -> {
+      rows.forEach(r -> operationEventWriter.append(
+          OperationEventType.DELETED, r.getId(), projectId, null, null));
+      OperationBulkRowDto first = rows.get(0);
+      if (first.getProjectPlannedEndDate() != null) {
+        projectService.shiftPlannedEndDate(projectId, first.getProjectPlannedEndDate(),
+            -(long) first.getOperationPeriod() * rows.size());
+      }
+    });
+  }
+
+  private String checkForClose(OperationBulkRowDto row) {
+    if (row.getState() == OperationState.ENDED) {
+      return OPERATION_WITH_ID.value + row.getId() + " is already finished or closed";
+    }
+    if (row.getState() == OperationState.WAITING) {
+      return "The operation is not yet in operation or is not available for acceptance";
+    }
+    return null;
+  }
+
+  private String checkForDelete(OperationBulkRowDto row) {
+    if (row.getState() != OperationState.WAITING) {
+      return "Operation with ID " + row.getId()
+          + " cannot be deleted. Operation in work or ready to acceptance";
+    }
+    if (row.getTypeWorkId() == SHIPMENT_TYPE_WORK_ID) {
+      return OPERATION_WITH_ID.value + row.getId()
+          + " is shipment. Shipment operation cannot be deleted";
+    }
+    return null;
+  }
+
+  //операции заблокированы выборкой, поэтому расхождение означает изменение данных в обход
+  //блокировки, и вся транзакция откатывается
+  private void checkAllProcessed(int processed, List<Long> ids) {
+    if (processed != ids.size()) {
+      throw new OperationException(HttpStatus.CONFLICT,
+          "The operations have been changed during the bulk action, processed " + processed
+              + " of " + ids.size());
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import ru.trae.backend.dto.event.OperationEventDto;
+import ru.trae.backend.dto.event.OperationEventPageDto;
+import ru.trae.backend.dto.mapper.OperationEventDtoMapper;
+import ru.trae.backend.repository.OperationEventRepository;
+
+/**
+ * Service class for reading the operation event log.
+ *
+ * @author Vladimir Olennikov
+ */
+@Service
+@RequiredArgsConstructor
+public class OperationEventService {
+  public static final int MAX_LIMIT = 1000;
+  private final OperationEventRepository operationEventRepository;
+  private final OperationEventDtoMapper operationEventDtoMapper;
+
+  /**
+   * Returns the events following the cursor, ordered by id. The events are read by the primary
+   * key, so the consumer reads only the new events. The events are committed in the order
+   * of their ids by all instances, so an event is never committed behind the cursor.
+   *
+   * @param after the cursor: the id of the last event received by the consumer, 0 for the start
+   * @param limit the maximum number of the events
+   * @return the events and the cursor for the next request
+   */
+  public OperationEventPageDto getEventsAfter(long after, int limit) {
+    List<OperationEventDto> events = operationEventRepository
+        .findAfter(after, PageRequest.of(0, limit))
+        .stream()
+        .map(operationEventDtoMapper)
+        .toList();
+
+    long cursor = events.isEmpty() ? after : events.get(events.size() - 1).id();
+    return new OperationEventPageDto(events, cursor);
+  }
+}
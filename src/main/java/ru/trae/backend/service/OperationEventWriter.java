@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.trae.backend.entity.OperationEvent;
+import ru.trae.backend.repository.OperationEventRepository;
+import ru.trae.backend.util.OperationEventType;
+
+/**
+ * Service class for writing the operation event log. The events are queued in memory and
+ * written by one background thread in batches: a batch is written when it has reached
+ * the batch size, or when the flush interval has passed since its first event.
+ * The event of a transaction is queued only after the commit of the transaction, so the log
+ * does not contain the rolled back transitions.
+ *
+ * <p>The batch is appended under the lock of the log, which is shared by all instances
+ * of the backend: the ids are allocated after the lock is taken, and the lock is released
+ * by the commit, so the events are visible to the consumers in the order of their ids.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+public class OperationEventWriter {
+  public static final int QUEUE_CAPACITY = 10_000;
+  public static final int WRITE_ATTEMPTS = 3;
+  public static final long ENQUEUE_TIMEOUT_MILLIS = 100;
+  private final OperationEventRepository operationEventRepository;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final BlockingQueue<OperationEvent> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong lost = new AtomicLong();
+  private volatile boolean running;
+  private Thread worker;
+
+  /**
+   * Constructor for the operation event writer.
+   *
+   * @param operationEventRepository the repository used to write the events
+   * @param batchSize                the maximum number of the events written by one batch
+   * @param flushInterval            the maximum delay of the event before it is written
+   */
+  @Autowired
+  public OperationEventWriter(OperationEventRepository operationEventRepository,
+                              @Value("${events.batch-size}") int batchSize,
+                              @Value("${events.flush-interval}") Duration flushInterval) {
+    this.operationEventRepository = operationEventRepository;
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+  }
+
+  /**
+   * Starts the writer thread.
+   */
+  @PostConstruct
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    worker = new Thread(this::writeLoop, "operation-event-writer");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Stops the writer thread. The queued events are written before the stop.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  @PreDestroy
+  public synchronized void stop() throws InterruptedException {
+    if (!running) {
+      return;
+    }
+    running = false;
+    worker.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 10_000);
+  }
+
+  /**
+   * Appends the event to the log. Inside a transaction the event is queued after the commit,
+   * otherwise it is queued immediately. If the queue stays full for
+   * {@link #ENQUEUE_TIMEOUT_MILLIS}, the event is counted as lost: the request, which has
+   * already committed its changes, is not blocked by a slow or unavailable log.
+   *
+   * @param type           the type of the event
+   * @param operationId    the id of the operation, null for the events of the project
+   * @param projectId      the id of the project
+   * @param employeeId     the id of the employee, if the event is made by the employee
+   * @param plannedEndDate the planned end date of the operation or the project
+   */
+  public void append(OperationEventType type, Long operationId, Long projectId,
+                     Long employeeId, LocalDateTime plannedEndDate) {
+    OperationEvent event = new OperationEvent();
+    event.setType(type);
+    event.setOperationId(operationId);
+    event.setProjectId(projectId);
+    event.setEmployeeId(employeeId);
+    event.setPlannedEndDate(plannedEndDate);
+    event.setCreatedAt(LocalDateTime.now());
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          enqueue(event);
+        }
+      });
+    } else {
+      enqueue(event);
+    }
+  }
+
+  public long getWrittenCount() {
+    return written.get();
+  }
+
+  public long getLostCount() {
+    return lost.get();
+  }
+
+  private void enqueue(OperationEvent event) {
+    try {
+      if (!queue.offer(event, ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        lost.incrementAndGet();
+        log.error("the {} event of the project with id {} has been lost, the queue is full",
+            event.getType(), event.getProjectId());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      lost.incrementAndGet();
+      log.error("the {} event of the project with id {} has been lost, the thread is interrupted",
+          event.getType(), event.getProjectId());
+    }
+  }
+
+  private void writeLoop() {
+    while (running || !queue.isEmpty()) {
+      try {
+        List<OperationEvent> batch = takeBatch();
+        if (!batch.isEmpty()) {
+          write(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  //пакет собирается, пока не наберется batchSize событий или не пройдет интервал
+  //с момента получения первого события
+  private List<OperationEvent> takeBatch() throws InterruptedException {
+    List<OperationEvent> batch = new ArrayList<>(batchSize);
+    OperationEvent first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+    if (first == null) {
+      return batch;
+    }
+    batch.add(first);
+
+    long deadline = System.nanoTime() + flushIntervalNanos;
+    while (batch.size() < batchSize) {
+      long remaining = deadline - System.nanoTime();
+      OperationEvent next = remaining > 0
+          ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+          : queue.poll();
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+    }
+    return batch;
+  }
+
+  private void write(List<OperationEvent> batch) throws InterruptedException {
+    for (int attempt = 1; attempt <= WRITE_ATTEMPTS; attempt++) {
+      try {
+        //события вставляются пакетами JDBC, см. hibernate.jdbc.batch_size
+        operationEventRepository.appendAll(batch);
+        written.addAndGet(batch.size());
+        return;
+      } catch (RuntimeException e) {
+        log.warn("the batch of {} operation events has not been written, attempt {} of {}: {}",
+            batch.size(), attempt, WRITE_ATTEMPTS, e.getMessage());
+        //идентификаторы неудачной попытки не используются повторно
+        batch.forEach(event -> event.setId(null));
+        TimeUnit.NANOSECONDS.sleep(flushIntervalNanos);
+      }
+    }
+    lost.addAndGet(batch.size());
+    log.error("the batch of {} operation events has been lost", batch.size());
+  }
+}
@@ -10,22 +10,32 @@
 
 package ru.trae.backend.service;
 
+import static ru.trae.backend.factory.OperationFactory.SHIPMENT_TYPE_WORK_ID;
 import static ru.trae.backend.util.Constant.OPERATION_WITH_ID;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.trae.backend.dto.operation.InsertingOperationDto;
 import ru.trae.backend.dto.operation.NewOperationDto;
 import ru.trae.backend.dto.operation.OperationForEmpDto;
 import ru.trae.backend.dto.operation.OperationInWorkForEmpDto;
 import ru.trae.backend.dto.operation.ReceiveOpReq;
+import ru.trae.backend.dto.report.OperationDeadlineRowDto;
+import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.entity.task.Operation;
 import ru.trae.backend.entity.task.Project;
 import ru.trae.backend.entity.user.Employee;
@@ -33,8 +43,10 @@ import ru.trae.backend.exceptionhandler.exception.OperationException;
 import ru.trae.backend.exceptionhandler.exception.ProjectException;
 import ru.trae.backend.factory.OperationFactory;
 import ru.trae.backend.projection.OperationIdNameProjectNumberDto;
+import ru.trae.backend.projection.OperationShortRowDto;
 import ru.trae.backend.repository.OperationRepository;
-import ru.trae.backend.util.Util;
+import ru.trae.backend.util.OperationEventType;
+import ru.trae.backend.util.OperationState;
 
 /**
  * Service class for working with operation data.
@@ -48,6 +60,9 @@ public class OperationService {
   private final OperationRepository operationRepository;
   private final EmployeeService employeeService;
   private final OperationFactory operationFactory;
+  private final ProjectListStateService projectListStateService;
+  private final TypeWorkService typeWorkService;
+  private final OperationEventWriter operationEventWriter;
   public static final int MIN_PERIOD_OPERATION = 24;
   public static final int SHIPMENT_PERIOD = 24;
 
@@ -69,6 +84,8 @@ public class OperationService {
    * If operations size is greater than 0, the first operation is created.
    * If operations size is greater than 1, the rest operations are created.
    * The first operation gets a start time and the status "Ready to acceptance".
+   * The shipment operation is added after the rest operations. The types of work are loaded
+   * by one query and all the operations are saved by one call.
    *
    * @param p          this is the project associated with the operations
    * @param operations this is the list of {@link NewOperationDto} to be saved
@@ -78,101 +95,158 @@ public class OperationService {
       return;
     }
 
-    NewOperationDto dto = operations.get(0);
+    //типы работ всех операций и отгрузки загружаются одним запросом
+    Set<Long> typeWorkIds = operations.stream()
+        .map(NewOperationDto::typeWorkId)
+        .collect(Collectors.toSet());
+    typeWorkIds.add(SHIPMENT_TYPE_WORK_ID);
+    Map<Long, TypeWork> typeWorks = typeWorkService.getTypeWorksByIds(typeWorkIds);
 
-    int period = p.getOperationPeriod();
+    List<Operation> newOperations = new ArrayList<>(operations.size() + 1);
 
-    Operation fo = operationFactory.create(
-        p, dto.name(), period, 0,
+    NewOperationDto dto = operations.get(0);
+    newOperations.add(operationFactory.create(
+        p, dto.name(), p.getOperationPeriod(), 0,
         LocalDateTime.now(),
-        true, dto.typeWorkId());
+        true, typeWorks.get(dto.typeWorkId())));
+
+    for (int i = 1; i < operations.size(); i++) {
+      NewOperationDto no = operations.get(i);
+      newOperations.add(operationFactory.create(
+          p, no.name(), 0, i * 10,
+          null,
+          false, typeWorks.get(no.typeWorkId())));
+    }
 
-    operationRepository.save(fo);
+    newOperations.add(operationFactory.createShipmentOp(
+        p, operations.size() * 10, typeWorks.get(SHIPMENT_TYPE_WORK_ID)));
 
-    if (operations.size() > 1) {
-      operations.stream()
-          .skip(1)
-          .forEach(no -> {
-            Operation o = operationFactory.create(
-                p, no.name(), 0, operations.indexOf(no) * 10,
-                null,
-                false, no.typeWorkId());
+    //операции вставляются пакетами JDBC, см. hibernate.jdbc.batch_size
+    operationRepository.saveAll(newOperations);
 
-            operationRepository.save(o);
-          });
+    for (Operation o : newOperations) {
+      operationEventWriter.append(
+          OperationEventType.CREATED, o.getId(), p.getId(), null, o.getPlannedEndDate());
+      if (o.isReadyToAcceptance()) {
+        operationEventWriter.append(OperationEventType.READY_TO_ACCEPTANCE,
+            o.getId(), p.getId(), null, o.getPlannedEndDate());
+      }
     }
-
-    Operation shipment = operationFactory.createShipmentOp(p, operations.size() * 10);
-    operationRepository.save(shipment);
+    projectListStateService.refresh(p.getId());
   }
 
   /**
-   * Use to receive operation.
+   * Use to receive operation. The operation is transferred from the state "Ready to acceptance"
+   * to the state "In work" by one conditional update, so only one of the employees receiving
+   * the operation at the same time gets it. The reason of the rejection is looked up
+   * only if the update has not been applied.
    *
    * @param dto contain employee id and operation id
+   * @throws OperationException with the status 409 if the operation has already been received
    */
   public void receiveOperation(ReceiveOpReq dto) {
-    Employee e = employeeService.getEmployeeById(dto.employeeId());
-    Operation o = getOperationById(dto.operationId());
-
-    checkForAcceptance(o);
-    checkCompatibilityTypeWork(o, e);
-
-    o.setInWork(true);
-    o.setReadyToAcceptance(false);
-    o.setEmployee(e);
-    o.setAcceptanceDate(LocalDateTime.now());
+    int updated = operationRepository.updateStateToInWorkIfReadyToAcceptance(
+        dto.operationId(), dto.employeeId(), LocalDateTime.now());
+
+    if (updated == 0) {
+      //проигравший в гонке за операцию получает отказ по одному лишь состоянию операции
+      OperationState state = operationRepository.findStateById(dto.operationId()).orElseThrow(
+          () -> new OperationException(HttpStatus.NOT_FOUND,
+              OPERATION_WITH_ID.value + dto.operationId() + " not found"));
+      checkNotReceived(dto.operationId(), state);
+
+      Employee e = employeeService.getEmployeeById(dto.employeeId());
+      Operation o = getOperationById(dto.operationId());
+
+      checkForAcceptance(o);
+      checkCompatibilityTypeWork(o, e);
+      //проверки прошли, значит состояние операции изменилось между обновлением и проверкой
+      throw new OperationException(HttpStatus.CONFLICT,
+          OPERATION_WITH_ID.value + dto.operationId() + " has been changed, try again");
+    }
 
-    operationRepository.save(o);
+    operationRepository.findProjectIdById(dto.operationId()).ifPresent(projectId -> {
+      projectListStateService.refresh(projectId);
+      operationEventWriter.append(OperationEventType.RECEIVED,
+          dto.operationId(), projectId, dto.employeeId(), null);
+    });
   }
 
   /**
-   * Finishes the operation.
+   * Finishes the operation. The operation is transferred from the state "In work"
+   * to the state "Ended" by one conditional update, which also checks the employee,
+   * who has received the operation.
+   *
+   * The next operation is started in the same transaction.
    *
    * @param o The operation to be finished.
+   * @throws OperationException with the status 409 if the operation is not in work
    */
+  @Transactional
   public void finishOperation(Operation o) {
-    o.setInWork(false);
-    o.setEnded(true);
-    o.setRealEndDate(LocalDateTime.now());
+    if (operationRepository.updateStateToEndedIfInWork(
+        o.getId(), o.getEmployee().getId(), LocalDateTime.now()) == 0) {
+      throw new OperationException(HttpStatus.CONFLICT,
+          OPERATION_WITH_ID.value + o.getId() + " is not in work");
+    }
 
-    Operation op = operationRepository.save(o);
     log.info("the employee with id {} has finished the operation with id {}",
         o.getEmployee().getId(), o.getId());
+    operationEventWriter.append(OperationEventType.FINISHED, o.getId(),
+        o.getProject().getId(), o.getEmployee().getId(), o.getPlannedEndDate());
 
-    startNextOperation(op);
+    startNextOperation(o);
+    projectListStateService.refresh(o.getProject().getId());
   }
 
   /**
    * This is method sets the start date, the period, and the planned end date to the next operation
    * in the project. Recalculate the remaining period of the operation.
-   * The operations in the project are sorted by priority.
+   * The next operation and the number of the remaining operations are selected by the index
+   * on the project and the priority, the operations of the project are not loaded.
    *
    * @param o current operation
    */
   public void startNextOperation(Operation o) {
+    Project p = o.getProject();
+    startNextOperation(p.getId(), p.getOperationPeriod(), o.getPriority());
+  }
+
+  /**
+   * Starts the operation of the project following the given priority.
+   *
+   * @param projectId              the id of the project
+   * @param projectOperationPeriod the period of the operation of the project
+   * @param priority               the priority of the finished or closed operation
+   */
+  public void startNextOperation(long projectId, int projectOperationPeriod, int priority) {
     log.info("starting next operation...");
-    List<Operation> operations = o.getProject().getOperations()
-        .stream()
-        .sorted(Comparator.comparing(Operation::getPriority))
-        .toList();
-
-    if (operations.indexOf(o) + 1 < operations.size()) {
-      Operation nextOp = operations.get(operations.indexOf(o) + 1);
-      log.info("next operation with id {} from project with id {}",
-          nextOp.getId(), nextOp.getProject().getId());
-
-      int operationPeriod = getOperationPeriod(nextOp, operations);
-      log.info("period for next operation with id {} = {}", nextOp.getId(), operationPeriod);
-
-      nextOp.setReadyToAcceptance(true);
-      nextOp.setStartDate(LocalDateTime.now());
-      nextOp.setPeriod(operationPeriod);
-      nextOp.setPlannedEndDate(nextOp.getStartDate().plusHours(operationPeriod));
-
-      operationRepository.save(nextOp);
-      log.info("next operation with id {} started", nextOp.getId());
+    List<Long> nextOpIds = operationRepository.findNextIdsByProjectIdAndPriority(
+        projectId, priority, PageRequest.of(0, 1));
+    if (nextOpIds.isEmpty()) {
+      return;
+    }
+
+    long nextOpId = nextOpIds.get(0);
+    log.info("next operation with id {} from project with id {}", nextOpId, projectId);
+
+    // здесь отслеживается последний этап "отгрузка" = на него всегда 24 часа.
+    int operationPeriod =
+        operationRepository.countByProjectIdAndStateNot(projectId, OperationState.ENDED) == 1
+            ? SHIPMENT_PERIOD
+            : projectOperationPeriod;
+    log.info("period for next operation with id {} = {}", nextOpId, operationPeriod);
+
+    LocalDateTime startDate = LocalDateTime.now();
+    LocalDateTime plannedEndDate = startDate.plusHours(operationPeriod);
+    if (operationRepository.updateStateToReadyToAcceptanceIfWaiting(
+        nextOpId, startDate, operationPeriod, plannedEndDate) == 0) {
+      log.info("next operation with id {} has already been started", nextOpId);
+      return;
     }
+    operationEventWriter.append(OperationEventType.READY_TO_ACCEPTANCE,
+        nextOpId, projectId, null, plannedEndDate);
+    log.info("next operation with id {} started", nextOpId);
   }
 
   /**
@@ -184,21 +258,7 @@ public class OperationService {
    *     format, sorted by priority
    */
   public List<OperationForEmpDto> getOperationsByProjectIdForEmp(long projectId) {
-    List<Operation> operations = operationRepository.findByProjectId(projectId);
-
-    return operations.stream()
-        .sorted(Util::prioritySorting)
-        .map(o -> new OperationForEmpDto(
-            o.getId(),
-            o.getPriority(),
-            o.getName(),
-            o.isReadyToAcceptance(),
-            o.isEnded(),
-            o.isInWork(),
-            o.getEmployee() == null ? null : o.getEmployee().getFirstName(),
-            o.getEmployee() == null ? null : o.getEmployee().getLastName()
-        ))
-        .toList();
+    return operationRepository.findForEmpByProjectId(projectId);
   }
 
   /**
@@ -209,17 +269,7 @@ public class OperationService {
    *     the operation's name and the customer name
    */
   public List<OperationInWorkForEmpDto> getOperationsInWorkByEmpIdForEmp(long employeeId) {
-    List<Operation> operations = operationRepository.findByEmpIdAndInWork(employeeId);
-    return operations.stream()
-        .map(o -> new OperationInWorkForEmpDto(
-            o.getId(),
-            o.getProject().getId(),
-            o.getProject().getNumber(),
-            o.getProject().getName(),
-            o.getName(),
-            o.getProject().getCustomer()
-        ))
-        .toList();
+    return operationRepository.findInWorkForEmpByEmployeeId(employeeId);
   }
 
   /**
@@ -227,13 +277,11 @@ public class OperationService {
    *
    * @param dto the inserting operation dto
    * @param p   the project
-   * @throws IllegalStateException    if the priority already exists
-   * @throws IllegalArgumentException if the priority is not available
+   * @throws OperationException if the priority already exists or is not available
    */
   public boolean insertNewOperation(InsertingOperationDto dto, Project p) {
     List<Operation> operations = p.getOperations();
 
-    checkExistsPriority(operations, dto.priority());
     checkAvailablePriority(operations, dto.priority());
 
     Operation newOp;
@@ -250,55 +298,81 @@ public class OperationService {
           null, false, dto.typeWorkId());
     }
 
-    operationRepository.save(newOp);
+    //уникальность приоритета в проекте проверяется уникальным индексом при вставке
+    try {
+      operationRepository.saveAndFlush(newOp);
+    } catch (DataIntegrityViolationException e) {
+      if (!isPriorityConstraintViolation(e)) {
+        throw e;
+      }
+      throw new OperationException(HttpStatus.CONFLICT,
+          "The operation with priority: " + dto.priority() + " already exists");
+    }
+
+    operationEventWriter.append(OperationEventType.INSERTED,
+        newOp.getId(), p.getId(), null, newOp.getPlannedEndDate());
+    if (newOp.isReadyToAcceptance()) {
+      operationEventWriter.append(OperationEventType.READY_TO_ACCEPTANCE,
+          newOp.getId(), p.getId(), null, newOp.getPlannedEndDate());
+    }
+
+    boolean shipmentIsAdded = checkAndUpdateShipmentOp(operations, dto.priority());
+    projectListStateService.refresh(p.getId());
 
-    return checkAndUpdateShipmentOp(operations, dto.priority());
+    return shipmentIsAdded;
   }
 
   /**
-   * Deletes operation.
+   * Deletes operation. Only the waiting operation, which is not a shipment, can be deleted.
+   * The operation is deleted by one conditional statement, the reason of the rejection is
+   * looked up only if nothing has been deleted.
    *
    * @param operationId - operation ID
    * @throws OperationException if operation with given ID not found or cannot be deleted
    */
   public void deleteOperation(long operationId) {
-    if (!operationRepository.existsById(operationId)) {
-      throw new OperationException(HttpStatus.NOT_FOUND,
-          OPERATION_WITH_ID.value + operationId + " not found");
+    //проект запоминается до удаления для журнала событий
+    long projectId = operationRepository.findProjectIdById(operationId).orElseThrow(
+        () -> new OperationException(HttpStatus.NOT_FOUND,
+            OPERATION_WITH_ID.value + operationId + " not found"));
+    if (operationRepository.deleteByIdIfWaitingAndNotTypeWork(
+        operationId, SHIPMENT_TYPE_WORK_ID) > 0) {
+      operationEventWriter.append(
+          OperationEventType.DELETED, operationId, projectId, null, null);
+      return;
     }
+
+    Operation o = getOperationById(operationId);
     //проверка, что операция не доступна для принятия и не находится в работе
-    if (operationRepository.existsByIdOrIsEndedOrInWorkOrReadyToAcceptance(
-        operationId, true, true, true)) {
+    if (o.getState() != OperationState.WAITING) {
       throw new OperationException(HttpStatus.BAD_REQUEST,
           "Operation with ID " + operationId
               + " cannot be deleted. Operation in work or ready to acceptance");
     }
-    //проверка, что операция не является отгрузкой
-    if (operationRepository.existsByTypeWorkIdEqualsShipment(operationId, 1)) {
-      throw new OperationException(HttpStatus.BAD_REQUEST, OPERATION_WITH_ID.value + operationId
-          + " is shipment. Shipment operation cannot be deleted");
-    }
-
-    operationRepository.deleteById(operationId);
+    //операция ожидает, значит она является отгрузкой
+    throw new OperationException(HttpStatus.BAD_REQUEST, OPERATION_WITH_ID.value + operationId
+        + " is shipment. Shipment operation cannot be deleted");
   }
 
   /**
-   * Closes the operation.
+   * Closes the operation. The next operation is started in the same transaction.
    *
    * @param o The operation to be closed.
    * @throws OperationException The operation is not yet in operation or is not available
    *                            for acceptance
    */
+  @Transactional
   public void closeOperation(Operation o) {
-    if (o.isInWork() || o.isReadyToAcceptance()) {
-      operationRepository.updateRealEndDateAndIsEndedAndReadyToAcceptanceAndInWorkById(
-          LocalDateTime.now(), true, false, false, o.getId());
-    } else {
+    if (operationRepository.updateStateToEndedIfReadyToAcceptanceOrInWork(
+        o.getId(), LocalDateTime.now()) == 0) {
       throw new OperationException(HttpStatus.BAD_REQUEST,
           "The operation is not yet in operation or is not available for acceptance");
     }
+    operationEventWriter.append(OperationEventType.CLOSED,
+        o.getId(), o.getProject().getId(), null, o.getPlannedEndDate());
 
     startNextOperation(o);
+    projectListStateService.refresh(o.getProject().getId());
   }
 
   private boolean checkAndUpdateShipmentOp(List<Operation> operations, int priority) {
@@ -329,14 +403,15 @@ public class OperationService {
       Operation shipment =
           operationFactory.createShipmentOp(lastOp.getProject(), priorityNewOp + 10);
       operationRepository.save(shipment);
+      operationEventWriter.append(OperationEventType.INSERTED,
+          shipment.getId(), lastOp.getProject().getId(), null, null);
     }
   }
 
-  private void checkExistsPriority(List<Operation> operations, int priority) {
-    if (operations.stream().anyMatch(o -> o.getPriority() == priority)) {
-      throw new OperationException(HttpStatus.CONFLICT,
-          "The operation with priority: " + priority + " already exists");
-    }
+  private boolean isPriorityConstraintViolation(DataIntegrityViolationException e) {
+    return e.getCause() instanceof ConstraintViolationException cve
+        && cve.getConstraintName() != null
+        && cve.getConstraintName().toLowerCase().contains(Operation.PROJECT_PRIORITY_CONSTRAINT);
   }
 
   private void checkAvailablePriority(List<Operation> operations, int priority) {
@@ -353,6 +428,13 @@ public class OperationService {
     }
   }
 
+  private void checkNotReceived(long operationId, OperationState state) {
+    if (state == OperationState.IN_WORK || state == OperationState.ENDED) {
+      throw new OperationException(HttpStatus.CONFLICT,
+          OPERATION_WITH_ID.value + operationId + " has already been received");
+    }
+  }
+
   private void checkForAcceptance(Operation o) {
     if (!o.isReadyToAcceptance()) {
       throw new OperationException(HttpStatus.BAD_REQUEST,
@@ -381,17 +463,6 @@ public class OperationService {
     }
   }
 
-  private int getOperationPeriod(Operation nextOp, List<Operation> operations) {
-    long opRemaining = operations.stream().filter(op -> !op.isEnded()).count();
-
-    // здесь отслеживается последний этап "отгрузка" = на него всегда 24 часа.
-    if (opRemaining == 1) {
-      return 24;
-    } else {
-      return nextOp.getProject().getOperationPeriod();
-    }
-  }
-
   /**
    * Checks whether the priority of the operation matches its id.
    *
@@ -464,7 +535,32 @@ public class OperationService {
     }
   }
 
-  public List<Operation> getOperationsByIds(Set<Long> operationIds) {
-    return operationRepository.findOpsByIds(operationIds);
+  /**
+   * Retrieves the operations of the deadline report as flat rows with their projects and
+   * employees.
+   *
+   * @param operationIds the ids of the operations
+   * @return the rows of the operations ordered by id
+   */
+  public List<OperationDeadlineRowDto> getDeadlineRowsByIds(Set<Long> operationIds) {
+    return operationRepository.findDeadlineRowsByIds(operationIds);
+  }
+
+  /**
+   * Retrieves the operations that are in work or ready to acceptance and the last operations
+   * of the given projects, grouped by project id. Operations of each project are sorted by
+   * priority.
+   *
+   * @param projectIds the ids of the projects
+   * @return a map of project id to the current and last operations of the project
+   */
+  public Map<Long, List<OperationShortRowDto>> getCurrentAndLastOpsByProjectIds(
+      Collection<Long> projectIds) {
+    if (projectIds == null || projectIds.isEmpty()) {
+      return Map.of();
+    }
+
+    return operationRepository.findCurrentAndLastByProjectIds(projectIds).stream()
+        .collect(Collectors.groupingBy(OperationShortRowDto::getProjectId));
   }
 }
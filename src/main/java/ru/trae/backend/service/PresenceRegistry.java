@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.trae.backend.dto.workingshift.PresenceRegistryMetricsDto;
+import ru.trae.backend.projection.TimeControlEmployeeIdDto;
+import ru.trae.backend.repository.TimeControlRepository;
+
+/**
+ * Registry of the employees on the active working shift: the id of the employee is mapped
+ * to the id of the open time control. The registry answers the on-shift checks without
+ * querying the database. The database remains the source of truth: the registry is loaded
+ * from the open time controls on the first check and is periodically reconciled with them,
+ * the number of differences found by the reconciliation is kept as the drift.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PresenceRegistry {
+  private final TimeControlRepository timeControlRepository;
+  private final Map<Long, Long> onShift = new ConcurrentHashMap<>();
+  private final Object reconcileLock = new Object();
+  //количество изменений реестра: сверка не применяется, если во время чтения отметок
+  //реестр изменился, так как прочитанные отметки могли уже устареть
+  private final AtomicLong modifications = new AtomicLong();
+  private final AtomicLong reconciliations = new AtomicLong();
+  private final AtomicLong skippedReconciliations = new AtomicLong();
+  private final AtomicLong lastDrift = new AtomicLong();
+  private final AtomicLong totalDrift = new AtomicLong();
+  private volatile boolean loaded;
+
+  /**
+   * Checks if the employee is on the active working shift. If the registry has not been loaded
+   * yet, it is loaded first; if it cannot be loaded, the database is queried.
+   *
+   * @param employeeId the id of the employee
+   * @return true if the employee is on shift; false otherwise
+   */
+  public boolean isOnShift(long employeeId) {
+    if (!loaded && !reconcile()) {
+      return timeControlRepository
+          .findByEmployeeIdAndIsOnShiftTrueAndWorkingShiftIsEndedFalse(employeeId) != null;
+    }
+    return onShift.containsKey(employeeId);
+  }
+
+  /**
+   * Registers the arrival of the employee on shift. Inside a transaction the registry is
+   * changed after the commit.
+   *
+   * @param employeeId    the id of the employee
+   * @param timeControlId the id of the open time control
+   */
+  public void arrived(long employeeId, long timeControlId) {
+    afterCommit(() -> onShift.put(employeeId, timeControlId));
+  }
+
+  /**
+   * Registers the departure of the employee from shift. Inside a transaction the registry is
+   * changed after the commit.
+   *
+   * @param employeeId the id of the employee
+   */
+  public void departed(long employeeId) {
+    afterCommit(() -> onShift.remove(employeeId));
+  }
+
+  /**
+   * Removes all employees from the registry after the working shift is closed. Inside
+   * a transaction the registry is changed after the commit.
+   */
+  public void shiftClosed() {
+    afterCommit(onShift::clear);
+  }
+
+  /**
+   * Reconciles the registry with the open time controls of the active working shift.
+   * The registry is replaced by the time controls, unless it has been changed while they
+   * were read; in that case the reconciliation is skipped until the next run.
+   *
+   * @return true if the registry has been reconciled; false if the reconciliation was skipped
+   */
+  public boolean reconcile() {
+    synchronized (reconcileLock) {
+      long seen = modifications.get();
+      Map<Long, Long> actual = timeControlRepository.findOnShiftOfActiveWorkingShift().stream()
+          .collect(Collectors.toMap(TimeControlEmployeeIdDto::getEmployeeId,
+              TimeControlEmployeeIdDto::getTimeControlId, Math::max));
+
+      synchronized (onShift) {
+        if (modifications.get() != seen) {
+          skippedReconciliations.incrementAndGet();
+          log.debug("presence registry reconciliation skipped, the registry has been changed");
+          return false;
+        }
+
+        //при первой загрузке реестр еще не заполнен, расхождением это не считается
+        long drift = loaded ? countDrift(actual) : 0;
+        onShift.keySet().retainAll(actual.keySet());
+        onShift.putAll(actual);
+        loaded = true;
+
+        reconciliations.incrementAndGet();
+        lastDrift.set(drift);
+        totalDrift.addAndGet(drift);
+        if (drift > 0) {
+          log.warn("presence registry differed from the time controls in " + drift
+              + " entries and has been reconciled");
+        }
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns the metrics of the registry: the number of employees on shift, the number of
+   * reconciliations and the number of differences found by them.
+   *
+   * @return the {@link PresenceRegistryMetricsDto} object
+   */
+  public PresenceRegistryMetricsDto getMetrics() {
+    return new PresenceRegistryMetricsDto(
+        onShift.size(),
+        reconciliations.get(),
+        skippedReconciliations.get(),
+        lastDrift.get(),
+        totalDrift.get());
+  }
+
+  private long countDrift(Map<Long, Long> actual) {
+    long changedOrMissing = actual.entrySet().stream()
+        .filter(e -> !e.getValue().equals(onShift.get(e.getKey())))
+        .count();
+    long stale = onShift.keySet().stream()
+        .filter(id -> !actual.containsKey(id))
+        .count();
+    return changedOrMissing + stale;
+  }
+
+  private void afterCommit(Runnable change) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          apply(change);
+        }
+      });
+    } else {
+      apply(change);
+    }
+  }
+
+  private void apply(Runnable change) {
+    synchronized (onShift) {
+      modifications.incrementAndGet();
+      change.run();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import java.util.Collection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.repository.ProjectRepository;
+
+/**
+ * Service class for maintaining the list state of {@link Project} entities: the current
+ * operation (id, priority, in work flag, planned end date) and the "last operation ready to
+ * acceptance" flag. The list filters of the projects are built on these columns, so they must be
+ * refreshed after every change of the project operations.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProjectListStateService {
+  public static final int REBUILD_BATCH_SIZE = 500;
+  private final ProjectRepository projectRepository;
+  private final ReportDashboardStatsCache reportDashboardStatsCache;
+
+  /**
+   * Recalculates the list state of the project from its operations.
+   *
+   * @param projectId the id of the project
+   */
+  public void refresh(long projectId) {
+    projectRepository.refreshListStateByIds(List.of(projectId));
+    reportDashboardStatsCache.invalidate();
+  }
+
+  /**
+   * Recalculates the list state of the given projects from their operations by one statement.
+   *
+   * @param projectIds the ids of the projects
+   */
+  public void refresh(Collection<Long> projectIds) {
+    if (projectIds.isEmpty()) {
+      return;
+    }
+    projectRepository.refreshListStateByIds(projectIds);
+    reportDashboardStatsCache.invalidate();
+  }
+
+  /**
+   * Recalculates the list state of all projects from their operations.
+   * Projects are processed in batches ordered by id.
+   *
+   * @param batchSize the number of projects updated by one statement
+   * @return the number of processed projects
+   */
+  public int rebuild(int batchSize) {
+    int processed = 0;
+    long lastId = 0;
+    List<Long> ids = projectRepository.findIdsAfter(lastId, PageRequest.of(0, batchSize));
+
+    while (!ids.isEmpty()) {
+      projectRepository.refreshListStateByIds(ids);
+      processed += ids.size();
+      lastId = ids.get(ids.size() - 1);
+      ids = projectRepository.findIdsAfter(lastId, PageRequest.of(0, batchSize));
+    }
+
+    reportDashboardStatsCache.invalidate();
+    return processed;
+  }
+
+  /**
+   * Checks the list state of all projects against their operations and rebuilds it,
+   * if there are any inconsistent projects.
+   *
+   * @return the number of inconsistent projects found before the rebuild
+   */
+  public long checkAndRebuild() {
+    long inconsistent = projectRepository.countInconsistentListState();
+
+    if (inconsistent > 0) {
+      log.warn("the list state of {} projects is inconsistent, rebuilding...", inconsistent);
+      int processed = rebuild(REBUILD_BATCH_SIZE);
+      log.info("the list state of {} projects has been rebuilt", processed);
+    }
+
+    return inconsistent;
+  }
+}
@@ -17,20 +17,26 @@ import static ru.trae.backend.util.Constant.PROJECT_WITH_ID;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.trae.backend.dto.PageDto;
 import ru.trae.backend.dto.mapper.PageToPageDtoMapper;
-import ru.trae.backend.dto.mapper.ProjectAvailableDtoMapper;
 import ru.trae.backend.dto.mapper.ProjectDtoMapper;
 import ru.trae.backend.dto.operation.NewOperationDto;
 import ru.trae.backend.dto.project.ChangingCommonDataReq;
@@ -41,14 +47,22 @@ import ru.trae.backend.dto.project.NewProjectDto;
 import ru.trae.backend.dto.project.ProjectAvailableForEmpDto;
 import ru.trae.backend.dto.project.ProjectDto;
 import ru.trae.backend.dto.project.ProjectShortDto;
+import ru.trae.backend.dto.report.ProjectOperationRowDto;
+import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.entity.task.Operation;
 import ru.trae.backend.entity.task.Project;
 import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.exceptionhandler.exception.ProjectException;
 import ru.trae.backend.factory.ProjectFactory;
 import ru.trae.backend.projection.ProjectIdNumberDto;
+import ru.trae.backend.projection.ProjectShortRowDto;
+import ru.trae.backend.repository.KeysetRepository;
+import ru.trae.backend.repository.KeysetSlice;
+import ru.trae.backend.repository.ProjectReportRepository;
 import ru.trae.backend.repository.ProjectRepository;
+import ru.trae.backend.specification.ProjectSpecification;
 import ru.trae.backend.util.Constant;
+import ru.trae.backend.util.OperationEventType;
 import ru.trae.backend.util.Util;
 
 /**
@@ -60,13 +74,20 @@ import ru.trae.backend.util.Util;
 @Service
 @RequiredArgsConstructor
 public class ProjectService {
+  public static final int SEARCH_QUERY_MIN_LENGTH = 3;
+  public static final int SEARCH_RESULT_LIMIT = 100;
   private final ProjectRepository projectRepository;
+  private final ProjectReportRepository projectReportRepository;
   private final ProjectFactory projectFactory;
   private final OperationService operationService;
   private final EmployeeService employeeService;
   private final ProjectDtoMapper projectDtoMapper;
-  private final ProjectAvailableDtoMapper projectAvailableDtoMapper;
   private final PageToPageDtoMapper pageToPageDtoMapper;
+  private final ProjectListStateService projectListStateService;
+  private final KeysetRepository keysetRepository;
+  private final ReportDashboardStatsCache reportDashboardStatsCache;
+  private final ReportResultCache reportResultCache;
+  private final OperationEventWriter operationEventWriter;
 
   /**
    * Saves a new {@link Project} to the database.
@@ -187,39 +208,88 @@ public class ProjectService {
     return projectRepository.getCountProjectsWithLastOpReadyToAcceptance();
   }
 
-  public List<Project> findProjectsForPeriod(LocalDate startOfPeriod, LocalDate endOfPeriod) {
-    return projectRepository.findProjectsForPeriod(startOfPeriod, endOfPeriod);
+  /**
+   * Reads the projects for the period with their operations, one row for each operation
+   * ordered by the project and the priority, and passes the rows to the consumer.
+   *
+   * @param startOfPeriod the first day of the period
+   * @param endOfPeriod   the last day of the period
+   * @param consumer      the consumer of the rows
+   */
+  public void streamProjectRowsForPeriod(LocalDate startOfPeriod, LocalDate endOfPeriod,
+                                        Consumer<ProjectOperationRowDto> consumer) {
+    projectReportRepository.streamForPeriod(startOfPeriod, endOfPeriod, consumer);
   }
 
   public PageDto<ProjectShortDto> findProjectByNumberOrCustomer(
       Pageable projectPage, String projectNumberOrCustomer) {
-    return pageToPageDtoMapper.projectPageToPageDto(
-        findProjectPage(projectPage, projectNumberOrCustomer));
+    return toProjectShortDtoPage(findProjectPage(projectPage, projectNumberOrCustomer));
   }
 
   /**
    * Gets a page of {@link Project} objects according to the given parameters.
+   * A numeric query is searched by the project number, any other query is searched in the
+   * customer, name and comment of the project and ranked by similarity.
    *
    * @param projectPage             the requested page for the {@link Project} objects
    * @param projectNumberOrCustomer the number or customer data associated with the {@link Project}
-   * @return a page of {@link Project} objects
+   * @return a page of {@link ProjectShortRowDto} objects
    */
-  public Page<Project> findProjectPage(Pageable projectPage, String projectNumberOrCustomer) {
-    Page<Project> page;
+  public Page<ProjectShortRowDto> findProjectPage(
+      Pageable projectPage, String projectNumberOrCustomer) {
+    Page<ProjectShortRowDto> page;
 
     try {
       int number = Integer.parseInt(projectNumberOrCustomer);
       //поиск проектов по номеру
       page = projectRepository.findByNumber(number, projectPage);
     } catch (NumberFormatException e) {
-      //поиск проектов по заказчику
-      page = projectRepository.findByCustomerLikeIgnoreCase(
-          projectNumberOrCustomer.toUpperCase(), projectPage);
+      //поиск проектов по заказчику, названию и комментарию
+      page = findProjectPageByText(projectPage, projectNumberOrCustomer.trim());
     }
 
     return page;
   }
 
+  private Page<ProjectShortRowDto> findProjectPageByText(Pageable projectPage, String query) {
+    //триграммный индекс не используется для запросов короче трех символов
+    if (query.length() < SEARCH_QUERY_MIN_LENGTH) {
+      throw new ProjectException(HttpStatus.BAD_REQUEST,
+          "The search query must contain at least " + SEARCH_QUERY_MIN_LENGTH + " characters");
+    }
+
+    //результаты поиска упорядочены по релевантности и ограничены SEARCH_RESULT_LIMIT
+    List<Long> projectIds = projectRepository.searchIdsByText(
+            query, "%" + escapeLikePattern(query) + "%", SEARCH_RESULT_LIMIT).stream()
+        .map(Number::longValue)
+        .toList();
+    int from = (int) Math.min(projectPage.getOffset(), projectIds.size());
+    int to = Math.min(from + projectPage.getPageSize(), projectIds.size());
+
+    return new PageImpl<>(
+        findShortRowsInOrder(projectIds.subList(from, to)), projectPage, projectIds.size());
+  }
+
+  private String escapeLikePattern(String query) {
+    return query
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_");
+  }
+
+  private List<ProjectShortRowDto> findShortRowsInOrder(List<Long> projectIds) {
+    if (projectIds.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, ProjectShortRowDto> rowsById =
+        projectRepository.findShortByIdIn(projectIds).stream()
+            .collect(Collectors.toMap(ProjectShortRowDto::getId, Function.identity()));
+    return projectIds.stream()
+        .map(rowsById::get)
+        .toList();
+  }
+
   /**
    * Gets a page of {@code Project} objects according to the given parameters.
    *
@@ -239,9 +309,9 @@ public class ProjectService {
    *                                             "ready to acceptance" status
    * @param isOverdueProject                     a boolean flag indicating if the {@link  Project}
    *                                             is overdue
-   * @return a page of {@link Project} objects
+   * @return a page of {@link ProjectShortRowDto} objects
    */
-  public Page<Project> getProjectPage(
+  public Page<ProjectShortRowDto> getProjectPage(
       Pageable projectPage,
       Boolean isEnded,
       Boolean isOnlyFirstOpReadyToAcceptance,
@@ -250,7 +320,7 @@ public class ProjectService {
       Boolean isCurrentOpInWorkOrReadyToAcceptance,
       Boolean isOverdueProject
   ) {
-    Page<Project> page;
+    Page<ProjectShortRowDto> page;
 
     checkCorrectInternalParametersInRequest(
         isEnded, isOnlyFirstOpReadyToAcceptance,
@@ -283,7 +353,7 @@ public class ProjectService {
       //выборка всех не завершенных проектов
       page = projectRepository.findByIsEnded(false, projectPage);
     } else {
-      page = projectRepository.findAll(projectPage);
+      page = projectRepository.findAllShort(projectPage);
     }
     return page;
   }
@@ -356,7 +426,7 @@ public class ProjectService {
       Boolean isOverdueCurrentOpInProject,
       Boolean isCurrentOpInWorkOrReadyToAcceptance,
       Boolean isOverdueProject) {
-    return pageToPageDtoMapper.projectPageToPageDto(getProjectPage(
+    return toProjectShortDtoPage(getProjectPage(
         projectPage,
         isEnded,
         isOnlyFirstOpReadyToAcceptance,
@@ -366,25 +436,130 @@ public class ProjectService {
         isOverdueProject));
   }
 
+  /**
+   * Accepts sort, cursor and filtering parameters, returns the next page of
+   * {@link ProjectShortDto} selected by keyset pagination without counting the total number
+   * of projects.
+   *
+   * @param sort                                 the sort of the projects
+   * @param limit                                the maximum number of projects on the page
+   * @param after                                the cursor of the previous page, empty for the
+   *                                             first page
+   * @param isEnded                              a boolean flag indicating if the {@link Project}
+   *                                             is ended or not
+   * @param isOnlyFirstOpReadyToAcceptance       a boolean flag indicating if the {@link Project}
+   *                                             has first operation ready to acceptance
+   * @param isOnlyLastOpReadyToAcceptance        a boolean flag indicating if the {@link Project}
+   *                                             has last operation ready to acceptance
+   * @param isOverdueCurrentOpInProject          a boolean flag indicating if the {@link  Project}
+   *                                             has overdue current operation in work
+   *                                             or ready for acceptance
+   * @param isCurrentOpInWorkOrReadyToAcceptance a boolean flag indicating if the {@link  Project}
+   *                                             has current operation in work or ready to
+   *                                             acceptance except first operation with
+   *                                             "ready to acceptance" status
+   * @param isOverdueProject                     a boolean flag indicating if the {@link  Project}
+   *                                             is overdue
+   * @return a {@link PageDto} of {@link ProjectShortDto} objects with the cursor of the next page
+   */
+  public PageDto<ProjectShortDto> getProjectDtoPageAfter(
+      Sort sort,
+      int limit,
+      String after,
+      Boolean isEnded,
+      Boolean isOnlyFirstOpReadyToAcceptance,
+      Boolean isOnlyLastOpReadyToAcceptance,
+      Boolean isOverdueCurrentOpInProject,
+      Boolean isCurrentOpInWorkOrReadyToAcceptance,
+      Boolean isOverdueProject) {
+    checkCorrectInternalParametersInRequest(
+        isEnded, isOnlyFirstOpReadyToAcceptance,
+        isOnlyLastOpReadyToAcceptance, isOverdueCurrentOpInProject,
+        isCurrentOpInWorkOrReadyToAcceptance, isOverdueProject);
+
+    Specification<Project> filter = getProjectFilter(
+        isEnded, isOnlyFirstOpReadyToAcceptance,
+        isOnlyLastOpReadyToAcceptance, isOverdueCurrentOpInProject,
+        isCurrentOpInWorkOrReadyToAcceptance, isOverdueProject);
+
+    //выбираются только id проектов, строки проектов и их операции загружаются отдельно
+    KeysetSlice<Long> slice =
+        keysetRepository.findIdSlice(Project.class, filter, sort, after, limit);
+    List<Long> projectIds = slice.content();
+    List<ProjectShortRowDto> rows = findShortRowsInOrder(projectIds);
+
+    return pageToPageDtoMapper.projectRowsToPageDto(
+        rows, operationService.getCurrentAndLastOpsByProjectIds(projectIds), slice.nextCursor());
+  }
+
+  private Specification<Project> getProjectFilter(
+      Boolean isEnded,
+      Boolean isOnlyFirstOpReadyToAcceptance,
+      Boolean isOnlyLastOpReadyToAcceptance,
+      Boolean isOverdueCurrentOpInProject,
+      Boolean isCurrentOpInWorkOrReadyToAcceptance,
+      Boolean isOverdueProject) {
+    //условия фильтров совпадают с запросами, используемыми в getProjectPage
+    Specification<Project> filter;
+    if (isEnded != null && isEnded) {
+      filter = ProjectSpecification.isEnded(true);
+    } else if (isEnded != null && Boolean.TRUE.equals(isOverdueCurrentOpInProject)) {
+      filter = ProjectSpecification.withOverdueCurrentOperation(LocalDateTime.now());
+    } else if (isEnded != null && Boolean.TRUE.equals(isOnlyFirstOpReadyToAcceptance)) {
+      filter = ProjectSpecification.withFirstOpReadyToAcceptance();
+    } else if (isEnded != null && Boolean.TRUE.equals(isOnlyLastOpReadyToAcceptance)) {
+      filter = ProjectSpecification.withLastOpReadyToAcceptance();
+    } else if (isEnded != null && Boolean.TRUE.equals(isCurrentOpInWorkOrReadyToAcceptance)) {
+      filter = ProjectSpecification.withOpInWorkOrReadyToAcceptanceExceptFirst();
+    } else if (isEnded != null && Boolean.TRUE.equals(isOverdueProject)) {
+      filter = ProjectSpecification.overdue(LocalDateTime.now());
+    } else if (isEnded != null) {
+      filter = ProjectSpecification.isEnded(false);
+    } else {
+      filter = null;
+    }
+    return filter;
+  }
+
+  /**
+   * Converts a page of project rows to a {@link PageDto} of {@link ProjectShortDto}.
+   * The current and last operations of all projects on the page are selected by one query,
+   * so the number of queries does not depend on the page size.
+   *
+   * @param page the page of project rows
+   * @return a {@link PageDto} of {@link ProjectShortDto} objects
+   */
+  private PageDto<ProjectShortDto> toProjectShortDtoPage(Page<ProjectShortRowDto> page) {
+    List<Long> projectIds = page.getContent().stream()
+        .map(ProjectShortRowDto::getId)
+        .toList();
+
+    return pageToPageDtoMapper.projectPageToPageDto(
+        page, operationService.getCurrentAndLastOpsByProjectIds(projectIds));
+  }
+
   /**
    * Returns a list of all available {@link Project} entities for a given {@link Employee}.
+   * Every project is returned once, with its first operation ready to acceptance,
+   * ordered by the end date in the contract.
    *
    * @param employeeId the id of the requested {@link Employee}
+   * @param limit      the maximum number of projects, or null to return all of them
    * @return a list of all available {@link Project} entities for the given {@link Employee}
    */
-  public List<ProjectAvailableForEmpDto> getAvailableProjects(long employeeId) {
+  public List<ProjectAvailableForEmpDto> getAvailableProjects(long employeeId, Integer limit) {
     Employee e = employeeService.getEmployeeById(employeeId);
-    List<Project> projects = new ArrayList<>();
+    List<Long> typeWorkIds = e.getTypeWorks().stream()
+        .map(TypeWork::getId)
+        .toList();
 
-    //выборка проектов с доступными для принятия операциям согласно типу работы
-    e.getTypeWorks().forEach(tw -> projects.addAll(
-        projectRepository.findAvailableProjectsByTypeWork(tw.getId())));
+    if (typeWorkIds.isEmpty()) {
+      return List.of();
+    }
 
-    return projects.stream()
-        //сортировка по дате окончания по контракту
-        .sorted(Util::endDateInContractSorting)
-        .map(projectAvailableDtoMapper)
-        .toList();
+    //выборка проектов с доступными для принятия операциям согласно типам работ
+    return projectRepository.findAvailableProjectsByTypeWorkIds(
+        typeWorkIds, limit == null ? Pageable.unpaged() : PageRequest.of(0, limit));
   }
 
   /**
@@ -395,6 +570,7 @@ public class ProjectService {
    */
   public void finishProject(long projectId) {
     projectRepository.updateIsEndedAndRealEndDateById(true, LocalDateTime.now(), projectId);
+    projectListStateService.refresh(projectId);
   }
 
   /**
@@ -405,6 +581,9 @@ public class ProjectService {
   public void deleteProject(long projectId) {
     Project p = getProjectById(projectId);
     projectRepository.delete(p);
+    reportDashboardStatsCache.invalidate();
+    //удаленный завершенный проект мог попасть в отчеты за закрытые периоды
+    reportResultCache.invalidate();
   }
 
   /**
@@ -419,19 +598,16 @@ public class ProjectService {
       return;
     }
 
-    Project p = o.getProject();
-    LocalDateTime newPlannedEndDate;
     if (hours > 0) {
-      newPlannedEndDate = p.getPlannedEndDate().plusHours(hours);
       log.info("the time of the operation has been increased, the planned end date of the project "
           + "will be moved by +{} hours", hours);
     } else {
-      newPlannedEndDate = p.getPlannedEndDate().minusHours(Math.abs(hours));
       log.info("the time of the operation has been decreased, the planned end date of the project "
           + "will be moved by {} hours", hours);
     }
 
-    projectRepository.updatePlannedEndDateById(newPlannedEndDate, p.getId());
+    Project p = o.getProject();
+    shiftPlannedEndDate(p.getId(), p.getPlannedEndDate(), hours);
     log.info("the end date of the project has been changed by {} hours", hours);
   }
 
@@ -471,6 +647,10 @@ public class ProjectService {
     p.setOperationPeriod(period);
 
     projectRepository.save(p);
+    reportDashboardStatsCache.invalidate();
+    reportResultCache.invalidate();
+    operationEventWriter.append(OperationEventType.PROJECT_END_DATE_CHANGED,
+        null, p.getId(), null, p.getPlannedEndDate());
   }
 
   private void checkCorrectNewPlannedAndContractDate(ChangingEndDatesReq req, Project p) {
@@ -559,12 +739,29 @@ public class ProjectService {
       period += SHIPMENT_PERIOD;
     }
     //флаг isIncreased дает представление, надо увеличить или уменьшить планируемый срок
-    if (isIncreased) {
-      p.setPlannedEndDate(p.getPlannedEndDate().plusHours(period));
-    } else {
-      p.setPlannedEndDate(p.getPlannedEndDate().minusHours(period));
-    }
-    projectRepository.save(p);
+    p.setPlannedEndDate(shiftPlannedEndDate(
+        p.getId(), p.getPlannedEndDate(), isIncreased ? period : -period));
+  }
+
+  /**
+   * Moves the planned end date of the project by the given number of hours, invalidates
+   * the cached reports and writes the change to the operation event log.
+   *
+   * @param projectId      the id of the project
+   * @param plannedEndDate the current planned end date of the project
+   * @param hours          the number of hours, negative to move the date back
+   * @return the new planned end date of the project
+   */
+  public LocalDateTime shiftPlannedEndDate(long projectId, LocalDateTime plannedEndDate,
+                                           long hours) {
+    LocalDateTime newPlannedEndDate = plannedEndDate.plusHours(hours);
+    projectRepository.updatePlannedEndDateById(newPlannedEndDate, projectId);
+    reportDashboardStatsCache.invalidate();
+    //незавершенный проект со сдвинутой датой может попасть в уже закрытый период отчета
+    reportResultCache.invalidate();
+    operationEventWriter.append(OperationEventType.PROJECT_END_DATE_CHANGED,
+        null, projectId, null, newPlannedEndDate);
+    return newPlannedEndDate;
   }
 
   public void updateStartFirstOperationDate(long operationId) {
@@ -603,6 +800,7 @@ public class ProjectService {
     updateCommentary(p, req.commentary());
 
     projectRepository.save(p);
+    reportResultCache.invalidate();
   }
 
   private void updateCommentary(Project p, String commentary) {
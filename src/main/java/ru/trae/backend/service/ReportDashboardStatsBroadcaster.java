@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.trae.backend.dto.report.ReportDashboardStatsDto;
+
+/**
+ * Service class for pushing the dashboard statistics to the subscribers by server-sent events.
+ * A subscriber receives the "snapshot" event with all the statistics, and then the "delta"
+ * events with the changed counters only. The statistics are calculated once for all
+ * the subscribers, the changes are pushed by {@link #pushChanges()} at most once per call.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportDashboardStatsBroadcaster {
+  public static final long EMITTER_TIMEOUT = Duration.ofMinutes(30).toMillis();
+  //счетчики просроченных проектов меняются со временем без изменения данных
+  public static final long RECHECK_PERIOD = Duration.ofMinutes(1).toNanos();
+  public static final String SNAPSHOT_EVENT = "snapshot";
+  public static final String DELTA_EVENT = "delta";
+  private final ReportDashboardStatsCache reportDashboardStatsCache;
+  private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+  private ReportDashboardStatsDto lastPushed;
+  private long lastPushedGeneration;
+  private long lastCheckedAt;
+
+  /**
+   * Subscribes to the dashboard statistics. The current statistics are sent immediately.
+   *
+   * @return the {@link SseEmitter} of the subscriber
+   */
+  public SseEmitter subscribe() {
+    SseEmitter emitter = createEmitter();
+    emitter.onCompletion(() -> emitters.remove(emitter));
+    emitter.onTimeout(() -> emitters.remove(emitter));
+    emitter.onError(e -> emitters.remove(emitter));
+
+    //монитор подписчика захватывается до регистрации, поэтому изменения не будут отправлены
+    //ему раньше снимка
+    synchronized (emitter) {
+      SseEmitter.SseEventBuilder snapshot;
+      synchronized (this) {
+        if (lastPushed == null) {
+          updateLastPushed();
+        }
+        snapshot = SseEmitter.event().name(SNAPSHOT_EVENT).data(lastPushed);
+        emitters.add(emitter);
+      }
+      send(emitter, snapshot);
+    }
+
+    return emitter;
+  }
+
+  /**
+   * Pushes the changed dashboard statistics to all the subscribers. The statistics are
+   * recalculated only if they were invalidated since the last push, or the recheck period
+   * has passed. The event is built under the lock of the broadcaster and sent outside it, so
+   * a slow subscriber does not block the new subscriptions. The changes are pushed by one
+   * scheduler thread, so every subscriber receives them in order.
+   */
+  public void pushChanges() {
+    SseEmitter.SseEventBuilder event;
+    synchronized (this) {
+      if (emitters.isEmpty() || lastPushed == null) {
+        return;
+      }
+      boolean invalidated = reportDashboardStatsCache.getGeneration() != lastPushedGeneration;
+      if (!invalidated && System.nanoTime() - lastCheckedAt < RECHECK_PERIOD) {
+        return;
+      }
+
+      ReportDashboardStatsDto previous = lastPushed;
+      updateLastPushed();
+      Map<String, Long> delta = getDelta(previous, lastPushed);
+      if (delta.isEmpty()) {
+        return;
+      }
+      //одна и та же статистика рассылается всем подписчикам
+      event = SseEmitter.event().name(DELTA_EVENT).data(delta);
+    }
+
+    for (SseEmitter emitter : emitters) {
+      synchronized (emitter) {
+        send(emitter, event);
+      }
+    }
+  }
+
+  public int getSubscriberCount() {
+    return emitters.size();
+  }
+
+  SseEmitter createEmitter() {
+    return new SseEmitter(EMITTER_TIMEOUT);
+  }
+
+  private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+    try {
+      emitter.send(event);
+    } catch (IOException | IllegalStateException e) {
+      emitters.remove(emitter);
+      emitter.completeWithError(e);
+      log.debug("the dashboard subscriber has been disconnected: {}", e.getMessage());
+    }
+  }
+
+  private void updateLastPushed() {
+    //поколение запоминается до расчета, чтобы не пропустить инвалидацию во время расчета
+    lastPushedGeneration = reportDashboardStatsCache.getGeneration();
+    lastCheckedAt = System.nanoTime();
+    lastPushed = reportDashboardStatsCache.get();
+  }
+
+  private Map<String, Long> getDelta(ReportDashboardStatsDto previous,
+                                     ReportDashboardStatsDto current) {
+    Map<String, Long> previousCounters = toCounters(previous);
+    Map<String, Long> delta = new LinkedHashMap<>();
+    toCounters(current).forEach((name, value) -> {
+      if (!value.equals(previousCounters.get(name))) {
+        delta.put(name, value);
+      }
+    });
+    return delta;
+  }
+
+  private Map<String, Long> toCounters(ReportDashboardStatsDto dto) {
+    Map<String, Long> counters = new LinkedHashMap<>();
+    counters.put("countEmpsOnActiveWorkingShift", dto.countEmpsOnActiveWorkingShift());
+    counters.put("countNotEndedProjects", dto.countNotEndedProjects());
+    counters.put("countProjectsWithOverdueCurrentOperation",
+        dto.countProjectsWithOverdueCurrentOperation());
+    counters.put("countOverdueProjects", dto.countOverdueProjects());
+    counters.put("countProjectsWithLastOpReadyToAcceptance",
+        dto.countProjectsWithLastOpReadyToAcceptance());
+    return counters;
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.trae.backend.dto.report.ReportDashboardCacheMetricsDto;
+import ru.trae.backend.dto.report.ReportDashboardStatsDto;
+import ru.trae.backend.projection.DashboardStatsRowDto;
+import ru.trae.backend.repository.ProjectRepository;
+
+/**
+ * Service class for caching the dashboard statistics.
+ * The statistics are fresh during the ttl. After that, during the stale ttl, the previous
+ * statistics are returned and recalculated in the background. The statistics are recalculated
+ * immediately after the ttl of stale statistics, or after the invalidation.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+public class ReportDashboardStatsCache {
+  private final ProjectRepository projectRepository;
+  private final long ttlNanos;
+  private final long staleTtlNanos;
+  private final Executor refreshExecutor;
+  private final AtomicReference<CachedStats> cached = new AtomicReference<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong staleHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong computations = new AtomicLong();
+  private final AtomicLong totalComputationNanos = new AtomicLong();
+  private final AtomicLong lastComputationNanos = new AtomicLong();
+
+  /**
+   * Constructor for the dashboard statistics cache.
+   *
+   * @param projectRepository the repository used to calculate the statistics
+   * @param ttl               the period, during which the statistics are fresh
+   * @param staleTtl          the period, during which the stale statistics are returned
+   */
+  @Autowired
+  public ReportDashboardStatsCache(ProjectRepository projectRepository,
+                                   @Value("${dashboard.cache-ttl}") Duration ttl,
+                                   @Value("${dashboard.cache-stale-ttl}") Duration staleTtl) {
+    this(projectRepository, ttl, staleTtl,
+        Executors.newSingleThreadExecutor(refreshThreadFactory()));
+  }
+
+  ReportDashboardStatsCache(ProjectRepository projectRepository, Duration ttl,
+                            Duration staleTtl, Executor refreshExecutor) {
+    this.projectRepository = projectRepository;
+    this.ttlNanos = ttl.toNanos();
+    this.staleTtlNanos = staleTtl.toNanos();
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  /**
+   * Returns the dashboard statistics from the cache, or calculates them.
+   *
+   * @return the {@link ReportDashboardStatsDto} object
+   */
+  public ReportDashboardStatsDto get() {
+    long currentGeneration = generation.get();
+    CachedStats stats = cached.get();
+    long now = System.nanoTime();
+
+    //статистика, рассчитанная до инвалидации, не используется
+    if (stats != null && stats.generation() != currentGeneration) {
+      stats = null;
+    }
+
+    if (stats != null && now - stats.computedAt() < ttlNanos) {
+      hits.incrementAndGet();
+      return stats.value();
+    }
+    if (stats != null && now - stats.computedAt() < staleTtlNanos) {
+      staleHits.incrementAndGet();
+      refreshInBackground(currentGeneration);
+      return stats.value();
+    }
+
+    misses.incrementAndGet();
+    return refresh(currentGeneration).value();
+  }
+
+  /**
+   * Invalidates the cached statistics. Must be called after any change of the projects,
+   * operations or time controls, which are counted on the dashboard. Inside a transaction
+   * the statistics are invalidated once more after the commit.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+    //статистика, рассчитанная до фиксации транзакции, могла прочитать прежние данные
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          generation.incrementAndGet();
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns the generation of the cache, which is increased by every invalidation.
+   *
+   * @return the generation of the cache
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Returns the metrics of the cache: the number of hits and misses and the time of calculation
+   * of the statistics.
+   *
+   * @return the {@link ReportDashboardCacheMetricsDto} object
+   */
+  public ReportDashboardCacheMetricsDto getMetrics() {
+    long hitCount = hits.get();
+    long staleHitCount = staleHits.get();
+    long missCount = misses.get();
+    long requests = hitCount + staleHitCount + missCount;
+    long computationCount = computations.get();
+
+    return new ReportDashboardCacheMetricsDto(
+        hitCount,
+        staleHitCount,
+        missCount,
+        requests == 0 ? 0 : (double) (hitCount + staleHitCount) / requests,
+        computationCount,
+        toMillis(lastComputationNanos.get()),
+        computationCount == 0 ? 0 : toMillis(totalComputationNanos.get()) / computationCount);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (refreshExecutor instanceof ExecutorService executorService) {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void refreshInBackground(long currentGeneration) {
+    //в фоне выполняется только один пересчет
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          refresh(currentGeneration);
+        } catch (RuntimeException e) {
+          log.warn("dashboard statistics refresh failed", e);
+        } finally {
+          refreshing.set(false);
+        }
+      });
+    } catch (RuntimeException e) {
+      refreshing.set(false);
+      throw e;
+    }
+  }
+
+  private CachedStats refresh(long currentGeneration) {
+    long start = System.nanoTime();
+    DashboardStatsRowDto row = projectRepository.getDashboardStats();
+    long end = System.nanoTime();
+
+    computations.incrementAndGet();
+    totalComputationNanos.addAndGet(end - start);
+    lastComputationNanos.set(end - start);
+
+    CachedStats stats = new CachedStats(new ReportDashboardStatsDto(
+        row.getCountEmpsOnActiveWorkingShift(),
+        row.getCountNotEndedProjects(),
+        row.getCountProjectsWithOverdueCurrentOperation(),
+        row.getCountOverdueProjects(),
+        row.getCountProjectsWithLastOpReadyToAcceptance()), start, currentGeneration);
+    cached.set(stats);
+    return stats;
+  }
+
+  //поток пересчета не препятствует остановке приложения
+  private static ThreadFactory refreshThreadFactory() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dashboard-stats-");
+    threadFactory.setDaemon(true);
+    return threadFactory;
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  private record CachedStats(ReportDashboardStatsDto value, long computedAt, long generation) {
+  }
+}
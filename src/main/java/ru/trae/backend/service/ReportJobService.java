@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.trae.backend.dto.report.ReportJobDto;
+import ru.trae.backend.dto.report.ReportJobReq;
+import ru.trae.backend.exceptionhandler.exception.AbstractException;
+import ru.trae.backend.exceptionhandler.exception.ReportException;
+import ru.trae.backend.util.ReportJobStatus;
+import ru.trae.backend.util.ReportJobType;
+
+/**
+ * Service class for building the reports in the background. A job is queued on a bounded
+ * executor, so the reports hold neither the request threads nor more database connections
+ * than the executor has threads. The result of the job is written to a file on the local
+ * disk and kept during the ttl after the job is finished. The jobs are kept in memory,
+ * so the job is available only on the instance which has accepted it.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+public class ReportJobService {
+  public static final String STATUS_EVENT = "status";
+  private final ReportService reportService;
+  private final TimesheetExportService timesheetExportService;
+  private final ObjectMapper objectMapper;
+  private final ThreadPoolExecutor executor;
+  private final Path directory;
+  private final int maxJobsPerUser;
+  private final Duration resultTtl;
+  private final long emitterTimeout;
+  private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for the report job service. The results left by the previous run
+   * of the application are removed from the directory.
+   *
+   * @param reportService          the service building the reports
+   * @param timesheetExportService the service exporting the timesheet
+   * @param objectMapper           the mapper writing the reports as JSON
+   * @param threads                the number of the jobs running at once
+   * @param queueCapacity          the number of the jobs waiting for a free thread
+   * @param maxJobsPerUser         the number of the queued and running jobs of one user
+   * @param directory              the directory of the results
+   * @param resultTtl              the period, during which the result is kept
+   * @param emitterTimeout         the timeout of the subscription to the job
+   * @throws IOException if the directory cannot be created or cleaned
+   */
+  @Autowired
+  public ReportJobService(ReportService reportService,
+                          TimesheetExportService timesheetExportService,
+                          ObjectMapper objectMapper,
+                          @Value("${report.jobs.threads}") int threads,
+                          @Value("${report.jobs.queue-capacity}") int queueCapacity,
+                          @Value("${report.jobs.max-per-user}") int maxJobsPerUser,
+                          @Value("${report.jobs.directory}") String directory,
+                          @Value("${report.jobs.result-ttl}") Duration resultTtl,
+                          @Value("${report.jobs.emitter-timeout}") Duration emitterTimeout)
+      throws IOException {
+    this.reportService = reportService;
+    this.timesheetExportService = timesheetExportService;
+    this.objectMapper = objectMapper;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("report-job-"));
+    this.directory = Files.createDirectories(Path.of(directory));
+    this.maxJobsPerUser = maxJobsPerUser;
+    this.resultTtl = resultTtl;
+    this.emitterTimeout = emitterTimeout.toMillis();
+
+    //задания хранятся в памяти, поэтому результаты прошлого запуска недоступны
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /**
+   * Submits the report job.
+   *
+   * @param req      the request of the report
+   * @param username the name of the user submitting the job
+   * @return the {@link ReportJobDto} object of the queued job
+   * @throws ReportException if the request is incorrect, the user has too many jobs,
+   *                         or the queue is full
+   */
+  public synchronized ReportJobDto submit(ReportJobReq req, String username) {
+    checkRequest(req);
+
+    long active = jobs.values().stream()
+        .filter(j -> j.username.equals(username) && !j.status.isFinished())
+        .count();
+    if (active >= maxJobsPerUser) {
+      throw new ReportException(HttpStatus.TOO_MANY_REQUESTS,
+          "No more than " + maxJobsPerUser + " report jobs of one user can be run at once");
+    }
+
+    ReportJob job = new ReportJob(UUID.randomUUID().toString(), req, username);
+    jobs.put(job.id, job);
+    try {
+      job.future = executor.submit(() -> run(job));
+    } catch (RejectedExecutionException e) {
+      jobs.remove(job.id);
+      throw new ReportException(HttpStatus.SERVICE_UNAVAILABLE,
+          "The queue of report jobs is full, try again later");
+    }
+
+    log.info("report job " + job.id + " of type " + req.type() + " submitted by " + username);
+    return toDto(job);
+  }
+
+  /**
+   * Returns the state of the report job.
+   *
+   * @param id       the id of the job
+   * @param username the name of the user, who has submitted the job
+   * @return the {@link ReportJobDto} object
+   * @throws ReportException if the job of the user is not found
+   */
+  public ReportJobDto get(String id, String username) {
+    return toDto(getJob(id, username));
+  }
+
+  /**
+   * Subscribes to the state of the report job by server-sent events. The current state
+   * is sent immediately, then every change of the state is sent, and the subscription
+   * is completed when the job is finished.
+   *
+   * @param id       the id of the job
+   * @param username the name of the user, who has submitted the job
+   * @return the {@link SseEmitter} of the subscriber
+   * @throws ReportException if the job of the user is not found
+   */
+  public SseEmitter subscribe(String id, String username) {
+    ReportJob job = getJob(id, username);
+    SseEmitter emitter = createEmitter();
+    emitter.onCompletion(() -> job.emitters.remove(emitter));
+    emitter.onTimeout(() -> job.emitters.remove(emitter));
+    emitter.onError(e -> job.emitters.remove(emitter));
+
+    job.emitters.add(emitter);
+    send(job, emitter, toDto(job));
+    return emitter;
+  }
+
+  /**
+   * Returns the result of the finished report job.
+   *
+   * @param id       the id of the job
+   * @param username the name of the user, who has submitted the job
+   * @return the {@link ReportJobResult} object with the file of the result
+   * @throws ReportException if the job of the user is not found or is not done
+   */
+  public ReportJobResult getResult(String id, String username) {
+    ReportJob job = getJob(id, username);
+    if (job.status != ReportJobStatus.DONE) {
+      throw new ReportException(HttpStatus.CONFLICT,
+          "Report job with id: " + id + " is not done, status: " + job.status);
+    }
+    return new ReportJobResult(job.type, job.result);
+  }
+
+  /**
+   * Cancels the report job, if it is not finished, and removes the job with its result.
+   * A running job stops at the next write of the result; the query which is being executed
+   * is not interrupted.
+   *
+   * @param id       the id of the job
+   * @param username the name of the user, who has submitted the job
+   * @throws ReportException if the job of the user is not found
+   */
+  public void cancel(String id, String username) {
+    ReportJob job = getJob(id, username);
+    if (job.finish(ReportJobStatus.CANCELLED, null, null)) {
+      Future<?> future = job.future;
+      if (future != null) {
+        future.cancel(true);
+      }
+      //отмененное задание удаляется из очереди, не дожидаясь свободного потока
+      executor.purge();
+      log.info("report job " + id + " cancelled by " + username);
+    }
+    remove(job);
+  }
+
+  /**
+   * Removes the finished jobs, the ttl of which has expired, with their results.
+   *
+   * @return the number of removed jobs
+   */
+  public int removeExpired() {
+    LocalDateTime now = LocalDateTime.now();
+    int removed = 0;
+    for (ReportJob job : jobs.values()) {
+      LocalDateTime finishedAt = job.finishedAt;
+      if (finishedAt != null && !finishedAt.plus(resultTtl).isAfter(now)) {
+        remove(job);
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+    jobs.values().forEach(this::remove);
+  }
+
+  SseEmitter createEmitter() {
+    return new SseEmitter(emitterTimeout);
+  }
+
+  private void run(ReportJob job) {
+    if (!job.start()) {
+      return;
+    }
+    notifySubscribers(job);
+
+    Path part = directory.resolve(job.id + ".part");
+    Path result = directory.resolve(job.id + (job.type == ReportJobType.WORKING_SHIFTS_EXPORT
+        ? ".csv" : ".json"));
+    try {
+      try (OutputStream out = new ProgressOutputStream(Files.newOutputStream(part), job)) {
+        write(job.req, out);
+      }
+      Files.move(part, result, StandardCopyOption.REPLACE_EXISTING);
+      //задание могло быть отменено, пока записывался результат
+      if (!job.finish(ReportJobStatus.DONE, result, null)) {
+        Files.deleteIfExists(result);
+      }
+    } catch (Exception e) {
+      deleteQuietly(part);
+      String error = e instanceof AbstractException ? e.getMessage() : "Report cannot be built";
+      if (job.finish(ReportJobStatus.FAILED, null, error)) {
+        log.warn("report job " + job.id + " failed", e);
+      }
+    }
+    notifySubscribers(job);
+  }
+
+  private void write(ReportJobReq req, OutputStream out) throws IOException {
+    switch (req.type()) {
+      case WORKING_SHIFTS -> objectMapper.writeValue(out, reportService
+          .reportWorkingShiftForPeriod(req.startOfPeriod(), req.endOfPeriod(), req.employeeIds()));
+      case PROJECTS -> objectMapper.writeValue(out,
+          reportService.reportProjectsForPeriod(req.startOfPeriod(), req.endOfPeriod()));
+      case DEADLINES ->
+          objectMapper.writeValue(out, reportService.reportDeadlines(req.deadlines()));
+      case WORKING_SHIFTS_EXPORT -> timesheetExportService.writeCsv(
+          req.startOfPeriod(), req.endOfPeriod(), req.employeeIds(), out);
+    }
+  }
+
+  private void checkRequest(ReportJobReq req) {
+    if (req.type() == ReportJobType.DEADLINES) {
+      if (req.deadlines() == null) {
+        throw new ReportException(HttpStatus.BAD_REQUEST, "Deadline request is NULL");
+      }
+      return;
+    }
+    if (req.startOfPeriod() == null || req.endOfPeriod() == null) {
+      throw new ReportException(HttpStatus.BAD_REQUEST, "Start and end dates are required.");
+    }
+    if (req.startOfPeriod().isAfter(req.endOfPeriod())) {
+      throw new ReportException(HttpStatus.BAD_REQUEST, "Start date cannot be after end date.");
+    }
+  }
+
+  private ReportJob getJob(String id, String username) {
+    ReportJob job = jobs.get(id);
+    //чужое задание не отличается от несуществующего
+    if (job == null || !job.username.equals(username)) {
+      throw new ReportException(HttpStatus.NOT_FOUND, "Report job with id: " + id + " not found");
+    }
+    return job;
+  }
+
+  private void remove(ReportJob job) {
+    jobs.remove(job.id);
+    if (job.result != null) {
+      deleteQuietly(job.result);
+    }
+    job.emitters.forEach(SseEmitter::complete);
+    job.emitters.clear();
+  }
+
+  private void notifySubscribers(ReportJob job) {
+    ReportJobDto dto = toDto(job);
+    for (SseEmitter emitter : job.emitters) {
+      send(job, emitter, dto);
+    }
+  }
+
+  private void send(ReportJob job, SseEmitter emitter, ReportJobDto dto) {
+    try {
+      emitter.send(SseEmitter.event().name(STATUS_EVENT).data(dto));
+      if (dto.status().isFinished()) {
+        job.emitters.remove(emitter);
+        emitter.complete();
+      }
+    } catch (IOException | IllegalStateException e) {
+      job.emitters.remove(emitter);
+      log.debug("the report job subscriber has been disconnected: {}", e.getMessage());
+    }
+  }
+
+  private ReportJobDto toDto(ReportJob job) {
+    int queuePosition = 0;
+    if (job.status == ReportJobStatus.QUEUED && job.future != null) {
+      queuePosition = Arrays.asList(executor.getQueue().toArray()).indexOf(job.future) + 1;
+    }
+    LocalDateTime finishedAt = job.finishedAt;
+
+    return new ReportJobDto(
+        job.id,
+        job.type,
+        job.status,
+        queuePosition,
+        job.resultSize.get(),
+        job.submittedAt,
+        job.startedAt,
+        finishedAt,
+        finishedAt == null ? null : finishedAt.plus(resultTtl),
+        job.error);
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("report job file " + file + " cannot be deleted", e);
+    }
+  }
+
+  /**
+   * The result of a report job.
+   *
+   * @param type the type of the report
+   * @param file the file of the result
+   */
+  public record ReportJobResult(ReportJobType type, Path file) {
+  }
+
+  private static final class ReportJob {
+    private final String id;
+    private final ReportJobType type;
+    private final ReportJobReq req;
+    private final String username;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private final AtomicLong resultSize = new AtomicLong();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile Path result;
+    private volatile String error;
+    private volatile Future<?> future;
+
+    private ReportJob(String id, ReportJobReq req, String username) {
+      this.id = id;
+      this.type = req.type();
+      this.req = req;
+      this.username = username;
+    }
+
+    private synchronized boolean start() {
+      if (status != ReportJobStatus.QUEUED) {
+        return false;
+      }
+      status = ReportJobStatus.RUNNING;
+      startedAt = LocalDateTime.now();
+      return true;
+    }
+
+    private synchronized boolean finish(ReportJobStatus newStatus, Path newResult,
+                                        String newError) {
+      if (status.isFinished()) {
+        return false;
+      }
+      result = newResult;
+      error = newError;
+      finishedAt = LocalDateTime.now();
+      status = newStatus;
+      return true;
+    }
+  }
+
+  /**
+   * Counts the bytes of the result and stops the job, if its thread has been interrupted
+   * by the cancellation.
+   */
+  private static final class ProgressOutputStream extends FilterOutputStream {
+    private final ReportJob job;
+
+    private ProgressOutputStream(OutputStream out, ReportJob job) {
+      super(out);
+      this.job = job;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      checkInterrupted();
+      out.write(b);
+      job.resultSize.incrementAndGet();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      checkInterrupted();
+      out.write(b, off, len);
+      job.resultSize.addAndGet(len);
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedIOException("report job cancelled");
+      }
+    }
+  }
+}
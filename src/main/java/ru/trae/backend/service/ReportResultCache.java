@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.trae.backend.dto.report.DeadlineReq;
+import ru.trae.backend.dto.report.ReportCacheMetricsDto;
+import ru.trae.backend.repository.WorkingShiftRepository;
+
+/**
+ * Service class for caching the reports over closed periods. A report is cached only when
+ * its data cannot change any more: the period ends before the last closed working shift,
+ * or all projects and operations of the report are ended. The cache is bounded by the total
+ * weight of the reports, the number of rows in them, and the least recently used reports are
+ * evicted first. The cache must be invalidated after any change of the historical data.
+ * The cache is kept in the memory of each instance and the invalidation clears only the cache
+ * of the instance, where the data was changed, so every report also expires after the ttl:
+ * when several instances share one database, the reports of the other instances stay stale
+ * no longer than the ttl.
+ *
+ * @author Vladimir Olennikov
+ */
+@Service
+public class ReportResultCache {
+  private final WorkingShiftRepository workingShiftRepository;
+  private final long maxWeight;
+  private final long ttlNanos;
+  //порядок доступа: первым в карте находится отчет, который дольше всех не запрашивался
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long weight;
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong puts = new AtomicLong();
+  private final AtomicLong rejectedPuts = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * Constructor for the report cache.
+   *
+   * @param workingShiftRepository the repository used to find the last closed working shift
+   * @param maxWeight              the maximum total number of rows in the cached reports
+   * @param ttl                    the time after which a cached report expires
+   */
+  @Autowired
+  public ReportResultCache(WorkingShiftRepository workingShiftRepository,
+                           @Value("${report.cache.max-weight}") long maxWeight,
+                           @Value("${report.cache.ttl}") Duration ttl) {
+    this.workingShiftRepository = workingShiftRepository;
+    this.maxWeight = maxWeight;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  /**
+   * Returns the cached report. An expired report is removed from the cache.
+   *
+   * @param key  the key of the report
+   * @param type the type of the report
+   * @param <T>  the type of the report
+   * @return the cached report, or empty if the report is not cached
+   */
+  public <T> Optional<T> get(Key key, Class<T> type) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key);
+      if (entry != null && System.nanoTime() - entry.expiresAt() >= 0) {
+        entries.remove(key);
+        weight -= entry.weight();
+        evictions.incrementAndGet();
+        entry = null;
+      }
+    }
+    if (entry == null || !type.isInstance(entry.report())) {
+      misses.incrementAndGet();
+      return Optional.empty();
+    }
+    hits.incrementAndGet();
+    return Optional.of(type.cast(entry.report()));
+  }
+
+  /**
+   * Returns the generation of the cache, which is increased by every invalidation. The
+   * generation must be taken before the report is built and passed to {@link #put}.
+   *
+   * @return the generation of the cache
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Puts the report into the cache. The report is not cached if the cache was invalidated
+   * while the report was built, or if the report is heavier than the whole cache.
+   *
+   * @param key              the key of the report
+   * @param report           the report, which must not be changed after caching
+   * @param reportWeight     the number of rows in the report
+   * @param reportGeneration the generation of the cache before the report was built
+   */
+  public synchronized void put(Key key, Object report, long reportWeight,
+                               long reportGeneration) {
+    //отчет, построенный до инвалидации, мог прочитать измененные данные
+    if (reportGeneration != generation.get() || reportWeight > maxWeight) {
+      rejectedPuts.incrementAndGet();
+      return;
+    }
+
+    Entry previous =
+        entries.put(key, new Entry(report, reportWeight, System.nanoTime() + ttlNanos));
+    if (previous != null) {
+      weight -= previous.weight();
+    }
+    weight += reportWeight;
+    puts.incrementAndGet();
+
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (weight > maxWeight) {
+      weight -= eldest.next().weight();
+      eldest.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  /**
+   * Checks if the data of the period cannot change any more: the period ends before the day
+   * of the last closed working shift.
+   *
+   * @param endOfPeriod the last day of the period
+   * @return {@code true} if the period is closed, {@code false} otherwise
+   */
+  public boolean isClosedPeriod(LocalDate endOfPeriod) {
+    Optional<LocalDateTime> lastClosed = workingShiftRepository.findLastClosedStartShift();
+    return lastClosed.isPresent() && endOfPeriod.isBefore(lastClosed.get().toLocalDate());
+  }
+
+  /**
+   * Removes all cached reports. Must be called after any change of the historical data:
+   * the end dates and the common data of the projects, the data of the employees. Inside
+   * a transaction the reports are removed once more after the commit.
+   *
+   * @return the number of removed reports
+   */
+  public int invalidate() {
+    int removed = clear();
+    //отчет, построенный до фиксации транзакции, мог прочитать прежние данные
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          clear();
+        }
+      });
+    }
+    return removed;
+  }
+
+  /**
+   * Returns the metrics of the cache: the number of hits, misses and evictions and the weight
+   * of the cached reports.
+   *
+   * @return the {@link ReportCacheMetricsDto} object
+   */
+  public synchronized ReportCacheMetricsDto getMetrics() {
+    long hitCount = hits.get();
+    long missCount = misses.get();
+    long requests = hitCount + missCount;
+
+    return new ReportCacheMetricsDto(
+        hitCount,
+        missCount,
+        requests == 0 ? 0 : (double) hitCount / requests,
+        puts.get(),
+        rejectedPuts.get(),
+        evictions.get(),
+        invalidations.get(),
+        entries.size(),
+        weight,
+        maxWeight);
+  }
+
+  private synchronized int clear() {
+    generation.incrementAndGet();
+    invalidations.incrementAndGet();
+    int removed = entries.size();
+    entries.clear();
+    weight = 0;
+    return removed;
+  }
+
+  private record Entry(Object report, long weight, long expiresAt) {
+  }
+
+  /**
+   * The key of a cached report: the name of the report and its normalized parameters.
+   * The sets of ids are sorted, a null set is the same as an empty set.
+   *
+   * @param report     the name of the report
+   * @param parameters the normalized parameters of the report
+   */
+  public record Key(String report, List<Object> parameters) {
+
+    /**
+     * Creates the key of a report for the period.
+     *
+     * @param report        the name of the report
+     * @param startOfPeriod the first day of the period
+     * @param endOfPeriod   the last day of the period
+     * @param ids           the ids, by which the report is filtered, may be null
+     * @return the key of the report
+     */
+    public static Key period(String report, LocalDate startOfPeriod, LocalDate endOfPeriod,
+                             Set<Long> ids) {
+      return new Key(report, List.of(startOfPeriod, endOfPeriod, sorted(ids)));
+    }
+
+    /**
+     * Creates the key of the deadline report.
+     *
+     * @param req the request of the report
+     * @return the key of the report
+     */
+    public static Key deadlines(DeadlineReq req) {
+      return new Key("deadlines", List.of(
+          req.firstParameter(), req.valueOfFirstParameter(),
+          req.secondParameter(), sorted(req.valuesOfSecondParameter()),
+          req.thirdParameter(), sorted(req.valuesOfThirdParameter())));
+    }
+
+    private static List<Long> sorted(Set<Long> ids) {
+      return ids == null ? List.of() : List.copyOf(new TreeSet<>(ids));
+    }
+  }
+}
@@ -16,29 +16,36 @@ import static ru.trae.backend.util.Constant.PROJECT_WITH_ID;
 import static ru.trae.backend.util.Constant.WRONG_PARAMETER;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.trae.backend.dto.employee.EmployeeIdFirstLastNameDto;
 import ru.trae.backend.dto.employee.EmployeeIdTotalPartsDto;
 import ru.trae.backend.dto.mapper.ProjectForReportDtoMapper;
 import ru.trae.backend.dto.project.ProjectForReportDto;
 import ru.trae.backend.dto.report.DeadlineReq;
+import ru.trae.backend.dto.report.OperationDeadlineRowDto;
+import ru.trae.backend.dto.report.ReportDashboardCacheMetricsDto;
 import ru.trae.backend.dto.report.ReportDashboardStatsDto;
+import ru.trae.backend.dto.report.ProjectOperationRowDto;
+import ru.trae.backend.dto.report.ReportCacheMetricsDto;
 import ru.trae.backend.dto.report.ReportDeadlineDto;
 import ru.trae.backend.dto.report.ReportProjectsForPeriodDto;
 import ru.trae.backend.dto.report.ReportWorkingShiftForPeriodDto;
 import ru.trae.backend.dto.report.SecondResponseSubDto;
 import ru.trae.backend.dto.report.ThirdResponseSubDto;
-import ru.trae.backend.entity.task.Operation;
-import ru.trae.backend.entity.task.Project;
-import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.exceptionhandler.exception.ReportException;
 import ru.trae.backend.projection.WorkingShiftEmployeeDto;
 import ru.trae.backend.util.ReportParameter;
@@ -52,11 +59,16 @@ import ru.trae.backend.util.ReportParameter;
 @Service
 @RequiredArgsConstructor
 public class ReportService {
+  private static final String WORKING_SHIFTS_REPORT = "working-shifts";
+  private static final String PROJECTS_REPORT = "projects";
   private final WorkingShiftService workingShiftService;
   private final EmployeeService employeeService;
   private final ProjectService projectService;
   private final OperationService operationService;
   private final ProjectForReportDtoMapper projectForReportDtoMapper;
+  private final ReportDashboardStatsCache reportDashboardStatsCache;
+  private final TimesheetExportService timesheetExportService;
+  private final ReportResultCache reportResultCache;
 
   /**
    * Retrieves the dashboard statistics for the report.
@@ -64,13 +76,36 @@ public class ReportService {
    * @return A {@link ReportDashboardStatsDto} object containing the dashboard statistics.
    */
   public ReportDashboardStatsDto getDashboardStatsDto() {
-    return new ReportDashboardStatsDto(
-        workingShiftService.getCountEmpsOnActiveWorkingShift(),
-        projectService.getCountNotEndedProjects(),
-        projectService.getCountProjectsWithOverdueCurrentOperation(),
-        projectService.getCountOverdueProjects(),
-        projectService.getCountProjectsWithLastOpReadyToAcceptance()
-    );
+    return reportDashboardStatsCache.get();
+  }
+
+  /**
+   * Retrieves the metrics of the dashboard statistics cache.
+   *
+   * @return A {@link ReportDashboardCacheMetricsDto} object containing the cache metrics.
+   */
+  public ReportDashboardCacheMetricsDto getDashboardCacheMetrics() {
+    return reportDashboardStatsCache.getMetrics();
+  }
+
+  /**
+   * Retrieves the metrics of the cache of the reports over closed periods.
+   *
+   * @return A {@link ReportCacheMetricsDto} object containing the cache metrics.
+   */
+  public ReportCacheMetricsDto getReportCacheMetrics() {
+    return reportResultCache.getMetrics();
+  }
+
+  /**
+   * Removes all reports from the cache of the reports over closed periods.
+   *
+   * @return The number of removed reports.
+   */
+  public int evictReportCache() {
+    int removed = reportResultCache.invalidate();
+    log.info("report cache evicted: " + removed + " reports");
+    return removed;
   }
 
   /**
@@ -86,6 +121,15 @@ public class ReportService {
 
     checkStartEndDates(startOfPeriod, endOfPeriod);
 
+    ReportResultCache.Key key = ReportResultCache.Key.period(
+        WORKING_SHIFTS_REPORT, startOfPeriod, endOfPeriod, employeeIds);
+    Optional<ReportWorkingShiftForPeriodDto> cached =
+        reportResultCache.get(key, ReportWorkingShiftForPeriodDto.class);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    long generation = reportResultCache.getGeneration();
+
     List<WorkingShiftEmployeeDto> workingShiftList =
         workingShiftService.getWorkingShiftEmployeeByEmpIds(
             startOfPeriod, endOfPeriod, employeeIds);
@@ -111,12 +155,36 @@ public class ReportService {
         .map(e -> new EmployeeIdTotalPartsDto(e.getKey(), e.getValue().floatValue()))
         .toList();
 
-    return new ReportWorkingShiftForPeriodDto(
+    ReportWorkingShiftForPeriodDto report = new ReportWorkingShiftForPeriodDto(
         startOfPeriod,
         endOfPeriod,
         shortEmployeeDtoList,
         workingShiftList,
         employeeIdTotalPartsDtoList);
+
+    //смены периода, закончившегося до последней закрытой смены, уже не изменятся
+    if (reportResultCache.isClosedPeriod(endOfPeriod)) {
+      reportResultCache.put(key, report, shortEmployeeDtoList.size() + workingShiftList.size()
+          + employeeIdTotalPartsDtoList.size(), generation);
+    }
+    return report;
+  }
+
+  /**
+   * Exports the timesheet of the working shifts for a specific period as CSV. The timesheet
+   * is written to the response as it is read from the database.
+   *
+   * @param startOfPeriod The start date of the period.
+   * @param endOfPeriod   The end date of the period.
+   * @param employeeIds   The set of concrete employee ids
+   * @return The {@link StreamingResponseBody} writing the timesheet.
+   */
+  public StreamingResponseBody exportWorkingShiftsForPeriod(
+      LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds) {
+
+    checkStartEndDates(startOfPeriod, endOfPeriod);
+
+    return out -> timesheetExportService.writeCsv(startOfPeriod, endOfPeriod, employeeIds, out);
   }
 
   /**
@@ -126,18 +194,48 @@ public class ReportService {
    * @param endOfPeriod   The end date of the period.
    * @return A DTO (Data Transfer Object) representing the report for the specified period.
    */
+  @Transactional(readOnly = true)
   public ReportProjectsForPeriodDto reportProjectsForPeriod(
       LocalDate startOfPeriod, LocalDate endOfPeriod) {
 
     checkStartEndDates(startOfPeriod, endOfPeriod);
 
-    List<Project> projects = projectService.findProjectsForPeriod(startOfPeriod, endOfPeriod);
-    List<ProjectForReportDto> projectForReportDtoList = projects.stream()
-        .map(projectForReportDtoMapper)
-        .toList();
+    ReportResultCache.Key key =
+        ReportResultCache.Key.period(PROJECTS_REPORT, startOfPeriod, endOfPeriod, null);
+    Optional<ReportProjectsForPeriodDto> cached =
+        reportResultCache.get(key, ReportProjectsForPeriodDto.class);
+    if (cached.isPresent()) {
+      return new ReportProjectsForPeriodDto(startOfPeriod, endOfPeriod, LocalDate.now(),
+          cached.get().projectsForReportDtoList());
+    }
+    long generation = reportResultCache.getGeneration();
+
+    //строки читаются курсором и сворачиваются в проекты по мере чтения:
+    //в памяти находятся только строки текущего проекта и готовый отчет
+    List<ProjectForReportDto> projectForReportDtoList = new ArrayList<>();
+    List<ProjectOperationRowDto> projectRows = new ArrayList<>();
+    projectService.streamProjectRowsForPeriod(startOfPeriod, endOfPeriod, row -> {
+      if (!projectRows.isEmpty() && projectRows.get(0).projectId() != row.projectId()) {
+        projectForReportDtoList.add(projectForReportDtoMapper.apply(List.copyOf(projectRows)));
+        projectRows.clear();
+      }
+      projectRows.add(row);
+    });
+    if (!projectRows.isEmpty()) {
+      projectForReportDtoList.add(projectForReportDtoMapper.apply(List.copyOf(projectRows)));
+    }
 
-    return new ReportProjectsForPeriodDto(
+    ReportProjectsForPeriodDto report = new ReportProjectsForPeriodDto(
         startOfPeriod, endOfPeriod, LocalDate.now(), projectForReportDtoList);
+
+    //отчет не изменится, если период закрыт и все проекты отчета завершены
+    if (projectForReportDtoList.stream().allMatch(ProjectForReportDto::isEnded)
+        && reportResultCache.isClosedPeriod(endOfPeriod)) {
+      reportResultCache.put(key, report, projectForReportDtoList.size()
+          + projectForReportDtoList.stream().mapToLong(p -> p.operations().size()).sum(),
+          generation);
+    }
+    return report;
   }
 
   /**
@@ -152,23 +250,35 @@ public class ReportService {
     //проверка на неповторяющиеся значения параметров
     checkCorrectParametersRequest(req);
 
+    ReportResultCache.Key key = ReportResultCache.Key.deadlines(req);
+    Optional<ReportDeadlineDto> cached = reportResultCache.get(key, ReportDeadlineDto.class);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    long generation = reportResultCache.getGeneration();
+
     ReportDeadlineDto report = new ReportDeadlineDto();
     //здесь присваивается id основному блоку отчета согласно id из значения первого параметра
     report.setFirstRespId(req.valueOfFirstParameter());
 
     //выборка из базы данных для отчета всегда берется согласно списку операций в запросе
     //в этом месте происходит поиск в каком из параметров указан список операций
-    List<Operation> ops;
+    Set<Long> operationIds;
     if (req.firstParameter().ordinal() == 1) {
-      ops = operationService.getOperationsByIds(Set.of(req.valueOfFirstParameter()));
+      operationIds = Set.of(req.valueOfFirstParameter());
     } else if (req.secondParameter().ordinal() == 1) {
-      ops = operationService.getOperationsByIds(req.valuesOfSecondParameter());
+      operationIds = req.valuesOfSecondParameter();
     } else {
-      ops = operationService.getOperationsByIds(req.valuesOfThirdParameter());
+      operationIds = req.valuesOfThirdParameter();
     }
+    List<OperationDeadlineRowDto> ops = operationService.getDeadlineRowsByIds(operationIds);
 
     checkNotEmptyListOps(ops);
 
+    //строки выборки индексируются по id операции, проекта и сотрудника, поэтому блоки отчета
+    //собираются без повторного просмотра всей выборки для каждого значения параметра
+    DeadlineIndex index = DeadlineIndex.of(ops);
+
     switch (req.firstParameter()) {
 
       //кейс, где проект является главным блоком в отчете
@@ -176,21 +286,21 @@ public class ReportService {
         //проверка на соответствие id проекта из запроса и id проекта из выборки операций
         ops.forEach(o -> checkCorrectProjectIdFromReqAndOp(req.valueOfFirstParameter(), o));
 
-        report.setFirstRespValue(String.valueOf(ops.get(0).getProject().getNumber()));
+        report.setFirstRespValue(String.valueOf(ops.get(0).projectNumber()));
         switch (req.secondParameter()) {
           //кейс, где операции являются вторым блоком в отчете по проекту
           case OPERATION -> addToPrReportSecondSubDtoByOperations(req.valueOfFirstParameter(),
-              req.valuesOfSecondParameter(), req.valuesOfThirdParameter(), report, ops);
+              req.valuesOfSecondParameter(), req.valuesOfThirdParameter(), report, index);
           //кейс, где сотрудники являются вторым блоком в отчете по проекту
           case EMPLOYEE -> addToPrReportSecondSubDtoByEmployees(req.valueOfFirstParameter(),
-              req.valuesOfSecondParameter(), req.valuesOfThirdParameter(), report, ops);
+              req.valuesOfSecondParameter(), req.valuesOfThirdParameter(), report, index);
           default -> throw new ReportException(HttpStatus.BAD_REQUEST, WRONG_PARAMETER.value);
         }
       }
 
       //кейс, где операция является главным блоком в отчете
       case OPERATION -> {
-        report.setFirstRespValue(ops.get(0).getName());
+        report.setFirstRespValue(ops.get(0).name());
         switch (req.secondParameter()) {
           //кейс, где проекты являются вторым блоком в отчете по операции
           case PROJECT -> addToOpReportSecondSubDtoByProject(
@@ -209,14 +319,14 @@ public class ReportService {
         //проверка на соответствие id сотрудника из запроса с id сотрудника из выборки операций
         ops.forEach(o -> checkCorrectEmpIdFromReqAndEmpIdFromOp(req.valueOfFirstParameter(), o));
 
-        report.setFirstRespValue(ops.get(0).getEmployee().getLastName());
+        report.setFirstRespValue(ops.get(0).employeeLastName());
         switch (req.secondParameter()) {
           //кейс, где проекты являются вторым блоком в отчете по сотруднику
           case PROJECT -> addToEmpReportSecondSubDtoByProjects(req.valueOfFirstParameter(),
-              req.valuesOfSecondParameter(), req.valuesOfThirdParameter(), report, ops);
+              req.valuesOfSecondParameter(), req.valuesOfThirdParameter(), report, index);
           //кейс, где операции являются вторым блоком в отчете по сотруднику
           case OPERATION -> addToEmpReportSecondSubDtoByOperations(req.valueOfFirstParameter(),
-              req.valuesOfSecondParameter(), req.valuesOfThirdParameter(), report, ops);
+              req.valuesOfSecondParameter(), req.valuesOfThirdParameter(), report, index);
           default -> throw new ReportException(HttpStatus.BAD_REQUEST, WRONG_PARAMETER.value);
         }
       }
@@ -224,32 +334,39 @@ public class ReportService {
       default -> throw new ReportException(HttpStatus.BAD_REQUEST, "Wrong values in parameters");
     }
 
+    //сроки завершенных операций уже не изменятся
+    if (ops.stream().allMatch(o -> o.realEndDate() != null)) {
+      reportResultCache.put(key, report, 1 + report.getSecondRespValues().stream()
+          .mapToLong(b -> 1 + b.thirdRespValues().size()).sum(), generation);
+    }
     return report;
   }
 
-  private void checkCorrectProjectIdFromReqAndOp(long projectIdFromReq, Operation o) {
-    if (projectIdFromReq != o.getProject().getId()) {
+  private void checkCorrectProjectIdFromReqAndOp(
+      long projectIdFromReq, OperationDeadlineRowDto o) {
+    if (!Objects.equals(projectIdFromReq, o.projectId())) {
       throw new ReportException(HttpStatus.BAD_REQUEST,
           PROJECT_WITH_ID.value + projectIdFromReq + " does not match the project id: "
-              + o.getProject().getId() + " from the operation");
+              + o.projectId() + " from the operation");
     }
   }
 
-  private void checkCorrectEmpIdFromReqAndEmpIdFromOp(long employeeId, Operation o) {
-    if (o.getEmployee().getId() != employeeId) {
-      throw new ReportException(HttpStatus.BAD_REQUEST, OPERATION_WITH_ID.value + o.getId()
+  private void checkCorrectEmpIdFromReqAndEmpIdFromOp(
+      long employeeId, OperationDeadlineRowDto o) {
+    if (!Objects.equals(employeeId, o.employeeId())) {
+      throw new ReportException(HttpStatus.BAD_REQUEST, OPERATION_WITH_ID.value + o.id()
           + " from the selection does not match the specified employee with id: " + employeeId);
     }
   }
 
-  private void checkNotNullEmpInOp(Operation o) {
-    if (o.getEmployee() == null) {
+  private void checkNotNullEmpInOp(OperationDeadlineRowDto o) {
+    if (o.employeeId() == null) {
       throw new ReportException(HttpStatus.BAD_REQUEST,
           "One of the operations from the selection does not have an employee");
     }
   }
 
-  private void checkNotEmptyListOps(List<Operation> ops) {
+  private void checkNotEmptyListOps(List<OperationDeadlineRowDto> ops) {
     if (ops.isEmpty()) {
       throw new ReportException(HttpStatus.BAD_REQUEST,
           "The parameter values are not correct, the final result is empty");
@@ -272,28 +389,26 @@ public class ReportService {
       Set<Long> secondValues,
       Set<Long> thirdValues,
       ReportDeadlineDto report,
-      List<Operation> ops) {
+      DeadlineIndex index) {
     report.setSecondRespValues(secondValues.stream()
         .map(eid -> {
           //поиск сотрудника, который соответствует очередному id из значений второго параметра,
           //дополнительно идет проверка, что сотрудник относится к операции из проекта из главного
           // блока отчета
-          Employee e = ops.stream()
-              .filter(o -> o.getEmployee() != null)
-              .filter(o -> Objects.equals(o.getEmployee().getId(), eid)
-                  && Objects.equals(o.getProject().getId(), firstValue))
+          List<OperationDeadlineRowDto> empOps = index.byEmployee(eid);
+          OperationDeadlineRowDto e = empOps.stream()
+              .filter(o -> Objects.equals(o.projectId(), firstValue))
               .findFirst()
               .orElseThrow(() -> new ReportException(HttpStatus.BAD_REQUEST,
                   "Employee with id: " + eid + NOT_FOUND_CONST.value + " in project with id: "
-                      + firstValue))
-              .getEmployee();
+                      + firstValue));
 
           return new SecondResponseSubDto(
-              e.getId(), e.getLastName(),
-              ops.stream()
-                  .filter(o -> checkParticipatingEmployeeInOperation(e, o, thirdValues))
-                  .map(o -> new ThirdResponseSubDto(o.getId(), o.getName(),
-                      o.getPlannedEndDate(), o.getRealEndDate()))
+              e.employeeId(), e.employeeLastName(),
+              empOps.stream()
+                  .filter(o -> thirdValues.contains(o.id()))
+                  .map(o -> new ThirdResponseSubDto(o.id(), o.name(),
+                      o.plannedEndDate(), o.realEndDate()))
                   .toList());
         }).toList());
   }
@@ -303,16 +418,14 @@ public class ReportService {
       Set<Long> secondValues,
       Set<Long> thirdValues,
       ReportDeadlineDto report,
-      List<Operation> ops) {
+      DeadlineIndex index) {
     report.setSecondRespValues(secondValues.stream()
         .map(oid -> {
               //поиск операции, которая соответствует очередному id из значений второго параметра,
               //дополнительно идет проверка, что операция относится к проекту из главного
               // блока отчета
-              Operation op = ops.stream()
-                  .filter(o -> Objects.equals(o.getId(), oid)
-                      && Objects.equals(o.getProject().getId(), firstValue))
-                  .findFirst()
+              OperationDeadlineRowDto op = index.byOperation(oid)
+                  .filter(o -> Objects.equals(o.projectId(), firstValue))
                   .orElseThrow(() -> new ReportException(HttpStatus.BAD_REQUEST,
                       OPERATION_WITH_ID.value + oid + NOT_FOUND_CONST.value
                           + " in project with id: " + firstValue));
@@ -320,14 +433,14 @@ public class ReportService {
               checkNotNullEmpInOp(op);
               //проверка на наличие id сотрудника из выборки операций среди значений
               // третьего параметра
-              checkIdContainsInSetValues(thirdValues, op.getEmployee().getId());
+              checkIdContainsInSetValues(thirdValues, op.employeeId());
 
-              return new SecondResponseSubDto(op.getId(), op.getName(),
+              return new SecondResponseSubDto(op.id(), op.name(),
                   List.of(new ThirdResponseSubDto(
-                      op.getEmployee().getId(),
-                      op.getEmployee().getLastName(),
-                      op.getPlannedEndDate(),
-                      op.getRealEndDate())));
+                      op.employeeId(),
+                      op.employeeLastName(),
+                      op.plannedEndDate(),
+                      op.realEndDate())));
             }
         ).toList());
   }
@@ -344,35 +457,30 @@ public class ReportService {
       Set<Long> secondValues,
       Set<Long> thirdValues,
       ReportDeadlineDto report,
-      List<Operation> ops) {
+      DeadlineIndex index) {
     report.setSecondRespValues(secondValues.stream()
         .map(oid -> {
           //поиск операции, которая соответствует очередному id из значений второго параметра,
           //дополнительно идет проверка, что операция относится к сотруднику из главного
           // блока отчета
-          Operation op = ops.stream()
-              .filter(o -> Objects.equals(o.getId(), oid)
-                  && Objects.equals(o.getEmployee().getId(), firstValue))
-              .findFirst()
+          OperationDeadlineRowDto op = index.byOperation(oid)
+              .filter(o -> Objects.equals(o.employeeId(), firstValue))
               .orElseThrow(() -> new ReportException(HttpStatus.BAD_REQUEST,
                   OPERATION_WITH_ID.value + oid + " and employee with id: "
                       + firstValue + NOT_FOUND_CONST.value
                       + ". Or not contains in values second parameter"));
-          //поиск проекта, который соответствует найденной выше операции,
-          //дополнительно идет проверка, что id проекта есть среди значений третьего параметра
-          Project pr = ops.stream()
-              .filter(o -> Objects.equals(o.getProject().getId(), op.getProject().getId())
-                  && thirdValues.contains(o.getProject().getId()))
-              .findFirst()
-              .orElseThrow(() -> new ReportException(HttpStatus.BAD_REQUEST,
-                  PROJECT_WITH_ID.value + op.getProject().getId() + " and operation with id: "
-                      + op.getId() + NOT_FOUND_CONST.value
-                      + ". Or not contains in values third parameter"))
-              .getProject();
+          //проверка, что id проекта найденной выше операции есть среди значений третьего
+          //параметра
+          if (!thirdValues.contains(op.projectId())) {
+            throw new ReportException(HttpStatus.BAD_REQUEST,
+                PROJECT_WITH_ID.value + op.projectId() + " and operation with id: "
+                    + op.id() + NOT_FOUND_CONST.value
+                    + ". Or not contains in values third parameter");
+          }
           return new SecondResponseSubDto(
-              op.getId(), op.getName(),
-              List.of(new ThirdResponseSubDto(pr.getId(), String.valueOf(pr.getNumber()),
-                  op.getPlannedEndDate(), op.getRealEndDate())));
+              op.id(), op.name(),
+              List.of(new ThirdResponseSubDto(op.projectId(), String.valueOf(op.projectNumber()),
+                  op.plannedEndDate(), op.realEndDate())));
         })
         .toList());
   }
@@ -382,27 +490,25 @@ public class ReportService {
       Set<Long> secondValues,
       Set<Long> thirdValues,
       ReportDeadlineDto report,
-      List<Operation> ops) {
+      DeadlineIndex index) {
     report.setSecondRespValues(secondValues.stream()
         //поиск проекта, который соответствует очередному id из значений второго параметра,
         //дополнительно идет проверка, что проект относится к сотруднику из главного
         // блока отчета
         .map(pid -> {
-          Project pr = ops.stream()
-              .filter(o -> Objects.equals(o.getProject().getId(), pid)
-                  && Objects.equals(o.getEmployee().getId(), firstValue))
+          List<OperationDeadlineRowDto> projectOps = index.byProject(pid);
+          OperationDeadlineRowDto pr = projectOps.stream()
+              .filter(o -> Objects.equals(o.employeeId(), firstValue))
               .findFirst()
               .orElseThrow(() -> new ReportException(HttpStatus.BAD_REQUEST,
                   PROJECT_WITH_ID.value + pid + " and employee with id: "
                       + firstValue + NOT_FOUND_CONST.value
-                      + ". Or not contains in values second parameter"))
-              .getProject();
+                      + ". Or not contains in values second parameter"));
           return new SecondResponseSubDto(
-              pr.getId(), String.valueOf(pr.getNumber()), ops.stream()
-              .filter(o -> Objects.equals(o.getProject().getId(), pid)
-                  && thirdValues.contains(o.getId()))
+              pr.projectId(), String.valueOf(pr.projectNumber()), projectOps.stream()
+              .filter(o -> thirdValues.contains(o.id()))
               .map(o -> new ThirdResponseSubDto(
-                  o.getId(), o.getName(), o.getPlannedEndDate(), o.getRealEndDate()))
+                  o.id(), o.name(), o.plannedEndDate(), o.realEndDate()))
               .toList());
         })
         .toList());
@@ -412,7 +518,7 @@ public class ReportService {
       Set<Long> secondValues,
       Set<Long> thirdValues,
       ReportDeadlineDto report,
-      Operation op) {
+      OperationDeadlineRowDto op) {
 
     checkNotNullEmpInOp(op);
     secondValues.forEach(p -> checkCorrectProjectIdFromReqAndOp(p, op));
@@ -420,20 +526,20 @@ public class ReportService {
 
     report.setSecondRespValues(
         List.of(new SecondResponseSubDto(
-            op.getProject().getId(),
-            String.valueOf(op.getProject().getNumber()),
+            op.projectId(),
+            String.valueOf(op.projectNumber()),
             List.of(new ThirdResponseSubDto(
-                op.getEmployee().getId(),
-                op.getEmployee().getLastName(),
-                op.getPlannedEndDate(),
-                op.getRealEndDate())))));
+                op.employeeId(),
+                op.employeeLastName(),
+                op.plannedEndDate(),
+                op.realEndDate())))));
   }
 
   private void addToOpReportSecondSubDtoByEmployee(
       Set<Long> secondValues,
       Set<Long> thirdValues,
       ReportDeadlineDto report,
-      Operation op) {
+      OperationDeadlineRowDto op) {
 
     checkNotNullEmpInOp(op);
     secondValues.forEach(e -> checkCorrectEmpIdFromReqAndEmpIdFromOp(e, op));
@@ -441,13 +547,13 @@ public class ReportService {
 
     report.setSecondRespValues(
         List.of(new SecondResponseSubDto(
-            op.getEmployee().getId(),
-            op.getEmployee().getLastName(),
+            op.employeeId(),
+            op.employeeLastName(),
             List.of(new ThirdResponseSubDto(
-                op.getProject().getId(),
-                String.valueOf(op.getProject().getNumber()),
-                op.getPlannedEndDate(),
-                op.getRealEndDate())))));
+                op.projectId(),
+                String.valueOf(op.projectNumber()),
+                op.plannedEndDate(),
+                op.realEndDate())))));
   }
 
   private void checkStartEndDates(LocalDate startOfPeriod, LocalDate endOfPeriod) {
@@ -456,10 +562,37 @@ public class ReportService {
     }
   }
 
-  private boolean checkParticipatingEmployeeInOperation(
-      Employee e, Operation o, Set<Long> thirdValues) {
-    return (o.getEmployee() != null
-        && Objects.equals(o.getEmployee().getId(), e.getId())
-        && thirdValues.contains(o.getId()));
+  /**
+   * The operations of the deadline report indexed by the id of the operation, the project and
+   * the employee. The order of the operations in the selection is kept in the lists.
+   */
+  private static final class DeadlineIndex {
+    private final Map<Long, OperationDeadlineRowDto> operations = new HashMap<>();
+    private final Map<Long, List<OperationDeadlineRowDto>> projects = new HashMap<>();
+    private final Map<Long, List<OperationDeadlineRowDto>> employees = new HashMap<>();
+
+    static DeadlineIndex of(List<OperationDeadlineRowDto> ops) {
+      DeadlineIndex index = new DeadlineIndex();
+      for (OperationDeadlineRowDto o : ops) {
+        index.operations.put(o.id(), o);
+        index.projects.computeIfAbsent(o.projectId(), id -> new ArrayList<>()).add(o);
+        if (o.employeeId() != null) {
+          index.employees.computeIfAbsent(o.employeeId(), id -> new ArrayList<>()).add(o);
+        }
+      }
+      return index;
+    }
+
+    Optional<OperationDeadlineRowDto> byOperation(long operationId) {
+      return Optional.ofNullable(operations.get(operationId));
+    }
+
+    List<OperationDeadlineRowDto> byProject(long projectId) {
+      return projects.getOrDefault(projectId, List.of());
+    }
+
+    List<OperationDeadlineRowDto> byEmployee(long employeeId) {
+      return employees.getOrDefault(employeeId, List.of());
+    }
   }
 }
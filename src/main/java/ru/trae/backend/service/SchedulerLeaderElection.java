@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.trae.backend.dto.workingshift.SchedulerLeaderMetricsDto;
+
+/**
+ * Leader election of the schedulers that change data, between the instances of the backend that
+ * share one database. The leader holds a session-level PostgreSQL advisory lock on a dedicated connection:
+ * the lock is held as long as the connection is alive and is released by PostgreSQL when
+ * the instance stops or loses the connection, so another instance takes the leadership on its
+ * next check. Other databases are not shared between instances, there the instance is always
+ * the leader.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+public class SchedulerLeaderElection {
+  public static final int VALIDATION_TIMEOUT_SECONDS = 5;
+  private static final String POSTGRESQL = "PostgreSQL";
+  private final DataSource dataSource;
+  private final long lockKey;
+  private final AtomicLong acquisitions = new AtomicLong();
+  private final AtomicLong losses = new AtomicLong();
+  private final AtomicLong grantedChecks = new AtomicLong();
+  private final AtomicLong deniedChecks = new AtomicLong();
+  private final AtomicLong totalHoldNanos = new AtomicLong();
+  //соединение, на котором удерживается рекомендательная блокировка ведущего экземпляра
+  private Connection lockConnection;
+  private boolean standalone;
+  private volatile long leaderSinceNanos;
+  private volatile boolean leader;
+
+  /**
+   * Constructor for the leader election.
+   *
+   * @param dataSource the data source of the shared database
+   * @param lockKey    the key of the advisory lock held by the leader
+   */
+  @Autowired
+  public SchedulerLeaderElection(DataSource dataSource,
+                                 @Value("${scheduler.leader-lock-key}") long lockKey) {
+    this.dataSource = dataSource;
+    this.lockKey = lockKey;
+  }
+
+  /**
+   * Checks if this instance is the leader. The held lock is verified by the validation of its
+   * connection; if the instance is not the leader, it tries to take the lock without waiting.
+   *
+   * @return true if this instance is the leader; false otherwise
+   */
+  public synchronized boolean isLeader() {
+    if (leader && !standalone && !lockConnectionValid()) {
+      losses.incrementAndGet();
+      log.warn("scheduler leadership lost, the connection holding the lock is closed");
+      release(false);
+    }
+    if (!leader) {
+      tryAcquire();
+    }
+
+    if (leader) {
+      grantedChecks.incrementAndGet();
+    } else {
+      deniedChecks.incrementAndGet();
+    }
+    return leader;
+  }
+
+  /**
+   * Releases the leadership before the shutdown of the instance, so another instance can take
+   * it without waiting for the connection to be closed.
+   */
+  @PreDestroy
+  public synchronized void resign() {
+    if (leader) {
+      log.info("scheduler leadership released");
+      release(true);
+    }
+  }
+
+  /**
+   * Returns the metrics of the leader election: the current role, the number of taken and lost
+   * leaderships, the number of the checks and how long the lock has been held.
+   *
+   * @return the {@link SchedulerLeaderMetricsDto} object
+   */
+  public SchedulerLeaderMetricsDto getMetrics() {
+    boolean isLeader = leader;
+    long currentHold = isLeader ? System.nanoTime() - leaderSinceNanos : 0;
+    return new SchedulerLeaderMetricsDto(
+        isLeader,
+        acquisitions.get(),
+        losses.get(),
+        grantedChecks.get(),
+        deniedChecks.get(),
+        TimeUnit.NANOSECONDS.toMillis(currentHold),
+        TimeUnit.NANOSECONDS.toMillis(totalHoldNanos.get() + currentHold));
+  }
+
+  private void tryAcquire() {
+    Connection connection = null;
+    try {
+      connection = dataSource.getConnection();
+      if (!POSTGRESQL.equals(connection.getMetaData().getDatabaseProductName())) {
+        connection.close();
+        standalone = true;
+        becomeLeader();
+        log.info("database is not shared, this instance is the scheduler leader");
+        return;
+      }
+
+      if (tryAdvisoryLock(connection)) {
+        lockConnection = connection;
+        becomeLeader();
+        log.info("scheduler leadership acquired");
+      } else {
+        connection.close();
+      }
+    } catch (SQLException e) {
+      log.warn("scheduler leadership could not be acquired: " + e.getMessage());
+      closeQuietly(connection);
+    }
+  }
+
+  private boolean tryAdvisoryLock(Connection connection) throws SQLException {
+    try (PreparedStatement statement =
+             connection.prepareStatement("select pg_try_advisory_lock(?)")) {
+      statement.setLong(1, lockKey);
+      try (ResultSet rs = statement.executeQuery()) {
+        return rs.next() && rs.getBoolean(1);
+      }
+    }
+  }
+
+  private boolean lockConnectionValid() {
+    try {
+      return lockConnection.isValid(VALIDATION_TIMEOUT_SECONDS);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private void becomeLeader() {
+    leader = true;
+    leaderSinceNanos = System.nanoTime();
+    acquisitions.incrementAndGet();
+  }
+
+  private void release(boolean unlock) {
+    totalHoldNanos.addAndGet(System.nanoTime() - leaderSinceNanos);
+    leader = false;
+    if (lockConnection == null) {
+      return;
+    }
+
+    //соединение возвращается в пул и сессия продолжается, поэтому блокировка снимается явно
+    if (unlock) {
+      try (PreparedStatement statement =
+               lockConnection.prepareStatement("select pg_advisory_unlock(?)")) {
+        statement.setLong(1, lockKey);
+        statement.execute();
+      } catch (SQLException e) {
+        log.warn("scheduler lock could not be released: " + e.getMessage());
+      }
+    }
+    closeQuietly(lockConnection);
+    lockConnection = null;
+  }
+
+  private void closeQuietly(Connection connection) {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      log.debug("connection could not be closed: " + e.getMessage());
+    }
+  }
+}
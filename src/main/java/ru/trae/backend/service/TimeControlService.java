@@ -28,6 +28,8 @@ import ru.trae.backend.repository.TimeControlRepository;
 @RequiredArgsConstructor
 public class TimeControlService {
   private final TimeControlRepository timeControlRepository;
+  private final ReportDashboardStatsCache reportDashboardStatsCache;
+  private final PresenceRegistry presenceRegistry;
 
   /**
    * Creates an arrival time control for an employee.
@@ -48,7 +50,12 @@ public class TimeControlService {
     tc.setAutoClosingShift(false);
     tc.setWorkingShift(ws);
 
-    return timeControlRepository.save(tc);
+    TimeControl saved = timeControlRepository.save(tc);
+    if (onShift) {
+      presenceRegistry.arrived(e.getId(), saved.getId());
+    }
+    reportDashboardStatsCache.invalidate();
+    return saved;
   }
 
   /**
@@ -64,20 +71,24 @@ public class TimeControlService {
     tc.setOnShift(false);
 
     timeControlRepository.save(tc);
+    presenceRegistry.departed(empId);
+    reportDashboardStatsCache.invalidate();
   }
 
   /**
-   * Automatically closes a shift.
+   * Automatically closes the shift of all employees still on the working shift.
+   * The open time controls are closed by a single update, without loading them.
    *
-   * @param tc The {@link TimeControl} to close the shift of.
+   * @param workingShiftId The ID of the working shift to close the time controls of.
+   * @param startShift     The start of the working shift.
+   * @return The number of closed time controls.
    */
-  public void autoClosingShift(TimeControl tc) {
+  public int autoClosingShift(long workingShiftId, LocalDateTime startShift) {
     LocalTime specificTime = LocalTime.of(18, 0);
-
-    tc.setOnShift(false);
-    tc.setAutoClosingShift(true);
-    tc.setDeparture(tc.getWorkingShift().getStartShift().with(specificTime));
-
-    timeControlRepository.save(tc);
+    int closed = timeControlRepository.autoCloseOnShiftByWorkingShiftId(
+        workingShiftId, startShift.with(specificTime));
+    presenceRegistry.shiftClosed();
+    reportDashboardStatsCache.invalidate();
+    return closed;
   }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.trae.backend.dto.report.TimesheetRowDto;
+import ru.trae.backend.repository.TimesheetExportRepository;
+
+/**
+ * Service class for exporting the timesheet of the working shifts as CSV. The rows are written
+ * to the output as they are read from the database, so the memory used by the export does not
+ * depend on the length of the period.
+ *
+ * @author Vladimir Olennikov
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimesheetExportService {
+  public static final String CSV_HEADER =
+      "employee_id,last_name,first_name,shift_date,auto_closed,part_of_shift\r\n";
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private final TimesheetExportRepository timesheetExportRepository;
+
+  /**
+   * Writes the timesheet of the employees for the period as CSV (RFC 4180), one row for each
+   * day and employee. The output is flushed but not closed.
+   *
+   * @param startOfPeriod the first day of the period
+   * @param endOfPeriod   the last day of the period
+   * @param employeeIds   the ids of the employees, if null or empty, all employees are written
+   * @param out           the output to write to
+   * @throws IOException if the output cannot be written
+   */
+  @Transactional(readOnly = true)
+  public void writeCsv(LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds,
+                       OutputStream out) throws IOException {
+    long start = System.nanoTime();
+    long[] rows = new long[1];
+    Writer writer =
+        new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    writer.write(CSV_HEADER);
+    try {
+      timesheetExportRepository.streamByPeriod(startOfPeriod, endOfPeriod, employeeIds, row -> {
+        writeRow(writer, row);
+        rows[0]++;
+      });
+    } catch (UncheckedIOException e) {
+      //клиент прервал загрузку, чтение строк из базы данных прекращено
+      throw e.getCause();
+    }
+    writer.flush();
+
+    log.info("timesheet for " + startOfPeriod + " - " + endOfPeriod + " exported: " + rows[0]
+        + " rows in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
+
+  private void writeRow(Writer writer, TimesheetRowDto row) {
+    try {
+      writer.write(Long.toString(row.employeeId()));
+      writer.write(',');
+      writeField(writer, row.lastName());
+      writer.write(',');
+      writeField(writer, row.firstName());
+      writer.write(',');
+      writer.write(row.shiftDate().toString());
+      writer.write(',');
+      writer.write(Boolean.toString(row.autoClosed()));
+      writer.write(',');
+      writer.write(row.partOfShift().toPlainString());
+      writer.write("\r\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeField(Writer writer, String value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+        && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      writer.write(value);
+      return;
+    }
+    writer.write('"');
+    writer.write(value.replace("\"", "\"\""));
+    writer.write('"');
+  }
+}
@@ -12,10 +12,16 @@ package ru.trae.backend.service;
 
 import static ru.trae.backend.util.Constant.NOT_FOUND_CONST;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,7 +33,9 @@ import ru.trae.backend.dto.type.NewTypeWorkDto;
 import ru.trae.backend.dto.type.TypeWorkDto;
 import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.exceptionhandler.exception.TypeWorkException;
+import ru.trae.backend.repository.KeysetRepository;
 import ru.trae.backend.repository.TypeWorkRepository;
+import ru.trae.backend.specification.TypeWorkSpecification;
 
 /**
  * Service class that handles the operations related to TypeWork entities.
@@ -40,6 +48,7 @@ public class TypeWorkService {
   private final TypeWorkRepository typeWorkRepository;
   private final TypeWorkDtoMapper typeWorkDtoMapper;
   private final PageToPageDtoMapper pageToPageDtoMapper;
+  private final KeysetRepository keysetRepository;
   
   /**
    * Saves a new TypeWork entity.
@@ -55,6 +64,28 @@ public class TypeWorkService {
     return typeWorkDtoMapper.apply(typeWorkRepository.save(tw));
   }
   
+  /**
+   * Gets the TypeWork entities with the given IDs by a single query.
+   *
+   * @param ids the IDs of the TypeWork entities
+   * @return the map of the TypeWork entities by their IDs
+   * @throws TypeWorkException if any of the TypeWork entities is not found
+   */
+  public Map<Long, TypeWork> getTypeWorksByIds(Collection<Long> ids) {
+    Map<Long, TypeWork> typeWorks = typeWorkRepository.findAllById(ids).stream()
+        .collect(Collectors.toMap(TypeWork::getId, Function.identity()));
+
+    ids.stream()
+        .filter(id -> !typeWorks.containsKey(id))
+        .findFirst()
+        .ifPresent(id -> {
+          throw new TypeWorkException(HttpStatus.NOT_FOUND,
+              "Type work with ID: " + id + NOT_FOUND_CONST.value);
+        });
+
+    return typeWorks;
+  }
+  
   /**
    * Gets a TypeWork entity by its ID.
    *
@@ -196,6 +227,27 @@ public class TypeWorkService {
     return pageToPageDtoMapper.typeWorkPageToPageDto(getTypeWorkPage(typeWorkPage, status));
   }
   
+  /**
+   * Gets the next page of TypeWork objects selected by keyset pagination without counting
+   * the total number of TypeWork objects.
+   *
+   * @param sort     the sort of TypeWork objects
+   * @param limit    the maximum number of TypeWork objects on the page
+   * @param after    the cursor of the previous page, empty for the first page
+   * @param isActive boolean value to filter by active/inactive typeWork
+   * @return a page of TypeWork objects with the cursor of the next page
+   */
+  public PageDto<TypeWorkDto> getTypeWorkDtoPageAfter(
+      Sort sort, int limit, String after, Boolean isActive) {
+    Specification<TypeWork> filter = null;
+    if (isActive != null) {
+      filter = TypeWorkSpecification.isActive(isActive);
+    }
+    
+    return pageToPageDtoMapper.sliceToPageDto(
+        keysetRepository.findSlice(TypeWork.class, filter, sort, after, limit), typeWorkDtoMapper);
+  }
+  
   /**
    * Checks if a TypeWork entity with the given name exists.
    *
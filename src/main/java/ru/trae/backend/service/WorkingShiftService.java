@@ -14,18 +14,21 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import javax.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import ru.trae.backend.dto.mapper.WorkingShiftDtoMapper;
+import ru.trae.backend.dto.workingshift.PresenceRegistryMetricsDto;
 import ru.trae.backend.dto.workingshift.WorkingShiftDto;
-import ru.trae.backend.entity.TimeControl;
 import ru.trae.backend.entity.WorkingShift;
 import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.exceptionhandler.exception.WorkingShiftException;
 import ru.trae.backend.projection.WorkingShiftEmployeeDto;
+import ru.trae.backend.projection.WorkingShiftIdStartDto;
+import ru.trae.backend.repository.AttendanceDayRepository;
 import ru.trae.backend.repository.WorkingShiftRepository;
 
 /**
@@ -37,7 +40,10 @@ import ru.trae.backend.repository.WorkingShiftRepository;
 @RequiredArgsConstructor
 public class WorkingShiftService {
   private final WorkingShiftRepository workingShiftRepository;
+  private final AttendanceDayRepository attendanceDayRepository;
   private final TimeControlService timeControlService;
+  private final PresenceRegistry presenceRegistry;
+  private final ReportDashboardStatsCache reportDashboardStatsCache;
   private final WorkingShiftDtoMapper workingShiftDtoMapper;
 
   /**
@@ -70,21 +76,23 @@ public class WorkingShiftService {
    */
   @Transactional
   public void closeWorkingShift() {
-    if (!existsActiveWorkingShift()) {
+    Optional<WorkingShiftIdStartDto> active = workingShiftRepository.findActiveIdAndStartShift();
+    if (active.isEmpty()) {
       return;
     }
 
-    WorkingShift ws = workingShiftRepository.findByIsEndedFalse();
+    //отметки смены не загружаются: открытые отметки закрываются одним обновлением
+    WorkingShiftIdStartDto ws = active.get();
     LocalTime specificTime = LocalTime.of(23, 0);
 
-    ws.getTimeControls().stream()
-        .filter(TimeControl::isOnShift)
-        .forEach(timeControlService::autoClosingShift);
-
-    ws.setEnded(true);
-    ws.setEndShift(ws.getStartShift().with(specificTime));
-
-    workingShiftRepository.save(ws);
+    timeControlService.autoClosingShift(ws.getId(), ws.getStartShift());
+    int ended =
+        workingShiftRepository.updateEndedById(ws.getId(), ws.getStartShift().with(specificTime));
+    //посещаемость смены добавляется в сводку один раз, при закрытии смены
+    if (ended > 0) {
+      attendanceDayRepository.rollupWorkingShift(ws.getId());
+    }
+    reportDashboardStatsCache.invalidate();
   }
 
   /**
@@ -125,16 +133,40 @@ public class WorkingShiftService {
   }
 
   /**
-   * Checks if an employee is on shift.
+   * Checks if an employee is on shift. The check is answered by the registry of this instance,
+   * which can lag behind the changes made by other instances until the next reconciliation,
+   * so it is used only by the read endpoints.
    *
    * @param isOnShift the status of the employee.
    * @param empId     the id of the employee.
    * @return true if the employee is on shift; false otherwise.
    */
   public boolean employeeOnShift(boolean isOnShift, long empId) {
+    //проверка выполняется по реестру сотрудников на смене, без запроса к базе данных
+    return presenceRegistry.isOnShift(empId) == isOnShift;
+  }
+
+  /**
+   * Checks if an employee is on shift by the database. The check is used before the arrival
+   * and the departure of the employee, which can be registered by any instance.
+   *
+   * @param isOnShift the status of the employee.
+   * @param empId     the id of the employee.
+   * @return true if the employee is on shift; false otherwise.
+   */
+  public boolean employeeOnShiftInDatabase(boolean isOnShift, long empId) {
     return workingShiftRepository.existsEmpOnShift(isOnShift, empId);
   }
 
+  /**
+   * Returns the metrics of the registry of the employees on shift.
+   *
+   * @return the {@link PresenceRegistryMetricsDto} object.
+   */
+  public PresenceRegistryMetricsDto getPresenceMetrics() {
+    return presenceRegistry.getMetrics();
+  }
+
   /**
    * Retrieves a list of WorkingShiftEmployeeDto objects for the specified employee IDs and time
    * period.
@@ -149,11 +181,11 @@ public class WorkingShiftService {
       LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds) {
     List<WorkingShiftEmployeeDto> hoursWorkingShiftList;
     if (employeeIds != null && !employeeIds.isEmpty()) {
-      hoursWorkingShiftList = workingShiftRepository.getWorkingShiftsDatesByEmpIds(
+      hoursWorkingShiftList = attendanceDayRepository.findByPeriodAndEmployeeIds(
           startOfPeriod, endOfPeriod, employeeIds);
     } else {
       hoursWorkingShiftList =
-          workingShiftRepository.getWorkingShiftsDates(startOfPeriod, endOfPeriod);
+          attendanceDayRepository.findByPeriod(startOfPeriod, endOfPeriod);
     }
     return hoursWorkingShiftList;
   }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.specification;
+
+import java.util.List;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.user.Employee;
+
+/**
+ * Specifications of the {@link Employee} list filters. Each filter has the same conditions as
+ * the corresponding query of {@link ru.trae.backend.repository.EmployeeRepository}.
+ *
+ * @author Vladimir Olennikov
+ */
+public class EmployeeSpecification {
+  private static final String ID = "id";
+
+  EmployeeSpecification() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static Specification<Employee> isActive(boolean isActive) {
+    return (root, query, cb) -> cb.equal(root.get("isActive"), isActive);
+  }
+
+  /**
+   * Employees having all the given types of work.
+   *
+   * @param typeWorkIds the ids of the types of work
+   * @return the specification
+   */
+  public static Specification<Employee> hasAllTypeWorks(List<Long> typeWorkIds) {
+    return (root, query, cb) -> {
+      Subquery<Long> employeeTypeWorks = query.subquery(Long.class);
+      Root<Employee> e = employeeTypeWorks.from(Employee.class);
+      Join<Employee, TypeWork> tw = e.join("typeWorks");
+      employeeTypeWorks.select(cb.count(tw))
+          .where(cb.equal(e.get(ID), root.get(ID)), tw.get(ID).in(typeWorkIds));
+
+      Subquery<Long> typeWorks = query.subquery(Long.class);
+      Root<TypeWork> t = typeWorks.from(TypeWork.class);
+      typeWorks.select(cb.count(t)).where(t.get(ID).in(typeWorkIds));
+
+      return cb.and(cb.greaterThan(employeeTypeWorks, 0L), cb.equal(employeeTypeWorks, typeWorks));
+    };
+  }
+}
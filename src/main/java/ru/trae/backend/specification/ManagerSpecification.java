@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.util.Role;
+
+/**
+ * Specifications of the {@link Manager} list filters.
+ *
+ * @author Vladimir Olennikov
+ */
+public class ManagerSpecification {
+  ManagerSpecification() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static Specification<Manager> accountNonLocked(boolean accountNonLocked) {
+    return (root, query, cb) -> cb.equal(root.get("accountNonLocked"), accountNonLocked);
+  }
+
+  public static Specification<Manager> hasRole(Role role) {
+    return (root, query, cb) -> cb.equal(root.get("role"), role);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.specification;
+
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.domain.Specification;
+import ru.trae.backend.entity.task.Project;
+
+/**
+ * Specifications of the {@link Project} list filters. Each filter has the same conditions as
+ * the corresponding query of {@link ru.trae.backend.repository.ProjectRepository}.
+ *
+ * @author Vladimir Olennikov
+ */
+public class ProjectSpecification {
+  private static final String IS_ENDED = "isEnded";
+  private static final String CURRENT_OP_IN_WORK = "currentOpInWork";
+  private static final String CURRENT_OP_PRIORITY = "currentOpPriority";
+  private static final String END_DATE_IN_CONTRACT = "endDateInContract";
+
+  ProjectSpecification() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static Specification<Project> isEnded(boolean isEnded) {
+    return (root, query, cb) -> cb.equal(root.get(IS_ENDED), isEnded);
+  }
+
+  /**
+   * Not ended projects with the current operation (in work or ready to acceptance) overdue
+   * at the given date.
+   *
+   * @param currentDate the current date
+   * @return the specification
+   */
+  public static Specification<Project> withOverdueCurrentOperation(LocalDateTime currentDate) {
+    return isEnded(false).and((root, query, cb) ->
+        cb.lessThan(root.get("currentOpPlannedEndDate"), currentDate));
+  }
+
+  /**
+   * Not ended projects with the first operation ready to acceptance.
+   *
+   * @return the specification
+   */
+  public static Specification<Project> withFirstOpReadyToAcceptance() {
+    return isEnded(false).and((root, query, cb) -> cb.and(
+        cb.equal(root.get(CURRENT_OP_PRIORITY), 0),
+        cb.isFalse(root.get(CURRENT_OP_IN_WORK))));
+  }
+
+  /**
+   * Not ended projects with the last operation (shipment) ready to acceptance.
+   *
+   * @return the specification
+   */
+  public static Specification<Project> withLastOpReadyToAcceptance() {
+    return isEnded(false).and((root, query, cb) ->
+        cb.isTrue(root.get("lastOpReadyToAcceptance")));
+  }
+
+  /**
+   * Not ended projects with the current operation in work or ready to acceptance, except
+   * the first operation ready to acceptance.
+   *
+   * @return the specification
+   */
+  public static Specification<Project> withOpInWorkOrReadyToAcceptanceExceptFirst() {
+    return isEnded(false).and((root, query, cb) -> cb.or(
+        cb.isTrue(root.get(CURRENT_OP_IN_WORK)),
+        cb.and(
+            cb.isFalse(root.get(CURRENT_OP_IN_WORK)),
+            cb.notEqual(root.get(CURRENT_OP_PRIORITY), 0))));
+  }
+
+  /**
+   * Not ended projects with the planned end date or the current date later than the end date
+   * in contract.
+   *
+   * @param currentDate the current date
+   * @return the specification
+   */
+  public static Specification<Project> overdue(LocalDateTime currentDate) {
+    return isEnded(false).and((root, query, cb) -> cb.or(
+        cb.greaterThan(root.get("plannedEndDate"), root.get(END_DATE_IN_CONTRACT)),
+        cb.greaterThan(cb.literal(currentDate), root.get(END_DATE_IN_CONTRACT))));
+  }
+}
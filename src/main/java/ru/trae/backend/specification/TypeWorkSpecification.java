@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.trae.backend.entity.TypeWork;
+
+/**
+ * Specifications of the {@link TypeWork} list filters.
+ *
+ * @author Vladimir Olennikov
+ */
+public class TypeWorkSpecification {
+  TypeWorkSpecification() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static Specification<TypeWork> isActive(boolean isActive) {
+    return (root, query, cb) -> cb.equal(root.get("isActive"), isActive);
+  }
+}
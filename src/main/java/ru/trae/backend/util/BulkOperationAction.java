@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.util;
+
+/**
+ * Enum representing the actions, which the manager can apply to a list of operations at once.
+ * CLOSE - closes the operations ready to acceptance or in work,
+ * DELETE - deletes the waiting operations, except the shipment.
+ *
+ * @author Vladimir Olennikov
+ */
+public enum BulkOperationAction {
+  CLOSE,
+  DELETE
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.util;
+
+/**
+ * Enum representing the result of the bulk action for a single operation.
+ * DONE - the action has been applied, NOT_FOUND - the operation does not exist,
+ * REJECTED - the action cannot be applied to the operation in its current state.
+ *
+ * @author Vladimir Olennikov
+ */
+public enum BulkOperationStatus {
+  DONE,
+  NOT_FOUND,
+  REJECTED
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.http.HttpStatus;
+import ru.trae.backend.exceptionhandler.exception.PaginationException;
+
+/**
+ * Utility class for encoding and decoding of the keyset pagination cursor.
+ * The cursor is an opaque token containing the values of the sort keys of the last element
+ * of the page.
+ *
+ * @author Vladimir Olennikov
+ */
+public class KeysetCursor {
+  private static final String SEPARATOR = "\u001F";
+
+  KeysetCursor() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Encodes the values of the sort keys to the cursor.
+   *
+   * @param values the values of the sort keys of the last element of the page
+   * @return the cursor
+   */
+  public static String encode(List<?> values) {
+    String joined = values.stream()
+        .map(String::valueOf)
+        .collect(Collectors.joining(SEPARATOR));
+
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes the cursor to the values of the sort keys.
+   *
+   * @param cursor       the cursor
+   * @param numberOfKeys the expected number of the sort keys
+   * @return the values of the sort keys
+   * @throws PaginationException if the cursor is incorrect
+   */
+  public static List<String> decode(String cursor, int numberOfKeys) {
+    List<String> values;
+    try {
+      String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      values = Arrays.asList(joined.split(SEPARATOR, -1));
+    } catch (IllegalArgumentException e) {
+      throw new PaginationException(HttpStatus.BAD_REQUEST, "Incorrect cursor: " + cursor);
+    }
+
+    if (values.size() != numberOfKeys) {
+      throw new PaginationException(HttpStatus.BAD_REQUEST, "Incorrect cursor: " + cursor);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.util;
+
+/**
+ * Enum representing the types of the events recorded in the operation event log.
+ *
+ * @author Vladimir Olennikov
+ */
+public enum OperationEventType {
+  CREATED,
+  READY_TO_ACCEPTANCE,
+  RECEIVED,
+  FINISHED,
+  CLOSED,
+  INSERTED,
+  DELETED,
+  PROJECT_END_DATE_CHANGED
+}
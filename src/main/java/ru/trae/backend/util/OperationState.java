@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.util;
+
+/**
+ * Enum representing the states of an operation.
+ * The operation goes through the states in the order of declaration:
+ * WAITING - READY_TO_ACCEPTANCE - IN_WORK - ENDED. The operation ready to acceptance
+ * can be closed by the manager without being in work.
+ *
+ * @author Vladimir Olennikov
+ */
+public enum OperationState {
+  WAITING,
+  READY_TO_ACCEPTANCE,
+  IN_WORK,
+  ENDED;
+
+  public boolean isReadyToAcceptance() {
+    return this == READY_TO_ACCEPTANCE;
+  }
+
+  public boolean isInWork() {
+    return this == IN_WORK;
+  }
+
+  public boolean isEnded() {
+    return this == ENDED;
+  }
+}
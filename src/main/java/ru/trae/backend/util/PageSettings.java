@@ -37,6 +37,10 @@ public class PageSettings {
   @Pattern(regexp = "[a-z][a-zA-Z0-9]{1,200}", message =
       "Неправильный формат ключа, либо такой ключ отсутствует у запрашиваемого списка")
   private String key = "id";
+  @ApiParam(value = "Курсор следующей страницы (nextCursor). Пустое значение - первая страница. "
+      + "Если указан, то номер страницы не учитывается и общее количество не подсчитывается")
+  @Pattern(regexp = "[A-Za-z0-9_-]{0,1000}", message = "Неправильный формат курсора")
+  private String after;
   
   /**
    * Builds a {@link Sort} instance based on the {@link #direction} and {@link #key} fields.
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.util;
+
+/**
+ * Enum representing the status of a report job.
+ * QUEUED - the job waits for a free thread, RUNNING - the report is being built,
+ * DONE - the result can be downloaded, FAILED - the report cannot be built,
+ * CANCELLED - the job has been cancelled by the user.
+ *
+ * @author Vladimir Olennikov
+ */
+public enum ReportJobStatus {
+  QUEUED,
+  RUNNING,
+  DONE,
+  FAILED,
+  CANCELLED;
+
+  public boolean isFinished() {
+    return this != QUEUED && this != RUNNING;
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.util;
+
+/**
+ * Enum representing the report built by a report job.
+ * WORKING_SHIFTS - the report on the working shifts for the period, PROJECTS - the report
+ * on the projects for the period, DEADLINES - the deadline report, WORKING_SHIFTS_EXPORT -
+ * the timesheet of the working shifts for the period in CSV.
+ *
+ * @author Vladimir Olennikov
+ */
+public enum ReportJobType {
+  WORKING_SHIFTS,
+  PROJECTS,
+  DEADLINES,
+  WORKING_SHIFTS_EXPORT
+}
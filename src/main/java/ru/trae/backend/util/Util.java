@@ -16,7 +16,6 @@ import java.util.function.Predicate;
 import ru.trae.backend.dto.operation.OperationDto;
 import ru.trae.backend.dto.operation.OperationForReportDto;
 import ru.trae.backend.entity.task.Operation;
-import ru.trae.backend.entity.task.Project;
 
 /**
  * This is a utility class containing static methods for generating random integers,
@@ -53,23 +52,6 @@ public class Util {
     return (int) Math.floor(((double) period / (double) size));
   }
 
-  /**
-   * Compares two projects based on their planned end dates.
-   *
-   * @param p1 The first project
-   * @param p2 The second project
-   * @return An integer representing the comparison result
-   */
-  public static int endDateInContractSorting(Project p1, Project p2) {
-    if (p1.getEndDateInContract().isAfter(p2.getEndDateInContract())) {
-      return 1;
-    } else if (p1.getEndDateInContract().isEqual(p2.getEndDateInContract())) {
-      return 0;
-    } else {
-      return -1;
-    }
-  }
-
   /**
    * Compares two operations based on their priorities.
    *
@@ -26,6 +26,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import ru.trae.backend.dto.operation.BulkOperationReq;
+import ru.trae.backend.dto.operation.BulkOperationResultDto;
 import ru.trae.backend.dto.operation.FinishOpReq;
 import ru.trae.backend.dto.operation.InsertingOperationDto;
 import ru.trae.backend.dto.operation.OperationForEmpDto;
@@ -34,8 +36,11 @@ import ru.trae.backend.dto.operation.ReceiveOpReq;
 import ru.trae.backend.entity.task.Operation;
 import ru.trae.backend.entity.task.Project;
 import ru.trae.backend.projection.OperationIdNameProjectNumberDto;
+import ru.trae.backend.service.OperationBulkActionService;
 import ru.trae.backend.service.OperationService;
 import ru.trae.backend.service.ProjectService;
+import ru.trae.backend.util.BulkOperationAction;
+import ru.trae.backend.util.BulkOperationStatus;
 
 @ExtendWith(MockitoExtension.class)
 class OperationControllerTest {
@@ -43,6 +48,8 @@ class OperationControllerTest {
   private OperationService operationService;
   @Mock
   private ProjectService projectService;
+  @Mock
+  private OperationBulkActionService operationBulkActionService;
   @InjectMocks
   private OperationController operationController;
   private final long projectId = 1;
@@ -100,6 +107,24 @@ class OperationControllerTest {
     verify(projectService).checkAndUpdateProjectEndDateAfterFinishOperation(operation);
   }
   
+  @Test
+  void bulkAction_WhenValidRequest_ShouldReturnResultsOfService() {
+    //given
+    BulkOperationReq req = new BulkOperationReq(BulkOperationAction.CLOSE, List.of(1L, 2L));
+    List<BulkOperationResultDto> results = List.of(
+        new BulkOperationResultDto(1L, BulkOperationStatus.DONE, null),
+        new BulkOperationResultDto(2L, BulkOperationStatus.NOT_FOUND, "not found"));
+    
+    //when
+    when(operationBulkActionService.applyAction(req)).thenReturn(results);
+    
+    ResponseEntity<List<BulkOperationResultDto>> response = operationController.bulkAction(req);
+    
+    //then
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(results, response.getBody());
+  }
+  
   @Test
   void operationForReportWithoutPagination_WhenValidParameters_ShouldReturnListOfOperationIdNameProjectNumberDto() {
     //given
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.trae.backend.dto.event.OperationEventPageDto;
+import ru.trae.backend.service.OperationEventService;
+
+@ExtendWith(MockitoExtension.class)
+class OperationEventControllerTest {
+  @Mock
+  private OperationEventService operationEventService;
+  @InjectMocks
+  private OperationEventController operationEventController;
+
+  @Test
+  void events_ShouldReturnPageOfEvents() {
+    //given
+    OperationEventPageDto page = new OperationEventPageDto(List.of(), 5L);
+
+    //when
+    when(operationEventService.getEventsAfter(5L, 100)).thenReturn(page);
+
+    ResponseEntity<OperationEventPageDto> response = operationEventController.events(5L, 100);
+
+    //then
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(page, response.getBody());
+  }
+}
@@ -160,16 +160,16 @@ class ProjectControllerTest {
     );
     
     //when
-    when(projectService.getAvailableProjects(employeeId))
+    when(projectService.getAvailableProjects(employeeId, 10))
         .thenReturn(expectedList);
     
     ResponseEntity<List<ProjectAvailableForEmpDto>> response = projectController
-        .availableProjectsByEmpId(employeeId);
+        .availableProjectsByEmpId(employeeId, 10);
     
     //then
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(expectedList, response.getBody());
-    verify(projectService).getAvailableProjects(employeeId);
+    verify(projectService).getAvailableProjects(employeeId, 10);
   }
   
   @Test
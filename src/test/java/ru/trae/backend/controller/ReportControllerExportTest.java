@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ru.trae.backend.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.trae.backend.exceptionhandler.RestResponseEntityExceptionHandler;
+import ru.trae.backend.service.ReportDashboardStatsBroadcaster;
+import ru.trae.backend.service.ReportJobService;
+import ru.trae.backend.service.ReportService;
+
+class ReportControllerExportTest {
+  private static final String URL = "/api/report/working-shifts-export"
+      + "?startOfPeriod=2023-06-01&endOfPeriod=2023-06-30";
+  private ReportService reportService;
+  private ThreadPoolTaskExecutor reportExportExecutor;
+
+  @BeforeEach
+  void setUp() {
+    reportService = mock(ReportService.class);
+    reportExportExecutor = new ThreadPoolTaskExecutor();
+    reportExportExecutor.setCorePoolSize(1);
+    reportExportExecutor.setMaxPoolSize(1);
+    reportExportExecutor.setQueueCapacity(0);
+    reportExportExecutor.initialize();
+  }
+
+  @AfterEach
+  void tearDown() {
+    reportExportExecutor.shutdown();
+  }
+
+  @Test
+  void workingShiftsExport_ShouldWriteCsvOnExportExecutor() throws Exception {
+    //given
+    when(reportService.exportWorkingShiftsForPeriod(
+        LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 30), null))
+        .thenReturn(out -> out.write("id;date\n".getBytes(StandardCharsets.UTF_8)));
+    MockMvc mockMvc = mockMvc(reportExportExecutor);
+
+    //when
+    MvcResult result = mockMvc.perform(get(URL))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    //then
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Disposition",
+            "attachment; filename=\"timesheet_2023-06-01_2023-06-30.csv\""))
+        .andExpect(content().contentType("text/csv;charset=UTF-8"))
+        .andExpect(content().string("id;date\n"));
+  }
+
+  @Test
+  void workingShiftsExport_WhenExecutorRejects_ShouldReturnServiceUnavailable()
+      throws Exception {
+    //given
+    when(reportService.exportWorkingShiftsForPeriod(any(), any(), any()))
+        .thenReturn(out -> out.write(1));
+    AsyncTaskExecutor rejecting = mock(AsyncTaskExecutor.class);
+    when(rejecting.submit(any(Runnable.class))).thenThrow(new TaskRejectedException("full"));
+    MockMvc mockMvc = mockMvc(rejecting);
+
+    //when, then
+    mockMvc.perform(get(URL))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(content().contentTypeCompatibleWith("application/json"));
+  }
+
+  private MockMvc mockMvc(AsyncTaskExecutor executor) {
+    ReportController controller = new ReportController(reportService,
+        mock(ReportDashboardStatsBroadcaster.class), mock(ReportJobService.class), executor);
+    ReflectionTestUtils.setField(controller, "exportTimeout", Duration.ofMinutes(1));
+    return MockMvcBuilders.standaloneSetup(controller)
+        .setControllerAdvice(new RestResponseEntityExceptionHandler())
+        .build();
+  }
+}
@@ -11,12 +11,15 @@
 package ru.trae.backend.dto.mapper;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -30,9 +33,10 @@ import ru.trae.backend.dto.manager.ManagerShortDto;
 import ru.trae.backend.dto.project.ProjectShortDto;
 import ru.trae.backend.dto.type.TypeWorkDto;
 import ru.trae.backend.entity.TypeWork;
-import ru.trae.backend.entity.task.Project;
 import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.projection.OperationShortRowDto;
+import ru.trae.backend.projection.ProjectShortRowDto;
 
 class PageToPageDtoMapperTest {
   @Mock
@@ -142,22 +146,24 @@ class PageToPageDtoMapperTest {
   @Test
   void projectPageToPageDto_ShouldMapProjectPageToProjectShortDtoPage() {
     //given
-    Project project1 = new Project();
-    project1.setId(1L);
-    Project project2 = new Project();
-    project2.setId(2L);
-    List<Project> projects = List.of(project1, project2);
-    Page<Project> projectPage = new PageImpl<>(projects);
+    ProjectShortRowDto project1 = mock(ProjectShortRowDto.class);
+    when(project1.getId()).thenReturn(1L);
+    ProjectShortRowDto project2 = mock(ProjectShortRowDto.class);
+    when(project2.getId()).thenReturn(2L);
+    List<ProjectShortRowDto> projects = List.of(project1, project2);
+    Page<ProjectShortRowDto> projectPage = new PageImpl<>(projects);
+    List<OperationShortRowDto> ops1 = List.of(mock(OperationShortRowDto.class));
+    Map<Long, List<OperationShortRowDto>> ops = Map.of(1L, ops1);
 
     //when
     ProjectShortDto projectDto1 = new ProjectShortDto(1L, true,
         false, false, 1, null, null, null);
     ProjectShortDto projectDto2 = new ProjectShortDto(2L, true,
         false, false, 2, null, null, null);
-    when(projectShortDtoMapper.apply(project1)).thenReturn(projectDto1);
-    when(projectShortDtoMapper.apply(project2)).thenReturn(projectDto2);
+    when(projectShortDtoMapper.apply(project1, ops1)).thenReturn(projectDto1);
+    when(projectShortDtoMapper.apply(project2, List.of())).thenReturn(projectDto2);
 
-    PageDto<ProjectShortDto> result = pageToPageDtoMapper.projectPageToPageDto(projectPage);
+    PageDto<ProjectShortDto> result = pageToPageDtoMapper.projectPageToPageDto(projectPage, ops);
 
     //then
     assertEquals(projects.size(), result.content().size());
@@ -167,6 +173,7 @@ class PageToPageDtoMapperTest {
     assertEquals(projectPage.getTotalPages(), result.totalPages());
     assertEquals(projectPage.getNumber(), result.currentNumberPage());
 
-    verify(projectShortDtoMapper, times(2)).apply(any(Project.class));
+    verify(projectShortDtoMapper, times(2))
+        .apply(any(ProjectShortRowDto.class), anyList());
   }
 }
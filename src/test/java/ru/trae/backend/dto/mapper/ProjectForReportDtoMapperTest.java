@@ -11,143 +11,131 @@
 package ru.trae.backend.dto.mapper;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static ru.trae.backend.service.OperationService.SHIPMENT_PERIOD;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 import ru.trae.backend.dto.operation.OperationForReportDto;
 import ru.trae.backend.dto.project.ProjectForReportDto;
-import ru.trae.backend.entity.task.Operation;
-import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.dto.report.ProjectOperationRowDto;
 
-@ExtendWith(MockitoExtension.class)
 class ProjectForReportDtoMapperTest {
-  @Mock
-  private OperationForReportDtoMapper operationForReportDtoMapper;
-  @InjectMocks
-  private ProjectForReportDtoMapper mapper;
+  private static final LocalDateTime START_DATE = LocalDateTime.of(2023, 1, 1, 0, 0);
+  private static final LocalDateTime START_FIRST_OPERATION_DATE =
+      LocalDateTime.of(2023, 1, 2, 0, 0);
+  private static final int OPERATION_PERIOD = 8;
+  private final ProjectForReportDtoMapper mapper = new ProjectForReportDtoMapper();
   
   @Test
-  void apply_WhenProjectProvided_ShouldMapToProjectForReportDto() {
+  void apply_WhenProjectRowsProvided_ShouldMapToProjectForReportDto() {
     //given
-    LocalDateTime startDate = LocalDateTime.of(2023, 1, 1, 0, 0);
-    LocalDateTime startFirstOperationDate = LocalDateTime.of(2023, 1, 2, 0, 0);
-    LocalDateTime plannedEndDate = LocalDateTime.of(2023, 1, 5, 0, 0);
-    LocalDateTime endDateInContract = LocalDateTime.of(2023, 1, 6, 0, 0);
-    LocalDateTime realEndDate = LocalDateTime.of(2023, 1, 7, 0, 0);
-    
-    Operation operation1 = new Operation();
-    Operation operation2 = new Operation();
-    List<Operation> operations = Arrays.asList(operation1, operation2);
-    
-    Project project = new Project();
-    project.setId(1L);
-    project.setNumber(100);
-    project.setName("test_project_1");
-    project.setStartDate(startDate);
-    project.setStartFirstOperationDate(startFirstOperationDate);
-    project.setPlannedEndDate(plannedEndDate);
-    project.setEndDateInContract(endDateInContract);
-    project.setRealEndDate(realEndDate);
-    project.setEnded(true);
-    project.setOperationPeriod(8);
-    project.setOperations(operations);
-    project.setCustomer("customer");
-    project.setComment("comment");
-    
     OperationForReportDto operationDto1 = new OperationForReportDto(1L, 0,
-        "op_name_1", LocalDateTime.now(), LocalDateTime.now().plusHours(2),
-        LocalDateTime.now().plusDays(5), null, false, true, false);
+        "op_name_1", START_DATE, START_DATE.plusHours(2),
+        START_DATE.plusDays(5), null, false, true, false);
     OperationForReportDto operationDto2 = new OperationForReportDto(2L, 10,
-        "op_name_2", null, null, null,
+        "op_name_2", START_DATE.plusDays(1), null, START_DATE.plusDays(6),
         null, false, false, false);
     
     //when
-    when(operationForReportDtoMapper.apply(operation1)).thenReturn(operationDto1);
-    when(operationForReportDtoMapper.apply(operation2)).thenReturn(operationDto2);
+    ProjectForReportDto result = mapper.apply(
+        List.of(row("comment", operationDto1), row("comment", operationDto2)));
     
-    ProjectForReportDto result = mapper.apply(project);
+    //then
+    assertEquals(1L, result.id());
+    assertEquals(100, result.number());
+    assertEquals("test_project_1", result.name());
+    assertEquals(START_DATE, result.startDate());
+    assertEquals(START_FIRST_OPERATION_DATE, result.startFirstOperationDate());
+    assertEquals(START_DATE.plusDays(4), result.plannedEndDate());
+    assertEquals(START_DATE.plusDays(5), result.endDateInContract());
+    assertEquals(START_DATE.plusDays(6), result.realEndDate());
+    assertEquals(true, result.isEnded());
+    assertEquals(OPERATION_PERIOD, result.operationPeriod());
+    assertEquals(List.of(operationDto1, operationDto2), result.operations());
+    assertEquals("customer", result.customer());
+    assertEquals("comment", result.comment());
+  }
+  
+  @Test
+  void apply_WhenProjectWithoutOperationsAndComment_ShouldMapToProjectForReportDto() {
+    //when
+    ProjectForReportDto result = mapper.apply(List.of(row(null, null)));
     
     //then
-    assertEquals(project.getId(), result.id());
-    assertEquals(project.getNumber(), result.number());
-    assertEquals(project.getName(), result.name());
-    assertEquals(project.getStartDate(), result.startDate());
-    assertEquals(project.getStartFirstOperationDate(), result.startFirstOperationDate());
-    assertEquals(project.getPlannedEndDate(), result.plannedEndDate());
-    assertEquals(project.getEndDateInContract(), result.endDateInContract());
-    assertEquals(project.getRealEndDate(), result.realEndDate());
-    assertEquals(project.isEnded(), result.isEnded());
-    assertEquals(project.getOperationPeriod(), result.operationPeriod());
-    assertEquals(2, result.operations().size());
-    assertEquals(project.getCustomer(), result.customer());
-    assertEquals(project.getComment(), result.comment());
+    assertEquals(1L, result.id());
+    assertEquals(0, result.operations().size());
+    assertNull(result.comment());
   }
   
   @Test
-  void apply_WhenProjectProvidedWithoutComment_ShouldMapToProjectForReportDto() {
+  void apply_WhenOperationsNotStarted_ShouldProjectScheduleWithoutChangingRows() {
     //given
-    LocalDateTime startDate = LocalDateTime.of(2023, 1, 1, 0, 0);
-    LocalDateTime startFirstOperationDate = LocalDateTime.of(2023, 1, 2, 0, 0);
-    LocalDateTime plannedEndDate = LocalDateTime.of(2023, 1, 5, 0, 0);
-    LocalDateTime endDateInContract = LocalDateTime.of(2023, 1, 6, 0, 0);
-    LocalDateTime realEndDate = LocalDateTime.of(2023, 1, 7, 0, 0);
-    
-    Operation operation1 = new Operation();
-    operation1.setStartDate(startDate);
-    operation1.setAcceptanceDate(startDate.plusHours(2));
-    operation1.setPlannedEndDate(startDate.plusDays(5));
-    Operation operation2 = new Operation();
-    List<Operation> operations = Arrays.asList(operation1, operation2);
+    OperationForReportDto started = new OperationForReportDto(1L, 0,
+        "op_name_1", START_DATE, START_DATE.plusHours(2),
+        START_DATE.plusDays(5), null, false, true, false);
+    OperationForReportDto notStarted = new OperationForReportDto(2L, 10,
+        "op_name_2", null, null, null, null, false, false, false);
+    OperationForReportDto shipment = new OperationForReportDto(3L, 20,
+        "op_name_3", null, null, null, null, false, false, false);
+    List<ProjectOperationRowDto> rows =
+        List.of(row(null, started), row(null, notStarted), row(null, shipment));
     
-    Project project = new Project();
-    project.setId(1L);
-    project.setNumber(100);
-    project.setName("test_project_1");
-    project.setStartDate(startDate);
-    project.setStartFirstOperationDate(startFirstOperationDate);
-    project.setPlannedEndDate(plannedEndDate);
-    project.setEndDateInContract(endDateInContract);
-    project.setRealEndDate(realEndDate);
-    project.setEnded(true);
-    project.setOperationPeriod(8);
-    project.setOperations(operations);
-    project.setCustomer("customer");
-    project.setComment(null);
+    //when
+    List<OperationForReportDto> result = mapper.apply(rows).operations();
     
-    OperationForReportDto operationDto1 = new OperationForReportDto(1L, 0,
-        "op_name_1", startDate, startDate.plusHours(2),
-        startDate.plusDays(5), null, false, true, false);
-    OperationForReportDto operationDto2 = new OperationForReportDto(2L, 10,
-        "op_name_2", null, null, null,
-        null, false, false, false);
+    //then
+    assertSame(started, result.get(0));
+    assertEquals(START_DATE.plusDays(5), result.get(1).startDate());
+    assertEquals(START_DATE.plusDays(5).plusHours(OPERATION_PERIOD),
+        result.get(1).plannedEndDate());
+    assertEquals(result.get(1).plannedEndDate(), result.get(2).startDate());
+    assertEquals(result.get(2).startDate().plusHours(SHIPMENT_PERIOD),
+        result.get(2).plannedEndDate());
+    assertEquals("op_name_3", result.get(2).name());
+    assertNull(rows.get(1).operation().startDate());
+    assertNull(rows.get(2).operation().plannedEndDate());
+  }
+  
+  @Test
+  void projectSchedule_WhenFirstOperationNotStarted_ShouldStartAtStartFirstOperationDate() {
+    //given
+    OperationForReportDto first = new OperationForReportDto(1L, 0,
+        "op_name_1", null, null, null, null, false, false, false);
+    OperationForReportDto second = new OperationForReportDto(2L, 10,
+        "op_name_2", null, null, null, null, false, false, false);
     
     //when
-    when(operationForReportDtoMapper.apply(operation1)).thenReturn(operationDto1);
-    when(operationForReportDtoMapper.apply(operation2)).thenReturn(operationDto2);
+    List<OperationForReportDto> result = ProjectForReportDtoMapper.projectSchedule(
+        List.of(first, second), START_FIRST_OPERATION_DATE, OPERATION_PERIOD);
+    
+    //then
+    assertEquals(START_FIRST_OPERATION_DATE, result.get(0).startDate());
+    assertEquals(START_FIRST_OPERATION_DATE.plusHours(OPERATION_PERIOD),
+        result.get(0).plannedEndDate());
+    assertEquals(result.get(0).plannedEndDate(), result.get(1).startDate());
+  }
+  
+  @Test
+  void projectSchedule_WhenStartFirstOperationDateUnknown_ShouldLeaveDatesEmpty() {
+    //given
+    OperationForReportDto first = new OperationForReportDto(1L, 0,
+        "op_name_1", null, null, null, null, false, false, false);
     
-    ProjectForReportDto result = mapper.apply(project);
+    //when
+    List<OperationForReportDto> result =
+        ProjectForReportDtoMapper.projectSchedule(List.of(first), null, OPERATION_PERIOD);
     
     //then
-    assertEquals(project.getId(), result.id());
-    assertEquals(project.getNumber(), result.number());
-    assertEquals(project.getName(), result.name());
-    assertEquals(project.getStartDate(), result.startDate());
-    assertEquals(project.getStartFirstOperationDate(), result.startFirstOperationDate());
-    assertEquals(project.getPlannedEndDate(), result.plannedEndDate());
-    assertEquals(project.getEndDateInContract(), result.endDateInContract());
-    assertEquals(project.getRealEndDate(), result.realEndDate());
-    assertEquals(project.isEnded(), result.isEnded());
-    assertEquals(project.getOperationPeriod(), result.operationPeriod());
-    assertEquals(2, result.operations().size());
-    assertEquals(project.getCustomer(), result.customer());
-    assertEquals(project.getComment(), result.comment());
+    assertNull(result.get(0).startDate());
+    assertNull(result.get(0).plannedEndDate());
+  }
+  
+  private static ProjectOperationRowDto row(String comment, OperationForReportDto operation) {
+    return new ProjectOperationRowDto(1L, 100, "test_project_1", START_DATE,
+        START_FIRST_OPERATION_DATE, START_DATE.plusDays(4), START_DATE.plusDays(5),
+        START_DATE.plusDays(6), true, OPERATION_PERIOD, "customer", comment, operation);
   }
 }
-
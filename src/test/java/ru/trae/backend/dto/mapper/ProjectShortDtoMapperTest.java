@@ -11,8 +11,10 @@
 package ru.trae.backend.dto.mapper;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
@@ -20,60 +22,79 @@ import java.util.List;
 import org.junit.jupiter.api.Test;
 import ru.trae.backend.dto.operation.OperationInfoForProjectTemplateDto;
 import ru.trae.backend.dto.project.ProjectShortDto;
-import ru.trae.backend.entity.task.Operation;
-import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.projection.OperationShortRowDto;
+import ru.trae.backend.projection.ProjectShortRowDto;
 
 class ProjectShortDtoMapperTest {
+  private final ProjectShortDtoMapper projectShortDtoMapper = new ProjectShortDtoMapper();
 
   @Test
-  void apply_WhenProjectHasOperations_ShouldMapToProjectShortDtoWithOperationInfo() {
+  void apply_WhenProjectHasCurrentOperation_ShouldMapToProjectShortDtoWithCurrentOperationInfo() {
     //given
-    Project project = new Project();
-    project.setEndDateInContract(LocalDateTime.now().plusDays(30));
-    project.setRealEndDate(LocalDateTime.now().plusDays(28));
-    project.setId(1L);
-    project.setEnded(true);
-    project.setNumber(100);
-    project.setName("test_project");
-    project.setCustomer("test_customer");
-
-    Operation o1 = new Operation();
-    o1.setPlannedEndDate(LocalDateTime.now().plusDays(5));
-    o1.setId(1L);
-    o1.setPriority(0);
-    o1.setName("operation_1");
-    o1.setInWork(true);
-    o1.setReadyToAcceptance(false);
-
-    Operation o2 = new Operation();
-    o1.setPlannedEndDate(LocalDateTime.now().plusDays(10));
-    o2.setId(2L);
-    o2.setPriority(1);
-    o2.setName("operation_2");
-    o2.setInWork(true);
-    o2.setReadyToAcceptance(true);
-
-    project.setOperations(List.of(o1, o2));
-
-    OperationInfoForProjectTemplateDtoMapper operationInfoForProjectTemplateDtoMapper
-        = mock(OperationInfoForProjectTemplateDtoMapper.class);
-    OperationInfoForProjectTemplateDto operationInfoDto
-        = new OperationInfoForProjectTemplateDto(o2.getName(), o2.isEnded(), o2.isInWork(), o2.isReadyToAcceptance());
-    when(operationInfoForProjectTemplateDtoMapper.apply(o2)).thenReturn(operationInfoDto);
-
-    ProjectShortDtoMapper projectShortDtoMapper = new ProjectShortDtoMapper(operationInfoForProjectTemplateDtoMapper);
+    ProjectShortRowDto project = mock(ProjectShortRowDto.class);
+    when(project.getId()).thenReturn(1L);
+    when(project.isEnded()).thenReturn(true);
+    when(project.getNumber()).thenReturn(100);
+    when(project.getName()).thenReturn("test_project");
+    when(project.getCustomer()).thenReturn("test_customer");
+    when(project.getEndDateInContract()).thenReturn(LocalDateTime.now().plusDays(30));
+    when(project.getRealEndDate()).thenReturn(LocalDateTime.now().plusDays(28));
+
+    OperationShortRowDto o1 = mock(OperationShortRowDto.class);
+    when(o1.getName()).thenReturn("operation_1");
+    when(o1.isInWork()).thenReturn(true);
+    when(o1.getPlannedEndDate()).thenReturn(LocalDateTime.now().plusDays(5));
+
+    OperationShortRowDto o2 = mock(OperationShortRowDto.class);
+
+    //when
+    ProjectShortDto projectShortDto = projectShortDtoMapper.apply(project, List.of(o1, o2));
+
+    //then
+    assertEquals(1L, projectShortDto.id());
+    assertTrue(projectShortDto.isEnded());
+    assertFalse(projectShortDto.isOverdueByContractDate());
+    assertFalse(projectShortDto.isOverdueByCurrentOperation());
+    assertEquals(100, projectShortDto.number());
+    assertEquals("test_project", projectShortDto.name());
+    assertEquals("test_customer", projectShortDto.customer());
+    assertEquals(new OperationInfoForProjectTemplateDto("operation_1", false, true, false),
+        projectShortDto.operation());
+  }
+
+  @Test
+  void apply_WhenProjectHasNoCurrentOperation_ShouldMapToProjectShortDtoWithLastOperationInfo() {
+    //given
+    ProjectShortRowDto project = mock(ProjectShortRowDto.class);
+    when(project.getId()).thenReturn(2L);
+    when(project.isEnded()).thenReturn(false);
+    when(project.getEndDateInContract()).thenReturn(LocalDateTime.now().minusDays(1));
+
+    OperationShortRowDto lastOp = mock(OperationShortRowDto.class);
+    when(lastOp.getName()).thenReturn("shipment");
+    when(lastOp.isEnded()).thenReturn(true);
+
+    //when
+    ProjectShortDto projectShortDto = projectShortDtoMapper.apply(project, List.of(lastOp));
+
+    //then
+    assertEquals(2L, projectShortDto.id());
+    assertTrue(projectShortDto.isOverdueByContractDate());
+    assertTrue(projectShortDto.isOverdueByCurrentOperation());
+    assertEquals(new OperationInfoForProjectTemplateDto("shipment", true, false, false),
+        projectShortDto.operation());
+  }
+
+  @Test
+  void apply_WhenProjectHasNoOperations_ShouldMapToProjectShortDtoWithoutOperationInfo() {
+    //given
+    ProjectShortRowDto project = mock(ProjectShortRowDto.class);
+    when(project.getEndDateInContract()).thenReturn(LocalDateTime.now().plusDays(1));
 
     //when
-    ProjectShortDto projectShortDto = projectShortDtoMapper.apply(project);
+    ProjectShortDto projectShortDto = projectShortDtoMapper.apply(project, List.of());
 
     //then
-    assertEquals(project.getId(), projectShortDto.id());
-    assertEquals(project.isEnded(), projectShortDto.isEnded());
-    assertEquals(project.getNumber(), projectShortDto.number());
-    assertEquals(project.getName(), projectShortDto.name());
-    assertEquals(project.getCustomer(), projectShortDto.customer());
-    assertEquals(operationInfoDto, projectShortDto.operation());
-
-    verify(operationInfoForProjectTemplateDtoMapper).apply(o2);
+    assertNull(projectShortDto.operation());
   }
 }
@@ -13,6 +13,7 @@ package ru.trae.backend.factory;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
@@ -89,6 +90,25 @@ import ru.trae.backend.service.TypeWorkService;
     assertEquals(false, o.isReadyToAcceptance());
     assertEquals(shipmentTypeWork, o.getTypeWork());
 
-    verify(typeWorkService, times(2)).getTypeWorkById(1);
+    verify(typeWorkService, times(1)).getTypeWorkById(1);
+  }
+
+  @Test
+  void createShipmentOp_WithLoadedTypeWork_ShouldNotLoadTypeWork() {
+    //given
+    Project p = new Project();
+    TypeWork shipmentTypeWork = new TypeWork();
+    shipmentTypeWork.setId(1L);
+    shipmentTypeWork.setName("shipment");
+
+    //when
+    Operation o = operationFactory.createShipmentOp(p, 30, shipmentTypeWork);
+
+    //then
+    assertEquals("shipment", o.getName());
+    assertEquals(24, o.getPeriod());
+    assertEquals(30, o.getPriority());
+    assertEquals(shipmentTypeWork, o.getTypeWork());
+    verifyNoInteractions(typeWorkService);
   }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockReset;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import ru.trae.backend.dto.mapper.EmployeeDtoMapper;
+import ru.trae.backend.dto.mapper.ManagerShortDtoMapper;
+import ru.trae.backend.dto.mapper.PageToPageDtoMapper;
+import ru.trae.backend.dto.mapper.ProjectDtoMapper;
+import ru.trae.backend.dto.mapper.ProjectForReportDtoMapper;
+import ru.trae.backend.dto.mapper.ProjectShortDtoMapper;
+import ru.trae.backend.dto.mapper.TypeWorkDtoMapper;
+import ru.trae.backend.dto.mapper.WorkingShiftDtoMapper;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.WorkingShift;
+import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.factory.OperationFactory;
+import ru.trae.backend.factory.ProjectFactory;
+import ru.trae.backend.service.EmployeeService;
+import ru.trae.backend.service.ManagerService;
+import ru.trae.backend.service.OperationEventWriter;
+import ru.trae.backend.service.OperationService;
+import ru.trae.backend.service.ProjectListStateService;
+import ru.trae.backend.service.ProjectService;
+import ru.trae.backend.service.ReportDashboardStatsCache;
+import ru.trae.backend.service.ReportResultCache;
+import ru.trae.backend.service.TimesheetExportService;
+import ru.trae.backend.service.TypeWorkService;
+import ru.trae.backend.service.WorkingShiftService;
+import ru.trae.backend.util.Role;
+
+/**
+ * Base of the tests of the JPA slice. The schema is created in H2 from the entities and all
+ * the repositories are available. The test imports only the beans it checks: every bean from
+ * {@link #MOCKED_UNLESS_IMPORTED} which the test does not import is replaced by a mock, so a
+ * new dependency of a service is added here once instead of every test. A mock which is
+ * stubbed by the test is still declared by the test with {@code @MockBean}.
+ *
+ * <p>The tests against PostgreSQL redeclare {@link DataJpaTest} with the Liquibase schema and
+ * use {@link #usePostgresSchema} and {@link #dropPostgresSchema}.
+ */
+@DataJpaTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"})
+@ContextConfiguration(classes = JpaSliceTest.JpaConfig.class)
+public abstract class JpaSliceTest {
+  private static final List<Class<?>> MOCKED_UNLESS_IMPORTED = List.of(
+      EmployeeService.class, ManagerService.class, OperationService.class,
+      ProjectService.class, ProjectListStateService.class, TypeWorkService.class,
+      WorkingShiftService.class, TimesheetExportService.class, OperationEventWriter.class,
+      ReportDashboardStatsCache.class, ReportResultCache.class, KeysetRepository.class,
+      ProjectReportRepository.class, ProjectFactory.class, OperationFactory.class,
+      EmployeeDtoMapper.class, ManagerShortDtoMapper.class, PageToPageDtoMapper.class,
+      ProjectDtoMapper.class, ProjectForReportDtoMapper.class, ProjectShortDtoMapper.class,
+      TypeWorkDtoMapper.class, WorkingShiftDtoMapper.class);
+  @Autowired
+  protected TestEntityManager entityManager;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Configuration
+  @EntityScan("ru.trae.backend.entity")
+  @EnableJpaRepositories(basePackageClasses = ProjectRepository.class)
+  static class JpaConfig {
+    //выполняется после моков теста, поэтому заменяет только бины, которых нет в контексте
+    @Bean
+    static BeanFactoryPostProcessor mockedUnlessImported() {
+      return beanFactory -> {
+        BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+        for (Class<?> type : MOCKED_UNLESS_IMPORTED) {
+          if (beanFactory.getBeanNamesForType(type, true, false).length == 0) {
+            String name = type.getName() + "#mock";
+            RootBeanDefinition definition = new RootBeanDefinition(type);
+            definition.setTargetType(type);
+            registry.registerBeanDefinition(name, definition);
+            beanFactory.registerSingleton(name,
+                Mockito.mock(type, MockReset.withSettings(MockReset.AFTER)));
+          }
+        }
+      };
+    }
+  }
+
+  protected Manager persistManager() {
+    Manager manager = new Manager();
+    manager.setUsername("manager");
+    manager.setFirstName("Иван");
+    manager.setLastName("Иванов");
+    manager.setPassword("password");
+    manager.setRole(Role.ROLE_ADMINISTRATOR);
+    manager.setDateOfRegister(LocalDate.now());
+    manager.setDateOfEmployment(LocalDate.now());
+    return entityManager.persist(manager);
+  }
+
+  protected TypeWork persistTypeWork(String name) {
+    TypeWork tw = new TypeWork();
+    tw.setName(name);
+    tw.setActive(true);
+    return entityManager.persist(tw);
+  }
+
+  protected Employee persistEmployee(int pinCode, String firstName, String lastName,
+                                     TypeWork... typeWorks) {
+    Employee e = new Employee();
+    e.setPinCode(pinCode);
+    e.setFirstName(firstName);
+    e.setLastName(lastName);
+    e.setActive(true);
+    e.setDateOfRegister(LocalDate.now());
+    e.setDateOfEmployment(LocalDate.now());
+    e.setTypeWorks(Set.of(typeWorks));
+    return entityManager.persist(e);
+  }
+
+  protected Project persistProject(Manager manager, int number, LocalDateTime start) {
+    Project p = new Project();
+    p.setNumber(number);
+    p.setName("project " + number);
+    p.setCustomer("customer " + number);
+    p.setStartDate(start);
+    p.setPlannedEndDate(start.plusDays(30));
+    p.setEndDateInContract(start.plusDays(30));
+    p.setManager(manager);
+    return entityManager.persist(p);
+  }
+
+  protected Operation persistOperation(Project p, TypeWork typeWork, int priority) {
+    Operation o = new Operation();
+    o.setName("operation " + priority);
+    o.setPriority(priority);
+    o.setProject(p);
+    o.setTypeWork(typeWork);
+    return entityManager.persist(o);
+  }
+
+  protected WorkingShift persistWorkingShift(LocalDateTime startShift, boolean isEnded) {
+    WorkingShift ws = new WorkingShift();
+    ws.setStartShift(startShift);
+    ws.setEnded(isEnded);
+    return entityManager.persist(ws);
+  }
+
+  protected Statistics statistics() {
+    return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  protected int persistenceContextSize() {
+    return entityManager.getEntityManager().unwrap(Session.class)
+        .getStatistics().getEntityCount();
+  }
+
+  /**
+   * Points the datasource to a new schema of the PostgreSQL database given by the
+   * TRAE_BENCH_PG_URL, TRAE_BENCH_PG_USER and TRAE_BENCH_PG_PASS variables.
+   */
+  protected static void usePostgresSchema(DynamicPropertyRegistry registry, String schema)
+      throws SQLException {
+    executeOnPostgres("drop schema if exists " + schema + " cascade",
+        "create schema " + schema);
+    registry.add("spring.datasource.url", () -> System.getenv("TRAE_BENCH_PG_URL"));
+    registry.add("spring.datasource.username", () -> System.getenv("TRAE_BENCH_PG_USER"));
+    registry.add("spring.datasource.password", () -> System.getenv("TRAE_BENCH_PG_PASS"));
+  }
+
+  protected static void dropPostgresSchema(String schema) throws SQLException {
+    executeOnPostgres("drop schema if exists " + schema + " cascade");
+  }
+
+  private static void executeOnPostgres(String... statements) throws SQLException {
+    try (Connection connection = DriverManager.getConnection(
+        System.getenv("TRAE_BENCH_PG_URL"), System.getenv("TRAE_BENCH_PG_USER"),
+        System.getenv("TRAE_BENCH_PG_PASS"));
+         Statement statement = connection.createStatement()) {
+      for (String sql : statements) {
+        statement.execute(sql);
+      }
+    }
+  }
+}
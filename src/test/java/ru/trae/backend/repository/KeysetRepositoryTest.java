@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.exceptionhandler.exception.PaginationException;
+import ru.trae.backend.specification.EmployeeSpecification;
+import ru.trae.backend.specification.TypeWorkSpecification;
+import ru.trae.backend.util.KeysetCursor;
+
+@TestPropertySource(properties =
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.trae.backend.repository.KeysetRepositoryTest$RecordingStatementInspector")
+@Import(KeysetRepository.class)
+class KeysetRepositoryTest extends JpaSliceTest {
+  private static final int TYPE_WORKS = 23;
+  @Autowired
+  private KeysetRepository keysetRepository;
+  @Autowired
+  private TypeWorkRepository typeWorkRepository;
+  @Autowired
+  private EmployeeRepository employeeRepository;
+  
+  @Configuration
+  @EntityScan("ru.trae.backend.entity")
+  @EnableJpaRepositories(basePackageClasses = KeysetRepository.class)
+  static class JpaConfig {
+  }
+  
+  @BeforeEach
+  void setUp() {
+    for (int i = 0; i < TYPE_WORKS; i++) {
+      //повторяющиеся префиксы имен проверяют порядок при равных первых символах
+      TypeWork tw = persistTypeWork("type " + (char) ('a' + i % 5) + i);
+      tw.setActive(i % 3 != 0);
+    }
+    
+    for (int i = 0; i < 7; i++) {
+      Employee e = persistEmployee(100 + i, "Name " + i % 3, i < 4 ? "Petrov" : "Ivanov");
+      e.setMiddleName(i % 2 == 0 ? null : "Middle " + i);
+    }
+    entityManager.flush();
+    entityManager.clear();
+  }
+  
+  @Test
+  void findSlice_ShouldWalkThroughAllEntitiesInSortOrder() {
+    for (Sort.Direction direction : Sort.Direction.values()) {
+      Sort sort = Sort.by(direction, "name", "id");
+      List<TypeWork> expected = typeWorkRepository.findAll(sort);
+      
+      assertEquals(expected, walk(TypeWork.class, null, sort, 5));
+    }
+  }
+  
+  @Test
+  void findSlice_WithFilter_ShouldMatchOffsetPagination() {
+    Sort sort = Sort.by(Sort.Direction.DESC, "name", "id");
+    List<TypeWork> expected = typeWorkRepository.findByIsActive(
+        true, PageRequest.of(0, TYPE_WORKS, sort)).getContent();
+    
+    assertEquals(expected, walk(TypeWork.class, TypeWorkSpecification.isActive(true), sort, 4));
+  }
+  
+  @Test
+  void findSlice_WithNullableKeysWithoutId_ShouldReturnEachEntityOnce() {
+    Sort sort = Sort.by(Sort.Direction.ASC, "lastName", "middleName");
+    
+    List<Employee> result = walk(Employee.class, EmployeeSpecification.isActive(true), sort, 2);
+    
+    assertEquals(7, result.size());
+    assertEquals(7, result.stream().distinct().count());
+    assertEquals("Ivanov", result.get(0).getLastName());
+    assertEquals("Petrov", result.get(6).getLastName());
+  }
+  
+  @Test
+  void findSlice_ShouldCompareRequiredKeysWithoutCoalesce() {
+    Sort sort = Sort.by(Sort.Direction.ASC, "lastName", "firstName");
+    List<Employee> expected = employeeRepository.findAll(Sort.by("lastName", "firstName", "id"));
+    RecordingStatementInspector.STATEMENTS.clear();
+    
+    List<Employee> result = walk(Employee.class, null, sort, 3);
+    
+    assertEquals(expected, result);
+    assertFalse(RecordingStatementInspector.STATEMENTS.isEmpty());
+    RecordingStatementInspector.STATEMENTS.forEach(sql ->
+        assertFalse(sql.toLowerCase().contains("coalesce"), sql));
+  }
+  
+  @Test
+  void findSlice_WithNullableKey_ShouldCoalesceOnlyThisKey() {
+    Sort sort = Sort.by(Sort.Direction.ASC, "lastName", "middleName");
+    RecordingStatementInspector.STATEMENTS.clear();
+    
+    keysetRepository.findSlice(Employee.class, null, sort, "", 3);
+    
+    String sql = RecordingStatementInspector.STATEMENTS.get(0).toLowerCase();
+    assertTrue(sql.contains("coalesce(employee0_.middle_name"), sql);
+    assertFalse(sql.contains("coalesce(employee0_.last_name"), sql);
+  }
+  
+  @Test
+  void findIdSlice_OnLastPage_ShouldReturnNullCursor() {
+    KeysetSlice<Long> slice = keysetRepository.findIdSlice(
+        TypeWork.class, null, Sort.by("name"), "", TYPE_WORKS);
+    
+    assertEquals(TYPE_WORKS, slice.content().size());
+    assertNull(slice.nextCursor());
+  }
+  
+  @Test
+  void findSlice_WithIncorrectCursorValue_ShouldThrowException() {
+    String cursor = KeysetCursor.encode(List.of("type a0", "not a number"));
+    Sort sort = Sort.by("name");
+    
+    assertThrows(PaginationException.class,
+        () -> keysetRepository.findSlice(TypeWork.class, null, sort, cursor, 5));
+  }
+  
+  @Test
+  void hasAllTypeWorks_ShouldMatchRepositoryQuery() {
+    List<TypeWork> typeWorks = typeWorkRepository.findAll();
+    List<Employee> employees = employeeRepository.findAll();
+    employees.get(0).getTypeWorks().addAll(typeWorks.subList(0, 2));
+    employees.get(1).getTypeWorks().add(typeWorks.get(0));
+    employees.get(2).getTypeWorks().addAll(typeWorks.subList(0, 3));
+    employeeRepository.saveAllAndFlush(employees);
+    List<Long> ids = List.of(typeWorks.get(0).getId(), typeWorks.get(1).getId());
+    
+    List<Long> expected = employeeRepository.findByTypeWorksId(ids, PageRequest.of(0, 10))
+        .map(Employee::getId).getContent();
+    List<Long> actual = keysetRepository.findIdSlice(Employee.class,
+        EmployeeSpecification.hasAllTypeWorks(ids), Sort.by("id"), "", 10).content();
+    
+    assertEquals(List.of(employees.get(0).getId(), employees.get(2).getId()), actual);
+    assertEquals(expected.stream().sorted().toList(), actual);
+  }
+  
+  /**
+   * Records the SQL sent by Hibernate, so that the compared key expressions are checked.
+   */
+  public static class RecordingStatementInspector implements StatementInspector {
+    static final List<String> STATEMENTS = new ArrayList<>();
+    
+    @Override
+    public String inspect(String sql) {
+      STATEMENTS.add(sql);
+      return sql;
+    }
+  }
+  
+  private <T> List<T> walk(Class<T> type, Specification<T> filter, Sort sort, int limit) {
+    List<T> result = new ArrayList<>();
+    String after = "";
+    do {
+      KeysetSlice<T> slice = keysetRepository.findSlice(type, filter, sort, after, limit);
+      result.addAll(slice.content());
+      after = slice.nextCursor();
+    } while (after != null);
+    return result;
+  }
+}
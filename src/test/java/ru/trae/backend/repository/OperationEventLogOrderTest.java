@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.trae.backend.entity.OperationEvent;
+import ru.trae.backend.util.OperationEventType;
+
+/**
+ * Checks the order of the operation event log written by several instances of the backend,
+ * which share one PostgreSQL database: a batch of an instance is not committed while
+ * the batch of another instance is being written, so the consumer reading the log by the id
+ * cursor does not skip the events committed later with lower ids. The instances are simulated
+ * by the threads with their own transactions, for example:
+ * {@code TRAE_BENCH_PG_URL=jdbc:postgresql://localhost:5444/devTraeDB TRAE_BENCH_PG_USER=trae_dev
+ * TRAE_BENCH_PG_PASS=dev mvn test -Dtest=OperationEventLogOrderTest}.
+ * The schema is created in a separate schema, which is dropped after the run.
+ */
+@DataJpaTest(properties = {
+    "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml",
+    "spring.liquibase.default-schema=" + OperationEventLogOrderTest.SCHEMA,
+    "spring.datasource.hikari.schema=" + OperationEventLogOrderTest.SCHEMA})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "TRAE_BENCH_PG_URL", matches = ".+")
+class OperationEventLogOrderTest extends JpaSliceTest {
+  static final String SCHEMA = "trae_event_log";
+  @Autowired
+  private OperationEventRepository operationEventRepository;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @DynamicPropertySource
+  static void datasourceProperties(DynamicPropertyRegistry registry) throws SQLException {
+    usePostgresSchema(registry, SCHEMA);
+  }
+
+  @AfterAll
+  static void dropSchema() throws SQLException {
+    dropPostgresSchema(SCHEMA);
+  }
+
+  @Test
+  void appendAll_ShouldCommitBatchesOfInstancesInOrderOfIds() throws Exception {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    CountDownLatch firstAppended = new CountDownLatch(1);
+    CountDownLatch commitFirst = new CountDownLatch(1);
+    ExecutorService instances = Executors.newFixedThreadPool(2);
+    try {
+      //первый экземпляр записал пакет, но еще не зафиксировал транзакцию
+      Future<?> first = instances.submit(() -> transaction.executeWithoutResult(status -> {
+        operationEventRepository.appendAll(List.of(event(1L)));
+        firstAppended.countDown();
+        await(commitFirst);
+      }));
+      assertTrue(firstAppended.await(10, TimeUnit.SECONDS));
+      Future<?> second =
+          instances.submit(() -> operationEventRepository.appendAll(List.of(event(2L))));
+
+      //второй экземпляр ждет блокировки журнала, потребитель не видит ни одного события
+      assertThrows(TimeoutException.class, () -> second.get(500, TimeUnit.MILLISECONDS));
+      assertEquals(List.of(), operationEventRepository.findAfter(0, PageRequest.of(0, 10)));
+
+      commitFirst.countDown();
+      first.get(10, TimeUnit.SECONDS);
+      second.get(10, TimeUnit.SECONDS);
+    } finally {
+      commitFirst.countDown();
+      instances.shutdownNow();
+    }
+
+    List<OperationEvent> events = operationEventRepository.findAfter(0, PageRequest.of(0, 10));
+    assertEquals(List.of(1L, 2L), events.stream().map(OperationEvent::getOperationId).toList());
+    assertTrue(events.get(0).getId() < events.get(1).getId());
+  }
+
+  private static OperationEvent event(long operationId) {
+    OperationEvent event = new OperationEvent();
+    event.setType(OperationEventType.CREATED);
+    event.setOperationId(operationId);
+    event.setProjectId(1L);
+    event.setCreatedAt(LocalDateTime.now());
+    return event;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
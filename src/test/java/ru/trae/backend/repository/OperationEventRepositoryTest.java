@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import ru.trae.backend.entity.OperationEvent;
+import ru.trae.backend.util.OperationEventType;
+
+/**
+ * Checks the reading of the operation event log by the cursor: the events are returned in
+ * the order of their ids, starting after the cursor.
+ */
+class OperationEventRepositoryTest extends JpaSliceTest {
+  @Autowired
+  private OperationEventRepository operationEventRepository;
+
+  @Test
+  void findAfter_ShouldReturnEventsFollowingCursorInOrderOfIds() {
+    List<OperationEvent> events = new ArrayList<>();
+    for (long i = 1; i <= 5; i++) {
+      OperationEvent e = new OperationEvent();
+      e.setType(OperationEventType.CREATED);
+      e.setOperationId(i);
+      e.setProjectId(1L);
+      e.setCreatedAt(LocalDateTime.now());
+      events.add(e);
+    }
+    List<Long> ids = operationEventRepository.saveAll(events).stream()
+        .map(OperationEvent::getId)
+        .toList();
+    for (int i = 1; i < ids.size(); i++) {
+      assertTrue(ids.get(i) > ids.get(i - 1), ids::toString);
+    }
+
+    List<OperationEvent> page = operationEventRepository.findAfter(
+        ids.get(1), PageRequest.of(0, 2));
+
+    assertEquals(List.of(ids.get(2), ids.get(3)),
+        page.stream().map(OperationEvent::getId).toList());
+    assertEquals(List.of(), operationEventRepository.findAfter(
+        ids.get(4), PageRequest.of(0, 2)));
+  }
+
+  @Test
+  void appendAll_ShouldAllocateIdsInOrderOfEvents() {
+    List<OperationEvent> events = new ArrayList<>();
+    for (long i = 1; i <= 3; i++) {
+      OperationEvent e = new OperationEvent();
+      e.setType(OperationEventType.FINISHED);
+      e.setOperationId(i);
+      e.setProjectId(1L);
+      e.setCreatedAt(LocalDateTime.now());
+      events.add(e);
+    }
+
+    operationEventRepository.appendAll(events);
+
+    List<OperationEvent> page = operationEventRepository.findAfter(0, PageRequest.of(0, 10));
+    assertEquals(List.of(1L, 2L, 3L),
+        page.stream().map(OperationEvent::getOperationId).toList());
+    for (int i = 1; i < page.size(); i++) {
+      assertEquals(page.get(i - 1).getId() + 1, page.get(i).getId());
+    }
+  }
+}
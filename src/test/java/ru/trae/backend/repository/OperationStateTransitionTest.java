@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.projection.OperationBulkRowDto;
+import ru.trae.backend.util.OperationState;
+
+/**
+ * Checks the conditional updates of the operation state: a transition is applied only from
+ * the expected state, and the flags of the operation follow the state. Also checks the selection
+ * of the next operation and the uniqueness of the priority in the project.
+ */
+class OperationStateTransitionTest extends JpaSliceTest {
+  private static final LocalDateTime NOW = LocalDateTime.of(2023, 6, 1, 10, 0);
+  @Autowired
+  private OperationRepository operationRepository;
+  private TypeWork shipment;
+  private TypeWork typeWork;
+  private Project project;
+  private Employee employee;
+  private Employee otherEmployee;
+  private int nextPriority;
+
+  @BeforeEach
+  void setUp() {
+    shipment = persistTypeWork("shipment");
+    typeWork = persistTypeWork("type work");
+
+    project = persistProject(persistManager(), 1, NOW);
+
+    employee = persistEmployee(100, "Петр", "Петров", typeWork);
+    otherEmployee = persistEmployee(101, "Петр", "Петров", shipment);
+    entityManager.flush();
+  }
+
+  @Test
+  void receive_ShouldBeAppliedOnlyOnceAndOnlyForCompatibleEmployee() {
+    long id = persistOperation(OperationState.READY_TO_ACCEPTANCE, typeWork);
+
+    assertEquals(0, operationRepository.updateStateToInWorkIfReadyToAcceptance(
+        id, otherEmployee.getId(), NOW));
+    assertEquals(1, operationRepository.updateStateToInWorkIfReadyToAcceptance(
+        id, employee.getId(), NOW));
+    assertEquals(0, operationRepository.updateStateToInWorkIfReadyToAcceptance(
+        id, employee.getId(), NOW.plusMinutes(1)));
+
+    Operation o = reload(id);
+    assertEquals(OperationState.IN_WORK, o.getState());
+    assertTrue(o.isInWork());
+    assertFalse(o.isReadyToAcceptance());
+    assertEquals(employee.getId(), o.getEmployee().getId());
+    assertEquals(NOW, o.getAcceptanceDate());
+  }
+
+  @Test
+  void finish_ShouldBeAppliedOnlyToOperationInWorkOfTheEmployee() {
+    long ready = persistOperation(OperationState.READY_TO_ACCEPTANCE, typeWork);
+    long inWork = persistOperation(OperationState.IN_WORK, typeWork);
+
+    assertEquals(0, operationRepository.updateStateToEndedIfInWork(
+        ready, employee.getId(), NOW));
+    assertEquals(0, operationRepository.updateStateToEndedIfInWork(
+        inWork, otherEmployee.getId(), NOW));
+    assertEquals(1, operationRepository.updateStateToEndedIfInWork(
+        inWork, employee.getId(), NOW));
+    assertEquals(0, operationRepository.updateStateToEndedIfInWork(
+        inWork, employee.getId(), NOW));
+
+    Operation o = reload(inWork);
+    assertEquals(OperationState.ENDED, o.getState());
+    assertTrue(o.isEnded());
+    assertFalse(o.isInWork());
+    assertEquals(NOW, o.getRealEndDate());
+    assertEquals(OperationState.READY_TO_ACCEPTANCE, reload(ready).getState());
+  }
+
+  @Test
+  void close_ShouldBeAppliedToReadyOrInWorkOperation() {
+    long waiting = persistOperation(OperationState.WAITING, typeWork);
+    long ready = persistOperation(OperationState.READY_TO_ACCEPTANCE, typeWork);
+    long inWork = persistOperation(OperationState.IN_WORK, typeWork);
+
+    assertEquals(0, operationRepository.updateStateToEndedIfReadyToAcceptanceOrInWork(
+        waiting, NOW));
+    assertEquals(1, operationRepository.updateStateToEndedIfReadyToAcceptanceOrInWork(
+        ready, NOW));
+    assertEquals(1, operationRepository.updateStateToEndedIfReadyToAcceptanceOrInWork(
+        inWork, NOW));
+
+    assertEquals(OperationState.WAITING, reload(waiting).getState());
+    assertFalse(reload(ready).isReadyToAcceptance());
+    assertTrue(reload(inWork).isEnded());
+  }
+
+  @Test
+  void start_ShouldBeAppliedOnlyToWaitingOperation() {
+    long waiting = persistOperation(OperationState.WAITING, typeWork);
+
+    assertEquals(1, operationRepository.updateStateToReadyToAcceptanceIfWaiting(
+        waiting, NOW, 24, NOW.plusHours(24)));
+    assertEquals(0, operationRepository.updateStateToReadyToAcceptanceIfWaiting(
+        waiting, NOW.plusHours(1), 48, NOW.plusHours(49)));
+
+    Operation o = reload(waiting);
+    assertEquals(OperationState.READY_TO_ACCEPTANCE, o.getState());
+    assertTrue(o.isReadyToAcceptance());
+    assertEquals(24, o.getPeriod());
+    assertEquals(NOW.plusHours(24), o.getPlannedEndDate());
+  }
+
+  @Test
+  void delete_ShouldBeAppliedOnlyToWaitingOperationExceptShipment() {
+    long waiting = persistOperation(OperationState.WAITING, typeWork);
+    long ready = persistOperation(OperationState.READY_TO_ACCEPTANCE, typeWork);
+    long waitingShipment = persistOperation(OperationState.WAITING, shipment);
+
+    assertEquals(0, operationRepository.deleteByIdIfWaitingAndNotTypeWork(
+        ready, shipment.getId()));
+    assertEquals(0, operationRepository.deleteByIdIfWaitingAndNotTypeWork(
+        waitingShipment, shipment.getId()));
+    assertEquals(1, operationRepository.deleteByIdIfWaitingAndNotTypeWork(
+        waiting, shipment.getId()));
+
+    entityManager.clear();
+    assertFalse(operationRepository.existsById(waiting));
+    assertNotNull(reload(ready));
+    assertNotNull(reload(waitingShipment));
+  }
+
+  @Test
+  void nextOperation_ShouldBeSelectedByPriorityAndRemainingCountedByState() {
+    long first = persistOperation(OperationState.ENDED, typeWork);
+    long second = persistOperation(OperationState.WAITING, typeWork);
+    persistOperation(OperationState.WAITING, shipment);
+
+    assertEquals(List.of(second), operationRepository.findNextIdsByProjectIdAndPriority(
+        project.getId(), reload(first).getPriority(), PageRequest.of(0, 1)));
+    assertEquals(List.of(), operationRepository.findNextIdsByProjectIdAndPriority(
+        project.getId(), nextPriority, PageRequest.of(0, 1)));
+    assertEquals(2, operationRepository.countByProjectIdAndStateNot(
+        project.getId(), OperationState.ENDED));
+  }
+
+  @Test
+  void bulkAction_ShouldSelectRowsWithProjectAndUpdateOnlyExpectedStates() {
+    long waiting = persistOperation(OperationState.WAITING, typeWork);
+    long ready = persistOperation(OperationState.READY_TO_ACCEPTANCE, typeWork);
+    long inWork = persistOperation(OperationState.IN_WORK, typeWork);
+    long waitingShipment = persistOperation(OperationState.WAITING, shipment);
+
+    List<OperationBulkRowDto> rows = operationRepository.findForBulkActionByIds(
+        List.of(waiting, ready, waitingShipment, -1L));
+    assertEquals(Set.of(waiting, ready, waitingShipment),
+        rows.stream().map(OperationBulkRowDto::getId).collect(Collectors.toSet()));
+    OperationBulkRowDto shipmentRow = rows.stream()
+        .filter(r -> r.getId() == waitingShipment)
+        .findFirst()
+        .orElseThrow();
+    assertEquals(project.getId(), shipmentRow.getProjectId());
+    assertEquals(shipment.getId(), shipmentRow.getTypeWorkId());
+    assertEquals(OperationState.WAITING, shipmentRow.getState());
+
+    assertEquals(2, operationRepository.updateStateToEndedByIdsIfReadyToAcceptanceOrInWork(
+        List.of(waiting, ready, inWork), NOW));
+    assertEquals(1, operationRepository.deleteByIdsIfWaitingAndNotTypeWork(
+        List.of(waiting, ready, waitingShipment), shipment.getId()));
+
+    entityManager.clear();
+    assertFalse(operationRepository.existsById(waiting));
+    assertEquals(OperationState.ENDED, reload(ready).getState());
+    assertTrue(reload(inWork).isEnded());
+    assertEquals(OperationState.WAITING, reload(waitingShipment).getState());
+  }
+
+  @Test
+  void saveAndFlush_WhenPriorityExistsInProject_ShouldViolatePriorityConstraint() {
+    persistOperation(OperationState.WAITING, typeWork);
+    Operation duplicate = new Operation();
+    duplicate.setName("duplicate");
+    duplicate.setPriority(nextPriority - 10);
+    duplicate.setProject(project);
+    duplicate.setTypeWork(typeWork);
+
+    DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+        () -> operationRepository.saveAndFlush(duplicate));
+    ConstraintViolationException cause =
+        assertInstanceOf(ConstraintViolationException.class, e.getCause());
+    assertTrue(cause.getConstraintName().toLowerCase()
+        .contains(Operation.PROJECT_PRIORITY_CONSTRAINT), cause.getConstraintName());
+  }
+
+  private long persistOperation(OperationState state, TypeWork tw) {
+    Operation o = persistOperation(project, tw, nextPriority);
+    nextPriority += 10;
+    o.setState(state);
+    if (state == OperationState.IN_WORK) {
+      o.setEmployee(employee);
+    }
+    entityManager.flush();
+    return o.getId();
+  }
+
+  private Operation reload(long id) {
+    entityManager.clear();
+    return entityManager.find(Operation.class, id);
+  }
+}
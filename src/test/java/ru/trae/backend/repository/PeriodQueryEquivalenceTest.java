@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import javax.persistence.Query;
+import org.hibernate.jpa.TypedParameterValue;
+import org.hibernate.type.LocalDateType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.trae.backend.entity.TimeControl;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.WorkingShift;
+import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.projection.OperationIdNameProjectNumberDto;
+import ru.trae.backend.projection.ProjectIdNumberDto;
+import ru.trae.backend.projection.WorkingShiftEmployeeDto;
+
+/**
+ * Compares the period report queries with the former queries, which cast every timestamp
+ * to a date, on random data and random periods, including the periods without start or end.
+ * The attendance of the employees is read from the daily rollup, which is compared with
+ * the former query over all working shifts and time controls.
+ */
+@Import(ProjectReportRepository.class)
+class PeriodQueryEquivalenceTest extends JpaSliceTest {
+  private static final int PROJECTS = 80;
+  private static final int OPERATIONS_PER_PROJECT = 4;
+  private static final int EMPLOYEES = 5;
+  private static final int SHIFTS = 40;
+  private static final int PERIODS = 100;
+  private static final LocalDate BASE_DATE = LocalDate.of(2023, 6, 1);
+  private static final String OLD_PROJECT_PERIOD = """
+      (cast(p.start_date as date) between ?1 and ?2)
+      or (cast(p.end_date_in_contract as date) between ?1 and ?2)
+      or (cast(p.planned_end_date as date) between ?1 and ?2)
+      or (?1 between cast(p.start_date as date) and cast(p.end_date_in_contract as date))
+      or (?1 between cast(p.start_date as date) and cast(p.planned_end_date as date))""";
+  private static final String OLD_OPERATION_PERIOD = """
+      (cast(?1 as date) is null and cast(?2 as date) is null)
+      or (cast(o.start_date as date) between ?1 and ?2)
+      or (cast(o.planned_end_date as date) between ?1 and ?2)
+      or (cast(o.real_end_date as date) between ?1 and ?2)
+      or (?1 between cast(o.start_date as date) and cast(o.real_end_date as date))
+      or (?1 between cast(o.start_date as date) and cast(o.planned_end_date as date))""";
+  private static final String OLD_WORKING_SHIFTS = """
+      select employee_id, auto_closing_shift, cast(ws.start_shift as date) as shift_date,
+             round(sum(extract(epoch from
+                               (case
+                                    when cast(ws.start_shift as date) + time '18:00' < tc.departure
+                                        then cast(ws.start_shift as date) + time '18:00'
+                                    else tc.departure end) -
+                               (case
+                                    when cast(ws.start_shift as date) + time '09:00' > tc.arrival
+                                        then cast(ws.start_shift as date) + time '09:00'
+                                    else tc.arrival end))) / 32400, 1) as part_of_shift
+      from working_shifts ws
+               inner join time_controls tc on ws.id = tc.working_shift_id
+      group by tc.employee_id, tc.auto_closing_shift, ws.is_ended, ws.start_shift
+      having ws.is_ended = true
+         and cast(ws.start_shift as date) between ?1 and ?2""";
+  @Autowired
+  private ProjectRepository projectRepository;
+  @Autowired
+  private OperationRepository operationRepository;
+  @Autowired
+  private ProjectReportRepository projectReportRepository;
+  @Autowired
+  private AttendanceDayRepository attendanceDayRepository;
+  private Random random;
+  private long seed;
+  private final List<Long> employeeIds = new ArrayList<>();
+  private final List<Long> projectIds = new ArrayList<>();
+  private final List<Long> operationIds = new ArrayList<>();
+  private final List<Long> endedShiftIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    seed = System.nanoTime();
+    random = new Random(seed);
+
+    Manager manager = persistManager();
+    TypeWork typeWork = persistTypeWork("type work");
+
+    List<Employee> employees = new ArrayList<>();
+    for (int i = 0; i < EMPLOYEES; i++) {
+      Employee employee = persistEmployee(100 + i, "Петр", "Петров");
+      employees.add(employee);
+      employeeIds.add(employee.getId());
+    }
+
+    for (int i = 0; i < PROJECTS; i++) {
+      Project p = persistProject(manager, i + 1, randomDateTime(false));
+      p.setEndDateInContract(randomDateTime(true));
+      p.setPlannedEndDate(randomDateTime(true));
+      projectIds.add(p.getId());
+
+      for (int j = 0; j < OPERATIONS_PER_PROJECT; j++) {
+        Operation o = persistOperation(p, typeWork, j * 10);
+        o.setStartDate(randomDateTime(true));
+        o.setPlannedEndDate(randomDateTime(true));
+        o.setRealEndDate(randomDateTime(true));
+        o.setEmployee(random.nextInt(4) == 0 ? null : employees.get(random.nextInt(EMPLOYEES)));
+        operationIds.add(o.getId());
+      }
+    }
+
+    for (int i = 0; i < SHIFTS; i++) {
+      WorkingShift ws = persistWorkingShift(
+          BASE_DATE.atTime(8, 0).plusDays(i - SHIFTS / 2).plusMinutes(i * 7), i % 9 != 0);
+      ws.setEndShift(ws.getStartShift().plusHours(10));
+      if (ws.isEnded()) {
+        endedShiftIds.add(ws.getId());
+      }
+
+      for (Employee employee : employees) {
+        TimeControl tc = new TimeControl();
+        tc.setArrival(ws.getStartShift().plusMinutes(random.nextInt(120)));
+        tc.setDeparture(ws.getEndShift().minusMinutes(random.nextInt(120)));
+        tc.setAutoClosingShift(random.nextBoolean());
+        tc.setEmployee(employee);
+        tc.setWorkingShift(ws);
+        entityManager.persist(tc);
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    //сводка посещаемости пополняется при закрытии каждой смены
+    endedShiftIds.forEach(attendanceDayRepository::rollupWorkingShift);
+  }
+
+  @Test
+  void projectPeriodQueries_ShouldMatchFormerQueries() {
+    for (int i = 0; i < PERIODS; i++) {
+      LocalDate start = randomPeriodBound();
+      LocalDate end = randomPeriodEnd(start);
+      Set<Long> empIds = randomSubset(employeeIds);
+      Set<Long> opIds = randomSubset(operationIds);
+      String message = message(start, end);
+
+      if (start != null && end != null) {
+        assertEquals(
+            oldIds("select p.id from projects p where " + OLD_PROJECT_PERIOD, start, end),
+            projectReportIds(start, end), message);
+      }
+      assertEquals(
+          oldIds("select p.id from projects p where (cast(?1 as date) is null "
+              + "and cast(?2 as date) is null) or " + OLD_PROJECT_PERIOD, start, end),
+          projectIds(projectRepository.findByPeriod(start, end)), message);
+      assertEquals(
+          oldIds("select p.id from projects p where p.id in (select o.project_id "
+              + "from operations o where o.employee_id in (?3)) and ((cast(?1 as date) is null "
+              + "and cast(?2 as date) is null) or " + OLD_PROJECT_PERIOD + ")", start, end, empIds),
+          projectIds(projectRepository.findByPeriodAndEmployeeIds(start, end, empIds)), message);
+      assertEquals(
+          oldIds("select p.id from projects p where p.id in (select o.project_id "
+              + "from operations o where o.id in (?3)) and ((cast(?1 as date) is null "
+              + "and cast(?2 as date) is null) or " + OLD_PROJECT_PERIOD + ")", start, end, opIds),
+          projectIds(projectRepository.findByPeriodAndOperationIds(start, end, opIds)), message);
+    }
+  }
+
+  @Test
+  void operationPeriodQueries_ShouldMatchFormerQueries() {
+    int matched = 0;
+    for (int i = 0; i < PERIODS; i++) {
+      LocalDate start = randomPeriodBound();
+      LocalDate end = randomPeriodEnd(start);
+      Set<Long> empIds = randomSubset(employeeIds);
+      Set<Long> projIds = randomSubset(projectIds);
+      String message = message(start, end);
+
+      //в прежнем запросе без фильтров условие на сотрудника из-за приоритета and/or
+      //относилось только к периоду без дат, здесь сравнение идет с исправленным условием
+      Set<Long> all = oldIds("select o.id from operations o where o.employee_id is not null "
+          + "and (" + OLD_OPERATION_PERIOD + ")", start, end);
+      assertEquals(all, operationIds(operationRepository.findByPeriod(start, end)), message);
+      assertEquals(
+          oldIds("select o.id from operations o where o.employee_id is not null "
+              + "and o.project_id in (?3) and (" + OLD_OPERATION_PERIOD + ")",
+              start, end, projIds),
+          operationIds(operationRepository.findByPeriodAndProjectIds(start, end, projIds)),
+          message);
+      assertEquals(
+          oldIds("select o.id from operations o where o.employee_id in (?3) "
+              + "and (" + OLD_OPERATION_PERIOD + ")", start, end, empIds),
+          operationIds(operationRepository.findByPeriodAndEmployeeIds(start, end, empIds)),
+          message);
+      assertEquals(
+          oldIds("select o.id from operations o where o.employee_id in (?3) "
+              + "and o.project_id in (?4) and (" + OLD_OPERATION_PERIOD + ")",
+              start, end, empIds, projIds),
+          operationIds(operationRepository.findByPeriodAndEmployeeAndProjectIds(
+              start, end, empIds, projIds)),
+          message);
+      matched += all.size();
+    }
+    assertTrue(matched > 0, "the random periods did not match any operation");
+  }
+
+  @Test
+  void workingShiftPeriodQueries_ShouldMatchFormerQueries() {
+    for (int i = 0; i < PERIODS / 10; i++) {
+      LocalDate start = randomPeriodBound();
+      LocalDate end = randomPeriodEnd(start);
+      if (start == null || end == null) {
+        continue;
+      }
+      Set<Long> empIds = randomSubset(employeeIds);
+      String message = message(start, end);
+
+      List<String> expected = oldRows(OLD_WORKING_SHIFTS, start, end);
+      assertEquals(expected,
+          shiftRows(attendanceDayRepository.findByPeriod(start, end)), message);
+      assertEquals(
+          oldRows(OLD_WORKING_SHIFTS + " and tc.employee_id in ?3", start, end, empIds),
+          shiftRows(attendanceDayRepository.findByPeriodAndEmployeeIds(start, end, empIds)),
+          message);
+    }
+  }
+
+  private LocalDateTime randomDateTime(boolean nullable) {
+    if (nullable && random.nextInt(6) == 0) {
+      return null;
+    }
+    LocalDate date = BASE_DATE.plusDays(random.nextInt(81) - 40);
+    //часть дат приходится ровно на полночь, чтобы проверить границы периода
+    return random.nextBoolean()
+        ? date.atStartOfDay()
+        : date.atTime(random.nextInt(24), random.nextInt(60), random.nextInt(60));
+  }
+
+  private LocalDate randomPeriodBound() {
+    return random.nextInt(8) == 0 ? null : BASE_DATE.plusDays(random.nextInt(101) - 50);
+  }
+
+  private LocalDate randomPeriodEnd(LocalDate start) {
+    if (random.nextInt(8) == 0) {
+      return null;
+    }
+    return start == null
+        ? BASE_DATE.plusDays(random.nextInt(101) - 50)
+        : start.plusDays(random.nextInt(15));
+  }
+
+  private Set<Long> randomSubset(List<Long> ids) {
+    Set<Long> subset = ids.stream()
+        .filter(id -> random.nextInt(3) == 0)
+        .collect(Collectors.toSet());
+    if (subset.isEmpty()) {
+      subset.add(ids.get(random.nextInt(ids.size())));
+    }
+    return subset;
+  }
+
+  private String message(LocalDate start, LocalDate end) {
+    return "seed " + seed + ", period " + start + " - " + end;
+  }
+
+  private Query oldQuery(String sql, LocalDate start, LocalDate end, Object... ids) {
+    Query query = entityManager.getEntityManager().createNativeQuery(sql)
+        .setParameter(1, new TypedParameterValue(LocalDateType.INSTANCE, start))
+        .setParameter(2, new TypedParameterValue(LocalDateType.INSTANCE, end));
+    for (int i = 0; i < ids.length; i++) {
+      query.setParameter(i + 3, ids[i]);
+    }
+    return query;
+  }
+
+  private Set<Long> oldIds(String sql, LocalDate start, LocalDate end, Object... ids) {
+    return ((List<?>) oldQuery(sql, start, end, ids).getResultList()).stream()
+        .map(id -> ((Number) id).longValue())
+        .collect(Collectors.toCollection(TreeSet::new));
+  }
+
+  private List<String> oldRows(String sql, LocalDate start, LocalDate end, Object... ids) {
+    return ((List<?>) oldQuery(sql, start, end, ids).getResultList()).stream()
+        .map(row -> (Object[]) row)
+        .map(row -> row[0] + " " + row[1] + " " + row[2] + " " + ((Number) row[3]).floatValue())
+        .sorted()
+        .toList();
+  }
+
+  private Set<Long> projectReportIds(LocalDate start, LocalDate end) {
+    Set<Long> ids = new TreeSet<>();
+    List<Long> operations = new ArrayList<>();
+    projectReportRepository.streamForPeriod(start, end, row -> {
+      ids.add(row.projectId());
+      if (row.operation() != null) {
+        operations.add(row.operation().id());
+      }
+    });
+    //каждая операция проекта читается одной строкой
+    assertEquals(ids.size() * OPERATIONS_PER_PROJECT, operations.size());
+    return ids;
+  }
+
+  private Set<Long> projectIds(Collection<ProjectIdNumberDto> projects) {
+    return projects.stream()
+        .map(ProjectIdNumberDto::getProjectId)
+        .collect(Collectors.toCollection(TreeSet::new));
+  }
+
+  private Set<Long> operationIds(Collection<OperationIdNameProjectNumberDto> operations) {
+    return operations.stream()
+        .map(OperationIdNameProjectNumberDto::getOperationId)
+        .collect(Collectors.toCollection(TreeSet::new));
+  }
+
+  private List<String> shiftRows(Collection<WorkingShiftEmployeeDto> rows) {
+    return rows.stream()
+        .map(row -> row.getEmployeeId() + " " + row.isAutoClosed() + " " + row.getShiftDate()
+            + " " + row.getPartOfShift())
+        .sorted()
+        .toList();
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the latency of the former customer search (upper(customer) like '%query%' with
+ * a count query) and the trigram search of {@link ProjectRepository#searchIdsByText} on
+ * 10k, 100k and 1M generated projects.
+ * Runs only against PostgreSQL with the pg_trgm extension, for example:
+ * {@code TRAE_BENCH_PG_URL=jdbc:postgresql://localhost:5444/devTraeDB TRAE_BENCH_PG_USER=trae_dev
+ * TRAE_BENCH_PG_PASS=dev mvn test -Dtest=ProjectSearchBenchmarkTest}.
+ * The data is created in a separate schema, which is dropped after the run.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "TRAE_BENCH_PG_URL", matches = ".+")
+class ProjectSearchBenchmarkTest {
+  private static final Logger log = LoggerFactory.getLogger(ProjectSearchBenchmarkTest.class);
+  private static final String SCHEMA = "trae_search_bench";
+  private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+  private static final int RUNS = 15;
+  private static final String QUERY = "ромашка";
+  private static final String SEARCH_EXPRESSION =
+      "(customer || ' ' || name || ' ' || coalesce(comment, ''))";
+  private static final String LIKE_PAGE_QUERY = """
+      select id from %s.projects where upper(customer) like ?
+      order by end_date_in_contract, id limit 50""".formatted(SCHEMA);
+  private static final String LIKE_COUNT_QUERY =
+      "select count(*) from %s.projects where upper(customer) like ?".formatted(SCHEMA);
+  private static final String TRIGRAM_QUERY = """
+      select id from %s.projects where %s ilike ?
+      order by word_similarity(?, %s) desc, id desc limit 100"""
+      .formatted(SCHEMA, SEARCH_EXPRESSION, SEARCH_EXPRESSION);
+  private Connection connection;
+
+  @BeforeAll
+  void connect() throws SQLException {
+    connection = DriverManager.getConnection(System.getenv("TRAE_BENCH_PG_URL"),
+        System.getenv("TRAE_BENCH_PG_USER"), System.getenv("TRAE_BENCH_PG_PASS"));
+    execute("create extension if not exists pg_trgm");
+  }
+
+  @AfterAll
+  void disconnect() throws SQLException {
+    execute("drop schema if exists " + SCHEMA + " cascade");
+    connection.close();
+  }
+
+  @Test
+  void compareLikeAndTrigramSearch() throws SQLException {
+    for (int size : SIZES) {
+      createProjects(size);
+
+      double likeMillis = medianMillis(() -> {
+        runQuery(LIKE_PAGE_QUERY, "%" + QUERY.toUpperCase() + "%");
+        runQuery(LIKE_COUNT_QUERY, "%" + QUERY.toUpperCase() + "%");
+      });
+      double trigramMillis = medianMillis(
+          () -> runQuery(TRIGRAM_QUERY, "%" + QUERY + "%", QUERY));
+
+      log.info("projects: {}, like search: {} ms, trigram search: {} ms",
+          size, String.format("%.2f", likeMillis), String.format("%.2f", trigramMillis));
+    }
+
+    assertTrue(explain().contains("projects_search_trgm_idx"),
+        "the trigram search does not use projects_search_trgm_idx");
+  }
+
+  private void createProjects(int size) throws SQLException {
+    execute("drop schema if exists " + SCHEMA + " cascade");
+    execute("create schema " + SCHEMA);
+    execute("""
+        create table %s.projects (
+            id bigint primary key,
+            name varchar(100) not null,
+            customer varchar(200) not null,
+            comment varchar(1000),
+            end_date_in_contract timestamp)""".formatted(SCHEMA));
+    //примерно один проект из тысячи содержит искомое слово
+    execute("""
+        insert into %s.projects
+        select g, 'Изделие ' || md5(g::text),
+               'ООО ' || case when g %% 1000 = 0 then 'Ромашка' else md5((g * 7)::text) end,
+               case when g %% 3 = 0 then null else md5((g * 13)::text) end,
+               now() + (g %% 365) * interval '1 day'
+        from generate_series(1, %d) g""".formatted(SCHEMA, size));
+    execute("create index projects_search_trgm_idx on " + SCHEMA + ".projects using gin ("
+        + SEARCH_EXPRESSION + " gin_trgm_ops)");
+    execute("analyze " + SCHEMA + ".projects");
+  }
+
+  private String explain() throws SQLException {
+    StringBuilder plan = new StringBuilder();
+    try (PreparedStatement ps = connection.prepareStatement("explain " + TRIGRAM_QUERY)) {
+      ps.setString(1, "%" + QUERY + "%");
+      ps.setString(2, QUERY);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          plan.append(rs.getString(1)).append('\n');
+        }
+      }
+    }
+    return plan.toString();
+  }
+
+  private double medianMillis(SqlAction action) throws SQLException {
+    //первый прогон прогревает кэш и не учитывается
+    action.run();
+    double[] millis = new double[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      action.run();
+      millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+    }
+    Arrays.sort(millis);
+    return millis[RUNS / 2];
+  }
+
+  private void runQuery(String sql, String... params) throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      for (int i = 0; i < params.length; i++) {
+        ps.setString(i + 1, params[i]);
+      }
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          rs.getLong(1);
+        }
+      }
+    }
+  }
+
+  private void execute(String sql) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  @FunctionalInterface
+  private interface SqlAction {
+    void run() throws SQLException;
+  }
+}
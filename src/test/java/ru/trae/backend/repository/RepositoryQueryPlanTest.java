@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.repository;
+
+import static java.util.Collections.nCopies;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.trae.backend.util.OperationState;
+
+/**
+ * Checks the execution plans of the hot repository queries: none of them may read
+ * the operations, projects, time controls or working shifts with a sequential scan.
+ * The schema is created by the Liquibase changelog, filled with generated data, and the SQL
+ * recorded from the repository calls is prepared and explained as a generic plan forced by
+ * {@code plan_cache_mode}, which works on PostgreSQL 12+ including the image of docker-compose,
+ * for example:
+ * {@code TRAE_BENCH_PG_URL=jdbc:postgresql://localhost:5444/devTraeDB TRAE_BENCH_PG_USER=trae_dev
+ * TRAE_BENCH_PG_PASS=dev mvn test -Dtest=RepositoryQueryPlanTest}.
+ * The data is created in a separate schema, which is dropped after the run.
+ * The period reports are not checked here, they read the whole period by design.
+ */
+@DataJpaTest(properties = {
+    "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml",
+    "spring.liquibase.default-schema=" + RepositoryQueryPlanTest.SCHEMA,
+    "spring.datasource.hikari.schema=" + RepositoryQueryPlanTest.SCHEMA,
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.trae.backend.repository.RepositoryQueryPlanTest$RecordingStatementInspector"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "TRAE_BENCH_PG_URL", matches = ".+")
+class RepositoryQueryPlanTest extends JpaSliceTest {
+  static final String SCHEMA = "trae_query_plan";
+  private static final List<String> CHECKED_TABLES =
+      List.of("operations", "projects", "time_controls", "working_shifts");
+  private static final Pattern PARAMETER = Pattern.compile("\\?");
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private OperationRepository operationRepository;
+  @Autowired
+  private ProjectRepository projectRepository;
+  @Autowired
+  private TimeControlRepository timeControlRepository;
+  @Autowired
+  private WorkingShiftRepository workingShiftRepository;
+
+  @DynamicPropertySource
+  static void datasourceProperties(DynamicPropertyRegistry registry) throws SQLException {
+    usePostgresSchema(registry, SCHEMA);
+  }
+
+  @AfterAll
+  static void dropSchema() throws SQLException {
+    dropPostgresSchema(SCHEMA);
+  }
+
+  @BeforeEach
+  void setUp() {
+    //50 тыс. проектов, 500 тыс. операций, 5 тыс. смен и 20 тыс. отметок о приходе
+    jdbcTemplate.execute("""
+        insert into managers (date_of_register, date_of_employment, first_name, last_name,
+                              password, role, username, account_non_expired,
+                              account_non_locked, credentials_non_expired, enabled)
+        values (current_date, current_date, 'Иван', 'Иванов', 'password', 0, 'manager',
+                true, true, true, true)""");
+    jdbcTemplate.execute("""
+        insert into employees (date_of_register, date_of_employment, first_name, last_name,
+                               is_active, pin_code)
+        select current_date, current_date, 'Петр', 'Петров ' || g, true, 1000 + g
+        from generate_series(1, 500) g""");
+    jdbcTemplate.execute("""
+        insert into employees_type_works (employee_id, type_works_id)
+        select e.id, 1 + e.id % 10 from employees e""");
+    jdbcTemplate.execute("""
+        insert into projects (is_ended, name, period, operation_period, start_date,
+                              end_date_in_contract, planned_end_date, customer, number,
+                              manager_id)
+        select g % 10 <> 0, 'Изделие ' || g, 240, 24, now() - interval '30 day',
+               now() + g % 365 * interval '1 day', now() + g % 300 * interval '1 day',
+               'ООО ' || md5(cast(g as text)), g, (select min(id) from managers)
+        from generate_series(1, 50000) g""");
+    jdbcTemplate.execute("""
+        insert into operations (is_ended, name, period, planned_end_date, start_date,
+                                acceptance_date, in_work, priority, ready_to_acceptance,
+                                employee_id, project_id, type_work_id)
+        select pr < p.id % 10, 'Операция ' || pr, 24, now() + pr * interval '1 day', now(),
+               case when pr = p.id % 10 and p.id % 3 = 0 then now() end,
+               pr = p.id % 10 and p.id % 3 = 0, pr * 10,
+               pr = p.id % 10 and p.id % 3 = 1,
+               case when pr <= p.id % 10 then (select min(id) from employees) + p.id % 500 end,
+               p.id, 1 + pr
+        from projects p cross join generate_series(0, 9) pr""");
+    jdbcTemplate.execute("""
+        insert into working_shifts (start_shift, end_shift, is_ended)
+        select now() - g * interval '1 day', now() - g * interval '1 day' + interval '9 hour',
+               g > 0
+        from generate_series(0, 4999) g""");
+    jdbcTemplate.execute("""
+        insert into time_controls (arrival, departure, auto_closing_shift, is_on_shift,
+                                   employee_id, working_shift_id)
+        select ws.start_shift, ws.end_shift, false, not ws.is_ended, e.id, ws.id
+        from working_shifts ws
+                 inner join employees e on e.id % 125 = ws.id % 125""");
+    CHECKED_TABLES.forEach(table -> jdbcTemplate.execute("analyze " + table));
+    RecordingStatementInspector.STATEMENTS.clear();
+  }
+
+  @Test
+  void hotQueries_ShouldNotScanLargeTables() {
+    long employeeId = jdbcTemplate.queryForObject("select min(id) from employees", Long.class);
+    long projectId = jdbcTemplate.queryForObject("select min(id) from projects", Long.class);
+
+    operationRepository.findForEmpByProjectId(projectId);
+    operationRepository.findByProjectIdOrderByPriorityAsc(projectId);
+    operationRepository.findInWorkForEmpByEmployeeId(employeeId);
+    operationRepository.findNextIdsByProjectIdAndPriority(projectId, 0, PageRequest.of(0, 1));
+    operationRepository.countByProjectIdAndStateNot(projectId, OperationState.ENDED);
+    operationRepository.findForBulkActionByIds(List.of(projectId, projectId + 1));
+    operationRepository.findCurrentAndLastByProjectIds(
+        List.of(projectId, projectId + 1, projectId + 2));
+    projectRepository.findAvailableProjectsByTypeWorkIds(List.of(2L, 3L), PageRequest.of(0, 20));
+    timeControlRepository.findByEmployeeIdAndIsOnShiftTrueAndWorkingShiftIsEndedFalse(employeeId);
+    timeControlRepository.findOnShiftOfActiveWorkingShift();
+    workingShiftRepository.countEmployeeOnActiveWorkingShift();
+    workingShiftRepository.existsByIsEndedFalse();
+    workingShiftRepository.findByIsEndedFalse();
+    workingShiftRepository.findActiveIdAndStartShift();
+    workingShiftRepository.existsByIsEndedFalseAndStartShiftNotCurrentDate();
+    workingShiftRepository.existsEmpOnShift(true, employeeId);
+
+    List<String> statements = List.copyOf(RecordingStatementInspector.STATEMENTS);
+    assertFalse(statements.isEmpty(), "no statements have been recorded");
+
+    Map<String, String> plans = statements.stream()
+        .distinct()
+        .collect(Collectors.toMap(sql -> sql, this::explain));
+    plans.forEach((sql, plan) -> CHECKED_TABLES.forEach(table -> assertFalse(
+        plan.contains("Seq Scan on " + table + " "),
+        () -> "sequential scan on " + table + ":\n" + sql + "\n" + plan)));
+  }
+
+  private String explain(String sql) {
+    //параметры JDBC заменяются на параметры подготовленного запроса PostgreSQL
+    StringBuilder numbered = new StringBuilder();
+    Matcher matcher = PARAMETER.matcher(sql);
+    int index = 0;
+    while (matcher.find()) {
+      matcher.appendReplacement(numbered, "\\$" + ++index);
+    }
+    matcher.appendTail(numbered);
+    String arguments = index == 0 ? "" : "(" + String.join(", ", nCopies(index, "null")) + ")";
+
+    //generic plan строится без значений параметров, поэтому вместо них передаются null
+    return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("set plan_cache_mode = force_generic_plan");
+        try {
+          statement.execute("prepare plan_check as " + numbered);
+          try (ResultSet rs = statement.executeQuery("explain execute plan_check" + arguments)) {
+            List<String> plan = new ArrayList<>();
+            while (rs.next()) {
+              plan.add(rs.getString(1));
+            }
+            return String.join("\n", plan) + "\n";
+          } finally {
+            statement.execute("deallocate plan_check");
+          }
+        } finally {
+          statement.execute("reset plan_cache_mode");
+        }
+      }
+    });
+  }
+
+  /**
+   * Records the SQL sent by Hibernate, so that the plan of the generated queries is explained.
+   */
+  public static class RecordingStatementInspector implements StatementInspector {
+    static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      STATEMENTS.add(sql);
+      return sql;
+    }
+  }
+}
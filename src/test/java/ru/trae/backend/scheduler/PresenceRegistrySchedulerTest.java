@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ru.trae.backend.scheduler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.trae.backend.service.PresenceRegistry;
+
+class PresenceRegistrySchedulerTest {
+  private PresenceRegistry presenceRegistry;
+  private PresenceRegistryScheduler presenceRegistryScheduler;
+
+  @BeforeEach
+  public void setup() {
+    presenceRegistry = mock(PresenceRegistry.class);
+    presenceRegistryScheduler = new PresenceRegistryScheduler(presenceRegistry);
+  }
+
+  @Test
+  void reconcileHandler_ShouldReconcileRegistryOfThisInstance() {
+    presenceRegistryScheduler.reconcileHandler();
+
+    verify(presenceRegistry).reconcile();
+  }
+
+  @Test
+  void loadAfterInit_ShouldReconcileRegistryOfThisInstance() {
+    presenceRegistryScheduler.loadAfterInit();
+
+    verify(presenceRegistry).reconcile();
+  }
+}
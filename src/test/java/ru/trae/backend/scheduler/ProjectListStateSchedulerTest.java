@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.scheduler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.trae.backend.service.ProjectListStateService;
+import ru.trae.backend.service.SchedulerLeaderElection;
+
+class ProjectListStateSchedulerTest {
+  private ProjectListStateService projectListStateService;
+  private SchedulerLeaderElection schedulerLeaderElection;
+  private ProjectListStateScheduler projectListStateScheduler;
+
+  @BeforeEach
+  public void setup() {
+    projectListStateService = mock(ProjectListStateService.class);
+    schedulerLeaderElection = mock(SchedulerLeaderElection.class);
+    when(schedulerLeaderElection.isLeader()).thenReturn(true);
+    projectListStateScheduler =
+        new ProjectListStateScheduler(projectListStateService, schedulerLeaderElection);
+  }
+
+  @Test
+  void listStateCheckHandler_ShouldCheckAndRebuildListState() {
+    projectListStateScheduler.listStateCheckHandler();
+
+    verify(projectListStateService).checkAndRebuild();
+  }
+
+  @Test
+  void checkListStateAfterInit_ShouldCheckAndRebuildListState() {
+    projectListStateScheduler.checkListStateAfterInit();
+
+    verify(projectListStateService).checkAndRebuild();
+  }
+
+  @Test
+  void listStateCheckHandler_WhenNotLeader_ShouldNotCheckListState() {
+    when(schedulerLeaderElection.isLeader()).thenReturn(false);
+
+    projectListStateScheduler.listStateCheckHandler();
+
+    verifyNoInteractions(projectListStateService);
+  }
+
+  @Test
+  void checkListStateAfterInit_WhenNotLeader_ShouldNotCheckListState() {
+    when(schedulerLeaderElection.isLeader()).thenReturn(false);
+
+    projectListStateScheduler.checkListStateAfterInit();
+
+    verifyNoInteractions(projectListStateService);
+  }
+}
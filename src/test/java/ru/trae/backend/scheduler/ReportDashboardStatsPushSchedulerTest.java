@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.scheduler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import ru.trae.backend.service.ReportDashboardStatsBroadcaster;
+
+class ReportDashboardStatsPushSchedulerTest {
+
+  @Test
+  void pushHandler_ShouldPushChanges() {
+    ReportDashboardStatsBroadcaster broadcaster = mock(ReportDashboardStatsBroadcaster.class);
+    ReportDashboardStatsPushScheduler scheduler = new ReportDashboardStatsPushScheduler(broadcaster);
+
+    scheduler.pushHandler();
+
+    verify(broadcaster).pushChanges();
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.trae.backend.BackendApplication;
+import ru.trae.backend.service.SchedulerLeaderElection;
+
+/**
+ * Starts several instances of the application against one PostgreSQL database and checks that
+ * the shift jobs run by all of them at the same time are executed by one instance only, and
+ * that another instance takes them over when the leader stops, for example:
+ * {@code TRAE_BENCH_PG_URL=jdbc:postgresql://localhost:5444/devTraeDB TRAE_BENCH_PG_USER=trae_dev
+ * TRAE_BENCH_PG_PASS=dev mvn test -Dtest=WorkShiftingSchedulerClusterTest}.
+ * The schema is created by the Liquibase changelog in a separate schema, which is dropped after
+ * the run; the cron jobs are disabled and invoked by the test.
+ */
+@EnabledIfEnvironmentVariable(named = "TRAE_BENCH_PG_URL", matches = ".+")
+class WorkShiftingSchedulerClusterTest {
+  static final String SCHEMA = "trae_scheduler_cluster";
+  private static final int INSTANCES = 3;
+  private static final long LOCK_KEY = 7310099;
+  private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+  @BeforeAll
+  static void createSchema() throws SQLException {
+    execute("drop schema if exists " + SCHEMA + " cascade", "create schema " + SCHEMA);
+  }
+
+  @AfterAll
+  static void dropSchema() throws SQLException {
+    execute("drop schema if exists " + SCHEMA + " cascade");
+  }
+
+  @BeforeEach
+  void startInstances() {
+    for (int i = 0; i < INSTANCES; i++) {
+      instances.add(new SpringApplicationBuilder(BackendApplication.class)
+          .properties(
+              "server.port=0",
+              "spring.datasource.url=" + System.getenv("TRAE_BENCH_PG_URL"),
+              "spring.datasource.username=" + System.getenv("TRAE_BENCH_PG_USER"),
+              "spring.datasource.password=" + System.getenv("TRAE_BENCH_PG_PASS"),
+              "spring.datasource.hikari.schema=" + SCHEMA,
+              "spring.liquibase.enabled=true",
+              "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml",
+              "spring.liquibase.default-schema=" + SCHEMA,
+              "spring.jpa.hibernate.ddl-auto=none",
+              "scheduler.start-day=-",
+              "scheduler.end-day=-",
+              "scheduler.leader-lock-key=" + LOCK_KEY)
+          .run());
+    }
+  }
+
+  @AfterEach
+  void stopInstances() throws SQLException {
+    instances.forEach(ConfigurableApplicationContext::close);
+    instances.clear();
+    execute("delete from " + SCHEMA + ".attendance_days",
+        "delete from " + SCHEMA + ".time_controls",
+        "delete from " + SCHEMA + ".working_shifts");
+  }
+
+  @Test
+  void startup_ShouldElectOneLeaderAndCreateAtMostOneWorkingShift() {
+    //смена при запуске создается только с 7 до 23 часов, поэтому проверяется не более одной
+    assertTrue(countShiftsStartedToday() <= 1);
+    assertTrue(countActiveShifts() <= 1);
+    assertEquals(1, countLeaders(instances));
+  }
+
+  @Test
+  void dayJobs_WhenRunByAllInstances_ShouldCreateAndCloseOneShiftPerDay() throws Exception {
+    clearWorkingShifts();
+
+    runOnAllInstances(instances, WorkShiftingScheduler::workShiftingDayHandler);
+
+    assertEquals(1, countShiftsStartedToday());
+    assertEquals(1, countActiveShifts());
+
+    runOnAllInstances(instances, WorkShiftingScheduler::workShiftingDayEndHandler);
+
+    assertEquals(1, countShiftsStartedToday());
+    assertEquals(0, countActiveShifts());
+  }
+
+  @Test
+  void dayJobs_WhenLeaderStops_ShouldBeTakenOverByAnotherInstance() throws Exception {
+    ConfigurableApplicationContext leader = instances.stream()
+        .filter(i -> i.getBean(SchedulerLeaderElection.class).getMetrics().leader())
+        .findFirst()
+        .orElseThrow();
+    instances.remove(leader);
+    leader.close();
+    clearWorkingShifts();
+
+    runOnAllInstances(instances, WorkShiftingScheduler::workShiftingDayHandler);
+
+    assertEquals(1, countShiftsStartedToday());
+    assertEquals(1, countLeaders(instances));
+  }
+
+  private void runOnAllInstances(List<ConfigurableApplicationContext> contexts,
+                                 Consumer<WorkShiftingScheduler> job) throws Exception {
+    ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+    CountDownLatch startGate = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(contexts.size());
+
+    for (ConfigurableApplicationContext context : contexts) {
+      WorkShiftingScheduler scheduler = context.getBean(WorkShiftingScheduler.class);
+      executor.execute(() -> {
+        try {
+          startGate.await();
+          job.accept(scheduler);
+        } catch (Throwable e) {
+          unexpected.add(e);
+        }
+      });
+    }
+
+    startGate.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "jobs have not been finished");
+    assertTrue(unexpected.isEmpty(), () -> "jobs failed: " + unexpected);
+  }
+
+  private long countLeaders(List<ConfigurableApplicationContext> contexts) {
+    return contexts.stream()
+        .filter(i -> i.getBean(SchedulerLeaderElection.class).isLeader())
+        .count();
+  }
+
+  private void clearWorkingShifts() {
+    jdbcTemplate().execute("delete from attendance_days");
+    jdbcTemplate().execute("delete from time_controls");
+    jdbcTemplate().execute("delete from working_shifts");
+  }
+
+  private long countShiftsStartedToday() {
+    return jdbcTemplate().queryForObject(
+        "select count(*) from working_shifts where date(start_shift) = current_date", Long.class);
+  }
+
+  private long countActiveShifts() {
+    return jdbcTemplate().queryForObject(
+        "select count(*) from working_shifts where is_ended = false", Long.class);
+  }
+
+  private JdbcTemplate jdbcTemplate() {
+    return instances.get(0).getBean(JdbcTemplate.class);
+  }
+
+  private static void execute(String... statements) throws SQLException {
+    try (Connection connection = DriverManager.getConnection(
+        System.getenv("TRAE_BENCH_PG_URL"), System.getenv("TRAE_BENCH_PG_USER"),
+        System.getenv("TRAE_BENCH_PG_PASS"));
+         Statement statement = connection.createStatement()) {
+      for (String sql : statements) {
+        statement.execute(sql);
+      }
+    }
+  }
+}
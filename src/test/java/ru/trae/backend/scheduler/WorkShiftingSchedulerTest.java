@@ -14,21 +14,27 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.trae.backend.service.SchedulerLeaderElection;
 import ru.trae.backend.service.WorkingShiftService;
 
 class WorkShiftingSchedulerTest {
   private WorkingShiftService workingShiftService;
+  private SchedulerLeaderElection schedulerLeaderElection;
   private WorkShiftingScheduler workShiftingScheduler;
 
   @BeforeEach
   public void setup() {
     workingShiftService = mock(WorkingShiftService.class);
-    workShiftingScheduler = new WorkShiftingScheduler(workingShiftService);
+    schedulerLeaderElection = mock(SchedulerLeaderElection.class);
+    when(schedulerLeaderElection.isLeader()).thenReturn(true);
+    workShiftingScheduler =
+        new WorkShiftingScheduler(workingShiftService, schedulerLeaderElection);
   }
 
   @Test
@@ -104,5 +110,47 @@ class WorkShiftingSchedulerTest {
     verify(workingShiftService, times(1)).closeWorkingShift();
     verify(workingShiftService, times(1)).createWorkingShift();
   }
-}
 
+  @Test
+  void workShiftingDayHandler_WhenNotLeader_ShouldNotTouchWorkingShifts() {
+    //when
+    when(schedulerLeaderElection.isLeader()).thenReturn(false);
+
+    workShiftingScheduler.workShiftingDayHandler();
+
+    //then
+    verifyNoInteractions(workingShiftService);
+  }
+
+  @Test
+  void workShiftingDayEndHandler_WhenNotLeader_ShouldNotCloseWorkingShift() {
+    //when
+    when(schedulerLeaderElection.isLeader()).thenReturn(false);
+
+    workShiftingScheduler.workShiftingDayEndHandler();
+
+    //then
+    verifyNoInteractions(workingShiftService);
+  }
+
+  @Test
+  void createWorkingShiftAfterInit_WhenNotLeader_ShouldNotTouchWorkingShifts() {
+    //when
+    when(schedulerLeaderElection.isLeader()).thenReturn(false);
+
+    workShiftingScheduler.createWorkingShiftAfterInit();
+
+    //then
+    verifyNoInteractions(workingShiftService);
+  }
+
+  @Test
+  void leaderCheckHandler_ShouldCheckLeadership() {
+    //when
+    workShiftingScheduler.leaderCheckHandler();
+
+    //then
+    verify(schedulerLeaderElection).isLeader();
+    verifyNoInteractions(workingShiftService);
+  }
+}
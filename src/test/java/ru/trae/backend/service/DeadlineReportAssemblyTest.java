@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.trae.backend.dto.report.DeadlineReq;
+import ru.trae.backend.dto.report.ReportDeadlineDto;
+import ru.trae.backend.dto.report.SecondResponseSubDto;
+import ru.trae.backend.dto.report.ThirdResponseSubDto;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.exceptionhandler.exception.ReportException;
+import ru.trae.backend.repository.JpaSliceTest;
+import ru.trae.backend.util.ReportParameter;
+
+/**
+ * Checks the deadline report built from the flat rows of the operations: the report is read
+ * by one query without loading the entities into the persistence context, and the blocks of
+ * the report are grouped by project and employee in the order of the operation ids.
+ */
+@Import({ReportService.class, OperationService.class})
+class DeadlineReportAssemblyTest extends JpaSliceTest {
+  private static final int PROJECTS = 2;
+  private static final int EMPLOYEES = 3;
+  private static final int OPERATIONS_PER_EMPLOYEE = 20;
+  @Autowired
+  private ReportService reportService;
+  private Statistics statistics;
+  private final List<Project> projects = new ArrayList<>();
+  private final List<Employee> employees = new ArrayList<>();
+  //id операций по id проекта и id сотрудника в порядке возрастания
+  private final Map<Long, Map<Long, List<Long>>> operationIds = new HashMap<>();
+  private final List<Long> unassignedOperationIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    Manager manager = persistManager();
+    TypeWork typeWork = persistTypeWork("type work");
+
+    for (int i = 0; i < EMPLOYEES; i++) {
+      employees.add(persistEmployee(100 + i, "Петр", "Петров " + i, typeWork));
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < PROJECTS; i++) {
+      Project p = persistProject(manager, 100 + i, now);
+      projects.add(p);
+
+      //операции сотрудников чередуются, поэтому операции сотрудника идут в выборке не подряд
+      for (int j = 0; j < OPERATIONS_PER_EMPLOYEE * EMPLOYEES; j++) {
+        Employee e = employees.get(j % EMPLOYEES);
+        Operation o = persistOperation(p, e, typeWork, j, now.plusDays(j));
+        operationIds.computeIfAbsent(p.getId(), id -> new HashMap<>())
+            .computeIfAbsent(e.getId(), id -> new ArrayList<>())
+            .add(o.getId());
+      }
+      unassignedOperationIds.add(persistOperation(
+          p, null, typeWork, OPERATIONS_PER_EMPLOYEE * EMPLOYEES, now).getId());
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = statistics();
+    statistics.clear();
+  }
+
+  @Test
+  void reportDeadlines_ProjectByEmployees_ShouldGroupOperationsOfEachEmployee() {
+    Project p = projects.get(0);
+    Set<Long> employeeIds = new HashSet<>();
+    Set<Long> opIds = new HashSet<>();
+    operationIds.get(p.getId()).forEach((employeeId, ids) -> {
+      employeeIds.add(employeeId);
+      opIds.addAll(ids);
+    });
+
+    ReportDeadlineDto report = reportService.reportDeadlines(new DeadlineReq(
+        ReportParameter.PROJECT, p.getId(),
+        ReportParameter.EMPLOYEE, employeeIds,
+        ReportParameter.OPERATION, opIds));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, persistenceContextSize());
+    assertEquals("100", report.getFirstRespValue());
+    assertEquals(EMPLOYEES, report.getSecondRespValues().size());
+    for (SecondResponseSubDto employeeBlock : report.getSecondRespValues()) {
+      assertEquals(operationIds.get(p.getId()).get(employeeBlock.secondRespId()),
+          thirdIds(employeeBlock));
+    }
+  }
+
+  @Test
+  void reportDeadlines_EmployeeByProjects_ShouldGroupOperationsOfEachProject() {
+    Employee e = employees.get(1);
+    Set<Long> projectIds = new HashSet<>();
+    Set<Long> opIds = new HashSet<>();
+    for (Project p : projects) {
+      projectIds.add(p.getId());
+      opIds.addAll(operationIds.get(p.getId()).get(e.getId()));
+    }
+
+    ReportDeadlineDto report = reportService.reportDeadlines(new DeadlineReq(
+        ReportParameter.EMPLOYEE, e.getId(),
+        ReportParameter.PROJECT, projectIds,
+        ReportParameter.OPERATION, opIds));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, persistenceContextSize());
+    assertEquals("Петров 1", report.getFirstRespValue());
+    assertEquals(PROJECTS, report.getSecondRespValues().size());
+    for (SecondResponseSubDto projectBlock : report.getSecondRespValues()) {
+      assertEquals(operationIds.get(projectBlock.secondRespId()).get(e.getId()),
+          thirdIds(projectBlock));
+    }
+  }
+
+  @Test
+  void reportDeadlines_WhenOperationIsNotAssigned_ShouldKeepErrorMessage() {
+    Project p = projects.get(0);
+    long employeeId = employees.get(0).getId();
+    DeadlineReq req = new DeadlineReq(
+        ReportParameter.PROJECT, p.getId(),
+        ReportParameter.OPERATION, Set.of(unassignedOperationIds.get(0)),
+        ReportParameter.EMPLOYEE, Set.of(employeeId));
+
+    ReportException exception =
+        assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
+
+    assertEquals("One of the operations from the selection does not have an employee",
+        exception.getMessage());
+  }
+
+  @Test
+  void reportDeadlines_WhenEmployeeHasNoOperationsInSelection_ShouldKeepErrorMessage() {
+    Project p = projects.get(0);
+    long employeeId = employees.get(0).getId();
+    long otherEmployeeId = employees.get(1).getId();
+    DeadlineReq req = new DeadlineReq(
+        ReportParameter.PROJECT, p.getId(),
+        ReportParameter.EMPLOYEE, Set.of(otherEmployeeId),
+        ReportParameter.OPERATION, Set.copyOf(operationIds.get(p.getId()).get(employeeId)));
+
+    ReportException exception =
+        assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
+
+    assertEquals("Employee with id: " + otherEmployeeId + " not found in project with id: "
+        + p.getId(), exception.getMessage());
+  }
+
+  private List<Long> thirdIds(SecondResponseSubDto block) {
+    return block.thirdRespValues().stream()
+        .map(ThirdResponseSubDto::thirdRespId)
+        .toList();
+  }
+
+  private Operation persistOperation(Project p, Employee e, TypeWork typeWork, int priority,
+                                     LocalDateTime plannedEndDate) {
+    Operation o = persistOperation(p, typeWork, priority);
+    o.setEmployee(e);
+    o.setPlannedEndDate(plannedEndDate);
+    return o;
+  }
+}
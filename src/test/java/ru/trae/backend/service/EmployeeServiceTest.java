@@ -17,7 +17,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -44,6 +46,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import ru.trae.backend.dto.PageDto;
 import ru.trae.backend.dto.employee.ChangeDataDtoReq;
@@ -58,6 +61,8 @@ import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.exceptionhandler.exception.EmployeeException;
 import ru.trae.backend.repository.EmployeeRepository;
+import ru.trae.backend.repository.KeysetRepository;
+import ru.trae.backend.repository.KeysetSlice;
 
 @ExtendWith(MockitoExtension.class)
 class EmployeeServiceTest {
@@ -73,6 +78,10 @@ class EmployeeServiceTest {
   private TypeWorkService typeWorkService;
   @Mock
   private PageToPageDtoMapper pageToPageDtoMapper;
+  @Mock
+  private KeysetRepository keysetRepository;
+  @Mock
+  private ReportResultCache reportResultCache;
   @InjectMocks
   private EmployeeService employeeService;
   long employeeId = 1L;
@@ -197,7 +206,7 @@ class EmployeeServiceTest {
   void checkInEmployee_WithShiftEmployee_ShouldUpdateShiftAndReturnShortEmployeeDto() {
     //when
     when(employeeRepository.findById(employeeId)).thenReturn(Optional.of(e));
-    when(workingShiftService.employeeOnShift(true, e.getId())).thenReturn(true);
+    when(workingShiftService.employeeOnShiftInDatabase(true, e.getId())).thenReturn(true);
     
     ShortEmployeeDto result = employeeService.checkInEmployee(employeeId);
     
@@ -208,14 +217,15 @@ class EmployeeServiceTest {
     assertEquals(lastName, result.lastName());
     assertTrue(result.onShift());
     
-    verify(workingShiftService, times(2)).employeeOnShift(true, e.getId());
+    verify(workingShiftService).employeeOnShiftInDatabase(true, e.getId());
+    verify(workingShiftService, never()).employeeOnShift(anyBoolean(), anyLong());
   }
   
   @Test
   void checkInEmployee_WithNonShiftEmployee_ShouldUpdateShiftAndReturnShortEmployeeDto() {
     //when
     when(employeeRepository.findById(employeeId)).thenReturn(Optional.of(e));
-    when(workingShiftService.employeeOnShift(true, e.getId())).thenReturn(false);
+    when(workingShiftService.employeeOnShiftInDatabase(true, e.getId())).thenReturn(false);
     
     ShortEmployeeDto result = employeeService.checkInEmployee(employeeId);
     
@@ -224,16 +234,18 @@ class EmployeeServiceTest {
     assertEquals(employeeId, result.id());
     assertEquals(firstName, result.firstName());
     assertEquals(lastName, result.lastName());
-    assertFalse(result.onShift());
+    assertTrue(result.onShift());
     
-    verify(workingShiftService, times(2)).employeeOnShift(true, e.getId());
+    verify(workingShiftService).employeeOnShiftInDatabase(true, e.getId());
+    verify(workingShiftService, never()).employeeOnShift(anyBoolean(), anyLong());
+    verify(workingShiftService).arrivalEmployeeOnShift(e);
   }
   
   @Test
   void checkInEmployee_WithShiftEmployee_ShouldNotUpdateShiftAndReturnShortEmployeeDto() {
     //when
     when(employeeRepository.findById(employeeId)).thenReturn(Optional.of(e));
-    when(workingShiftService.employeeOnShift(true, e.getId())).thenReturn(true);
+    when(workingShiftService.employeeOnShiftInDatabase(true, e.getId())).thenReturn(true);
     
     ShortEmployeeDto result = employeeService.checkInEmployee(employeeId);
     
@@ -244,14 +256,16 @@ class EmployeeServiceTest {
     assertEquals(lastName, result.lastName());
     assertTrue(result.onShift());
     
-    verify(workingShiftService, times(2)).employeeOnShift(true, e.getId());
+    verify(workingShiftService).employeeOnShiftInDatabase(true, e.getId());
+    verify(workingShiftService, never()).employeeOnShift(anyBoolean(), anyLong());
+    verify(workingShiftService, never()).arrivalEmployeeOnShift(any());
   }
   
   @Test
   void departureEmployee_WithShiftEmployee_ShouldUpdateTimeControlAndReturnShortEmployeeDto() {
     //when
     when(employeeRepository.findById(employeeId)).thenReturn(Optional.of(e));
-    when(workingShiftService.employeeOnShift(true, e.getId())).thenReturn(true);
+    when(workingShiftService.employeeOnShiftInDatabase(true, e.getId())).thenReturn(true);
     
     ShortEmployeeDto result = employeeService.departureEmployee(employeeId);
     
@@ -260,16 +274,18 @@ class EmployeeServiceTest {
     assertEquals(employeeId, result.id());
     assertEquals(firstName, result.firstName());
     assertEquals(lastName, result.lastName());
-    assertTrue(result.onShift());
+    assertFalse(result.onShift());
     
-    verify(workingShiftService, times(2)).employeeOnShift(true, e.getId());
+    verify(workingShiftService).employeeOnShiftInDatabase(true, e.getId());
+    verify(workingShiftService, never()).employeeOnShift(anyBoolean(), anyLong());
+    verify(timeControlService).updateTimeControlForDeparture(eq(employeeId), any(LocalDateTime.class));
   }
   
   @Test
   void departureEmployee_WithNonShiftEmployee_ShouldNotUpdateTimeControlAndReturnShortEmployeeDto() {
     //when
     when(employeeRepository.findById(employeeId)).thenReturn(Optional.of(e));
-    when(workingShiftService.employeeOnShift(true, e.getId())).thenReturn(false);
+    when(workingShiftService.employeeOnShiftInDatabase(true, e.getId())).thenReturn(false);
     
     ShortEmployeeDto result = employeeService.departureEmployee(employeeId);
     
@@ -280,7 +296,8 @@ class EmployeeServiceTest {
     assertEquals(lastName, result.lastName());
     assertFalse(result.onShift());
     
-    verify(workingShiftService, times(2)).employeeOnShift(true, e.getId());
+    verify(workingShiftService).employeeOnShiftInDatabase(true, e.getId());
+    verify(workingShiftService, never()).employeeOnShift(anyBoolean(), anyLong());
     verify(timeControlService, never()).updateTimeControlForDeparture(anyLong(), any(LocalDateTime.class));
   }
   
@@ -452,6 +469,26 @@ class EmployeeServiceTest {
     verify(pageToPageDtoMapper, times(1)).employeePageToPageDto(employeePageResult);
   }
   
+  @Test
+  void testGetEmployeeDtoPageAfter() {
+    //given
+    Sort sort = Sort.by("lastName", "firstName");
+    List<Long> typeWorkId = Arrays.asList(1L, 2L);
+    KeysetSlice<Employee> slice = new KeysetSlice<>(List.of(new Employee()), "cursor");
+    PageDto<EmployeeDto> expectedPageDto = new PageDto<>(Collections.emptyList(), "cursor");
+    
+    when(keysetRepository.findSlice(eq(Employee.class), any(), eq(sort), eq("after"), eq(10)))
+        .thenReturn(slice);
+    when(pageToPageDtoMapper.sliceToPageDto(slice, employeeDtoMapper)).thenReturn(expectedPageDto);
+    
+    PageDto<EmployeeDto> result =
+        employeeService.getEmployeeDtoPageAfter(sort, 10, "after", typeWorkId, true);
+    
+    //then
+    assertEquals(expectedPageDto, result);
+    verify(employeeRepository, never()).findAll(any(Pageable.class));
+  }
+  
   @Test
   void testGetEmployeeDtoByListId() {
     //given
@@ -498,6 +535,7 @@ class EmployeeServiceTest {
     //then
     verify(spyEmployeeService, times(1)).getEmployeeById(dto.employeeId());
     verify(employeeRepository, times(1)).save(e);
+    verify(reportResultCache, times(1)).invalidate();
   }
   
   @Test
@@ -15,7 +15,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -36,6 +38,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import ru.trae.backend.dto.Credentials;
 import ru.trae.backend.dto.PageDto;
@@ -49,9 +52,12 @@ import ru.trae.backend.dto.manager.ManagerRegisterDto;
 import ru.trae.backend.dto.manager.ManagerShortDto;
 import ru.trae.backend.dto.manager.ResetPassResp;
 import ru.trae.backend.dto.mapper.ManagerDtoMapper;
+import ru.trae.backend.dto.mapper.ManagerShortDtoMapper;
 import ru.trae.backend.dto.mapper.PageToPageDtoMapper;
 import ru.trae.backend.entity.user.Manager;
 import ru.trae.backend.exceptionhandler.exception.ManagerException;
+import ru.trae.backend.repository.KeysetRepository;
+import ru.trae.backend.repository.KeysetSlice;
 import ru.trae.backend.repository.ManagerRepository;
 import ru.trae.backend.util.Role;
 import ru.trae.backend.util.jwt.JwtUtil;
@@ -68,6 +74,10 @@ class ManagerServiceTest {
   private BCryptPasswordEncoder encoder;
   @Mock
   private JwtUtil jwtUtil;
+  @Mock
+  private ManagerShortDtoMapper managerShortDtoMapper;
+  @Mock
+  private KeysetRepository keysetRepository;
   @InjectMocks
   private ManagerService managerService;
   Manager m = new Manager();
@@ -250,6 +260,26 @@ class ManagerServiceTest {
     assertThat(pageDto).isEqualTo(expectedPageDto);
   }
 
+  @Test
+  void testGetManagerDtoPageAfter() {
+    // given
+    Sort sort = Sort.by("lastName", "firstName");
+    KeysetSlice<Manager> slice = new KeysetSlice<>(List.of(new Manager()), null);
+    PageDto<ManagerShortDto> expectedPageDto = new PageDto<>(List.of(), null);
+
+    // when
+    when(keysetRepository.findSlice(eq(Manager.class), any(), eq(sort), eq(""), eq(10)))
+        .thenReturn(slice);
+    when(pageToPageDtoMapper.sliceToPageDto(slice, managerShortDtoMapper))
+        .thenReturn(expectedPageDto);
+
+    PageDto<ManagerShortDto> pageDto =
+        managerService.getManagerDtoPageAfter(sort, 10, "", role, status);
+
+    // then
+    assertThat(pageDto).isEqualTo(expectedPageDto);
+  }
+
   @Test
   void shouldResetPassword() {
     // given
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.trae.backend.dto.operation.ReceiveOpReq;
+import ru.trae.backend.exceptionhandler.exception.OperationException;
+import ru.trae.backend.repository.JpaSliceTest;
+
+/**
+ * Stress test of the operation acceptance: every ready operation is received at the same time
+ * by several employees from many threads. Exactly one employee must get each operation, all the
+ * others must get the status 409. The throughput of the acceptance is logged.
+ * Requires a local PostgreSQL, for example:
+ * {@code TRAE_BENCH_PG_URL=jdbc:postgresql://localhost:5444/devTraeDB TRAE_BENCH_PG_USER=trae_dev
+ * TRAE_BENCH_PG_PASS=dev mvn test -Dtest=OperationAcceptanceStressTest}.
+ * The data is created in a separate schema, which is dropped after the run.
+ */
+@DataJpaTest(properties = {
+    "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml",
+    "spring.liquibase.default-schema=" + OperationAcceptanceStressTest.SCHEMA,
+    "spring.datasource.hikari.schema=" + OperationAcceptanceStressTest.SCHEMA,
+    "spring.datasource.hikari.maximum-pool-size=" + OperationAcceptanceStressTest.THREADS})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(OperationService.class)
+@EnabledIfEnvironmentVariable(named = "TRAE_BENCH_PG_URL", matches = ".+")
+class OperationAcceptanceStressTest extends JpaSliceTest {
+  static final String SCHEMA = "trae_acceptance_stress";
+  static final int THREADS = 32;
+  private static final Logger log = LoggerFactory.getLogger(OperationAcceptanceStressTest.class);
+  private static final int OPERATIONS = 200;
+  private static final int EMPLOYEES_PER_OPERATION = 8;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private OperationService operationService;
+  private List<Long> operationIds;
+  private List<Long> employeeIds;
+
+  @DynamicPropertySource
+  static void datasourceProperties(DynamicPropertyRegistry registry) throws SQLException {
+    usePostgresSchema(registry, SCHEMA);
+  }
+
+  @AfterAll
+  static void dropSchema() throws SQLException {
+    dropPostgresSchema(SCHEMA);
+  }
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.execute("delete from operations");
+    jdbcTemplate.execute("delete from projects");
+    jdbcTemplate.execute("delete from employees_type_works");
+    jdbcTemplate.execute("delete from employees");
+    jdbcTemplate.execute("delete from managers");
+
+    jdbcTemplate.execute("""
+        insert into managers (date_of_register, date_of_employment, first_name, last_name,
+                              password, role, username, account_non_expired,
+                              account_non_locked, credentials_non_expired, enabled)
+        values (current_date, current_date, 'Иван', 'Иванов', 'password', 0, 'manager',
+                true, true, true, true)""");
+    jdbcTemplate.execute("insert into employees (date_of_register, date_of_employment, "
+        + "first_name, last_name, is_active, pin_code) "
+        + "select current_date, current_date, 'Петр', 'Петров ' || g, true, 100 + g "
+        + "from generate_series(1, " + EMPLOYEES_PER_OPERATION + ") g");
+    jdbcTemplate.execute("""
+        insert into employees_type_works (employee_id, type_works_id)
+        select e.id, 2 from employees e""");
+    jdbcTemplate.execute("""
+        insert into projects (is_ended, name, period, operation_period, start_date,
+                              end_date_in_contract, planned_end_date, customer, number,
+                              manager_id)
+        values (false, 'Изделие', 8760, 24, now(), now() + interval '1 year',
+                now() + interval '1 year', 'ООО', 1, (select min(id) from managers))""");
+    jdbcTemplate.execute("insert into operations (is_ended, name, period, planned_end_date, "
+        + "start_date, in_work, priority, ready_to_acceptance, state, project_id, type_work_id) "
+        + "select false, 'Операция ' || g, 24, now() + interval '1 day', now(), false, g, true, "
+        + "'READY_TO_ACCEPTANCE', (select min(id) from projects), 2 "
+        + "from generate_series(1, " + OPERATIONS + ") g");
+
+    operationIds = jdbcTemplate.queryForList("select id from operations", Long.class);
+    employeeIds = jdbcTemplate.queryForList("select id from employees", Long.class);
+  }
+
+  @Test
+  void receiveOperation_ConcurrentClaims_ShouldHaveExactlyOneWinner() throws Exception {
+    List<ReceiveOpReq> claims = new ArrayList<>();
+    for (long operationId : operationIds) {
+      for (long employeeId : employeeIds) {
+        claims.add(new ReceiveOpReq(operationId, 0, employeeId));
+      }
+    }
+    Collections.shuffle(claims);
+
+    Map<Long, Long> winners = new ConcurrentHashMap<>();
+    Map<Long, Long> doubleWinners = new ConcurrentHashMap<>();
+    AtomicInteger conflicts = new AtomicInteger();
+    ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+    CountDownLatch startGate = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    for (ReceiveOpReq claim : claims) {
+      executor.execute(() -> {
+        try {
+          startGate.await();
+          operationService.receiveOperation(claim);
+          Long previous = winners.putIfAbsent(claim.operationId(), claim.employeeId());
+          if (previous != null) {
+            doubleWinners.put(claim.operationId(), claim.employeeId());
+          }
+        } catch (OperationException e) {
+          if (e.getStatus() == HttpStatus.CONFLICT) {
+            conflicts.incrementAndGet();
+          } else {
+            unexpected.add(e);
+          }
+        } catch (Throwable e) {
+          unexpected.add(e);
+        }
+      });
+    }
+
+    long start = System.nanoTime();
+    startGate.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES), "claims have not been finished");
+    double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+    log.info("{} concurrent claims of {} operations by {} threads: {} ms, {} claims/s",
+        claims.size(), OPERATIONS, THREADS, String.format("%.1f", seconds * 1000),
+        String.format("%.0f", claims.size() / seconds));
+
+    assertTrue(unexpected.isEmpty(), () -> "unexpected errors: " + unexpected);
+    assertTrue(doubleWinners.isEmpty(), () -> "operations received twice: " + doubleWinners);
+    assertEquals(OPERATIONS, winners.size());
+    assertEquals(OPERATIONS * (EMPLOYEES_PER_OPERATION - 1), conflicts.get());
+
+    //в базе у каждой операции ровно тот сотрудник, который выиграл гонку
+    jdbcTemplate.query("select id, employee_id, state from operations", rs -> {
+      assertEquals("IN_WORK", rs.getString("state"));
+      assertEquals(winners.get(rs.getLong("id")), rs.getLong("employee_id"));
+    });
+    assertNull(jdbcTemplate.queryForObject(
+        "select min(id) from operations where state <> 'IN_WORK'", Long.class));
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static ru.trae.backend.factory.OperationFactory.SHIPMENT_TYPE_WORK_ID;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import ru.trae.backend.dto.operation.BulkOperationReq;
+import ru.trae.backend.dto.operation.BulkOperationResultDto;
+import ru.trae.backend.exceptionhandler.exception.OperationException;
+import ru.trae.backend.projection.OperationBulkRowDto;
+import ru.trae.backend.repository.OperationRepository;
+import ru.trae.backend.util.BulkOperationAction;
+import ru.trae.backend.util.BulkOperationStatus;
+import ru.trae.backend.util.OperationEventType;
+import ru.trae.backend.util.OperationState;
+
+@ExtendWith(MockitoExtension.class)
+class OperationBulkActionServiceTest {
+  private static final LocalDateTime PROJECT_END = LocalDateTime.of(2030, 1, 1, 0, 0);
+  @Mock
+  private OperationRepository operationRepository;
+  @Mock
+  private OperationService operationService;
+  @Mock
+  private ProjectService projectService;
+  @Mock
+  private ProjectListStateService projectListStateService;
+  @Mock
+  private OperationEventWriter operationEventWriter;
+  @InjectMocks
+  private OperationBulkActionService operationBulkActionService;
+
+  @Test
+  void applyAction_Close_ShouldReportEveryIdAndAdvanceEachProjectOnce() {
+    //given
+    List<Long> ids = List.of(1L, 2L, 3L, 4L, 1L);
+    when(operationRepository.findForBulkActionByIds(List.of(1L, 2L, 3L, 4L))).thenReturn(List.of(
+        row(1, 10, OperationState.READY_TO_ACCEPTANCE, 10),
+        row(2, 10, OperationState.IN_WORK, 20),
+        row(3, 20, OperationState.WAITING, 30)));
+    when(operationRepository.updateStateToEndedByIdsIfReadyToAcceptanceOrInWork(
+        eq(List.of(1L, 2L)), any())).thenReturn(2);
+
+    //when
+    List<BulkOperationResultDto> results = operationBulkActionService.applyAction(
+        new BulkOperationReq(BulkOperationAction.CLOSE, ids));
+
+    //then
+    assertEquals(List.of(1L, 2L, 3L, 4L),
+        results.stream().map(BulkOperationResultDto::operationId).toList());
+    assertEquals(List.of(BulkOperationStatus.DONE, BulkOperationStatus.DONE,
+            BulkOperationStatus.REJECTED, BulkOperationStatus.NOT_FOUND),
+        results.stream().map(BulkOperationResultDto::status).toList());
+    verify(operationService).startNextOperation(10L, 24, 20);
+    verify(operationService, never()).startNextOperation(eq(20L), anyInt(), anyInt());
+    verify(projectService).shiftPlannedEndDate(10L, PROJECT_END, 10);
+    verify(projectService, never()).shiftPlannedEndDate(eq(20L), any(), anyLong());
+    verify(projectListStateService).refresh(argThat(c -> Set.copyOf(c).equals(Set.of(10L))));
+  }
+
+  @Test
+  void applyAction_Delete_ShouldMovePlannedEndDateOncePerProject() {
+    //given
+    when(operationRepository.findForBulkActionByIds(List.of(1L, 2L, 3L, 4L))).thenReturn(List.of(
+        row(1, 10, OperationState.WAITING, 10),
+        row(2, 10, OperationState.WAITING, 20),
+        row(3, 10, OperationState.IN_WORK, 0),
+        shipment(4, 10, 30)));
+    when(operationRepository.deleteByIdsIfWaitingAndNotTypeWork(
+        List.of(1L, 2L), SHIPMENT_TYPE_WORK_ID)).thenReturn(2);
+
+    //when
+    List<BulkOperationResultDto> results = operationBulkActionService.applyAction(
+        new BulkOperationReq(BulkOperationAction.DELETE, List.of(1L, 2L, 3L, 4L)));
+
+    //then
+    assertEquals(List.of(BulkOperationStatus.DONE, BulkOperationStatus.DONE,
+            BulkOperationStatus.REJECTED, BulkOperationStatus.REJECTED),
+        results.stream().map(BulkOperationResultDto::status).toList());
+    verify(projectService).shiftPlannedEndDate(10L, PROJECT_END, -48);
+    verify(operationEventWriter).append(OperationEventType.DELETED, 1L, 10L, null, null);
+    verify(operationEventWriter).append(OperationEventType.DELETED, 2L, 10L, null, null);
+    verify(projectListStateService).refresh(argThat(c -> Set.copyOf(c).equals(Set.of(10L))));
+    verifyNoInteractions(operationService);
+  }
+
+  @Test
+  void applyAction_WhenNothingAccepted_ShouldNotUpdateAnything() {
+    //given
+    when(operationRepository.findForBulkActionByIds(List.of(1L))).thenReturn(
+        List.of(row(1, 10, OperationState.ENDED, 10)));
+
+    //when
+    List<BulkOperationResultDto> results = operationBulkActionService.applyAction(
+        new BulkOperationReq(BulkOperationAction.CLOSE, List.of(1L)));
+
+    //then
+    assertEquals(BulkOperationStatus.REJECTED, results.get(0).status());
+    verify(operationRepository, never())
+        .updateStateToEndedByIdsIfReadyToAcceptanceOrInWork(anyCollection(), any());
+    verifyNoInteractions(projectService);
+    verifyNoInteractions(projectListStateService);
+  }
+
+  @Test
+  void applyAction_WhenOperationsChangedConcurrently_ShouldThrowConflict() {
+    //given
+    when(operationRepository.findForBulkActionByIds(List.of(1L))).thenReturn(
+        List.of(row(1, 10, OperationState.WAITING, 10)));
+    when(operationRepository.deleteByIdsIfWaitingAndNotTypeWork(
+        List.of(1L), SHIPMENT_TYPE_WORK_ID)).thenReturn(0);
+    BulkOperationReq req = new BulkOperationReq(BulkOperationAction.DELETE, List.of(1L));
+
+    //when
+    OperationException e = assertThrows(OperationException.class,
+        () -> operationBulkActionService.applyAction(req));
+
+    //then
+    assertEquals(HttpStatus.CONFLICT, e.getStatus());
+    verifyNoInteractions(projectListStateService);
+  }
+
+  private OperationBulkRowDto row(long id, long projectId, OperationState state, int priority) {
+    return new Row(id, projectId, state, 2, priority,
+        state == OperationState.WAITING ? null : LocalDateTime.now().minusHours(5));
+  }
+
+  private OperationBulkRowDto shipment(long id, long projectId, int priority) {
+    return new Row(id, projectId, OperationState.WAITING, SHIPMENT_TYPE_WORK_ID, priority, null);
+  }
+
+  private record Row(long id, long projectId, OperationState state, long typeWorkId,
+                     int priority, LocalDateTime plannedEndDate) implements OperationBulkRowDto {
+    @Override
+    public long getId() {
+      return id;
+    }
+
+    @Override
+    public long getProjectId() {
+      return projectId;
+    }
+
+    @Override
+    public OperationState getState() {
+      return state;
+    }
+
+    @Override
+    public long getTypeWorkId() {
+      return typeWorkId;
+    }
+
+    @Override
+    public int getPriority() {
+      return priority;
+    }
+
+    @Override
+    public LocalDateTime getPlannedEndDate() {
+      return plannedEndDate;
+    }
+
+    @Override
+    public int getOperationPeriod() {
+      return 24;
+    }
+
+    @Override
+    public LocalDateTime getProjectPlannedEndDate() {
+      return PROJECT_END;
+    }
+  }
+}
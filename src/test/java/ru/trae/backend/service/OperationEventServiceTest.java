@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.trae.backend.dto.event.OperationEventPageDto;
+import ru.trae.backend.dto.mapper.OperationEventDtoMapper;
+import ru.trae.backend.entity.OperationEvent;
+import ru.trae.backend.repository.OperationEventRepository;
+import ru.trae.backend.util.OperationEventType;
+
+@ExtendWith(MockitoExtension.class)
+class OperationEventServiceTest {
+  @Mock
+  private OperationEventRepository operationEventRepository;
+  @Spy
+  private OperationEventDtoMapper operationEventDtoMapper;
+  @InjectMocks
+  private OperationEventService operationEventService;
+
+  @Test
+  void getEventsAfter_ShouldReturnEventsAndIdOfLastEventAsCursor() {
+    //given
+    when(operationEventRepository.findAfter(10L, PageRequest.of(0, 2)))
+        .thenReturn(List.of(event(11L), event(15L)));
+
+    //when
+    OperationEventPageDto page = operationEventService.getEventsAfter(10L, 2);
+
+    //then
+    assertEquals(2, page.events().size());
+    assertEquals(OperationEventType.RECEIVED, page.events().get(0).type());
+    assertEquals(15L, page.cursor());
+  }
+
+  @Test
+  void getEventsAfter_WhenNoNewEvents_ShouldReturnRequestedCursor() {
+    //given
+    when(operationEventRepository.findAfter(15L, PageRequest.of(0, 100))).thenReturn(List.of());
+
+    //when
+    OperationEventPageDto page = operationEventService.getEventsAfter(15L, 100);
+
+    //then
+    assertEquals(List.of(), page.events());
+    assertEquals(15L, page.cursor());
+  }
+
+  private OperationEvent event(long id) {
+    OperationEvent e = new OperationEvent();
+    e.setId(id);
+    e.setType(OperationEventType.RECEIVED);
+    e.setOperationId(1L);
+    e.setProjectId(2L);
+    e.setEmployeeId(3L);
+    e.setCreatedAt(LocalDateTime.now());
+    return e;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.trae.backend.entity.OperationEvent;
+import ru.trae.backend.repository.OperationEventRepository;
+import ru.trae.backend.util.OperationEventType;
+
+@ExtendWith(MockitoExtension.class)
+class OperationEventWriterTest {
+  private static final int BATCH_SIZE = 3;
+  @Mock
+  private OperationEventRepository operationEventRepository;
+  private OperationEventWriter operationEventWriter;
+  private final List<List<Long>> writtenBatches = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    operationEventWriter = new OperationEventWriter(
+        operationEventRepository, BATCH_SIZE, Duration.ofMillis(50));
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    operationEventWriter.stop();
+  }
+
+  @Test
+  void append_ShouldWriteEventsInBatchesInOrderOfAppending() throws InterruptedException {
+    //given
+    doAnswer(invocation -> {
+      List<OperationEvent> batch = invocation.getArgument(0);
+      synchronized (writtenBatches) {
+        writtenBatches.add(batch.stream().map(OperationEvent::getOperationId).toList());
+      }
+      return null;
+    }).when(operationEventRepository).appendAll(anyList());
+
+    //when
+    for (long i = 1; i <= 7; i++) {
+      operationEventWriter.append(OperationEventType.CREATED, i, 1L, null, null);
+    }
+    operationEventWriter.start();
+    operationEventWriter.stop();
+
+    //then
+    assertEquals(7, operationEventWriter.getWrittenCount());
+    synchronized (writtenBatches) {
+      assertTrue(writtenBatches.stream().allMatch(b -> b.size() <= BATCH_SIZE),
+          writtenBatches::toString);
+      assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L),
+          writtenBatches.stream().flatMap(List::stream).toList());
+    }
+  }
+
+  @Test
+  void append_WhenBatchIsNotFull_ShouldWriteAfterFlushInterval() {
+    //given
+    operationEventWriter.start();
+
+    //when
+    operationEventWriter.append(OperationEventType.RECEIVED, 1L, 1L, 2L, null);
+
+    //then
+    verify(operationEventRepository, timeout(2000)).appendAll(anyList());
+  }
+
+  @Test
+  void append_InTransaction_ShouldQueueEventOnlyAfterCommit() {
+    //given
+    operationEventWriter.start();
+    TransactionSynchronizationManager.initSynchronization();
+    List<TransactionSynchronization> synchronizations;
+    try {
+      //when
+      operationEventWriter.append(OperationEventType.CLOSED, 1L, 1L, null, null);
+      synchronizations = TransactionSynchronizationManager.getSynchronizations();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    //then
+    verify(operationEventRepository, after(200).never()).appendAll(anyList());
+    synchronizations.forEach(TransactionSynchronization::afterCommit);
+    verify(operationEventRepository, timeout(2000)).appendAll(anyList());
+  }
+
+  @Test
+  void append_WhenWriteFails_ShouldRetryBatch() {
+    //given
+    doThrow(new DataAccessResourceFailureException("connection refused"))
+        .doNothing()
+        .when(operationEventRepository).appendAll(anyList());
+    operationEventWriter.start();
+
+    //when
+    operationEventWriter.append(OperationEventType.FINISHED, 1L, 1L, 2L, null);
+
+    //then
+    verify(operationEventRepository, timeout(2000).times(2)).appendAll(anyList());
+    assertEquals(0, operationEventWriter.getLostCount());
+  }
+
+  @Test
+  void append_WhenQueueIsFull_ShouldCountEventAsLostWithoutBlocking() {
+    //given
+    for (long i = 0; i < OperationEventWriter.QUEUE_CAPACITY; i++) {
+      operationEventWriter.append(OperationEventType.CREATED, i, 1L, null, null);
+    }
+
+    //when
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+        operationEventWriter.append(OperationEventType.CREATED, 0L, 1L, null, null));
+
+    //then
+    assertEquals(1, operationEventWriter.getLostCount());
+    verify(operationEventRepository, never()).appendAll(anyList());
+  }
+
+  @Test
+  void stop_WhenNotStarted_ShouldNotWrite() throws InterruptedException {
+    operationEventWriter.stop();
+
+    verify(operationEventRepository, never()).appendAll(anyList());
+  }
+}
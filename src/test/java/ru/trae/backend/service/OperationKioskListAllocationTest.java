@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.trae.backend.dto.operation.OperationForEmpDto;
+import ru.trae.backend.dto.operation.OperationInWorkForEmpDto;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.repository.JpaSliceTest;
+import ru.trae.backend.util.OperationState;
+
+/**
+ * Checks the operation lists of the employee kiosk: each list is built by one query ordered
+ * in SQL, without loading the entities into the persistence context. Also logs the heap
+ * allocated per request by the former entity-based lists and by the projections.
+ */
+@Import(OperationService.class)
+class OperationKioskListAllocationTest extends JpaSliceTest {
+  private static final Logger log =
+      LoggerFactory.getLogger(OperationKioskListAllocationTest.class);
+  private static final int PROJECTS = 30;
+  private static final int OPERATIONS_PER_PROJECT = 20;
+  private static final int RUNS = 25;
+  @Autowired
+  private OperationService operationService;
+  private Statistics statistics;
+  private long projectId;
+  private long employeeId;
+
+  @BeforeEach
+  void setUp() {
+    Manager manager = persistManager();
+    TypeWork typeWork = persistTypeWork("type work");
+    Employee employee = persistEmployee(100, "Петр", "Петров", typeWork);
+    employeeId = employee.getId();
+
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < PROJECTS; i++) {
+      Project p = persistProject(manager, i + 1, now);
+      if (i == 0) {
+        projectId = p.getId();
+      }
+
+      //приоритеты вставляются в обратном порядке, сортировка выполняется запросом
+      for (int j = OPERATIONS_PER_PROJECT - 1; j >= 0; j--) {
+        Operation o = persistOperation(p, typeWork, j * 10);
+        o.setState(j < 2 ? OperationState.ENDED
+            : j == 2 ? OperationState.IN_WORK : OperationState.WAITING);
+        if (j <= 2) {
+          o.setEmployee(employee);
+          o.setAcceptanceDate(now.minusHours(PROJECTS - i));
+        }
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = statistics();
+    statistics.clear();
+  }
+
+  @Test
+  void getOperationsByProjectIdForEmp_ShouldUseOneQueryOrderedByPriority() {
+    List<OperationForEmpDto> operations =
+        operationService.getOperationsByProjectIdForEmp(projectId);
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, persistenceContextSize());
+    assertEquals(OPERATIONS_PER_PROJECT, operations.size());
+    for (int i = 0; i < operations.size(); i++) {
+      assertEquals(i * 10, operations.get(i).priority());
+    }
+    assertEquals("Петров", operations.get(2).employeeLastName());
+    assertTrue(operations.get(2).inWork());
+    assertTrue(operations.get(0).isEnded());
+    assertNull(operations.get(3).employeeFirstName());
+  }
+
+  @Test
+  void getOperationsInWorkByEmpIdForEmp_ShouldUseOneQueryOrderedByAcceptanceDate() {
+    List<OperationInWorkForEmpDto> operations =
+        operationService.getOperationsInWorkByEmpIdForEmp(employeeId);
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, persistenceContextSize());
+    assertEquals(PROJECTS, operations.size());
+    assertEquals(List.of(1L, 2L, 3L), operations.stream()
+        .limit(3)
+        .map(OperationInWorkForEmpDto::projectNumber)
+        .toList());
+    assertEquals("operation 20", operations.get(0).operationName());
+    assertEquals("customer 1", operations.get(0).customerLastName());
+  }
+
+  @Test
+  void kioskLists_ShouldAllocateLessThanEntityLists() {
+    long entityByProject = medianAllocatedBytes(() -> entityOperationsByProjectId(projectId));
+    long projectionByProject = medianAllocatedBytes(
+        () -> operationService.getOperationsByProjectIdForEmp(projectId));
+    long entityInWork = medianAllocatedBytes(() -> entityOperationsInWork(employeeId));
+    long projectionInWork = medianAllocatedBytes(
+        () -> operationService.getOperationsInWorkByEmpIdForEmp(employeeId));
+
+    log.info("operations of the project: {} KB with entities, {} KB with projection",
+        entityByProject / 1024, projectionByProject / 1024);
+    log.info("operations in work: {} KB with entities, {} KB with projection",
+        entityInWork / 1024, projectionInWork / 1024);
+    assertTrue(projectionByProject < entityByProject,
+        projectionByProject + " >= " + entityByProject);
+    assertTrue(projectionInWork < entityInWork, projectionInWork + " >= " + entityInWork);
+  }
+
+  //прежняя реализация: загрузка сущностей операций с проектами и сортировка в Java
+  private List<OperationForEmpDto> entityOperationsByProjectId(long id) {
+    return entityManager.getEntityManager()
+        .createQuery("select o from Operation o where o.project.id = ?1", Operation.class)
+        .setParameter(1, id)
+        .getResultList()
+        .stream()
+        .sorted((o1, o2) -> Integer.compare(o1.getPriority(), o2.getPriority()))
+        .map(o -> new OperationForEmpDto(o.getId(), o.getPriority(), o.getName(),
+            o.isReadyToAcceptance(), o.isEnded(), o.isInWork(),
+            o.getEmployee() == null ? null : o.getEmployee().getFirstName(),
+            o.getEmployee() == null ? null : o.getEmployee().getLastName()))
+        .toList();
+  }
+
+  private List<OperationInWorkForEmpDto> entityOperationsInWork(long id) {
+    return entityManager.getEntityManager()
+        .createQuery("select o from Operation o where o.inWork = true and o.employee.id = ?1 "
+            + "order by o.acceptanceDate", Operation.class)
+        .setParameter(1, id)
+        .getResultList()
+        .stream()
+        .map(o -> new OperationInWorkForEmpDto(o.getId(), o.getProject().getId(),
+            o.getProject().getNumber(), o.getProject().getName(), o.getName(),
+            o.getProject().getCustomer()))
+        .toList();
+  }
+
+  private long medianAllocatedBytes(Supplier<List<?>> request) {
+    com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long[] allocated = new long[RUNS];
+    //первый прогон прогревает Hibernate и не учитывается
+    request.get();
+    entityManager.clear();
+    for (int i = 0; i < RUNS; i++) {
+      long before = threadBean.getThreadAllocatedBytes(threadId);
+      request.get();
+      allocated[i] = threadBean.getThreadAllocatedBytes(threadId) - before;
+      //каждый запрос киоска выполняется в новом контексте персистентности
+      entityManager.clear();
+    }
+    Arrays.sort(allocated);
+    return allocated[RUNS / 2];
+  }
+}
@@ -13,27 +13,29 @@ package ru.trae.backend.service;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,12 +45,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import ru.trae.backend.dto.operation.InsertingOperationDto;
 import ru.trae.backend.dto.operation.NewOperationDto;
 import ru.trae.backend.dto.operation.OperationForEmpDto;
 import ru.trae.backend.dto.operation.OperationInWorkForEmpDto;
 import ru.trae.backend.dto.operation.ReceiveOpReq;
+import ru.trae.backend.dto.report.OperationDeadlineRowDto;
 import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.entity.task.Operation;
 import ru.trae.backend.entity.task.Project;
@@ -58,6 +64,8 @@ import ru.trae.backend.exceptionhandler.exception.ProjectException;
 import ru.trae.backend.factory.OperationFactory;
 import ru.trae.backend.projection.OperationIdNameProjectNumberDto;
 import ru.trae.backend.repository.OperationRepository;
+import ru.trae.backend.util.OperationEventType;
+import ru.trae.backend.util.OperationState;
 
 @ExtendWith(MockitoExtension.class)
 class OperationServiceTest {
@@ -67,11 +75,18 @@ class OperationServiceTest {
   private OperationFactory operationFactory;
   @Mock
   private EmployeeService employeeService;
+  @Mock
+  private ProjectListStateService projectListStateService;
+  @Mock
+  private TypeWorkService typeWorkService;
+  @Mock
+  private OperationEventWriter operationEventWriter;
   @InjectMocks
   private OperationService operationService;
   private Employee e;
   private Project p;
   private Operation o;
+  private TypeWork tw;
   private LocalDateTime plannedEndDate = LocalDateTime.now().plusHours(60);
   private Long operationId = 1L;
   private int opPeriod = 60;
@@ -86,7 +101,7 @@ class OperationServiceTest {
     p.setId(1L);
     p.setEnded(false);
     
-    TypeWork tw = new TypeWork();
+    tw = new TypeWork();
     tw.setId(typeWorkId);
     tw.setActive(true);
     
@@ -142,7 +157,8 @@ class OperationServiceTest {
     operationService.saveNewOperations(p, operations);
     
     //then
-    verify(operationRepository, Mockito.times(0)).save(any(Operation.class));
+    verify(operationRepository, never()).saveAll(any());
+    verify(typeWorkService, never()).getTypeWorksByIds(any());
   }
   
   @Test
@@ -151,71 +167,94 @@ class OperationServiceTest {
     operationService.saveNewOperations(p, null);
     
     //then
-    verify(operationRepository, Mockito.times(0)).save(any(Operation.class));
+    verify(operationRepository, never()).saveAll(any());
+    verify(typeWorkService, never()).getTypeWorksByIds(any());
   }
   
   @Test
-  void saveNewOperations_MultipleOperations_ShouldCreateOperations() {
+  void saveNewOperations_MultipleOperations_ShouldCreateOperationsByOneSave() {
     //given
-    List<NewOperationDto> operations = new ArrayList<>();
-    NewOperationDto operationDto1 = new NewOperationDto(opName, typeWorkId);
-    NewOperationDto operationDto2 = new NewOperationDto("test_operation_name2", typeWorkId);
-    operations.add(operationDto1);
-    operations.add(operationDto2);
+    TypeWork otherTw = new TypeWork();
+    otherTw.setId(2L);
+    Operation shipment = new Operation();
+    List<NewOperationDto> operations = List.of(
+        new NewOperationDto(opName, typeWorkId),
+        new NewOperationDto("test_operation_name2", 2L),
+        new NewOperationDto("test_operation_name2", typeWorkId));
     
     //when
-    when(operationFactory.create(eq(p), eq(opName), anyInt(), anyInt(), any(LocalDateTime.class), anyBoolean(), eq(typeWorkId))).thenReturn(o);
-    when(operationFactory.create(eq(p), eq("test_operation_name2"), anyInt(), anyInt(), isNull(), anyBoolean(), eq(typeWorkId))).thenReturn(o);
+    when(typeWorkService.getTypeWorksByIds(Set.of(typeWorkId, 2L)))
+        .thenReturn(Map.of(typeWorkId, tw, 2L, otherTw));
+    when(operationFactory.create(eq(p), eq(opName), anyInt(), eq(0), any(LocalDateTime.class),
+        eq(true), eq(tw))).thenReturn(o);
+    when(operationFactory.create(eq(p), eq("test_operation_name2"), eq(0), anyInt(), isNull(),
+        eq(false), any(TypeWork.class))).thenReturn(new Operation());
+    when(operationFactory.createShipmentOp(p, 30, tw)).thenReturn(shipment);
     
     operationService.saveNewOperations(p, operations);
     
     //then
-    verify(operationRepository, times(2)).save(any(Operation.class));
+    //одинаковые названия операций не должны приводить к одинаковым приоритетам
+    verify(operationFactory).create(p, "test_operation_name2", 0, 10, null, false, otherTw);
+    verify(operationFactory).create(p, "test_operation_name2", 0, 20, null, false, tw);
+    verify(typeWorkService, times(1)).getTypeWorksByIds(any());
+    verify(operationRepository).saveAll(argThat(saved -> {
+      List<Operation> list = new ArrayList<>();
+      saved.forEach(list::add);
+      return list.size() == 4 && list.get(0) == o && list.get(3) == shipment;
+    }));
+    verify(operationRepository, never()).save(any(Operation.class));
+    verify(projectListStateService).refresh(p.getId());
   }
   
   @Test
-  void saveNewOperations_OneOperation_ShouldCreateOperations() {
+  void saveNewOperations_OneOperation_ShouldCreateOperationAndShipment() {
     //given
-    List<NewOperationDto> operations = new ArrayList<>();
-    NewOperationDto operationDto1 = new NewOperationDto(opName, typeWorkId);
-    operations.add(operationDto1);
+    Operation shipment = new Operation();
+    List<NewOperationDto> operations = List.of(new NewOperationDto(opName, typeWorkId));
     
     //when
-    when(operationFactory.create(eq(p), eq(opName), anyInt(), anyInt(), any(LocalDateTime.class), anyBoolean(), eq(typeWorkId))).thenReturn(o);
+    when(typeWorkService.getTypeWorksByIds(Set.of(typeWorkId))).thenReturn(Map.of(typeWorkId, tw));
+    when(operationFactory.create(eq(p), eq(opName), anyInt(), eq(0), any(LocalDateTime.class),
+        eq(true), eq(tw))).thenReturn(o);
+    when(operationFactory.createShipmentOp(p, 10, tw)).thenReturn(shipment);
     
     operationService.saveNewOperations(p, operations);
     
     //then
-    verify(operationRepository, times(1)).save(any(Operation.class));
+    verify(operationRepository).saveAll(List.of(o, shipment));
   }
   
   @Test
-  void receiveOperation_ShouldSetOperationPropertiesAndSave() {
+  void receiveOperation_ShouldMoveOperationToInWorkByOneUpdate() {
     //given
-    o.setReadyToAcceptance(true);
     ReceiveOpReq dto = new ReceiveOpReq(employeeId, opPriority, operationId);
     
     //when
-    when(employeeService.getEmployeeById(employeeId)).thenReturn(e);
-    when(operationRepository.findById(operationId)).thenReturn(Optional.ofNullable(o));
+    when(operationRepository.updateStateToInWorkIfReadyToAcceptance(
+        eq(operationId), eq(employeeId), any(LocalDateTime.class))).thenReturn(1);
+    when(operationRepository.findProjectIdById(operationId)).thenReturn(Optional.of(p.getId()));
     
     operationService.receiveOperation(dto);
     
     //then
-    assertTrue(o.isInWork());
-    assertFalse(o.isReadyToAcceptance());
-    assertEquals(e, o.getEmployee());
-    assertNotNull(o.getAcceptanceDate());
-    verify(operationRepository).save(o);
+    verify(operationRepository, never()).findById(anyLong());
+    verify(operationRepository, never()).save(any(Operation.class));
+    verifyNoInteractions(employeeService);
+    verify(projectListStateService).refresh(p.getId());
+    verify(operationEventWriter).append(
+        OperationEventType.RECEIVED, operationId, p.getId(), employeeId, null);
   }
   
   @Test
   void receiveOperation_ShouldThrowExceptionCurrentOpNotAcceptance() {
     //given
-    o.setReadyToAcceptance(false);
+    o.setState(OperationState.WAITING);
     ReceiveOpReq dto = new ReceiveOpReq(employeeId, opPriority, operationId);
     
     //when
+    when(operationRepository.findStateById(operationId))
+        .thenReturn(Optional.of(OperationState.WAITING));
     when(employeeService.getEmployeeById(employeeId)).thenReturn(e);
     when(operationRepository.findById(operationId)).thenReturn(Optional.ofNullable(o));
     
@@ -225,6 +264,7 @@ class OperationServiceTest {
     //then
     assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
     assertEquals("The operation is currently unavailable for acceptance.", exception.getMessage());
+    verifyNoInteractions(projectListStateService);
   }
   
   @Test
@@ -232,11 +272,13 @@ class OperationServiceTest {
     //given
     TypeWork typeWork = new TypeWork();
     typeWork.setId(2L);
-    o.setReadyToAcceptance(true);
+    o.setState(OperationState.READY_TO_ACCEPTANCE);
     o.setTypeWork(typeWork);
     ReceiveOpReq dto = new ReceiveOpReq(employeeId, opPriority, operationId);
     
     //when
+    when(operationRepository.findStateById(operationId))
+        .thenReturn(Optional.of(OperationState.READY_TO_ACCEPTANCE));
     when(employeeService.getEmployeeById(employeeId)).thenReturn(e);
     when(operationRepository.findById(operationId)).thenReturn(Optional.ofNullable(o));
     
@@ -249,301 +291,281 @@ class OperationServiceTest {
   }
   
   @Test
-  void finishOperation_ShouldSetOperationPropertiesAndSave() {
+  void receiveOperation_WhenStateChangedAfterUpdate_ShouldThrowConflict() {
     //given
-    o.setEmployee(e);
-    o.setInWork(true);
-    o.setEnded(false);
-    
-    LocalDateTime previousEndDate = o.getRealEndDate();
+    o.setState(OperationState.READY_TO_ACCEPTANCE);
+    ReceiveOpReq dto = new ReceiveOpReq(employeeId, opPriority, operationId);
     
     //when
-    when(operationRepository.save(o)).thenReturn(o);
+    when(operationRepository.findStateById(operationId))
+        .thenReturn(Optional.of(OperationState.READY_TO_ACCEPTANCE));
+    when(employeeService.getEmployeeById(employeeId)).thenReturn(e);
+    when(operationRepository.findById(operationId)).thenReturn(Optional.ofNullable(o));
     
-    operationService.finishOperation(o);
+    OperationException exception = assertThrows(OperationException.class,
+        () -> operationService.receiveOperation(dto));
     
     //then
-    assertFalse(o.isInWork());
-    assertTrue(o.isEnded());
-    assertNotNull(o.getRealEndDate());
-    assertNotEquals(previousEndDate, o.getRealEndDate());
-    verify(operationRepository).save(o);
+    assertEquals(HttpStatus.CONFLICT, exception.getStatus());
   }
   
   @Test
-  void startNextOperation_WithNextOperation_ShouldSetPropertiesAndSaveWhenRemainingOpIsOne() {
+  void receiveOperation_WhenOperationAlreadyReceived_ShouldThrowConflictByState() {
     //given
-    Operation currentOperation = o;
-    currentOperation.setEnded(true);
-    List<Operation> operations = new ArrayList<>();
-    
-    Operation nextOperation = new Operation();
-    nextOperation.setPriority(10);
-    nextOperation.setProject(p);
-    
-    operations.add(currentOperation);
-    operations.add(nextOperation);
-    p.setOperations(operations);
+    ReceiveOpReq dto = new ReceiveOpReq(employeeId, opPriority, operationId);
     
     //when
-    operationService.startNextOperation(currentOperation);
+    when(operationRepository.findStateById(operationId))
+        .thenReturn(Optional.of(OperationState.IN_WORK));
+    
+    OperationException exception = assertThrows(OperationException.class,
+        () -> operationService.receiveOperation(dto));
     
     //then
-    assertTrue(nextOperation.isReadyToAcceptance());
-    assertNotNull(nextOperation.getStartDate());
-    assertEquals(24, nextOperation.getPeriod());
-    assertNotNull(nextOperation.getPlannedEndDate());
-    verify(operationRepository).save(nextOperation);
+    assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+    assertEquals("Operation with id: " + operationId + " has already been received",
+        exception.getMessage());
+    verify(operationRepository, never()).findById(anyLong());
+    verifyNoInteractions(employeeService, projectListStateService);
   }
   
   @Test
-  void startNextOperation_WithNextOperation_ShouldSetPropertiesAndSave() {
+  void receiveOperation_WhenOperationNotFound_ShouldThrowNotFound() {
     //given
-    Operation currentOperation = o;
-    currentOperation.setEnded(true);
-    List<Operation> operations = new ArrayList<>();
-    
-    p.setOperationPeriod(60);
+    ReceiveOpReq dto = new ReceiveOpReq(employeeId, opPriority, operationId);
     
-    Operation oneMoreOperation = new Operation();
-    oneMoreOperation.setPriority(20);
-    oneMoreOperation.setEnded(false);
+    //when
+    when(operationRepository.findStateById(operationId)).thenReturn(Optional.empty());
     
-    Operation nextOperation = new Operation();
-    nextOperation.setPriority(10);
-    nextOperation.setProject(p);
+    OperationException exception = assertThrows(OperationException.class,
+        () -> operationService.receiveOperation(dto));
     
-    operations.add(currentOperation);
-    operations.add(nextOperation);
-    operations.add(oneMoreOperation);
-    p.setOperations(operations);
+    //then
+    assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+  }
+  
+  @Test
+  void finishOperation_ShouldMoveOperationToEndedByOneUpdate() {
+    //given
+    o.setEmployee(e);
+    o.setState(OperationState.IN_WORK);
     
     //when
-    operationService.startNextOperation(currentOperation);
+    when(operationRepository.updateStateToEndedIfInWork(eq(operationId), eq(employeeId),
+        any(LocalDateTime.class))).thenReturn(1);
+    
+    operationService.finishOperation(o);
     
     //then
-    assertTrue(nextOperation.isReadyToAcceptance());
-    assertNotNull(nextOperation.getStartDate());
-    assertEquals(opPeriod, nextOperation.getPeriod());
-    assertNotNull(nextOperation.getPlannedEndDate());
-    verify(operationRepository).save(nextOperation);
+    verify(operationRepository).findNextIdsByProjectIdAndPriority(
+        p.getId(), opPriority, PageRequest.of(0, 1));
+    verify(operationRepository, never()).save(any(Operation.class));
+    verify(projectListStateService).refresh(p.getId());
   }
   
   @Test
-  void getOperationsByProjectIdForEmp_ShouldReturnSortedOperationForEmpDtoList() {
+  void finishOperation_WhenOperationNotInWork_ShouldThrowConflict() {
     //given
-    long projectId = 1L;
-    
-    Operation operation1 = new Operation();
-    operation1.setId(1L);
-    operation1.setPriority(2);
-    operation1.setName("test_name1");
-    operation1.setReadyToAcceptance(true);
-    operation1.setEnded(false);
-    operation1.setInWork(true);
-    operation1.setEmployee(null);
+    o.setEmployee(e);
+    o.setState(OperationState.READY_TO_ACCEPTANCE);
     
-    Operation operation2 = new Operation();
-    operation2.setId(2L);
-    operation2.setPriority(1);
-    operation2.setName("test_name2");
-    operation2.setReadyToAcceptance(false);
-    operation2.setEnded(true);
-    operation2.setInWork(false);
-    operation2.setEmployee(null);
+    OperationException exception = assertThrows(OperationException.class,
+        () -> operationService.finishOperation(o));
     
-    List<Operation> operations = new ArrayList<>();
-    operations.add(operation1);
-    operations.add(operation2);
+    //then
+    assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+    assertFalse(o.isEnded());
+    verifyNoInteractions(projectListStateService);
+  }
+  
+  @Test
+  void startNextOperation_WhenRemainingOpIsOne_ShouldStartShipmentFor24Hours() {
+    //given
+    p.setOperationPeriod(opPeriod);
     
     //when
-    when(operationRepository.findByProjectId(projectId)).thenReturn(operations);
+    when(operationRepository.findNextIdsByProjectIdAndPriority(
+        p.getId(), opPriority, PageRequest.of(0, 1))).thenReturn(List.of(2L));
+    when(operationRepository.countByProjectIdAndStateNot(p.getId(), OperationState.ENDED))
+        .thenReturn(1L);
+    when(operationRepository.updateStateToReadyToAcceptanceIfWaiting(eq(2L),
+        any(LocalDateTime.class), eq(24), any(LocalDateTime.class))).thenReturn(1);
     
-    List<OperationForEmpDto> result = operationService.getOperationsByProjectIdForEmp(projectId);
+    operationService.startNextOperation(o);
     
     //then
-    assertEquals(2, result.size());
-    assertEquals(2L, result.get(0).id());
-    assertEquals(1L, result.get(1).id());
+    verify(operationRepository).updateStateToReadyToAcceptanceIfWaiting(eq(2L),
+        any(LocalDateTime.class), eq(24), argThat(plannedEnd -> plannedEnd.isAfter(
+            LocalDateTime.now().plusHours(23))));
+    verify(operationRepository, never()).save(any(Operation.class));
+    verify(operationEventWriter).append(eq(OperationEventType.READY_TO_ACCEPTANCE), eq(2L),
+        eq(p.getId()), isNull(), any(LocalDateTime.class));
   }
   
   @Test
-  void getOperationsByProjectIdForEmp_ShouldReturnSortedOperationForEmpDtoList_WithEmployee() {
+  void startNextOperation_WhenSeveralOpsRemaining_ShouldStartNextOpForProjectOperationPeriod() {
     //given
-    long projectId = 1L;
-    e.setFirstName("test_first_name");
-    e.setLastName("test_last_name");
-    
-    Operation operation1 = new Operation();
-    operation1.setId(1L);
-    operation1.setPriority(2);
-    operation1.setName("test_name1");
-    operation1.setReadyToAcceptance(true);
-    operation1.setEnded(false);
-    operation1.setInWork(true);
-    operation1.setEmployee(e);
+    p.setOperationPeriod(opPeriod);
     
-    Operation operation2 = new Operation();
-    operation2.setId(2L);
-    operation2.setPriority(1);
-    operation2.setName("test_name2");
-    operation2.setReadyToAcceptance(false);
-    operation2.setEnded(true);
-    operation2.setInWork(false);
-    operation2.setEmployee(e);
+    //when
+    when(operationRepository.findNextIdsByProjectIdAndPriority(
+        p.getId(), opPriority, PageRequest.of(0, 1))).thenReturn(List.of(2L));
+    when(operationRepository.countByProjectIdAndStateNot(p.getId(), OperationState.ENDED))
+        .thenReturn(2L);
+    when(operationRepository.updateStateToReadyToAcceptanceIfWaiting(eq(2L),
+        any(LocalDateTime.class), eq(opPeriod), any(LocalDateTime.class))).thenReturn(1);
     
-    List<Operation> operations = new ArrayList<>();
-    operations.add(operation1);
-    operations.add(operation2);
+    operationService.startNextOperation(o);
     
+    //then
+    verify(operationRepository).updateStateToReadyToAcceptanceIfWaiting(eq(2L),
+        any(LocalDateTime.class), eq(opPeriod), any(LocalDateTime.class));
+  }
+  
+  @Test
+  void startNextOperation_WhenNoNextOperation_ShouldNotStartAnything() {
     //when
-    when(operationRepository.findByProjectId(projectId)).thenReturn(operations);
+    when(operationRepository.findNextIdsByProjectIdAndPriority(
+        p.getId(), opPriority, PageRequest.of(0, 1))).thenReturn(List.of());
     
-    List<OperationForEmpDto> result = operationService.getOperationsByProjectIdForEmp(projectId);
+    operationService.startNextOperation(o);
     
     //then
-    assertEquals(2, result.size());
-    assertEquals(2L, result.get(0).id());
-    assertEquals(1L, result.get(1).id());
-    assertEquals("test_first_name", result.get(1).employeeFirstName());
-    assertEquals("test_last_name", result.get(0).employeeLastName());
+    verify(operationRepository, never()).countByProjectIdAndStateNot(anyLong(), any());
+    verify(operationRepository, never()).updateStateToReadyToAcceptanceIfWaiting(
+        anyLong(), any(), anyInt(), any());
   }
   
   @Test
-  void getOperationsInWorkByEmpIdForEmp_ShouldReturnOperationsInWorkForEmpDtoList() {
+  void getOperationsByProjectIdForEmp_ShouldReturnProjectionOrderedByQuery() {
     //given
-    Operation operation1 = new Operation();
-    operation1.setId(1L);
-    operation1.setName("Operation 1");
+    List<OperationForEmpDto> operations = List.of(
+        new OperationForEmpDto(2L, 1, "test_name2", false, true, false,
+            "test_first_name", "test_last_name"),
+        new OperationForEmpDto(1L, 2, "test_name1", true, false, false, null, null));
     
-    Operation operation2 = new Operation();
-    operation2.setId(2L);
-    operation2.setName("Operation 2");
-    
-    Project project1 = new Project();
-    project1.setId(1L);
-    project1.setNumber(100);
-    project1.setName("Project 1");
-    project1.setCustomer("Customer 1");
-    
-    Project project2 = new Project();
-    project2.setId(2L);
-    project2.setNumber(101);
-    project2.setName("Project 2");
-    project2.setCustomer("Customer 2");
+    //when
+    when(operationRepository.findForEmpByProjectId(p.getId())).thenReturn(operations);
     
-    operation1.setProject(project1);
-    operation2.setProject(project2);
+    List<OperationForEmpDto> result = operationService.getOperationsByProjectIdForEmp(p.getId());
     
-    List<Operation> operations = new ArrayList<>();
-    operations.add(operation1);
-    operations.add(operation2);
+    //then
+    assertEquals(operations, result);
+    verify(operationRepository, never()).findById(anyLong());
+  }
+  
+  @Test
+  void getOperationsInWorkByEmpIdForEmp_ShouldReturnProjectionOrderedByQuery() {
+    //given
+    List<OperationInWorkForEmpDto> operations = List.of(
+        new OperationInWorkForEmpDto(1L, 1L, 100, "Project 1", "Operation 1", "Customer 1"),
+        new OperationInWorkForEmpDto(2L, 2L, 101, "Project 2", "Operation 2", "Customer 2"));
     
     //when
-    when(operationRepository.findByEmpIdAndInWork(employeeId)).thenReturn(operations);
+    when(operationRepository.findInWorkForEmpByEmployeeId(employeeId)).thenReturn(operations);
     
-    List<OperationInWorkForEmpDto> result = operationService.getOperationsInWorkByEmpIdForEmp(employeeId);
+    List<OperationInWorkForEmpDto> result =
+        operationService.getOperationsInWorkByEmpIdForEmp(employeeId);
     
     //then
-    assertEquals(2, result.size());
-    assertEquals(1L, result.get(0).operationId());
-    assertEquals(1L, result.get(0).projectId());
-    assertEquals(100, result.get(0).projectNumber());
-    assertEquals("Project 1", result.get(0).projectName());
-    assertEquals("Operation 1", result.get(0).operationName());
-    assertEquals("Customer 1", result.get(0).customerLastName());
-    
-    assertEquals(2L, result.get(1).operationId());
-    assertEquals(2L, result.get(1).projectId());
-    assertEquals(101, result.get(1).projectNumber());
-    assertEquals("Project 2", result.get(1).projectName());
-    assertEquals("Operation 2", result.get(1).operationName());
-    assertEquals("Customer 2", result.get(1).customerLastName());
+    assertEquals(operations, result);
   }
   
   @Test
-  void deleteOperation_WhenOperationExists_ShouldDeleteOperation() {
-    //given
-    long operationId = 1L;
-    
+  void deleteOperation_WhenOperationWaiting_ShouldDeleteOperationByOneStatement() {
     //when
-    when(operationRepository.existsById(operationId)).thenReturn(true);
-    when(operationRepository.existsByIdOrIsEndedOrInWorkOrReadyToAcceptance(
-        operationId, true, true, true)).thenReturn(false);
-    when(operationRepository.existsByTypeWorkIdEqualsShipment(operationId, 1)).thenReturn(false);
+    when(operationRepository.findProjectIdById(operationId)).thenReturn(Optional.of(p.getId()));
+    when(operationRepository.deleteByIdIfWaitingAndNotTypeWork(operationId, 1L)).thenReturn(1);
     
     operationService.deleteOperation(operationId);
     
     //then
-    verify(operationRepository).deleteById(operationId);
+    verify(operationRepository, never()).findById(anyLong());
+    verify(operationEventWriter).append(
+        OperationEventType.DELETED, operationId, p.getId(), null, null);
   }
   
-  
   @Test
   void deleteOperation_WhenOperationNotFound_ShouldThrowOperationException() {
     //when
-    when(operationRepository.existsById(operationId)).thenReturn(false);
+    when(operationRepository.findProjectIdById(operationId)).thenReturn(Optional.empty());
+    
+    OperationException exception = assertThrows(OperationException.class,
+        () -> operationService.deleteOperation(operationId));
     
     //then
-    assertThrows(OperationException.class, () -> operationService.deleteOperation(operationId));
+    assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
   }
   
   @Test
   void deleteOperation_WhenOperationInWorkOrReadyToAcceptance_ShouldThrowOperationException() {
+    //given
+    o.setState(OperationState.IN_WORK);
+    
     //when
-    when(operationRepository.existsById(operationId)).thenReturn(true);
-    when(operationRepository.existsByIdOrIsEndedOrInWorkOrReadyToAcceptance(
-        operationId, true, true, true)).thenReturn(true);
+    when(operationRepository.findProjectIdById(operationId)).thenReturn(Optional.of(p.getId()));
+    when(operationRepository.findById(operationId)).thenReturn(Optional.of(o));
+    
+    OperationException exception = assertThrows(OperationException.class,
+        () -> operationService.deleteOperation(operationId));
     
     //then
-    assertThrows(OperationException.class, () -> operationService.deleteOperation(operationId));
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    assertEquals("Operation with ID " + operationId
+        + " cannot be deleted. Operation in work or ready to acceptance", exception.getMessage());
   }
   
   @Test
   void deleteOperation_WhenOperationIsShipment_ShouldThrowOperationException() {
+    //given
+    o.setState(OperationState.WAITING);
+    
     //when
-    when(operationRepository.existsById(operationId)).thenReturn(true);
-    when(operationRepository.existsByIdOrIsEndedOrInWorkOrReadyToAcceptance(
-        operationId, true, true, true)).thenReturn(false);
-    when(operationRepository.existsByTypeWorkIdEqualsShipment(operationId, 1)).thenReturn(true);
+    when(operationRepository.findProjectIdById(operationId)).thenReturn(Optional.of(p.getId()));
+    when(operationRepository.findById(operationId)).thenReturn(Optional.of(o));
+    
+    OperationException exception = assertThrows(OperationException.class,
+        () -> operationService.deleteOperation(operationId));
     
     //then
-    assertThrows(OperationException.class, () -> operationService.deleteOperation(operationId));
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    assertTrue(exception.getMessage().contains("Shipment operation cannot be deleted"));
   }
   
   @Test
   void closeOperation_WhenOperationInWork_ShouldUpdateOperationAndStartNextOperation() {
     //given
-    o.setInWork(true);
-    o.setReadyToAcceptance(false);
+    o.setState(OperationState.IN_WORK);
     
     //when
+    when(operationRepository.updateStateToEndedIfReadyToAcceptanceOrInWork(eq(o.getId()),
+        any(LocalDateTime.class))).thenReturn(1);
     operationService.closeOperation(o);
     
     //then
-    verify(operationRepository).updateRealEndDateAndIsEndedAndReadyToAcceptanceAndInWorkById(
-        any(LocalDateTime.class), eq(true), eq(false), eq(false), eq(o.getId()));
+    verify(operationRepository).findNextIdsByProjectIdAndPriority(
+        p.getId(), opPriority, PageRequest.of(0, 1));
+    verify(projectListStateService).refresh(p.getId());
   }
   
   @Test
   void closeOperation_WhenOperationReadyToAcceptance_ShouldUpdateOperationAndStartNextOperation() {
     //given
-    o.setInWork(false);
-    o.setReadyToAcceptance(true);
+    o.setState(OperationState.READY_TO_ACCEPTANCE);
     
     //when
+    when(operationRepository.updateStateToEndedIfReadyToAcceptanceOrInWork(eq(o.getId()),
+        any(LocalDateTime.class))).thenReturn(1);
     operationService.closeOperation(o);
     
     //then
-    verify(operationRepository).updateRealEndDateAndIsEndedAndReadyToAcceptanceAndInWorkById(
-        any(LocalDateTime.class), eq(true), eq(false), eq(false), eq(o.getId()));
+    verify(projectListStateService).refresh(p.getId());
   }
   
   @Test
   void closeOperation_WhenOperationInWorkOrReadyToAcceptanceFalse_ThrowException() {
     //given
-    o.setInWork(false);
-    o.setReadyToAcceptance(false);
+    o.setState(OperationState.WAITING);
     
     OperationException operationException = assertThrows(OperationException.class,
         () -> operationService.closeOperation(o));
@@ -552,6 +574,7 @@ class OperationServiceTest {
     assertEquals(HttpStatus.BAD_REQUEST, operationException.getStatus());
     assertEquals("The operation is not yet in operation or is not available for acceptance",
         operationException.getMessage());
+    verifyNoInteractions(projectListStateService);
   }
   
   @Test
@@ -788,18 +811,18 @@ class OperationServiceTest {
   }
   
   @Test
-  void getOperationsByIds_WhenOperationIdsProvided_ShouldReturnMatchingOperations() {
+  void getDeadlineRowsByIds_WhenOperationIdsProvided_ShouldReturnMatchingOperations() {
     //given
     Set<Long> operationIds = new HashSet<>();
     operationIds.add(1L);
     operationIds.add(2L);
     
-    List<Operation> expectedOperations = new ArrayList<>();
+    List<OperationDeadlineRowDto> expectedOperations = new ArrayList<>();
     
     //when
-    when(operationRepository.findOpsByIds(operationIds)).thenReturn(expectedOperations);
+    when(operationRepository.findDeadlineRowsByIds(operationIds)).thenReturn(expectedOperations);
     
-    List<Operation> result = operationService.getOperationsByIds(operationIds);
+    List<OperationDeadlineRowDto> result = operationService.getDeadlineRowsByIds(operationIds);
     
     //then
     assertEquals(expectedOperations, result);
@@ -811,15 +834,18 @@ class OperationServiceTest {
     InsertingOperationDto dto = new InsertingOperationDto(1L, "new_op", 1L, 25);
     
     Project p = new Project();
+    p.setId(1L);
     p.setOperationPeriod(opPeriod);
     
     List<Operation> operations = new ArrayList<>();
     Operation operation1 = new Operation();
     operation1.setEnded(true);
+    operation1.setProject(p);
     operations.add(operation1);
     
     Operation operation2 = new Operation();
     operation2.setEnded(true);
+    operation2.setProject(p);
     operations.add(operation2);
     
     p.setOperations(operations);
@@ -827,6 +853,7 @@ class OperationServiceTest {
     Operation newOperation = new Operation();
     
     //when
+    when(operationFactory.createShipmentOp(p, dto.priority() + 10)).thenReturn(new Operation());
     when(operationFactory.create(eq(p), eq(dto.name()), eq(p.getOperationPeriod()), eq(dto.priority()),
         any(LocalDateTime.class), eq(true), eq(dto.typeWorkId()))).thenReturn(newOperation);
     
@@ -834,7 +861,7 @@ class OperationServiceTest {
     
     //then
     assertTrue(result);
-    verify(operationRepository).save(newOperation);
+    verify(operationRepository).saveAndFlush(newOperation);    verify(projectListStateService).refresh(1L);
   }
   
   
@@ -844,6 +871,7 @@ class OperationServiceTest {
     InsertingOperationDto dto = new InsertingOperationDto(1L, "new_op", 1L, 25);
     
     Project p = new Project();
+    p.setId(1L);
     p.setOperationPeriod(opPeriod);
     
     List<Operation> operations = new ArrayList<>();
@@ -867,7 +895,7 @@ class OperationServiceTest {
     
     //then
     assertTrue(result);
-    verify(operationRepository).save(newOperation);
+    verify(operationRepository).saveAndFlush(newOperation);
   }
   
   @Test
@@ -876,6 +904,7 @@ class OperationServiceTest {
     InsertingOperationDto dto = new InsertingOperationDto(1L, "new_op", 1L, 25);
     
     Project p = new Project();
+    p.setId(1L);
     p.setOperationPeriod(opPeriod);
     
     List<Operation> operations = new ArrayList<>();
@@ -901,7 +930,7 @@ class OperationServiceTest {
     
     //then
     assertFalse(result);
-    verify(operationRepository).save(newOperation);
+    verify(operationRepository).saveAndFlush(newOperation);
     verify(operationRepository, never()).updatePriorityById(anyInt(), anyLong());
   }
   
@@ -926,14 +955,42 @@ class OperationServiceTest {
     
     p.setOperations(operations);
     
+    Operation newOperation = new Operation();
     
     //when
+    when(operationFactory.create(p, dto.name(), 0, dto.priority(), null, false,
+        dto.typeWorkId())).thenReturn(newOperation);
+    when(operationRepository.saveAndFlush(newOperation)).thenThrow(
+        new DataIntegrityViolationException("duplicate key", new ConstraintViolationException(
+            "duplicate key", new SQLException(), Operation.PROJECT_PRIORITY_CONSTRAINT)));
+    
     OperationException exception = assertThrows(OperationException.class,
         () -> operationService.insertNewOperation(dto, p));
     
     //then
     assertEquals(HttpStatus.CONFLICT, exception.getStatus());
     assertEquals("The operation with priority: " + 25 + " already exists", exception.getMessage());
+    verifyNoInteractions(projectListStateService);
+  }
+  
+  @Test
+  void insertNewOperation_WhenOtherConstraintViolated_ShouldRethrowException() {
+    //given
+    InsertingOperationDto dto = new InsertingOperationDto(1L, "new_op", 1L, 25);
+    p.setOperations(List.of());
+    Operation newOperation = new Operation();
+    DataIntegrityViolationException violation = new DataIntegrityViolationException(
+        "foreign key", new ConstraintViolationException(
+            "foreign key", new SQLException(), "operations_type_work_id_fkey"));
+    
+    //when
+    when(operationFactory.create(eq(p), eq(dto.name()), anyInt(), eq(dto.priority()),
+        any(LocalDateTime.class), eq(true), eq(dto.typeWorkId()))).thenReturn(newOperation);
+    when(operationRepository.saveAndFlush(newOperation)).thenThrow(violation);
+    
+    //then
+    assertEquals(violation, assertThrows(DataIntegrityViolationException.class,
+        () -> operationService.insertNewOperation(dto, p)));
   }
   
   @Test
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.trae.backend.dto.workingshift.PresenceRegistryMetricsDto;
+import ru.trae.backend.entity.TimeControl;
+import ru.trae.backend.projection.TimeControlEmployeeIdDto;
+import ru.trae.backend.repository.TimeControlRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceRegistryTest {
+  @Mock
+  private TimeControlRepository timeControlRepository;
+  @InjectMocks
+  private PresenceRegistry presenceRegistry;
+
+  private record Row(long getEmployeeId, long getTimeControlId)
+      implements TimeControlEmployeeIdDto {
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void isOnShift_ShouldLoadRegistryOnFirstCheckOnly() {
+    when(timeControlRepository.findOnShiftOfActiveWorkingShift())
+        .thenReturn(List.of(new Row(1L, 10L), new Row(2L, 20L)));
+
+    assertTrue(presenceRegistry.isOnShift(1L));
+    assertTrue(presenceRegistry.isOnShift(2L));
+    assertFalse(presenceRegistry.isOnShift(3L));
+
+    verify(timeControlRepository, times(1)).findOnShiftOfActiveWorkingShift();
+    verifyNoMoreInteractions(timeControlRepository);
+    assertEquals(new PresenceRegistryMetricsDto(2, 1, 0, 0, 0), presenceRegistry.getMetrics());
+  }
+
+  @Test
+  void arrivedDepartedAndShiftClosed_ShouldChangeRegistryWithoutQueries() {
+    when(timeControlRepository.findOnShiftOfActiveWorkingShift()).thenReturn(List.of());
+    presenceRegistry.reconcile();
+
+    presenceRegistry.arrived(1L, 10L);
+    presenceRegistry.arrived(2L, 20L);
+    assertTrue(presenceRegistry.isOnShift(1L));
+
+    presenceRegistry.departed(1L);
+    assertFalse(presenceRegistry.isOnShift(1L));
+    assertTrue(presenceRegistry.isOnShift(2L));
+
+    presenceRegistry.shiftClosed();
+    assertFalse(presenceRegistry.isOnShift(2L));
+    verify(timeControlRepository, times(1)).findOnShiftOfActiveWorkingShift();
+  }
+
+  @Test
+  void arrived_ShouldChangeRegistryAfterCommit() {
+    when(timeControlRepository.findOnShiftOfActiveWorkingShift()).thenReturn(List.of());
+    presenceRegistry.reconcile();
+    TransactionSynchronizationManager.initSynchronization();
+
+    presenceRegistry.arrived(1L, 10L);
+    assertFalse(presenceRegistry.isOnShift(1L));
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    assertTrue(presenceRegistry.isOnShift(1L));
+  }
+
+  @Test
+  void reconcile_ShouldReplaceRegistryAndCountDrift() {
+    when(timeControlRepository.findOnShiftOfActiveWorkingShift())
+        .thenReturn(List.of(new Row(1L, 10L), new Row(2L, 20L)))
+        .thenReturn(List.of(new Row(1L, 10L), new Row(3L, 30L)));
+    presenceRegistry.reconcile();
+    presenceRegistry.arrived(1L, 11L);
+
+    assertTrue(presenceRegistry.reconcile());
+
+    //отметка сотрудника 1 изменилась, сотрудник 2 ушел, сотрудник 3 пришел
+    assertTrue(presenceRegistry.isOnShift(1L));
+    assertFalse(presenceRegistry.isOnShift(2L));
+    assertTrue(presenceRegistry.isOnShift(3L));
+    assertEquals(new PresenceRegistryMetricsDto(2, 2, 0, 3, 3), presenceRegistry.getMetrics());
+  }
+
+  @Test
+  void reconcile_ShouldBeSkippedIfRegistryChangedDuringRead() {
+    when(timeControlRepository.findOnShiftOfActiveWorkingShift())
+        .thenReturn(List.of())
+        .thenAnswer(invocation -> {
+          //отметка о приходе создана после чтения отметок
+          presenceRegistry.arrived(1L, 10L);
+          return List.of();
+        });
+    presenceRegistry.reconcile();
+
+    assertFalse(presenceRegistry.reconcile());
+
+    assertTrue(presenceRegistry.isOnShift(1L));
+    assertEquals(new PresenceRegistryMetricsDto(1, 1, 1, 0, 0), presenceRegistry.getMetrics());
+  }
+
+  @Test
+  void isOnShift_ShouldQueryDatabaseIfRegistryCannotBeLoaded() {
+    when(timeControlRepository.findOnShiftOfActiveWorkingShift()).thenAnswer(invocation -> {
+      presenceRegistry.arrived(2L, 20L);
+      return List.of();
+    });
+    when(timeControlRepository.findByEmployeeIdAndIsOnShiftTrueAndWorkingShiftIsEndedFalse(1L))
+        .thenReturn(new TimeControl());
+
+    assertTrue(presenceRegistry.isOnShift(1L));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import ru.trae.backend.dto.mapper.PageToPageDtoMapper;
+import ru.trae.backend.dto.operation.NewOperationDto;
+import ru.trae.backend.dto.project.NewProjectDto;
+import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.factory.OperationFactory;
+import ru.trae.backend.factory.ProjectFactory;
+import ru.trae.backend.repository.JpaSliceTest;
+import ru.trae.backend.repository.KeysetRepository;
+import ru.trae.backend.repository.ProjectRepository;
+
+/**
+ * Guards the SQL budget of the project creation: the project and all its operations must be
+ * inserted by JDBC batches, so the number of statements must not depend on the route length.
+ * Also logs the time of creation of a project with a 99-operation route.
+ */
+@Import({ProjectService.class, OperationService.class, ProjectListStateService.class,
+    ReportDashboardStatsCache.class, TypeWorkService.class, KeysetRepository.class,
+    ProjectFactory.class, OperationFactory.class, PageToPageDtoMapper.class})
+class ProjectCreationQueryCountTest extends JpaSliceTest {
+  private static final Logger log = LoggerFactory.getLogger(ProjectCreationQueryCountTest.class);
+  //выборка типов работ, вставка проекта, пакеты вставки операций, выделение идентификаторов
+  //и обновление состояния списка проектов
+  private static final long PROJECT_CREATION_QUERY_BUDGET = 12;
+  //приоритет операции не больше 999, поэтому маршрут - не более 99 операций и отгрузка
+  private static final int ROUTE_LENGTH = 99;
+  private static final int RUNS = 15;
+  private static final String USERNAME = "manager";
+  @MockBean
+  private ManagerService managerService;
+  @Autowired
+  private ProjectService projectService;
+  @Autowired
+  private ProjectRepository projectRepository;
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    //у типа работы "Отгрузка" ID всегда = 1
+    for (int i = 1; i <= 5; i++) {
+      entityManager.getEntityManager()
+          .createNativeQuery("insert into types (id, name, is_active) values (?1, ?2, true)")
+          .setParameter(1, (long) i)
+          .setParameter(2, "type work " + i)
+          .executeUpdate();
+    }
+
+    Manager manager = persistManager();
+    entityManager.flush();
+    when(managerService.getManagerByUsername(USERNAME)).thenReturn(manager);
+
+    statistics = statistics();
+  }
+
+  @Test
+  void saveNewProject_ShouldNotDependOnRouteLength() {
+    long shortRouteStatements = countStatementsForRoute(5);
+    long longRouteStatements = countStatementsForRoute(ROUTE_LENGTH);
+
+    assertTrue(longRouteStatements <= PROJECT_CREATION_QUERY_BUDGET,
+        "project creation used " + longRouteStatements + " statements");
+    //каждые 50 операций добавляют не более пакета вставки и выделения идентификаторов
+    assertTrue(longRouteStatements - shortRouteStatements <= 2 * ((ROUTE_LENGTH + 49) / 50),
+        "statements: " + shortRouteStatements + " and " + longRouteStatements);
+  }
+
+  @Test
+  void saveNewProject_ShouldAssignPrioritiesByPositionInRoute() {
+    List<NewOperationDto> operations = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      operations.add(new NewOperationDto("same name", 2));
+    }
+    projectService.saveNewProject(newProject(operations), USERNAME);
+    entityManager.flush();
+    entityManager.clear();
+
+    List<Integer> priorities = entityManager.getEntityManager()
+        .createQuery("select o.priority from Operation o order by o.priority", Integer.class)
+        .getResultList();
+    assertEquals(List.of(0, 10, 20, 30, 40), priorities);
+    Operation shipment = entityManager.getEntityManager()
+        .createQuery("select o from Operation o where o.priority = 40", Operation.class)
+        .getSingleResult();
+    assertEquals(1L, shipment.getTypeWork().getId());
+  }
+
+  @Test
+  void saveNewProject_LongRoute_ShouldLogCreationTime() {
+    double[] millis = new double[RUNS];
+    //первый прогон прогревает Hibernate и не учитывается
+    countStatementsForRoute(ROUTE_LENGTH);
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      countStatementsForRoute(ROUTE_LENGTH);
+      millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+    }
+    Arrays.sort(millis);
+
+    log.info("project with {} operations is created in {} ms (median)",
+        ROUTE_LENGTH, String.format("%.2f", millis[RUNS / 2]));
+    assertEquals((RUNS + 1) * (ROUTE_LENGTH + 1L), entityManager.getEntityManager()
+        .createQuery("select count(o) from Operation o", Long.class)
+        .getSingleResult());
+  }
+
+  private long countStatementsForRoute(int routeLength) {
+    List<NewOperationDto> operations = new ArrayList<>();
+    for (int i = 0; i < routeLength; i++) {
+      operations.add(new NewOperationDto("operation " + i, i % 4 + 2));
+    }
+    NewProjectDto dto = newProject(operations);
+
+    statistics.clear();
+    projectService.saveNewProject(dto, USERNAME);
+    entityManager.flush();
+    long statements = statistics.getPrepareStatementCount();
+    entityManager.clear();
+    return statements;
+  }
+
+  private NewProjectDto newProject(List<NewOperationDto> operations) {
+    return new NewProjectDto(1, "project", LocalDateTime.now().plusDays(365),
+        "customer", null, operations);
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ru.trae.backend.dto.PageDto;
+import ru.trae.backend.dto.mapper.PageToPageDtoMapper;
+import ru.trae.backend.dto.mapper.ProjectShortDtoMapper;
+import ru.trae.backend.dto.project.ProjectAvailableForEmpDto;
+import ru.trae.backend.dto.project.ProjectShortDto;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.projection.DashboardStatsRowDto;
+import ru.trae.backend.repository.JpaSliceTest;
+import ru.trae.backend.repository.KeysetRepository;
+import ru.trae.backend.repository.ProjectRepository;
+
+/**
+ * Guards the SQL budget of the project list: the number of statements needed to build a page
+ * of {@link ProjectShortDto} must not depend on the page size.
+ */
+@Import({ProjectService.class, OperationService.class, ProjectListStateService.class,
+    ReportDashboardStatsCache.class, KeysetRepository.class, PageToPageDtoMapper.class,
+    ProjectShortDtoMapper.class})
+class ProjectListQueryCountTest extends JpaSliceTest {
+  //запрос страницы, запрос общего количества и запрос текущих операций для всей страницы
+  private static final long PROJECT_LIST_QUERY_BUDGET = 3;
+  private static final int PROJECTS = 120;
+  private static final int OPERATIONS_PER_PROJECT = 6;
+  @MockBean
+  private EmployeeService employeeService;
+  @Autowired
+  private ProjectService projectService;
+  @Autowired
+  private ProjectListStateService projectListStateService;
+  @Autowired
+  private ProjectRepository projectRepository;
+  private Statistics statistics;
+
+  /**
+   * Stands in for the pg_trgm functions, which are not available in H2.
+   */
+  public static class TrigramFunctions {
+    public static double wordSimilarity(String query, String text) {
+      return text.toLowerCase().contains(query.toLowerCase()) ? 1 : 0;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    entityManager.getEntityManager().createNativeQuery("create alias if not exists "
+            + "word_similarity for \"" + TrigramFunctions.class.getName() + ".wordSimilarity\"")
+        .executeUpdate();
+
+    Manager manager = persistManager();
+    TypeWork typeWork = persistTypeWork("type work");
+
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < PROJECTS; i++) {
+      Project p = persistProject(manager, i % 999 + 1, now);
+      p.setEndDateInContract(now.plusDays(i % 60 - 10));
+
+      for (int j = 0; j < OPERATIONS_PER_PROJECT; j++) {
+        Operation o = persistOperation(p, typeWork, j * 10);
+        o.setEnded(j < i % OPERATIONS_PER_PROJECT);
+        o.setReadyToAcceptance(j == i % OPERATIONS_PER_PROJECT);
+        o.setPlannedEndDate(now.plusDays(j));
+      }
+    }
+    entityManager.flush();
+    projectListStateService.rebuild(50);
+    entityManager.clear();
+
+    statistics = statistics();
+    statistics.clear();
+  }
+
+  @Test
+  void getProjectDtoPage_ShouldNotDependOnPageSize() {
+    long smallPageStatements = countStatementsForPage(10);
+    long largePageStatements = countStatementsForPage(50);
+
+    assertEquals(smallPageStatements, largePageStatements);
+    assertTrue(largePageStatements <= PROJECT_LIST_QUERY_BUDGET,
+        "project list used " + largePageStatements + " statements");
+  }
+
+  @Test
+  void getProjectDtoPage_WithFilter_ShouldStayWithinQueryBudget() {
+    Pageable pageable = PageRequest.of(1, 50, Sort.by("endDateInContract", "id"));
+
+    PageDto<ProjectShortDto> page = projectService.getProjectDtoPage(
+        pageable, false, null, null, null, true, null);
+
+    assertEquals(50, page.content().size());
+    page.content().forEach(p -> assertNotNull(p.operation()));
+    assertTrue(statistics.getPrepareStatementCount() <= PROJECT_LIST_QUERY_BUDGET,
+        "project list used " + statistics.getPrepareStatementCount() + " statements");
+  }
+
+  @Test
+  void findProjectByNumberOrCustomer_ShouldStayWithinQueryBudget() {
+    Pageable pageable = PageRequest.of(0, 50, Sort.by("endDateInContract", "id"));
+
+    PageDto<ProjectShortDto> page =
+        projectService.findProjectByNumberOrCustomer(pageable, "customer");
+
+    assertEquals(50, page.content().size());
+    assertTrue(statistics.getPrepareStatementCount() <= PROJECT_LIST_QUERY_BUDGET,
+        "project search used " + statistics.getPrepareStatementCount() + " statements");
+  }
+
+  @Test
+  void getAvailableProjects_ShouldReturnDistinctProjectsInOneQuery() {
+    TypeWork typeWork = entityManager.getEntityManager()
+        .createQuery("select tw from TypeWork tw", TypeWork.class)
+        .getSingleResult();
+    //вторая доступная операция проекта не должна дублировать проект в списке
+    Operation secondReadyOp = entityManager.getEntityManager()
+        .createQuery("select o from Operation o where o.readyToAcceptance = false "
+            + "and o.project.number = 1 order by o.priority desc", Operation.class)
+        .setMaxResults(1)
+        .getSingleResult();
+    secondReadyOp.setReadyToAcceptance(true);
+    entityManager.flush();
+    entityManager.clear();
+    Employee employee = new Employee();
+    employee.setTypeWorks(Set.of(typeWork));
+    when(employeeService.getEmployeeById(1L)).thenReturn(employee);
+    statistics.clear();
+
+    List<ProjectAvailableForEmpDto> all = projectService.getAvailableProjects(1L, null);
+    List<ProjectAvailableForEmpDto> limited = projectService.getAvailableProjects(1L, 10);
+
+    assertEquals(PROJECTS, all.size());
+    assertEquals(PROJECTS, all.stream().map(ProjectAvailableForEmpDto::id).distinct().count());
+    assertEquals(all.subList(0, 10), limited);
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void getDashboardStats_ShouldMatchSeparateCountQueries() {
+    DashboardStatsRowDto stats = projectRepository.getDashboardStats();
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, stats.getCountEmpsOnActiveWorkingShift());
+    assertEquals(projectRepository.getCountNotEndedProjects(),
+        stats.getCountNotEndedProjects());
+    assertEquals(projectRepository.getCountProjectsWithOverdueCurrentOperation(),
+        stats.getCountProjectsWithOverdueCurrentOperation());
+    assertEquals(projectRepository.getCountOverdueProjects(),
+        stats.getCountOverdueProjects());
+    assertEquals(projectRepository.getCountProjectsWithLastOpReadyToAcceptance(),
+        stats.getCountProjectsWithLastOpReadyToAcceptance());
+    assertTrue(stats.getCountOverdueProjects() > 0);
+    assertTrue(stats.getCountProjectsWithLastOpReadyToAcceptance() > 0);
+  }
+
+  @Test
+  void getProjectDtoPage_WithListStateFilters_ShouldReturnMatchingProjects() {
+    Pageable pageable = PageRequest.of(0, 10, Sort.by("endDateInContract", "id"));
+
+    //в каждом шестом проекте доступна первая операция, ее планируемая дата уже прошла
+    assertEquals(PROJECTS / OPERATIONS_PER_PROJECT, projectService.getProjectDtoPage(
+        pageable, false, true, null, null, null, null).totalElements());
+    assertEquals(PROJECTS / OPERATIONS_PER_PROJECT, projectService.getProjectDtoPage(
+        pageable, false, null, null, true, null, null).totalElements());
+    //в каждом шестом проекте доступна последняя операция
+    assertEquals(PROJECTS / OPERATIONS_PER_PROJECT, projectService.getProjectDtoPage(
+        pageable, false, null, true, null, null, null).totalElements());
+    assertEquals(PROJECTS - PROJECTS / OPERATIONS_PER_PROJECT, projectService.getProjectDtoPage(
+        pageable, false, null, null, null, true, null).totalElements());
+  }
+
+  @Test
+  void getProjectDtoPageAfter_ShouldWalkThroughProjectsWithoutCountQuery() {
+    Sort sort = Sort.by(Sort.Direction.DESC, "endDateInContract", "id");
+    List<Long> expected = projectService.getProjectDtoPage(PageRequest.of(0, PROJECTS, sort),
+            false, null, null, null, true, null).content().stream()
+        .map(ProjectShortDto::id)
+        .toList();
+
+    List<Long> actual = new ArrayList<>();
+    String after = "";
+    do {
+      statistics.clear();
+      PageDto<ProjectShortDto> page = projectService.getProjectDtoPageAfter(
+          sort, 30, after, false, null, null, null, true, null);
+      //запрос id страницы, запрос строк проектов и запрос текущих операций
+      assertTrue(statistics.getPrepareStatementCount() <= PROJECT_LIST_QUERY_BUDGET,
+          "project list used " + statistics.getPrepareStatementCount() + " statements");
+      assertEquals(-1, page.totalElements());
+      page.content().forEach(p -> assertNotNull(p.operation()));
+      page.content().forEach(p -> actual.add(p.id()));
+      after = page.nextCursor();
+    } while (after != null);
+
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void checkAndRebuild_WhenOperationsChangedWithoutRefresh_ShouldRestoreListState() {
+    assertEquals(0, projectListStateService.checkAndRebuild());
+
+    entityManager.getEntityManager()
+        .createQuery("update Operation o set o.readyToAcceptance = false where o.priority = 0")
+        .executeUpdate();
+
+    assertEquals(PROJECTS / OPERATIONS_PER_PROJECT, projectListStateService.checkAndRebuild());
+    assertEquals(0, projectRepository.countInconsistentListState());
+    assertEquals(0, projectService.getProjectDtoPage(
+        PageRequest.of(0, 10), false, true, null, null, null, null).totalElements());
+  }
+
+  private long countStatementsForPage(int pageSize) {
+    statistics.clear();
+    entityManager.clear();
+    Pageable pageable = PageRequest.of(0, pageSize, Sort.by("endDateInContract", "id"));
+
+    PageDto<ProjectShortDto> page = projectService.getProjectDtoPage(
+        pageable, null, null, null, null, null, null);
+
+    assertEquals(pageSize, page.content().size());
+    assertEquals(PROJECTS, page.totalElements());
+    return statistics.getPrepareStatementCount();
+  }
+}
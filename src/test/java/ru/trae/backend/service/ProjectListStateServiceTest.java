@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.trae.backend.repository.ProjectRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ProjectListStateServiceTest {
+  @Mock
+  private ProjectRepository projectRepository;
+  @Mock
+  private ReportDashboardStatsCache reportDashboardStatsCache;
+  @InjectMocks
+  private ProjectListStateService projectListStateService;
+
+  @Test
+  void refresh_ShouldRefreshListStateOfProject() {
+    projectListStateService.refresh(1L);
+
+    verify(projectRepository).refreshListStateByIds(List.of(1L));
+    verify(reportDashboardStatsCache).invalidate();
+  }
+
+  @Test
+  void rebuild_ShouldRefreshListStateInBatches() {
+    when(projectRepository.findIdsAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(1L, 2L));
+    when(projectRepository.findIdsAfter(2L, PageRequest.of(0, 2))).thenReturn(List.of(5L));
+    when(projectRepository.findIdsAfter(5L, PageRequest.of(0, 2))).thenReturn(List.of());
+
+    int processed = projectListStateService.rebuild(2);
+
+    assertEquals(3, processed);
+    verify(projectRepository).refreshListStateByIds(List.of(1L, 2L));
+    verify(projectRepository).refreshListStateByIds(List.of(5L));
+  }
+
+  @Test
+  void checkAndRebuild_WhenListStateIsConsistent_ShouldNotRebuild() {
+    when(projectRepository.countInconsistentListState()).thenReturn(0L);
+
+    long inconsistent = projectListStateService.checkAndRebuild();
+
+    assertEquals(0, inconsistent);
+    verify(projectRepository, never()).findIdsAfter(anyLong(), any());
+  }
+
+  @Test
+  void checkAndRebuild_WhenListStateIsInconsistent_ShouldRebuild() {
+    when(projectRepository.countInconsistentListState()).thenReturn(1L);
+    when(projectRepository.findIdsAfter(eq(0L), any())).thenReturn(List.of(1L));
+    when(projectRepository.findIdsAfter(eq(1L), any())).thenReturn(List.of());
+
+    long inconsistent = projectListStateService.checkAndRebuild();
+
+    assertEquals(1, inconsistent);
+    verify(projectRepository).refreshListStateByIds(List.of(1L));
+  }
+}
@@ -22,6 +22,7 @@ import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
@@ -37,8 +38,10 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -51,11 +54,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import ru.trae.backend.dto.PageDto;
 import ru.trae.backend.dto.manager.ManagerDto;
 import ru.trae.backend.dto.mapper.PageToPageDtoMapper;
-import ru.trae.backend.dto.mapper.ProjectAvailableDtoMapper;
 import ru.trae.backend.dto.mapper.ProjectDtoMapper;
 import ru.trae.backend.dto.operation.NewOperationDto;
 import ru.trae.backend.dto.project.ChangingCommonDataReq;
@@ -66,20 +69,29 @@ import ru.trae.backend.dto.project.NewProjectDto;
 import ru.trae.backend.dto.project.ProjectAvailableForEmpDto;
 import ru.trae.backend.dto.project.ProjectDto;
 import ru.trae.backend.dto.project.ProjectShortDto;
+import ru.trae.backend.dto.report.ProjectOperationRowDto;
 import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.entity.task.Operation;
 import ru.trae.backend.entity.task.Project;
 import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.exceptionhandler.exception.ProjectException;
 import ru.trae.backend.factory.ProjectFactory;
+import ru.trae.backend.projection.OperationShortRowDto;
 import ru.trae.backend.projection.ProjectIdNumberDto;
+import ru.trae.backend.projection.ProjectShortRowDto;
+import ru.trae.backend.repository.KeysetRepository;
+import ru.trae.backend.repository.KeysetSlice;
+import ru.trae.backend.repository.ProjectReportRepository;
 import ru.trae.backend.repository.ProjectRepository;
+import ru.trae.backend.util.OperationEventType;
 
 @ExtendWith(MockitoExtension.class)
 class ProjectServiceTest {
   @Mock
   private ProjectRepository projectRepository;
   @Mock
+  private ProjectReportRepository projectReportRepository;
+  @Mock
   private ProjectFactory projectFactory;
   @Mock
   private OperationService operationService;
@@ -88,9 +100,19 @@ class ProjectServiceTest {
   @Mock
   private ProjectDtoMapper projectDtoMapper;
   @Mock
-  private ProjectAvailableDtoMapper projectAvailableDtoMapper;
-  @Mock
   private PageToPageDtoMapper pageToPageDtoMapper;
+  @Mock
+  private ProjectListStateService projectListStateService;
+  @Mock
+  private ProjectShortRowDto projectRow;
+  @Mock
+  private KeysetRepository keysetRepository;
+  @Mock
+  private ReportDashboardStatsCache reportDashboardStatsCache;
+  @Mock
+  private ReportResultCache reportResultCache;
+  @Mock
+  private OperationEventWriter operationEventWriter;
   @InjectMocks
   private ProjectService projectService;
   Project project;
@@ -128,7 +150,7 @@ class ProjectServiceTest {
         List.of(), managerDto, customer, null);
     
     reset(projectRepository, projectFactory, operationService, employeeService, projectDtoMapper,
-        projectAvailableDtoMapper, pageToPageDtoMapper);
+        pageToPageDtoMapper);
   }
   
   @Test
@@ -303,6 +325,7 @@ class ProjectServiceTest {
     
     //then
     verify(projectRepository).delete(project);
+    verify(reportResultCache).invalidate();
   }
   
   @Test
@@ -483,21 +506,18 @@ class ProjectServiceTest {
   }
   
   @Test
-  void findProjectsForPeriod_ShouldReturnProjectsInSpecifiedPeriod() {
+  void streamProjectRowsForPeriod_ShouldReadRowsOfProjectsInSpecifiedPeriod() {
     //given
     LocalDate startOfPeriod = LocalDate.of(2023, 6, 1);
     LocalDate endOfPeriod = LocalDate.of(2023, 6, 30);
-    List<Project> expectedProjects = List.of(project);
+    Consumer<ProjectOperationRowDto> consumer = row -> {
+    };
     
     //when
-    when(projectRepository.findProjectsForPeriod(startOfPeriod, endOfPeriod))
-        .thenReturn(expectedProjects);
-    
-    List<Project> result = projectService.findProjectsForPeriod(startOfPeriod, endOfPeriod);
+    projectService.streamProjectRowsForPeriod(startOfPeriod, endOfPeriod, consumer);
     
     //then
-    assertEquals(expectedProjects, result);
-    verify(projectRepository).findProjectsForPeriod(startOfPeriod, endOfPeriod);
+    verify(projectReportRepository).streamForPeriod(startOfPeriod, endOfPeriod, consumer);
   }
   
   @Test
@@ -506,51 +526,69 @@ class ProjectServiceTest {
     Pageable projectPage = PageRequest.of(0, 1);
     String projectNumberOrCustomer = "123";
     
-    List<Project> projects = List.of(project);
-    Page<Project> projectPageResult = new PageImpl<>(projects, projectPage, projects.size());
+    List<ProjectShortRowDto> projects = List.of(projectRow);
+    Page<ProjectShortRowDto> projectPageResult =
+        new PageImpl<>(projects, projectPage, projects.size());
+    Map<Long, List<OperationShortRowDto>> ops = Map.of(projectId, List.of());
+    PageDto<ProjectShortDto> expectedPageDto = new PageDto<>(List.of(), 1, 1, 0);
     
     //when
-    when(projectService.findProjectPage(projectPage, projectNumberOrCustomer))
-        .thenReturn(projectPageResult);
+    when(projectRow.getId()).thenReturn(projectId);
+    when(projectRepository.findByNumber(123, projectPage)).thenReturn(projectPageResult);
+    when(operationService.getCurrentAndLastOpsByProjectIds(List.of(projectId))).thenReturn(ops);
+    when(pageToPageDtoMapper.projectPageToPageDto(projectPageResult, ops))
+        .thenReturn(expectedPageDto);
     
-    PageDto<ProjectShortDto> projectShortDtoPageDto = pageToPageDtoMapper.projectPageToPageDto(projectPageResult);
-    PageDto<ProjectShortDto> result = projectService.findProjectByNumberOrCustomer(projectPage, projectNumberOrCustomer);
+    PageDto<ProjectShortDto> result =
+        projectService.findProjectByNumberOrCustomer(projectPage, projectNumberOrCustomer);
     
     //then
-    assertEquals(projectShortDtoPageDto, result);
+    assertEquals(expectedPageDto, result);
+    verify(operationService).getCurrentAndLastOpsByProjectIds(List.of(projectId));
   }
   
   @Test
   void findProjectPage_ShouldReturnPageOfProjects_ByCustomer() {
     //given
-    Pageable projectPage = PageRequest.of(0, 10);
-    String projectNumberOrCustomer = "Customer";
-    
-    List<Project> projects = List.of(project);
-    Page<Project> projectPageResult = new PageImpl<>(projects, projectPage, projects.size());
+    Pageable projectPage = PageRequest.of(1, 1);
+    String projectNumberOrCustomer = " Customer_1 ";
+    ProjectShortRowDto secondRow = mock(ProjectShortRowDto.class);
     
     //when
-    when(projectRepository.findByCustomerLikeIgnoreCase(anyString(), any(Pageable.class)))
-        .thenReturn(projectPageResult);
+    when(secondRow.getId()).thenReturn(2L);
+    when(projectRepository.searchIdsByText("Customer_1", "%Customer\\_1%", 100))
+        .thenReturn(List.of(1L, 2L, 3L));
+    when(projectRepository.findShortByIdIn(List.of(2L))).thenReturn(List.of(secondRow));
     
-    Page<Project> result = projectService.findProjectPage(projectPage, projectNumberOrCustomer);
+    Page<ProjectShortRowDto> result = projectService.findProjectPage(projectPage, projectNumberOrCustomer);
     
     //then
-    assertEquals(projectPageResult, result);
-    verify(projectRepository).findByCustomerLikeIgnoreCase(eq("CUSTOMER"), eq(projectPage));
+    assertEquals(List.of(secondRow), result.getContent());
+    assertEquals(3, result.getTotalElements());
     verify(projectRepository, never()).findByNumber(anyInt(), any(Pageable.class));
   }
   
+  @Test
+  void findProjectPage_ShouldThrowException_WhenQueryIsTooShort() {
+    Pageable projectPage = PageRequest.of(0, 10);
+    
+    ProjectException exception = assertThrows(ProjectException.class,
+        () -> projectService.findProjectPage(projectPage, "ab"));
+    
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    verify(projectRepository, never()).searchIdsByText(anyString(), anyString(), anyInt());
+  }
+  
   @Test
   void getProjectPage_ShouldReturnPageOfAllProjects() {
     Pageable projectPage = PageRequest.of(0, 10);
-    Page<Project> expectedPage = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> expectedPage = new PageImpl<>(List.of(projectRow), projectPage, 1);
     
     //when
-    when(projectRepository.findAll(projectPage)).thenReturn(expectedPage);
+    when(projectRepository.findAllShort(projectPage)).thenReturn(expectedPage);
     
     //then
-    Page<Project> result = projectService.getProjectPage(
+    Page<ProjectShortRowDto> result = projectService.getProjectPage(
         projectPage,
         null,
         null,
@@ -561,21 +599,49 @@ class ProjectServiceTest {
     );
     
     //then
-    verify(projectRepository).findAll(projectPage);
+    verify(projectRepository).findAllShort(projectPage);
+    assertEquals(expectedPage, result);
+  }
+  
+  @Test
+  void getProjectDtoPageAfter_ShouldLoadRowsInOrderOfKeys() {
+    Sort sort = Sort.by("id");
+    ProjectShortRowDto secondRow = mock(ProjectShortRowDto.class);
+    when(projectRow.getId()).thenReturn(1L);
+    when(secondRow.getId()).thenReturn(2L);
+    KeysetSlice<Long> slice = new KeysetSlice<>(List.of(2L, 1L), "cursor");
+    PageDto<ProjectShortDto> expectedPage = new PageDto<>(Collections.emptyList(), "cursor");
+    
+    //when
+    when(keysetRepository.findIdSlice(eq(Project.class), any(), eq(sort), isNull(), eq(10)))
+        .thenReturn(slice);
+    when(projectRepository.findShortByIdIn(List.of(2L, 1L)))
+        .thenReturn(List.of(projectRow, secondRow));
+    when(operationService.getCurrentAndLastOpsByProjectIds(List.of(2L, 1L)))
+        .thenReturn(Collections.emptyMap());
+    when(pageToPageDtoMapper.projectRowsToPageDto(
+        List.of(secondRow, projectRow), Collections.emptyMap(), "cursor"))
+        .thenReturn(expectedPage);
+    
+    PageDto<ProjectShortDto> result = projectService.getProjectDtoPageAfter(
+        sort, 10, null, false, null, null, null, null, null);
+    
+    //then
     assertEquals(expectedPage, result);
+    verify(projectRepository, never()).findAllShort(any(Pageable.class));
   }
   
   @Test
   void getProjectPage_ShouldReturnPageOfAllEndedProjects() {
     Pageable projectPage = PageRequest.of(0, 10);
-    Page<Project> expectedPage = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> expectedPage = new PageImpl<>(List.of(projectRow), projectPage, 1);
     
     //when
     when(projectRepository.findByIsEnded(true, projectPage))
         .thenReturn(expectedPage);
     
     //then
-    Page<Project> result = projectService.getProjectPage(
+    Page<ProjectShortRowDto> result = projectService.getProjectPage(
         projectPage,
         true,
         null,
@@ -593,14 +659,14 @@ class ProjectServiceTest {
   @Test
   void getProjectPage_ShouldReturnPageOfAllNotEndedProjects() {
     Pageable projectPage = PageRequest.of(0, 10);
-    Page<Project> expectedPage = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> expectedPage = new PageImpl<>(List.of(projectRow), projectPage, 1);
     
     //when
     when(projectRepository.findByIsEnded(false, projectPage))
         .thenReturn(expectedPage);
     
     //then
-    Page<Project> result = projectService.getProjectPage(
+    Page<ProjectShortRowDto> result = projectService.getProjectPage(
         projectPage,
         false,
         null,
@@ -618,14 +684,14 @@ class ProjectServiceTest {
   @Test
   void getProjectPage_ShouldReturnPageOfNotEndedProjects_WithFirstReadyToAcceptanceOp() {
     Pageable projectPage = PageRequest.of(0, 10);
-    Page<Project> expectedPage = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> expectedPage = new PageImpl<>(List.of(projectRow), projectPage, 1);
     
     //when
     when(projectRepository.findFirstByIsEndedAndOpPriorityAndReadyToAcceptance(0, projectPage))
         .thenReturn(expectedPage);
     
     //then
-    Page<Project> result = projectService.getProjectPage(
+    Page<ProjectShortRowDto> result = projectService.getProjectPage(
         projectPage,
         false,
         true,
@@ -644,7 +710,7 @@ class ProjectServiceTest {
   void getProjectPage_ShouldReturnPageOfNotEndedProjects_WithOverdueCurrentOperation() {
     //given
     Pageable projectPage = PageRequest.of(0, 10);
-    Page<Project> expectedPage = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> expectedPage = new PageImpl<>(List.of(projectRow), projectPage, 1);
     LocalDateTime ldt = LocalDateTime.now();
     
     //define the acceptable range for LocalDateTime comparison
@@ -657,7 +723,7 @@ class ProjectServiceTest {
         eq(projectPage)))
         .thenReturn(expectedPage);
     
-    Page<Project> result = projectService.getProjectPage(
+    Page<ProjectShortRowDto> result = projectService.getProjectPage(
         projectPage,
         false,
         null,
@@ -677,14 +743,14 @@ class ProjectServiceTest {
   @Test
   void getProjectPage_ShouldReturnPageOfNotEndedProjects_WithLastReadyToAcceptanceOp() {
     Pageable projectPage = PageRequest.of(0, 10);
-    Page<Project> expectedPage = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> expectedPage = new PageImpl<>(List.of(projectRow), projectPage, 1);
     
     //when
     when(projectRepository.findLastByIsEndedAndOpPriorityAndReadyToAcceptanceTrue(projectPage))
         .thenReturn(expectedPage);
     
     //then
-    Page<Project> result = projectService.getProjectPage(
+    Page<ProjectShortRowDto> result = projectService.getProjectPage(
         projectPage,
         false,
         null,
@@ -702,14 +768,14 @@ class ProjectServiceTest {
   @Test
   void getProjectPage_ShouldReturnPageOfNotEndedProjects_WithCurrentInWorkOrReadyToAcceptanceOp() {
     Pageable projectPage = PageRequest.of(0, 10);
-    Page<Project> expectedPage = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> expectedPage = new PageImpl<>(List.of(projectRow), projectPage, 1);
     
     //when
     when(projectRepository.findOpsInWorkOrReadyToAcceptanceExceptFirstOpReadyToAcceptance(projectPage))
         .thenReturn(expectedPage);
     
     //then
-    Page<Project> result = projectService.getProjectPage(
+    Page<ProjectShortRowDto> result = projectService.getProjectPage(
         projectPage,
         false,
         null,
@@ -727,13 +793,13 @@ class ProjectServiceTest {
   @Test
   void getProjectPage_ShouldReturnPageOfNotEndedProjects_WithOverdueProject() {
     Pageable projectPage = PageRequest.of(0, 10);
-    Page<Project> expectedPage = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> expectedPage = new PageImpl<>(List.of(projectRow), projectPage, 1);
     
     //when
     when(projectRepository.findOverdueProjects(projectPage)).thenReturn(expectedPage);
     
     //then
-    Page<Project> result = projectService.getProjectPage(
+    Page<ProjectShortRowDto> result = projectService.getProjectPage(
         projectPage,
         false,
         null,
@@ -813,7 +879,7 @@ class ProjectServiceTest {
     Boolean isEnded = false;
     Boolean isOnlyFirstOpReadyToAcceptance = true;
     
-    Page<Project> projectPageResult = new PageImpl<>(List.of(project), projectPage, 1);
+    Page<ProjectShortRowDto> projectPageResult = new PageImpl<>(List.of(projectRow), projectPage, 1);
     
     PageDto<ProjectShortDto> expectedPageDto = new PageDto<>(
         List.of(),
@@ -832,7 +898,11 @@ class ProjectServiceTest {
         null
     )).thenReturn(projectPageResult);
     
-    when(pageToPageDtoMapper.projectPageToPageDto(projectPageResult)).thenReturn(expectedPageDto);
+    when(projectRow.getId()).thenReturn(projectId);
+    when(operationService.getCurrentAndLastOpsByProjectIds(List.of(projectId)))
+        .thenReturn(Map.of());
+    when(pageToPageDtoMapper.projectPageToPageDto(projectPageResult, Map.of()))
+        .thenReturn(expectedPageDto);
     
     PageDto<ProjectShortDto> result = projectService.getProjectDtoPage(
         projectPage,
@@ -845,7 +915,8 @@ class ProjectServiceTest {
     );
     
     //then
-    verify(pageToPageDtoMapper).projectPageToPageDto(projectPageResult);
+    verify(operationService).getCurrentAndLastOpsByProjectIds(List.of(projectId));
+    verify(pageToPageDtoMapper).projectPageToPageDto(projectPageResult, Map.of());
     assertEquals(expectedPageDto, result);
   }
   
@@ -863,23 +934,40 @@ class ProjectServiceTest {
     
     employee.setTypeWorks(Set.of(typeWork1, typeWork2));
     
-    Project project1 = new Project();
-    project1.setId(1L);
-    project1.setEndDateInContract(LocalDateTime.now().plusDays(20));
-    Project project2 = new Project();
-    project2.setId(2L);
-    project2.setEndDateInContract(LocalDateTime.now().plusDays(30));
+    List<ProjectAvailableForEmpDto> projects = List.of(
+        new ProjectAvailableForEmpDto(1L, 100, "customer", "project_name_1", "available_op_1"),
+        new ProjectAvailableForEmpDto(2L, 200, "customer", "project_name_2", "available_op_2"));
     
     //when
     when(employeeService.getEmployeeById(employeeId)).thenReturn(employee);
-    when(projectRepository.findAvailableProjectsByTypeWork(anyLong())).thenReturn(List.of(project1, project2));
+    when(projectRepository.findAvailableProjectsByTypeWorkIds(
+        argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(1L, 2L))),
+        eq(PageRequest.of(0, 5))))
+        .thenReturn(projects);
     
-    List<ProjectAvailableForEmpDto> result = projectService.getAvailableProjects(employeeId);
+    List<ProjectAvailableForEmpDto> result = projectService.getAvailableProjects(employeeId, 5);
     
     //then
     verify(employeeService).getEmployeeById(employeeId);
-    verify(projectRepository, times(2)).findAvailableProjectsByTypeWork(anyLong());
-    assertEquals(4, result.size());
+    verify(projectRepository, times(1)).findAvailableProjectsByTypeWorkIds(any(), any());
+    assertEquals(projects, result);
+  }
+  
+  @Test
+  void getAvailableProjects_ShouldReturnEmptyList_WhenEmployeeHasNoTypeWorks() {
+    //given
+    long employeeId = 1;
+    Employee employee = new Employee();
+    employee.setId(employeeId);
+    
+    //when
+    when(employeeService.getEmployeeById(employeeId)).thenReturn(employee);
+    
+    List<ProjectAvailableForEmpDto> result = projectService.getAvailableProjects(employeeId, null);
+    
+    //then
+    assertTrue(result.isEmpty());
+    verify(projectRepository, never()).findAvailableProjectsByTypeWorkIds(any(), any());
   }
   
   
@@ -898,6 +986,7 @@ class ProjectServiceTest {
         argThat(dateTimeMatcher),
         eq(projectId)
     );
+    verify(projectListStateService).refresh(projectId);
   }
   
   @Test
@@ -1009,6 +1098,7 @@ class ProjectServiceTest {
     assertEquals(expectedPeriod, updatedProject.getPeriod());
     verify(projectRepository).findById(req.projectId());
     verify(projectRepository).save(updatedProject);
+    verify(reportResultCache).invalidate();
   }
   
   @Test
@@ -1284,6 +1374,7 @@ class ProjectServiceTest {
   void testUpdatePlannedEndDateAfterInsertDeleteOp() {
     //given
     LocalDateTime plannedEndDate = LocalDateTime.now().plusDays(10);
+    project.setId(projectId);
     project.setPlannedEndDate(plannedEndDate);
     project.setOperationPeriod(240);
     
@@ -1297,13 +1388,14 @@ class ProjectServiceTest {
     LocalDateTime expectedEndDate = plannedEndDate.plusHours(project.getOperationPeriod()).plusHours(SHIPMENT_PERIOD);
     assertEquals(expectedEndDate, project.getPlannedEndDate());
     
-    verify(projectRepository).save(project);
+    verify(projectRepository).updatePlannedEndDateById(expectedEndDate, projectId);
   }
   
   @Test
   void testUpdatePlannedEndDateAfterInsertDeleteOp_WithFalseFlags() {
     //given
     LocalDateTime plannedEndDate = LocalDateTime.now().plusDays(10);
+    project.setId(projectId);
     project.setPlannedEndDate(plannedEndDate);
     project.setOperationPeriod(240);
     
@@ -1314,7 +1406,25 @@ class ProjectServiceTest {
     projectService.updatePlannedEndDateAfterInsertDeleteOp(project, isIncreased, shipmentIsAdded);
     
     //then
-    verify(projectRepository).save(project);
+    assertEquals(plannedEndDate.minusHours(240), project.getPlannedEndDate());
+    verify(projectRepository).updatePlannedEndDateById(plannedEndDate.minusHours(240), projectId);
+  }
+  
+  @Test
+  void shiftPlannedEndDate_ShouldUpdateDateInvalidateCachesAndWriteEvent() {
+    //given
+    LocalDateTime plannedEndDate = LocalDateTime.of(2030, 1, 1, 0, 0);
+    
+    //when
+    LocalDateTime result = projectService.shiftPlannedEndDate(projectId, plannedEndDate, -48);
+    
+    //then
+    assertEquals(plannedEndDate.minusHours(48), result);
+    verify(projectRepository).updatePlannedEndDateById(plannedEndDate.minusHours(48), projectId);
+    verify(reportDashboardStatsCache).invalidate();
+    verify(reportResultCache).invalidate();
+    verify(operationEventWriter).append(OperationEventType.PROJECT_END_DATE_CHANGED,
+        null, projectId, null, plannedEndDate.minusHours(48));
   }
   
   @Test
@@ -1407,6 +1517,7 @@ class ProjectServiceTest {
     
     //then
     verify(projectRepository).save(project);
+    verify(reportResultCache).invalidate();
   }
   
   @Test
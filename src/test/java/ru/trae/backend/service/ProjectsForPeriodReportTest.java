@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static ru.trae.backend.service.OperationService.SHIPMENT_PERIOD;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.trae.backend.dto.mapper.ProjectForReportDtoMapper;
+import ru.trae.backend.dto.operation.OperationForReportDto;
+import ru.trae.backend.dto.project.ProjectForReportDto;
+import ru.trae.backend.dto.report.ReportProjectsForPeriodDto;
+import ru.trae.backend.entity.TypeWork;
+import ru.trae.backend.entity.task.Operation;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.entity.user.Manager;
+import ru.trae.backend.repository.JpaSliceTest;
+import ru.trae.backend.repository.ProjectReportRepository;
+
+/**
+ * Checks the report on the projects for the period built from the flat rows of the projects
+ * and their operations: the entities are not loaded into the persistence context, the fetch
+ * size is smaller than the number of the rows, and the projected dates of the operations
+ * which are not started yet are not written back to the database.
+ */
+@TestPropertySource(properties = "report.projects.fetch-size=2")
+@Import({ReportService.class, ProjectService.class, ProjectForReportDtoMapper.class,
+    ProjectReportRepository.class})
+class ProjectsForPeriodReportTest extends JpaSliceTest {
+  private static final LocalDate BASE_DATE = LocalDate.of(2023, 6, 1);
+  private static final int OPERATION_PERIOD = 48;
+  @Autowired
+  private ReportService reportService;
+  private Statistics statistics;
+  private Project inPeriod;
+  private Project withoutOperations;
+  private Operation notStarted;
+
+  @BeforeEach
+  void setUp() {
+    Manager manager = persistManager();
+    TypeWork typeWork = persistTypeWork("type work");
+
+    LocalDateTime start = BASE_DATE.atTime(9, 0);
+    inPeriod = persistStartedProject(manager, 1, start);
+    persistOperation(inPeriod, typeWork, 20, start, start.plusHours(OPERATION_PERIOD));
+    notStarted = persistOperation(inPeriod, typeWork, 30, null, null);
+    persistOperation(inPeriod, typeWork, 10, start, start.plusHours(12));
+    persistOperation(inPeriod, typeWork, 40, null, null);
+    withoutOperations = persistStartedProject(manager, 2, start.plusDays(1));
+    persistStartedProject(manager, 3, start.plusDays(60));
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = statistics();
+    statistics.clear();
+  }
+
+  @Test
+  void reportProjectsForPeriod_ShouldProjectScheduleWithoutLoadingEntities() {
+    ReportProjectsForPeriodDto report =
+        reportService.reportProjectsForPeriod(BASE_DATE, BASE_DATE.plusDays(7));
+
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(0, persistenceContextSize());
+    List<ProjectForReportDto> projects = report.projectsForReportDtoList();
+    assertEquals(List.of(inPeriod.getId(), withoutOperations.getId()),
+        projects.stream().map(ProjectForReportDto::id).toList());
+    assertEquals(0, projects.get(1).operations().size());
+
+    List<OperationForReportDto> operations = projects.get(0).operations();
+    assertEquals(List.of(10, 20, 30, 40),
+        operations.stream().map(OperationForReportDto::priority).toList());
+    LocalDateTime previousEnd = operations.get(1).plannedEndDate();
+    assertEquals(previousEnd, operations.get(2).startDate());
+    assertEquals(previousEnd.plusHours(OPERATION_PERIOD), operations.get(2).plannedEndDate());
+    assertEquals(operations.get(2).plannedEndDate(), operations.get(3).startDate());
+    assertEquals(operations.get(3).startDate().plusHours(SHIPMENT_PERIOD),
+        operations.get(3).plannedEndDate());
+  }
+
+  @Test
+  void reportProjectsForPeriod_ShouldNotWriteProjectedDatesToDatabase() {
+    reportService.reportProjectsForPeriod(BASE_DATE, BASE_DATE.plusDays(7));
+    entityManager.flush();
+
+    Operation o = entityManager.find(Operation.class, notStarted.getId());
+    assertNull(o.getStartDate());
+    assertNull(o.getPlannedEndDate());
+  }
+
+  private Project persistStartedProject(Manager manager, int number, LocalDateTime start) {
+    Project p = persistProject(manager, number, start);
+    p.setStartFirstOperationDate(start);
+    p.setPlannedEndDate(start.plusDays(10));
+    p.setEndDateInContract(start.plusDays(10));
+    p.setOperationPeriod(OPERATION_PERIOD);
+    return p;
+  }
+
+  private Operation persistOperation(Project p, TypeWork typeWork, int priority,
+                                     LocalDateTime startDate, LocalDateTime plannedEndDate) {
+    Operation o = persistOperation(p, typeWork, priority);
+    o.setStartDate(startDate);
+    o.setPlannedEndDate(plannedEndDate);
+    return o;
+  }
+}
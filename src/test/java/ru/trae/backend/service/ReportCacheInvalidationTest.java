@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.trae.backend.dto.mapper.ProjectForReportDtoMapper;
+import ru.trae.backend.dto.project.ProjectForReportDto;
+import ru.trae.backend.entity.WorkingShift;
+import ru.trae.backend.entity.task.Project;
+import ru.trae.backend.repository.JpaSliceTest;
+import ru.trae.backend.repository.ProjectReportRepository;
+
+/**
+ * Checks that the changes of the historical data remove the cached reports over closed
+ * periods: the report read after the change is built from the database again.
+ */
+@Import({ReportService.class, ProjectService.class, ReportResultCache.class,
+    ProjectForReportDtoMapper.class, ProjectReportRepository.class})
+class ReportCacheInvalidationTest extends JpaSliceTest {
+  private static final LocalDate BASE_DATE = LocalDate.of(2023, 6, 1);
+  @Autowired
+  private ReportService reportService;
+  @Autowired
+  private ProjectService projectService;
+  @Autowired
+  private ReportResultCache reportResultCache;
+  private Project ended;
+
+  @BeforeEach
+  void setUp() {
+    //смена после периода закрыта, поэтому период отчета закрыт
+    WorkingShift ws = persistWorkingShift(BASE_DATE.plusDays(30).atTime(7, 0), true);
+    ws.setEndShift(BASE_DATE.plusDays(30).atTime(23, 0));
+
+    LocalDateTime start = BASE_DATE.atTime(9, 0);
+    ended = persistProject(persistManager(), 1, start);
+    ended.setStartFirstOperationDate(start);
+    ended.setPlannedEndDate(start.plusDays(3));
+    ended.setEndDateInContract(start.plusDays(3));
+    ended.setRealEndDate(start.plusDays(3));
+    ended.setEnded(true);
+    ended.setOperationPeriod(24);
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  void deleteProject_ShouldRemoveEndedProjectFromCachedReport() {
+    assertEquals(List.of(ended.getId()), reportProjectIds());
+    assertEquals(List.of(ended.getId()), reportProjectIds());
+    assertEquals(1, reportResultCache.getMetrics().hits());
+
+    projectService.deleteProject(ended.getId());
+    entityManager.flush();
+
+    assertEquals(List.of(), reportProjectIds());
+  }
+
+  private List<Long> reportProjectIds() {
+    return reportService.reportProjectsForPeriod(BASE_DATE, BASE_DATE.plusDays(7))
+        .projectsForReportDtoList().stream()
+        .map(ProjectForReportDto::id)
+        .toList();
+  }
+}
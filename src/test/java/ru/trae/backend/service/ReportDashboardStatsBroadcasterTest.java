@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.trae.backend.dto.report.ReportDashboardStatsDto;
+
+class ReportDashboardStatsBroadcasterTest {
+  private final ReportDashboardStatsDto firstStats = new ReportDashboardStatsDto(1, 2, 3, 4, 5);
+  private final ReportDashboardStatsDto secondStats = new ReportDashboardStatsDto(1, 3, 3, 4, 6);
+  private ReportDashboardStatsCache reportDashboardStatsCache;
+  private List<RecordingEmitter> emitters;
+  private ReportDashboardStatsBroadcaster broadcaster;
+
+  @BeforeEach
+  void setUp() {
+    reportDashboardStatsCache = mock(ReportDashboardStatsCache.class);
+    emitters = new ArrayList<>();
+    broadcaster = new ReportDashboardStatsBroadcaster(reportDashboardStatsCache) {
+      @Override
+      SseEmitter createEmitter() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitters.add(emitter);
+        return emitter;
+      }
+    };
+  }
+
+  @Test
+  void subscribe_ShouldSendSnapshot() {
+    when(reportDashboardStatsCache.get()).thenReturn(firstStats);
+
+    broadcaster.subscribe();
+    broadcaster.subscribe();
+
+    assertEquals(2, broadcaster.getSubscriberCount());
+    assertEquals(List.of(firstStats), emitters.get(0).data);
+    assertEquals(List.of(firstStats), emitters.get(1).data);
+    verify(reportDashboardStatsCache, times(1)).get();
+  }
+
+  @Test
+  void pushChanges_ShouldSendOneDeltaToAllSubscribers_WhenStatsWereInvalidated() {
+    when(reportDashboardStatsCache.getGeneration()).thenReturn(0L, 1L);
+    when(reportDashboardStatsCache.get()).thenReturn(firstStats, secondStats);
+    broadcaster.subscribe();
+    broadcaster.subscribe();
+
+    broadcaster.pushChanges();
+
+    Map<String, Long> delta = Map.of(
+        "countNotEndedProjects", 3L,
+        "countProjectsWithLastOpReadyToAcceptance", 6L);
+    assertEquals(List.of(firstStats, delta), emitters.get(0).data);
+    assertEquals(List.of(firstStats, delta), emitters.get(1).data);
+    verify(reportDashboardStatsCache, times(2)).get();
+  }
+
+  @Test
+  void pushChanges_ShouldNotRecalculateStats_WhenStatsWereNotInvalidated() {
+    when(reportDashboardStatsCache.get()).thenReturn(firstStats);
+    broadcaster.subscribe();
+
+    broadcaster.pushChanges();
+
+    assertEquals(List.of(firstStats), emitters.get(0).data);
+    verify(reportDashboardStatsCache, times(1)).get();
+  }
+
+  @Test
+  void pushChanges_ShouldRemoveSubscriber_WhenSendingFailed() {
+    when(reportDashboardStatsCache.getGeneration()).thenReturn(0L, 1L);
+    when(reportDashboardStatsCache.get()).thenReturn(firstStats, secondStats);
+    broadcaster.subscribe();
+    emitters.get(0).failing = true;
+
+    broadcaster.pushChanges();
+
+    assertEquals(0, broadcaster.getSubscriberCount());
+  }
+
+  @Test
+  void subscribe_ShouldNotWait_WhileChangesAreSentToSlowSubscriber() throws Exception {
+    when(reportDashboardStatsCache.getGeneration()).thenReturn(0L, 1L);
+    when(reportDashboardStatsCache.get()).thenReturn(firstStats, secondStats);
+    broadcaster.subscribe();
+    RecordingEmitter slow = emitters.get(0);
+    slow.blocking = new CountDownLatch(1);
+    Thread push = new Thread(broadcaster::pushChanges);
+    push.start();
+    try {
+      assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+
+      assertTimeoutPreemptively(Duration.ofSeconds(5), () -> broadcaster.subscribe());
+
+      assertEquals(List.of(secondStats), emitters.get(1).data);
+    } finally {
+      slow.blocking.countDown();
+      push.join();
+    }
+    assertEquals(2, slow.data.size());
+  }
+
+  @Test
+  void pushChanges_ShouldDoNothing_WhenThereAreNoSubscribers() {
+    broadcaster.pushChanges();
+
+    verify(reportDashboardStatsCache, times(0)).get();
+    assertTrue(emitters.isEmpty());
+  }
+
+  private static class RecordingEmitter extends SseEmitter {
+    private final List<Object> data = new ArrayList<>();
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private boolean failing;
+    private volatile CountDownLatch blocking;
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (failing) {
+        throw new IOException("broken pipe");
+      }
+      if (blocking != null) {
+        //медленный подписчик: отправка ждет, пока тест не освободит ее
+        sending.countDown();
+        try {
+          blocking.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      builder.build().stream()
+          .map(DataWithMediaType::getData)
+          .filter(d -> !(d instanceof String))
+          .forEach(data::add);
+    }
+  }
+}
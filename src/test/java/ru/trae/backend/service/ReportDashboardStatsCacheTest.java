@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.trae.backend.dto.report.ReportDashboardCacheMetricsDto;
+import ru.trae.backend.dto.report.ReportDashboardStatsDto;
+import ru.trae.backend.projection.DashboardStatsRowDto;
+import ru.trae.backend.repository.ProjectRepository;
+
+class ReportDashboardStatsCacheTest {
+  private ProjectRepository projectRepository;
+  private DashboardStatsRowDto firstRow;
+  private DashboardStatsRowDto secondRow;
+
+  @BeforeEach
+  void setUp() {
+    projectRepository = mock(ProjectRepository.class);
+    firstRow = row(1);
+    secondRow = row(2);
+    when(projectRepository.getDashboardStats()).thenReturn(firstRow, secondRow);
+  }
+
+  @Test
+  void get_ShouldReturnCachedStats_WhenStatsAreFresh() {
+    ReportDashboardStatsCache cache = cache(Duration.ofHours(1), Duration.ofHours(1));
+
+    ReportDashboardStatsDto first = cache.get();
+    ReportDashboardStatsDto second = cache.get();
+
+    assertEquals(first, second);
+    assertEquals(1, first.countNotEndedProjects());
+    verify(projectRepository, times(1)).getDashboardStats();
+    ReportDashboardCacheMetricsDto metrics = cache.getMetrics();
+    assertEquals(1, metrics.hits());
+    assertEquals(1, metrics.misses());
+    assertEquals(0.5, metrics.hitRate());
+    assertEquals(1, metrics.computations());
+  }
+
+  @Test
+  void get_ShouldReturnStaleStatsAndRefreshThem_WhenTtlIsExpired() {
+    ReportDashboardStatsCache cache = cache(Duration.ZERO, Duration.ofHours(1));
+
+    cache.get();
+    ReportDashboardStatsDto stale = cache.get();
+    ReportDashboardStatsDto refreshed = cache.get();
+
+    assertEquals(1, stale.countNotEndedProjects());
+    assertEquals(2, refreshed.countNotEndedProjects());
+    assertEquals(2, cache.getMetrics().staleHits());
+  }
+
+  @Test
+  void get_ShouldRecalculateStats_WhenStaleTtlIsExpired() {
+    ReportDashboardStatsCache cache = cache(Duration.ZERO, Duration.ZERO);
+
+    cache.get();
+    ReportDashboardStatsDto second = cache.get();
+
+    assertEquals(2, second.countNotEndedProjects());
+    assertEquals(2, cache.getMetrics().misses());
+    assertEquals(0, cache.getMetrics().hitRate());
+  }
+
+  @Test
+  void invalidate_ShouldRecalculateStatsOnNextGet() {
+    ReportDashboardStatsCache cache = cache(Duration.ofHours(1), Duration.ofHours(1));
+
+    cache.get();
+    cache.invalidate();
+    ReportDashboardStatsDto second = cache.get();
+
+    assertEquals(2, second.countNotEndedProjects());
+    verify(projectRepository, times(2)).getDashboardStats();
+  }
+
+  @Test
+  void invalidate_ShouldInvalidateStatsOnceMoreAfterCommit_WhenTransactionIsActive() {
+    ReportDashboardStatsCache cache = cache(Duration.ofHours(1), Duration.ofHours(1));
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cache.invalidate();
+      //статистика рассчитана по прежним данным до фиксации транзакции
+      cache.get();
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    ReportDashboardStatsDto afterCommit = cache.get();
+
+    assertEquals(2, afterCommit.countNotEndedProjects());
+    assertEquals(2, cache.getGeneration());
+    verify(projectRepository, times(2)).getDashboardStats();
+  }
+
+  @Test
+  void refreshThread_ShouldBeDaemon() throws Exception {
+    ReportDashboardStatsCache cache =
+        new ReportDashboardStatsCache(projectRepository, Duration.ZERO, Duration.ofHours(1));
+    CompletableFuture<Boolean> daemon = new CompletableFuture<>();
+    when(projectRepository.getDashboardStats()).thenReturn(firstRow).thenAnswer(invocation -> {
+      daemon.complete(Thread.currentThread().isDaemon());
+      return secondRow;
+    });
+    try {
+      cache.get();
+      cache.get();
+
+      assertTrue(daemon.get(5, TimeUnit.SECONDS));
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  private ReportDashboardStatsCache cache(Duration ttl, Duration staleTtl) {
+    //пересчет в фоне выполняется в том же потоке
+    return new ReportDashboardStatsCache(projectRepository, ttl, staleTtl, Runnable::run);
+  }
+
+  private DashboardStatsRowDto row(long countNotEndedProjects) {
+    DashboardStatsRowDto row = mock(DashboardStatsRowDto.class);
+    when(row.getCountNotEndedProjects()).thenReturn(countNotEndedProjects);
+    return row;
+  }
+}
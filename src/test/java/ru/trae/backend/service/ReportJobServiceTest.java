@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.trae.backend.dto.report.ReportJobDto;
+import ru.trae.backend.dto.report.ReportJobReq;
+import ru.trae.backend.dto.report.ReportProjectsForPeriodDto;
+import ru.trae.backend.exceptionhandler.exception.ReportException;
+import ru.trae.backend.util.ReportJobStatus;
+import ru.trae.backend.util.ReportJobType;
+
+class ReportJobServiceTest {
+  private static final String ADMIN = "admin";
+  private static final String OTHER_ADMIN = "other";
+  private final LocalDate start = LocalDate.of(2023, 1, 1);
+  private final LocalDate end = LocalDate.of(2023, 1, 31);
+  private final ReportJobReq projectsReq =
+      new ReportJobReq(ReportJobType.PROJECTS, start, end, null, null);
+  private final ReportJobReq exportReq =
+      new ReportJobReq(ReportJobType.WORKING_SHIFTS_EXPORT, start, end, Set.of(1L), null);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final List<RecordingEmitter> emitters = new ArrayList<>();
+  @TempDir
+  Path directory;
+  private ReportService reportService;
+  private TimesheetExportService timesheetExportService;
+  private ReportJobService reportJobService;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    reportService = mock(ReportService.class);
+    timesheetExportService = mock(TimesheetExportService.class);
+    reportJobService = service(1, 1, 2, Duration.ofHours(1));
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    reportJobService.shutdown();
+  }
+
+  @Test
+  void submit_ShouldWriteJsonResult_WhenJobIsDone() throws Exception {
+    when(reportService.reportProjectsForPeriod(start, end))
+        .thenReturn(new ReportProjectsForPeriodDto(start, end, end, List.of()));
+
+    ReportJobDto job = reportJobService.submit(projectsReq, ADMIN);
+    ReportJobDto done = awaitFinished(job.id());
+
+    ReportJobService.ReportJobResult result = reportJobService.getResult(job.id(), ADMIN);
+    String json = Files.readString(result.file());
+    assertEquals(ReportJobStatus.DONE, done.status());
+    assertEquals(ReportJobType.PROJECTS, result.type());
+    assertTrue(result.file().toString().endsWith(".json"));
+    assertTrue(json.contains("\"startPeriod\":\"2023-01-01\""));
+    assertEquals(Files.size(result.file()), done.resultSize());
+    assertEquals(done.finishedAt().plusHours(1), done.expiresAt());
+  }
+
+  @Test
+  void submit_ShouldWriteCsvResult_WhenJobIsExport() throws Exception {
+    doAnswer(invocation -> {
+      invocation.<OutputStream>getArgument(3).write("1;Ivanov\n".getBytes(StandardCharsets.UTF_8));
+      return null;
+    }).when(timesheetExportService).writeCsv(eq(start), eq(end), eq(Set.of(1L)), any());
+
+    ReportJobDto job = reportJobService.submit(exportReq, ADMIN);
+    awaitFinished(job.id());
+
+    Path file = reportJobService.getResult(job.id(), ADMIN).file();
+    assertTrue(file.toString().endsWith(".csv"));
+    assertEquals("1;Ivanov\n", Files.readString(file));
+  }
+
+  @Test
+  void submit_ShouldFailJob_WhenReportCannotBeBuilt() throws Exception {
+    when(reportService.reportProjectsForPeriod(start, end))
+        .thenThrow(new IllegalStateException("connection is closed"));
+
+    ReportJobDto job = reportJobService.submit(projectsReq, ADMIN);
+    ReportJobDto failed = awaitFinished(job.id());
+
+    assertEquals(ReportJobStatus.FAILED, failed.status());
+    assertEquals("Report cannot be built", failed.error());
+    assertEquals(HttpStatus.CONFLICT, assertThrows(ReportException.class,
+        () -> reportJobService.getResult(job.id(), ADMIN)).getStatus());
+    assertEmptyDirectory();
+  }
+
+  @Test
+  void submit_ShouldThrowBadRequest_WhenRequestIsIncorrect() {
+    ReportJobReq withoutPeriod =
+        new ReportJobReq(ReportJobType.WORKING_SHIFTS, start, null, null, null);
+    ReportJobReq reversedPeriod = new ReportJobReq(ReportJobType.PROJECTS, end, start, null, null);
+    ReportJobReq withoutDeadlines =
+        new ReportJobReq(ReportJobType.DEADLINES, null, null, null, null);
+
+    for (ReportJobReq req : List.of(withoutPeriod, reversedPeriod, withoutDeadlines)) {
+      ReportException e =
+          assertThrows(ReportException.class, () -> reportJobService.submit(req, ADMIN));
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+  }
+
+  @Test
+  void submit_ShouldThrowTooManyRequests_WhenUserHasMaxActiveJobs() throws Exception {
+    reportJobService.shutdown();
+    reportJobService = service(1, 5, 2, Duration.ofHours(1));
+    CountDownLatch started = blockExport();
+
+    reportJobService.submit(exportReq, ADMIN);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    reportJobService.submit(exportReq, ADMIN);
+
+    ReportException e =
+        assertThrows(ReportException.class, () -> reportJobService.submit(exportReq, ADMIN));
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatus());
+    assertEquals(ReportJobStatus.QUEUED,
+        reportJobService.submit(exportReq, OTHER_ADMIN).status());
+  }
+
+  @Test
+  void submit_ShouldThrowServiceUnavailable_WhenQueueIsFull() throws Exception {
+    CountDownLatch started = blockExport();
+
+    reportJobService.submit(exportReq, ADMIN);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    ReportJobDto queued = reportJobService.submit(exportReq, ADMIN);
+
+    ReportException e = assertThrows(ReportException.class,
+        () -> reportJobService.submit(exportReq, OTHER_ADMIN));
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+    assertEquals(1, queued.queuePosition());
+  }
+
+  @Test
+  void cancel_ShouldStopRunningJobAndRemoveIt() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      OutputStream out = invocation.getArgument(3);
+      started.countDown();
+      //выгрузка пишет строки, пока задание не отменено
+      while (true) {
+        out.write(new byte[1024]);
+      }
+    }).when(timesheetExportService).writeCsv(any(), any(), any(), any());
+
+    ReportJobDto job = reportJobService.submit(exportReq, ADMIN);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    reportJobService.cancel(job.id(), ADMIN);
+
+    ReportException e =
+        assertThrows(ReportException.class, () -> reportJobService.get(job.id(), ADMIN));
+    assertEquals(HttpStatus.NOT_FOUND, e.getStatus());
+    awaitEmptyDirectory();
+    //поток освобожден: следующее задание выполняется
+    when(reportService.reportProjectsForPeriod(start, end))
+        .thenReturn(new ReportProjectsForPeriodDto(start, end, end, List.of()));
+    ReportJobDto next = reportJobService.submit(projectsReq, ADMIN);
+    assertEquals(ReportJobStatus.DONE, awaitFinished(next.id()).status());
+  }
+
+  @Test
+  void cancel_ShouldRemoveQueuedJobFromQueue() throws Exception {
+    CountDownLatch started = blockExport();
+    reportJobService.submit(exportReq, ADMIN);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    ReportJobDto queued = reportJobService.submit(exportReq, ADMIN);
+
+    reportJobService.cancel(queued.id(), ADMIN);
+
+    assertEquals(ReportJobStatus.QUEUED,
+        reportJobService.submit(exportReq, OTHER_ADMIN).status());
+  }
+
+  @Test
+  void get_ShouldThrowNotFound_WhenJobBelongsToOtherUser() {
+    when(reportService.reportProjectsForPeriod(start, end))
+        .thenReturn(new ReportProjectsForPeriodDto(start, end, end, List.of()));
+    ReportJobDto job = reportJobService.submit(projectsReq, ADMIN);
+
+    ReportException e =
+        assertThrows(ReportException.class, () -> reportJobService.get(job.id(), OTHER_ADMIN));
+    assertEquals(HttpStatus.NOT_FOUND, e.getStatus());
+    assertThrows(ReportException.class, () -> reportJobService.cancel(job.id(), OTHER_ADMIN));
+  }
+
+  @Test
+  void subscribe_ShouldSendStatusAndComplete_WhenJobIsFinished() throws Exception {
+    when(reportService.reportProjectsForPeriod(start, end))
+        .thenReturn(new ReportProjectsForPeriodDto(start, end, end, List.of()));
+    ReportJobDto job = reportJobService.submit(projectsReq, ADMIN);
+    awaitFinished(job.id());
+
+    reportJobService.subscribe(job.id(), ADMIN);
+
+    RecordingEmitter emitter = emitters.get(0);
+    assertEquals(1, emitter.data.size());
+    assertEquals(ReportJobStatus.DONE, emitter.data.get(0).status());
+    assertTrue(emitter.completed);
+  }
+
+  @Test
+  void removeExpired_ShouldRemoveFinishedJobsWithResults() throws Exception {
+    reportJobService.shutdown();
+    reportJobService = service(1, 1, 2, Duration.ZERO);
+    when(reportService.reportProjectsForPeriod(start, end))
+        .thenReturn(new ReportProjectsForPeriodDto(start, end, end, List.of()));
+    ReportJobDto job = reportJobService.submit(projectsReq, ADMIN);
+    awaitFinished(job.id());
+
+    assertEquals(1, reportJobService.removeExpired());
+
+    assertThrows(ReportException.class, () -> reportJobService.get(job.id(), ADMIN));
+    assertEmptyDirectory();
+  }
+
+  @Test
+  void constructor_ShouldRemoveResultsOfPreviousRun() throws IOException {
+    Path orphan = Files.writeString(directory.resolve("orphan.json"), "{}");
+
+    reportJobService.shutdown();
+    reportJobService = service(1, 1, 2, Duration.ofHours(1));
+
+    assertFalse(Files.exists(orphan));
+  }
+
+  private ReportJobService service(int threads, int queueCapacity, int maxJobsPerUser,
+                                   Duration resultTtl) throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    return new ReportJobService(reportService, timesheetExportService, objectMapper,
+        threads, queueCapacity, maxJobsPerUser, directory.toString(), resultTtl,
+        Duration.ofMinutes(1)) {
+      @Override
+      SseEmitter createEmitter() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitters.add(emitter);
+        return emitter;
+      }
+    };
+  }
+
+  private CountDownLatch blockExport() throws IOException {
+    CountDownLatch started = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return null;
+    }).when(timesheetExportService).writeCsv(any(), any(), any(), any());
+    return started;
+  }
+
+  private ReportJobDto awaitFinished(String id) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    ReportJobDto job = reportJobService.get(id, ADMIN);
+    while (!job.status().isFinished() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+      job = reportJobService.get(id, ADMIN);
+    }
+    assertTrue(job.status().isFinished());
+    return job;
+  }
+
+  private void awaitEmptyDirectory() throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (countFiles() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEmptyDirectory();
+  }
+
+  private void assertEmptyDirectory() throws IOException {
+    assertEquals(0, countFiles());
+  }
+
+  private long countFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  private static class RecordingEmitter extends SseEmitter {
+    private final List<ReportJobDto> data = new ArrayList<>();
+    private boolean completed;
+
+    @Override
+    public void send(SseEventBuilder builder) {
+      builder.build().stream()
+          .map(DataWithMediaType::getData)
+          .filter(ReportJobDto.class::isInstance)
+          .map(ReportJobDto.class::cast)
+          .forEach(data::add);
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.trae.backend.dto.report.DeadlineReq;
+import ru.trae.backend.dto.report.ReportCacheMetricsDto;
+import ru.trae.backend.repository.WorkingShiftRepository;
+import ru.trae.backend.util.ReportParameter;
+
+class ReportResultCacheTest {
+  private static final LocalDate START = LocalDate.of(2023, 6, 1);
+  private static final LocalDate END = LocalDate.of(2023, 6, 30);
+  private WorkingShiftRepository workingShiftRepository;
+  private ReportResultCache cache;
+
+  @BeforeEach
+  void setUp() {
+    workingShiftRepository = mock(WorkingShiftRepository.class);
+    cache = new ReportResultCache(workingShiftRepository, 10, Duration.ofHours(1));
+  }
+
+  @Test
+  void get_ShouldReturnCachedReport_WhenKeyParametersAreEqualAfterNormalization() {
+    cache.put(key(Set.of(3L, 1L, 2L)), "report", 1, cache.getGeneration());
+
+    assertEquals(Optional.of("report"), cache.get(key(new HashSet<>(List.of(2L, 1L, 3L))),
+        String.class));
+    assertEquals(Optional.empty(), cache.get(key(Set.of(1L, 2L)), String.class));
+    ReportCacheMetricsDto metrics = cache.getMetrics();
+    assertEquals(1, metrics.hits());
+    assertEquals(1, metrics.misses());
+    assertEquals(0.5, metrics.hitRate());
+    assertEquals(1, metrics.puts());
+  }
+
+  @Test
+  void get_ShouldRemoveExpiredReport() {
+    ReportResultCache expiring =
+        new ReportResultCache(workingShiftRepository, 10, Duration.ZERO);
+    expiring.put(key(null), "report", 3, expiring.getGeneration());
+
+    assertEquals(Optional.empty(), expiring.get(key(null), String.class));
+    ReportCacheMetricsDto metrics = expiring.getMetrics();
+    assertEquals(0, metrics.entries());
+    assertEquals(0, metrics.weight());
+    assertEquals(1, metrics.evictions());
+  }
+
+  @Test
+  void get_ShouldTreatNullAndEmptyIdsAsEqual() {
+    cache.put(key(null), "report", 1, cache.getGeneration());
+
+    assertEquals(Optional.of("report"), cache.get(key(Set.of()), String.class));
+  }
+
+  @Test
+  void get_ShouldReturnEmpty_WhenCachedReportHasOtherType() {
+    cache.put(key(null), "report", 1, cache.getGeneration());
+
+    assertEquals(Optional.empty(), cache.get(key(null), Integer.class));
+  }
+
+  @Test
+  void deadlinesKey_ShouldNotDependOnOrderOfIds() {
+    DeadlineReq first = new DeadlineReq(ReportParameter.PROJECT, 1L,
+        ReportParameter.OPERATION, Set.of(5L, 4L), ReportParameter.EMPLOYEE, Set.of(7L, 6L));
+    DeadlineReq second = new DeadlineReq(ReportParameter.PROJECT, 1L,
+        ReportParameter.OPERATION, new HashSet<>(List.of(4L, 5L)),
+        ReportParameter.EMPLOYEE, new HashSet<>(List.of(6L, 7L)));
+    DeadlineReq other = new DeadlineReq(ReportParameter.PROJECT, 1L,
+        ReportParameter.EMPLOYEE, Set.of(5L, 4L), ReportParameter.OPERATION, Set.of(7L, 6L));
+
+    assertEquals(ReportResultCache.Key.deadlines(first), ReportResultCache.Key.deadlines(second));
+    assertFalse(ReportResultCache.Key.deadlines(first)
+        .equals(ReportResultCache.Key.deadlines(other)));
+  }
+
+  @Test
+  void put_ShouldEvictLeastRecentlyUsedReports_WhenWeightIsExceeded() {
+    cache.put(key(Set.of(1L)), "first", 4, cache.getGeneration());
+    cache.put(key(Set.of(2L)), "second", 4, cache.getGeneration());
+    //первый отчет запрошен позже второго, поэтому вытесняется второй
+    cache.get(key(Set.of(1L)), String.class);
+    cache.put(key(Set.of(3L)), "third", 4, cache.getGeneration());
+
+    assertTrue(cache.get(key(Set.of(1L)), String.class).isPresent());
+    assertFalse(cache.get(key(Set.of(2L)), String.class).isPresent());
+    assertTrue(cache.get(key(Set.of(3L)), String.class).isPresent());
+    ReportCacheMetricsDto metrics = cache.getMetrics();
+    assertEquals(1, metrics.evictions());
+    assertEquals(2, metrics.entries());
+    assertEquals(8, metrics.weight());
+    assertEquals(10, metrics.maxWeight());
+  }
+
+  @Test
+  void put_ShouldReplaceWeightOfReport_WhenKeyIsAlreadyCached() {
+    cache.put(key(null), "first", 6, cache.getGeneration());
+    cache.put(key(null), "second", 3, cache.getGeneration());
+
+    assertEquals(3, cache.getMetrics().weight());
+    assertEquals(Optional.of("second"), cache.get(key(null), String.class));
+  }
+
+  @Test
+  void put_ShouldRejectReport_WhenItIsHeavierThanCache() {
+    cache.put(key(null), "report", 11, cache.getGeneration());
+
+    assertFalse(cache.get(key(null), String.class).isPresent());
+    assertEquals(1, cache.getMetrics().rejectedPuts());
+    assertEquals(0, cache.getMetrics().weight());
+  }
+
+  @Test
+  void put_ShouldRejectReport_WhenCacheWasInvalidatedWhileReportWasBuilt() {
+    long generation = cache.getGeneration();
+    cache.invalidate();
+    cache.put(key(null), "report", 1, generation);
+
+    assertFalse(cache.get(key(null), String.class).isPresent());
+    assertEquals(1, cache.getMetrics().rejectedPuts());
+  }
+
+  @Test
+  void invalidate_ShouldRemoveAllReports() {
+    cache.put(key(Set.of(1L)), "first", 1, cache.getGeneration());
+    cache.put(key(Set.of(2L)), "second", 1, cache.getGeneration());
+
+    assertEquals(2, cache.invalidate());
+
+    assertFalse(cache.get(key(Set.of(1L)), String.class).isPresent());
+    ReportCacheMetricsDto metrics = cache.getMetrics();
+    assertEquals(0, metrics.entries());
+    assertEquals(0, metrics.weight());
+    assertEquals(1, metrics.invalidations());
+  }
+
+  @Test
+  void invalidate_ShouldRemoveReportsOnceMoreAfterCommit_WhenTransactionIsActive() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cache.invalidate();
+      //отчет построен по прежним данным до фиксации транзакции
+      cache.put(key(null), "report", 1, cache.getGeneration());
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertFalse(cache.get(key(null), String.class).isPresent());
+    assertEquals(2, cache.getMetrics().invalidations());
+  }
+
+  @Test
+  void isClosedPeriod_ShouldBeTrue_OnlyWhenPeriodEndsBeforeLastClosedShift() {
+    when(workingShiftRepository.findLastClosedStartShift())
+        .thenReturn(Optional.of(END.atTime(8, 0)));
+
+    assertTrue(cache.isClosedPeriod(END.minusDays(1)));
+    assertFalse(cache.isClosedPeriod(END));
+  }
+
+  @Test
+  void isClosedPeriod_ShouldBeFalse_WhenNoShiftIsClosed() {
+    when(workingShiftRepository.findLastClosedStartShift()).thenReturn(Optional.empty());
+
+    assertFalse(cache.isClosedPeriod(LocalDateTime.now().minusYears(1).toLocalDate()));
+  }
+
+  private static ReportResultCache.Key key(Set<Long> ids) {
+    return ReportResultCache.Key.period("report", START, END, ids);
+  }
+}
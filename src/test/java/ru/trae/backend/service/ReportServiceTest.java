@@ -12,29 +12,42 @@ package ru.trae.backend.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.trae.backend.dto.employee.EmployeeIdFirstLastNameDto;
 import ru.trae.backend.dto.mapper.ProjectForReportDtoMapper;
+import ru.trae.backend.dto.operation.OperationForReportDto;
 import ru.trae.backend.dto.project.ProjectForReportDto;
 import ru.trae.backend.dto.report.DeadlineReq;
+import ru.trae.backend.dto.report.OperationDeadlineRowDto;
+import ru.trae.backend.dto.report.ProjectOperationRowDto;
+import ru.trae.backend.dto.report.ReportDashboardCacheMetricsDto;
 import ru.trae.backend.dto.report.ReportDashboardStatsDto;
 import ru.trae.backend.dto.report.ReportDeadlineDto;
 import ru.trae.backend.dto.report.ReportProjectsForPeriodDto;
@@ -65,6 +78,15 @@ class ReportServiceTest {
   @Mock
   private ProjectForReportDtoMapper projectForReportDtoMapper;
 
+  @Mock
+  private ReportDashboardStatsCache reportDashboardStatsCache;
+
+  @Mock
+  private TimesheetExportService timesheetExportService;
+
+  @Mock
+  private ReportResultCache reportResultCache;
+
   @InjectMocks
   private ReportService reportService;
 
@@ -100,6 +122,35 @@ class ReportServiceTest {
     verify(employeeService).getEmployeeDtoByListId(anyList());
   }
 
+  @Test
+  void exportWorkingShiftsForPeriod_ShouldWriteTimesheetWhenBodyIsWritten() throws Exception {
+    //given
+    LocalDate startOfPeriod = LocalDate.now();
+    LocalDate endOfPeriod = LocalDate.now().plusDays(7);
+    Set<Long> employeeIds = Set.of(1L, 2L);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    //when
+    StreamingResponseBody body =
+        reportService.exportWorkingShiftsForPeriod(startOfPeriod, endOfPeriod, employeeIds);
+
+    //then
+    verify(timesheetExportService, never()).writeCsv(any(), any(), any(), any());
+    body.writeTo(out);
+    verify(timesheetExportService).writeCsv(startOfPeriod, endOfPeriod, employeeIds, out);
+  }
+
+  @Test
+  void exportWorkingShiftsForPeriod_WhenStartIsAfterEnd_ShouldThrowException() {
+    //given
+    LocalDate startOfPeriod = LocalDate.now().plusDays(7);
+    LocalDate endOfPeriod = LocalDate.now();
+
+    //then
+    assertThrows(ReportException.class,
+        () -> reportService.exportWorkingShiftsForPeriod(startOfPeriod, endOfPeriod, null));
+  }
+
   @Test
   void testReportWorkingShiftForPeriodWithoutEmpIds() {
     //given
@@ -138,32 +189,25 @@ class ReportServiceTest {
     LocalDateTime endOfPeriod = LocalDateTime.now().plusDays(7);
     int opPeriod = 60;
 
-    Project p1 = new Project();
-    p1.setId(1L);
-    p1.setName("project_1");
-    p1.setStartDate(startOfPeriod);
-    p1.setEndDateInContract(endOfPeriod);
-    p1.setOperationPeriod(opPeriod);
-
-    Project p2 = new Project();
-    p2.setId(2L);
-    p2.setName("project_2");
-    p2.setStartDate(startOfPeriod);
-    p2.setEndDateInContract(endOfPeriod);
-    p2.setOperationPeriod(opPeriod);
-
-    Project p3 = new Project();
-    p3.setId(3L);
-    p3.setName("project_3");
-    p3.setStartDate(startOfPeriod);
-    p3.setEndDateInContract(endOfPeriod);
-    p3.setOperationPeriod(opPeriod);
-
-    List<Project> projects = List.of(p1, p2, p3);
+    OperationForReportDto op1 = new OperationForReportDto(1L, 10, "op_1", startOfPeriod,
+        null, startOfPeriod.plusHours(opPeriod), null, false, true, false);
+    OperationForReportDto op2 = new OperationForReportDto(2L, 20, "op_2", null,
+        null, null, null, false, false, false);
+    OperationForReportDto op3 = new OperationForReportDto(3L, 10, "op_3", null,
+        null, null, null, false, false, false);
+    List<ProjectOperationRowDto> rows = List.of(
+        projectRow(1L, startOfPeriod, endOfPeriod, opPeriod, op1),
+        projectRow(1L, startOfPeriod, endOfPeriod, opPeriod, op2),
+        projectRow(2L, startOfPeriod, endOfPeriod, opPeriod, null),
+        projectRow(3L, startOfPeriod, endOfPeriod, opPeriod, op3));
 
     //when
-    when(projectService.findProjectsForPeriod(
-        startOfPeriod.toLocalDate(), endOfPeriod.toLocalDate())).thenReturn(projects);
+    doAnswer(invocation -> {
+      Consumer<ProjectOperationRowDto> consumer = invocation.getArgument(2);
+      rows.forEach(consumer);
+      return null;
+    }).when(projectService).streamProjectRowsForPeriod(
+        eq(startOfPeriod.toLocalDate()), eq(endOfPeriod.toLocalDate()), any());
 
     List<ProjectForReportDto> projectForReportDtoList = List.of(
         new ProjectForReportDto(1L, 100, "project_1", startOfPeriod,
@@ -177,7 +221,7 @@ class ReportServiceTest {
             true, opPeriod, Collections.emptyList(), "test_customer", "test_comment")
     );
 
-    when(projectForReportDtoMapper.apply(any(Project.class))).thenReturn(projectForReportDtoList.get(0),
+    when(projectForReportDtoMapper.apply(anyList())).thenReturn(projectForReportDtoList.get(0),
         projectForReportDtoList.get(1), projectForReportDtoList.get(2));
 
     ReportProjectsForPeriodDto result = reportService.reportProjectsForPeriod(
@@ -189,9 +233,21 @@ class ReportServiceTest {
     assertEquals(endOfPeriod.toLocalDate(), result.endPeriod());
     assertEquals(projectForReportDtoList, result.projectsForReportDtoList());
 
-    verify(projectService).findProjectsForPeriod(
-        startOfPeriod.toLocalDate(), endOfPeriod.toLocalDate());
-    verify(projectForReportDtoMapper, times(projects.size())).apply(any(Project.class));
+    verify(projectForReportDtoMapper).apply(rows.subList(0, 2));
+    verify(projectForReportDtoMapper).apply(rows.subList(2, 3));
+    verify(projectForReportDtoMapper).apply(rows.subList(3, 4));
+    verify(projectForReportDtoMapper, times(3)).apply(anyList());
+  }
+
+  @Test
+  void testReportProjectsForPeriod_WhenNoProjects_ShouldReturnEmptyReport() {
+    //when
+    ReportProjectsForPeriodDto result = reportService.reportProjectsForPeriod(
+        LocalDate.now(), LocalDate.now().plusDays(7));
+
+    //then
+    assertEquals(0, result.projectsForReportDtoList().size());
+    verify(projectForReportDtoMapper, never()).apply(anyList());
   }
 
   @Test
@@ -220,7 +276,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     ReportDeadlineDto report = reportService.reportDeadlines(req);
 
@@ -242,7 +298,7 @@ class ReportServiceTest {
     assertEquals(3L, thirdResponseSubDto.thirdRespId());
     assertEquals("employee_last_name", thirdResponseSubDto.thirdRespValue());
 
-    verify(operationService, times(1)).getOperationsByIds(anySet());
+    verify(operationService, times(1)).getDeadlineRowsByIds(anySet());
   }
 
   @Test
@@ -271,7 +327,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     ReportDeadlineDto report = reportService.reportDeadlines(req);
 
@@ -293,7 +349,7 @@ class ReportServiceTest {
     assertEquals(3L, thirdResponseSubDto.thirdRespId());
     assertEquals("operation_name", thirdResponseSubDto.thirdRespValue());
 
-    verify(operationService, times(1)).getOperationsByIds(anySet());
+    verify(operationService, times(1)).getDeadlineRowsByIds(anySet());
   }
 
   @Test
@@ -334,7 +390,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     ReportDeadlineDto report = reportService.reportDeadlines(req);
 
@@ -356,7 +412,7 @@ class ReportServiceTest {
     assertEquals(6L, thirdResponseSubDto.thirdRespId());
     assertEquals("employee_last_name", thirdResponseSubDto.thirdRespValue());
 
-    verify(operationService, times(1)).getOperationsByIds(anySet());
+    verify(operationService, times(1)).getDeadlineRowsByIds(anySet());
   }
 
   @Test
@@ -385,7 +441,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     ReportDeadlineDto report = reportService.reportDeadlines(req);
 
@@ -407,7 +463,7 @@ class ReportServiceTest {
     assertEquals(6L, thirdResponseSubDto.thirdRespId());
     assertEquals("100", thirdResponseSubDto.thirdRespValue());
 
-    verify(operationService, times(1)).getOperationsByIds(anySet());
+    verify(operationService, times(1)).getDeadlineRowsByIds(anySet());
   }
 
   @Test
@@ -436,7 +492,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     ReportDeadlineDto report = reportService.reportDeadlines(req);
 
@@ -458,7 +514,7 @@ class ReportServiceTest {
     assertEquals(9L, thirdResponseSubDto.thirdRespId());
     assertEquals("operation_name", thirdResponseSubDto.thirdRespValue());
 
-    verify(operationService, times(1)).getOperationsByIds(anySet());
+    verify(operationService, times(1)).getDeadlineRowsByIds(anySet());
   }
 
   @Test
@@ -487,7 +543,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     ReportDeadlineDto report = reportService.reportDeadlines(req);
 
@@ -509,7 +565,7 @@ class ReportServiceTest {
     assertEquals(9L, thirdResponseSubDto.thirdRespId());
     assertEquals("100", thirdResponseSubDto.thirdRespValue());
 
-    verify(operationService, times(1)).getOperationsByIds(anySet());
+    verify(operationService, times(1)).getDeadlineRowsByIds(anySet());
   }
 
   @Test
@@ -533,7 +589,7 @@ class ReportServiceTest {
         ReportParameter.EMPLOYEE, Collections.singleton(3L));
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(Collections.emptyList());
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(Collections.emptyList());
 
     //then
     assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
@@ -548,7 +604,7 @@ class ReportServiceTest {
         ReportParameter.EMPLOYEE, Collections.singleton(6L));
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(Collections.emptyList());
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(Collections.emptyList());
 
     //then
     assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
@@ -563,7 +619,7 @@ class ReportServiceTest {
         ReportParameter.OPERATION, Collections.singleton(9L));
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(Collections.emptyList());
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(Collections.emptyList());
 
     //then
     assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
@@ -592,7 +648,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     //then
     assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
@@ -621,7 +677,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     //then
     assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
@@ -650,7 +706,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(o);
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     //then
     assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
@@ -679,7 +735,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(new Operation());
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
 
     //then
@@ -709,7 +765,7 @@ class ReportServiceTest {
     List<Operation> operations = Collections.singletonList(new Operation());
 
     //when
-    when(operationService.getOperationsByIds(anySet())).thenReturn(operations);
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(rows(operations));
 
     //then
     assertThrows(ReportException.class, () -> reportService.reportDeadlines(req));
@@ -718,26 +774,202 @@ class ReportServiceTest {
   @Test
   void testReportDashboard() {
     //given
-    long expectedNotEndedProjects = 1;
-    long expectedProjectsWithOverdueCurrentOperation = 2;
-    long expectedOverdueProjects = 3;
-    long expectedProjectsWithLastOpReadyToAcceptance = 4;
+    ReportDashboardStatsDto expectedDto = new ReportDashboardStatsDto(5, 1, 2, 3, 4);
 
     //when
-    when(projectService.getCountNotEndedProjects()).thenReturn(expectedNotEndedProjects);
-    when(projectService.getCountOverdueProjects()).thenReturn(expectedOverdueProjects);
-    when(projectService.getCountProjectsWithOverdueCurrentOperation())
-        .thenReturn(expectedProjectsWithOverdueCurrentOperation);
-    when(projectService.getCountProjectsWithLastOpReadyToAcceptance())
-        .thenReturn(expectedProjectsWithLastOpReadyToAcceptance);
+    when(reportDashboardStatsCache.get()).thenReturn(expectedDto);
     ReportDashboardStatsDto dto = reportService.getDashboardStatsDto();
 
     //then
-    assertEquals(expectedNotEndedProjects, dto.countNotEndedProjects());
-    assertEquals(expectedProjectsWithOverdueCurrentOperation,
-        dto.countProjectsWithOverdueCurrentOperation());
-    assertEquals(expectedOverdueProjects, dto.countOverdueProjects());
-    assertEquals(expectedProjectsWithLastOpReadyToAcceptance,
-        dto.countProjectsWithLastOpReadyToAcceptance());
+    assertEquals(expectedDto, dto);
+    verify(reportDashboardStatsCache).get();
+  }
+
+  @Test
+  void testReportDashboardCacheMetrics() {
+    //given
+    ReportDashboardCacheMetricsDto expectedDto =
+        new ReportDashboardCacheMetricsDto(3, 1, 1, 0.8, 2, 1.5, 1.25);
+
+    //when
+    when(reportDashboardStatsCache.getMetrics()).thenReturn(expectedDto);
+
+    //then
+    assertEquals(expectedDto, reportService.getDashboardCacheMetrics());
+  }
+
+  @Test
+  void reportWorkingShiftForPeriod_WhenReportIsCached_ShouldNotReadShifts() {
+    //given
+    LocalDate startOfPeriod = LocalDate.of(2023, 6, 1);
+    LocalDate endOfPeriod = LocalDate.of(2023, 6, 30);
+    ReportWorkingShiftForPeriodDto cached = new ReportWorkingShiftForPeriodDto(
+        startOfPeriod, endOfPeriod, List.of(), List.of(), List.of());
+
+    //when
+    when(reportResultCache.get(ReportResultCache.Key.period(
+            "working-shifts", startOfPeriod, endOfPeriod, Set.of()),
+        ReportWorkingShiftForPeriodDto.class)).thenReturn(Optional.of(cached));
+
+    ReportWorkingShiftForPeriodDto result =
+        reportService.reportWorkingShiftForPeriod(startOfPeriod, endOfPeriod, null);
+
+    //then
+    assertSame(cached, result);
+    verify(workingShiftService, never()).getWorkingShiftEmployeeByEmpIds(any(), any(), any());
+  }
+
+  @Test
+  void reportWorkingShiftForPeriod_WhenPeriodIsClosed_ShouldCacheReport() {
+    //given
+    LocalDate startOfPeriod = LocalDate.of(2023, 6, 1);
+    LocalDate endOfPeriod = LocalDate.of(2023, 6, 30);
+    Set<Long> employeeIds = Set.of(1L);
+    List<EmployeeIdFirstLastNameDto> shortEmployeeDtoList =
+        List.of(new EmployeeIdFirstLastNameDto(1L, "test_name_1", "test_lastname_1"));
+
+    //when
+    when(reportResultCache.getGeneration()).thenReturn(5L);
+    when(workingShiftService.getWorkingShiftEmployeeByEmpIds(
+        startOfPeriod, endOfPeriod, employeeIds)).thenReturn(List.of());
+    when(employeeService.getEmployeeDtoByListId(anyList())).thenReturn(shortEmployeeDtoList);
+    when(reportResultCache.isClosedPeriod(endOfPeriod)).thenReturn(true);
+
+    ReportWorkingShiftForPeriodDto result =
+        reportService.reportWorkingShiftForPeriod(startOfPeriod, endOfPeriod, employeeIds);
+
+    //then
+    verify(reportResultCache).put(ReportResultCache.Key.period(
+        "working-shifts", startOfPeriod, endOfPeriod, employeeIds), result, 1, 5L);
+  }
+
+  @Test
+  void reportWorkingShiftForPeriod_WhenPeriodIsNotClosed_ShouldNotCacheReport() {
+    //given
+    LocalDate startOfPeriod = LocalDate.now().minusDays(7);
+    LocalDate endOfPeriod = LocalDate.now();
+
+    //when
+    when(workingShiftService.getWorkingShiftEmployeeByEmpIds(startOfPeriod, endOfPeriod, null))
+        .thenReturn(List.of());
+
+    reportService.reportWorkingShiftForPeriod(startOfPeriod, endOfPeriod, null);
+
+    //then
+    verify(reportResultCache).isClosedPeriod(endOfPeriod);
+    verify(reportResultCache, never()).put(any(), any(), anyLong(), anyLong());
+  }
+
+  @Test
+  void reportProjectsForPeriod_WhenReportIsCached_ShouldReturnItWithCurrentDate() {
+    //given
+    LocalDate startOfPeriod = LocalDate.of(2023, 6, 1);
+    LocalDate endOfPeriod = LocalDate.of(2023, 6, 30);
+    List<ProjectForReportDto> projects = List.of(new ProjectForReportDto(1L, 100, "project_1",
+        null, null, null, null, null, true, 60, List.of(), "test_customer", null));
+
+    //when
+    when(reportResultCache.get(any(), eq(ReportProjectsForPeriodDto.class))).thenReturn(
+        Optional.of(new ReportProjectsForPeriodDto(
+            startOfPeriod, endOfPeriod, endOfPeriod.plusDays(1), projects)));
+
+    ReportProjectsForPeriodDto result =
+        reportService.reportProjectsForPeriod(startOfPeriod, endOfPeriod);
+
+    //then
+    assertEquals(LocalDate.now(), result.dateOfReportFormation());
+    assertSame(projects, result.projectsForReportDtoList());
+    verify(projectService, never()).streamProjectRowsForPeriod(any(), any(), any());
+  }
+
+  @Test
+  void reportProjectsForPeriod_WhenProjectIsNotEnded_ShouldNotCacheReport() {
+    //given
+    LocalDate startOfPeriod = LocalDate.of(2023, 6, 1);
+    LocalDate endOfPeriod = LocalDate.of(2023, 6, 30);
+    ProjectOperationRowDto row =
+        projectRow(1L, startOfPeriod.atStartOfDay(), endOfPeriod.atStartOfDay(), 60, null);
+
+    //when
+    doAnswer(invocation -> {
+      Consumer<ProjectOperationRowDto> consumer = invocation.getArgument(2);
+      consumer.accept(row);
+      return null;
+    }).when(projectService).streamProjectRowsForPeriod(eq(startOfPeriod), eq(endOfPeriod),
+        any());
+    when(projectForReportDtoMapper.apply(List.of(row))).thenReturn(new ProjectForReportDto(1L,
+        100, "project_1", null, null, null, null, null, false, 60, List.of(), "test_customer",
+        null));
+
+    reportService.reportProjectsForPeriod(startOfPeriod, endOfPeriod);
+
+    //then
+    verify(reportResultCache, never()).isClosedPeriod(any());
+    verify(reportResultCache, never()).put(any(), any(), anyLong(), anyLong());
+  }
+
+  @Test
+  void reportDeadlines_WhenOperationIsNotEnded_ShouldNotCacheReport() {
+    //given
+    DeadlineReq req = new DeadlineReq(
+        ReportParameter.OPERATION, 2L,
+        ReportParameter.PROJECT, Collections.singleton(1L),
+        ReportParameter.EMPLOYEE, Collections.singleton(3L));
+    List<OperationDeadlineRowDto> ops = List.of(new OperationDeadlineRowDto(2L,
+        "operation_name", LocalDateTime.now().plusDays(1), null, 1L, 100, 3L,
+        "employee_last_name"));
+
+    //when
+    when(operationService.getDeadlineRowsByIds(anySet())).thenReturn(ops);
+
+    reportService.reportDeadlines(req);
+
+    //then
+    verify(reportResultCache, never()).put(any(), any(), anyLong(), anyLong());
+  }
+
+  @Test
+  void reportDeadlines_WhenReportIsCached_ShouldNotReadOperations() {
+    //given
+    DeadlineReq req = new DeadlineReq(
+        ReportParameter.OPERATION, 2L,
+        ReportParameter.PROJECT, Collections.singleton(1L),
+        ReportParameter.EMPLOYEE, Collections.singleton(3L));
+    ReportDeadlineDto cached = new ReportDeadlineDto();
+
+    //when
+    when(reportResultCache.get(ReportResultCache.Key.deadlines(req), ReportDeadlineDto.class))
+        .thenReturn(Optional.of(cached));
+
+    //then
+    assertSame(cached, reportService.reportDeadlines(req));
+    verify(operationService, never()).getDeadlineRowsByIds(anySet());
+  }
+
+  @Test
+  void evictReportCache_ShouldInvalidateCache() {
+    //when
+    when(reportResultCache.invalidate()).thenReturn(3);
+
+    //then
+    assertEquals(3, reportService.evictReportCache());
+  }
+
+  private static List<OperationDeadlineRowDto> rows(List<Operation> operations) {
+    return operations.stream()
+        .map(o -> new OperationDeadlineRowDto(o.getId(), o.getName(), o.getPlannedEndDate(),
+            o.getRealEndDate(),
+            o.getProject() == null ? null : o.getProject().getId(),
+            o.getProject() == null ? 0 : o.getProject().getNumber(),
+            o.getEmployee() == null ? null : o.getEmployee().getId(),
+            o.getEmployee() == null ? null : o.getEmployee().getLastName()))
+        .toList();
+  }
+
+  private static ProjectOperationRowDto projectRow(long projectId, LocalDateTime startOfPeriod,
+      LocalDateTime endOfPeriod, int opPeriod, OperationForReportDto operation) {
+    return new ProjectOperationRowDto(projectId, (int) projectId * 100, "project_" + projectId,
+        startOfPeriod, null, null, endOfPeriod, null, false, opPeriod, "test_customer", null,
+        operation);
   }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.trae.backend.dto.workingshift.SchedulerLeaderMetricsDto;
+
+class SchedulerLeaderElectionTest {
+  private static final long LOCK_KEY = 42L;
+  private DataSource dataSource;
+  private Connection connection;
+  private DatabaseMetaData metaData;
+  private PreparedStatement lockStatement;
+  private PreparedStatement unlockStatement;
+  private ResultSet lockResult;
+  private SchedulerLeaderElection schedulerLeaderElection;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    dataSource = mock(DataSource.class);
+    connection = mock(Connection.class);
+    metaData = mock(DatabaseMetaData.class);
+    lockStatement = mock(PreparedStatement.class);
+    unlockStatement = mock(PreparedStatement.class);
+    lockResult = mock(ResultSet.class);
+
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+    when(connection.prepareStatement("select pg_try_advisory_lock(?)"))
+        .thenReturn(lockStatement);
+    when(connection.prepareStatement("select pg_advisory_unlock(?)")).thenReturn(unlockStatement);
+    when(lockStatement.executeQuery()).thenReturn(lockResult);
+    when(lockResult.next()).thenReturn(true);
+
+    schedulerLeaderElection = new SchedulerLeaderElection(dataSource, LOCK_KEY);
+  }
+
+  @Test
+  void isLeader_WhenLockIsFree_ShouldHoldLockOnConnection() throws SQLException {
+    when(lockResult.getBoolean(1)).thenReturn(true);
+    when(connection.isValid(anyInt())).thenReturn(true);
+
+    assertTrue(schedulerLeaderElection.isLeader());
+    assertTrue(schedulerLeaderElection.isLeader());
+
+    //блокировка берется один раз, затем проверяется соединение, на котором она удерживается
+    verify(lockStatement).setLong(1, LOCK_KEY);
+    verify(dataSource, times(1)).getConnection();
+    verify(connection).isValid(SchedulerLeaderElection.VALIDATION_TIMEOUT_SECONDS);
+    verify(connection, never()).close();
+
+    SchedulerLeaderMetricsDto metrics = schedulerLeaderElection.getMetrics();
+    assertTrue(metrics.leader());
+    assertEquals(1, metrics.acquisitions());
+    assertEquals(2, metrics.grantedChecks());
+    assertEquals(0, metrics.deniedChecks());
+  }
+
+  @Test
+  void isLeader_WhenLockIsHeldByAnotherInstance_ShouldReturnConnection() throws SQLException {
+    when(lockResult.getBoolean(1)).thenReturn(false);
+
+    assertFalse(schedulerLeaderElection.isLeader());
+
+    verify(connection).close();
+    SchedulerLeaderMetricsDto metrics = schedulerLeaderElection.getMetrics();
+    assertFalse(metrics.leader());
+    assertEquals(0, metrics.acquisitions());
+    assertEquals(1, metrics.deniedChecks());
+    assertEquals(0, metrics.currentHoldMillis());
+  }
+
+  @Test
+  void isLeader_WhenLockIsReleasedByAnotherInstance_ShouldTakeLeadership() throws SQLException {
+    when(lockResult.getBoolean(1)).thenReturn(false, true);
+
+    assertFalse(schedulerLeaderElection.isLeader());
+    assertTrue(schedulerLeaderElection.isLeader());
+
+    assertEquals(1, schedulerLeaderElection.getMetrics().acquisitions());
+  }
+
+  @Test
+  void isLeader_WhenLockConnectionIsLost_ShouldCountLossAndTakeLockAgain() throws SQLException {
+    when(lockResult.getBoolean(1)).thenReturn(true);
+    when(connection.isValid(anyInt())).thenReturn(false);
+
+    assertTrue(schedulerLeaderElection.isLeader());
+    assertTrue(schedulerLeaderElection.isLeader());
+
+    //блокировка потерянной сессии снята базой данных, поэтому явно не снимается
+    verify(unlockStatement, never()).execute();
+    verify(dataSource, times(2)).getConnection();
+    SchedulerLeaderMetricsDto metrics = schedulerLeaderElection.getMetrics();
+    assertEquals(2, metrics.acquisitions());
+    assertEquals(1, metrics.losses());
+  }
+
+  @Test
+  void isLeader_WhenDatabaseIsNotPostgresql_ShouldBeLeaderWithoutLock() throws SQLException {
+    when(metaData.getDatabaseProductName()).thenReturn("H2");
+
+    assertTrue(schedulerLeaderElection.isLeader());
+    assertTrue(schedulerLeaderElection.isLeader());
+
+    verify(connection, never()).prepareStatement("select pg_try_advisory_lock(?)");
+    verify(connection).close();
+    assertEquals(1, schedulerLeaderElection.getMetrics().acquisitions());
+  }
+
+  @Test
+  void isLeader_WhenConnectionCannotBeObtained_ShouldNotBeLeader() throws SQLException {
+    when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+    assertFalse(schedulerLeaderElection.isLeader());
+    assertEquals(1, schedulerLeaderElection.getMetrics().deniedChecks());
+  }
+
+  @Test
+  void resign_WhenLeader_ShouldUnlockAndReturnConnection() throws SQLException {
+    when(lockResult.getBoolean(1)).thenReturn(true);
+    schedulerLeaderElection.isLeader();
+
+    schedulerLeaderElection.resign();
+
+    verify(unlockStatement).setLong(1, LOCK_KEY);
+    verify(unlockStatement).execute();
+    verify(connection).close();
+    SchedulerLeaderMetricsDto metrics = schedulerLeaderElection.getMetrics();
+    assertFalse(metrics.leader());
+    assertEquals(0, metrics.currentHoldMillis());
+  }
+
+  @Test
+  void resign_WhenNotLeader_ShouldDoNothing() throws SQLException {
+    when(lockResult.getBoolean(1)).thenReturn(false);
+    schedulerLeaderElection.isLeader();
+
+    schedulerLeaderElection.resign();
+
+    verify(unlockStatement, never()).execute();
+  }
+}
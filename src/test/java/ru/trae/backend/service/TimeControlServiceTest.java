@@ -13,7 +13,6 @@ package ru.trae.backend.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -33,12 +32,17 @@ class TimeControlServiceTest {
   void createArrivalTimeControl_ShouldSaveTimeControlWithCorrectValues() {
     //given
     TimeControlRepository timeControlRepository = mock(TimeControlRepository.class);
-    TimeControlService timeControlService = new TimeControlService(timeControlRepository);
+    ReportDashboardStatsCache reportDashboardStatsCache = mock(ReportDashboardStatsCache.class);
+    PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+    TimeControlService timeControlService = new TimeControlService(
+        timeControlRepository, reportDashboardStatsCache, presenceRegistry);
     Employee employee = new Employee();
+    employee.setId(1L);
     WorkingShift workingShift = new WorkingShift();
     boolean onShift = true;
     LocalDateTime time = LocalDateTime.now();
     TimeControl expectedTimeControl = new TimeControl();
+    expectedTimeControl.setId(10L);
     ArgumentCaptor<TimeControl> timeControlCaptor = ArgumentCaptor.forClass(TimeControl.class);
 
     //when
@@ -48,6 +52,8 @@ class TimeControlServiceTest {
 
     //then
     verify(timeControlRepository).save(timeControlCaptor.capture());
+    verify(reportDashboardStatsCache).invalidate();
+    verify(presenceRegistry).arrived(1L, 10L);
     assertEquals(expectedTimeControl, result);
 
     TimeControl capturedTimeControl = timeControlCaptor.getValue();
@@ -63,7 +69,10 @@ class TimeControlServiceTest {
   void updateTimeControlForDeparture_ShouldUpdateTimeControlWithCorrectValues() {
     //given
     TimeControlRepository timeControlRepository = mock(TimeControlRepository.class);
-    TimeControlService timeControlService = new TimeControlService(timeControlRepository);
+    ReportDashboardStatsCache reportDashboardStatsCache = mock(ReportDashboardStatsCache.class);
+    PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+    TimeControlService timeControlService = new TimeControlService(
+        timeControlRepository, reportDashboardStatsCache, presenceRegistry);
     Long empId = 1L;
     LocalDateTime time = LocalDateTime.now();
     TimeControl timeControl = new TimeControl();
@@ -76,30 +85,33 @@ class TimeControlServiceTest {
 
     //then
     verify(timeControlRepository).save(timeControl);
+    verify(presenceRegistry).departed(empId);
     assertEquals(time, timeControl.getDeparture());
     assertFalse(timeControl.isOnShift());
   }
 
   @Test
-  void autoClosingShift_ShouldUpdateTimeControlWithCorrectValues() {
+  void autoClosingShift_ShouldCloseTimeControlsOfWorkingShiftWithOneUpdate() {
     //given
     LocalTime specificTime = LocalTime.of(18, 0);
-
-    WorkingShift workingShift = new WorkingShift();
-    workingShift.setStartShift(LocalDateTime.now().minusDays(1));
+    LocalDateTime startShift = LocalDateTime.now().minusDays(1);
 
     TimeControlRepository timeControlRepository = mock(TimeControlRepository.class);
-    TimeControlService timeControlService = new TimeControlService(timeControlRepository);
-    TimeControl timeControl = new TimeControl();
-    timeControl.setWorkingShift(workingShift);
+    ReportDashboardStatsCache reportDashboardStatsCache = mock(ReportDashboardStatsCache.class);
+    PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+    TimeControlService timeControlService = new TimeControlService(
+        timeControlRepository, reportDashboardStatsCache, presenceRegistry);
+    when(timeControlRepository.autoCloseOnShiftByWorkingShiftId(
+        1L, startShift.with(specificTime))).thenReturn(3);
 
     //when
-    timeControlService.autoClosingShift(timeControl);
+    int closed = timeControlService.autoClosingShift(1L, startShift);
 
     //then
-    verify(timeControlRepository).save(timeControl);
-    assertFalse(timeControl.isOnShift());
-    assertTrue(timeControl.isAutoClosingShift());
-    assertEquals(timeControl.getDeparture(), workingShift.getStartShift().with(specificTime));
+    assertEquals(3, closed);
+    verify(timeControlRepository).autoCloseOnShiftByWorkingShiftId(
+        1L, startShift.with(specificTime));
+    verify(presenceRegistry).shiftClosed();
+    verify(reportDashboardStatsCache).invalidate();
   }
 }
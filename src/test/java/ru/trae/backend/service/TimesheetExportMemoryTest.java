@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.trae.backend.repository.TimesheetExportRepository;
+
+/**
+ * Exports several million rows of the daily attendance rollup to CSV in a separate JVM with
+ * a small heap: the export succeeds only if the rows are streamed, the rollup of the whole
+ * period would not fit in the heap. The data is created in a separate schema, which is dropped
+ * after the run, for example:
+ * {@code TRAE_BENCH_PG_URL=jdbc:postgresql://localhost:5444/devTraeDB TRAE_BENCH_PG_USER=trae_dev
+ * TRAE_BENCH_PG_PASS=dev mvn test -Dtest=TimesheetExportMemoryTest}.
+ */
+@EnabledIfEnvironmentVariable(named = "TRAE_BENCH_PG_URL", matches = ".+")
+class TimesheetExportMemoryTest {
+  static final String SCHEMA = "trae_timesheet_export";
+  static final String MAX_HEAP = "-Xmx64m";
+  private static final Logger log = LoggerFactory.getLogger(TimesheetExportMemoryTest.class);
+  private static final int EMPLOYEES = 1_000;
+  private static final int DAYS = 3_000;
+  private static final LocalDate BASE_DATE = LocalDate.of(2015, 1, 1);
+
+  @BeforeAll
+  static void createData() throws SQLException {
+    //1 тыс. сотрудников, 3 тыс. дней: 3 млн строк сводки посещаемости
+    execute("drop schema if exists " + SCHEMA + " cascade",
+        "create schema " + SCHEMA,
+        "create table " + SCHEMA + ".employees (id bigint primary key, "
+            + "first_name varchar(255), last_name varchar(255))",
+        "create table " + SCHEMA + ".attendance_days (id bigserial primary key, "
+            + "employee_id bigint not null, shift_date date not null, "
+            + "auto_closed boolean not null, part_of_shift numeric(10, 4) not null, "
+            + "unique (shift_date, employee_id, auto_closed))",
+        "insert into " + SCHEMA + ".employees "
+            + "select g, 'Иван', 'Иванов ' || g from generate_series(1, " + EMPLOYEES + ") g",
+        "insert into " + SCHEMA + ".attendance_days "
+            + "(employee_id, shift_date, auto_closed, part_of_shift) "
+            + "select e, date '" + BASE_DATE + "' + d, e % 7 = 0, (e + d) % 10 / 9.0 "
+            + "from generate_series(0, " + (DAYS - 1) + ") d, "
+            + "generate_series(1, " + EMPLOYEES + ") e",
+        "analyze " + SCHEMA + ".employees",
+        "analyze " + SCHEMA + ".attendance_days");
+  }
+
+  @AfterAll
+  static void dropSchema() throws SQLException {
+    execute("drop schema if exists " + SCHEMA + " cascade");
+  }
+
+  @Test
+  void writeCsv_ShouldExportMillionsOfRowsWithSmallHeap(@TempDir Path dir)
+      throws IOException, InterruptedException {
+    File output = dir.resolve("export.log").toFile();
+    Process process = new ProcessBuilder(
+        Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+        MAX_HEAP,
+        "-cp", System.getProperty("java.class.path"),
+        Export.class.getName(),
+        BASE_DATE.toString(),
+        BASE_DATE.plusDays(DAYS - 1).toString())
+        .redirectErrorStream(true)
+        .redirectOutput(output)
+        .start();
+
+    assertTrue(process.waitFor(10, TimeUnit.MINUTES), "export has not been finished");
+    List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+    log.info("export with {}: {}", MAX_HEAP, lines.isEmpty() ? "" : lines.get(lines.size() - 1));
+    assertEquals(0, process.exitValue(), () -> String.join("\n", lines));
+    //заголовок и строка на каждый день каждого сотрудника
+    assertTrue(lines.contains("rows: " + ((long) EMPLOYEES * DAYS + 1)),
+        () -> String.join("\n", lines));
+  }
+
+  private static void execute(String... statements) throws SQLException {
+    try (Connection connection = DriverManager.getConnection(
+        System.getenv("TRAE_BENCH_PG_URL"), System.getenv("TRAE_BENCH_PG_USER"),
+        System.getenv("TRAE_BENCH_PG_PASS"));
+         Statement statement = connection.createStatement()) {
+      for (String sql : statements) {
+        statement.execute(sql);
+      }
+    }
+  }
+
+  /**
+   * Exports the timesheet of the period given by the arguments to a stream counting the lines,
+   * in the same way as the export endpoint: in a read-only transaction.
+   */
+  public static class Export {
+    public static void main(String[] args) throws Exception {
+      DriverManagerDataSource dataSource = new DriverManagerDataSource(
+          System.getenv("TRAE_BENCH_PG_URL"), System.getenv("TRAE_BENCH_PG_USER"),
+          System.getenv("TRAE_BENCH_PG_PASS"));
+      dataSource.setSchema(SCHEMA);
+      TimesheetExportService service = new TimesheetExportService(
+          new TimesheetExportRepository(new JdbcTemplate(dataSource), 1000));
+      TransactionTemplate transaction =
+          new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+      transaction.setReadOnly(true);
+      LineCountingOutputStream out = new LineCountingOutputStream();
+
+      long start = System.nanoTime();
+      transaction.executeWithoutResult(status -> {
+        try {
+          service.writeCsv(LocalDate.parse(args[0]), LocalDate.parse(args[1]), null, out);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      long millis = (System.nanoTime() - start) / 1_000_000;
+
+      Runtime runtime = Runtime.getRuntime();
+      System.out.println("rows: " + out.lines);
+      System.out.println(out.lines + " rows, " + out.bytes / (1024 * 1024) + " MB in " + millis
+          + " ms, max heap " + runtime.maxMemory() / (1024 * 1024) + " MB");
+    }
+  }
+
+  private static class LineCountingOutputStream extends OutputStream {
+    private long lines;
+    private long bytes;
+
+    @Override
+    public void write(int b) {
+      bytes++;
+      if (b == '\n') {
+        lines++;
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      bytes += len;
+      for (int i = off; i < off + len; i++) {
+        if (b[i] == '\n') {
+          lines++;
+        }
+      }
+    }
+  }
+}
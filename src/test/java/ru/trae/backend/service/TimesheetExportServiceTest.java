@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.trae.backend.entity.AttendanceDay;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.repository.JpaSliceTest;
+import ru.trae.backend.repository.TimesheetExportRepository;
+
+/**
+ * Checks the CSV written by the timesheet export from the daily attendance rollup. The fetch
+ * size is smaller than the number of the rows, so the rows are read in several fetches.
+ */
+@TestPropertySource(properties = "report.export.fetch-size=2")
+@Import({TimesheetExportService.class, TimesheetExportRepository.class})
+class TimesheetExportServiceTest extends JpaSliceTest {
+  private static final LocalDate BASE_DATE = LocalDate.of(2023, 6, 1);
+  @Autowired
+  private TimesheetExportService timesheetExportService;
+  private Employee first;
+  private Employee second;
+
+  @BeforeEach
+  void setUp() {
+    first = persistEmployee(101, "Иван", "Иванов");
+    second = persistEmployee(102, "Петр \"Младший\"", "Петров, мл.");
+
+    persistAttendanceDay(second, BASE_DATE, false, "0.9444");
+    persistAttendanceDay(first, BASE_DATE, false, "1.0000");
+    persistAttendanceDay(first, BASE_DATE, true, "0.2500");
+    persistAttendanceDay(first, BASE_DATE.plusDays(1), false, "0.5556");
+    persistAttendanceDay(first, BASE_DATE.plusDays(2), false, "1.0000");
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  void writeCsv_ShouldWriteRowsOfPeriodOrderedByDayAndEmployee() throws IOException {
+    String csv = export(BASE_DATE, BASE_DATE.plusDays(1), null);
+
+    assertEquals(TimesheetExportService.CSV_HEADER
+        + first.getId() + ",Иванов,Иван,2023-06-01,false,1.0\r\n"
+        + first.getId() + ",Иванов,Иван,2023-06-01,true,0.3\r\n"
+        + second.getId() + ",\"Петров, мл.\",\"Петр \"\"Младший\"\"\",2023-06-01,false,0.9\r\n"
+        + first.getId() + ",Иванов,Иван,2023-06-02,false,0.6\r\n", csv);
+  }
+
+  @Test
+  void writeCsv_WhenEmployeeIdsGiven_ShouldWriteRowsOfTheseEmployeesOnly() throws IOException {
+    String csv = export(BASE_DATE, BASE_DATE.plusDays(2), Set.of(second.getId()));
+
+    assertEquals(TimesheetExportService.CSV_HEADER
+        + second.getId() + ",\"Петров, мл.\",\"Петр \"\"Младший\"\"\",2023-06-01,false,0.9\r\n",
+        csv);
+  }
+
+  @Test
+  void writeCsv_WhenNoAttendanceInPeriod_ShouldWriteHeaderOnly() throws IOException {
+    String csv = export(BASE_DATE.minusDays(10), BASE_DATE.minusDays(1), Set.of());
+
+    assertEquals(TimesheetExportService.CSV_HEADER, csv);
+  }
+
+  private String export(LocalDate startOfPeriod, LocalDate endOfPeriod, Set<Long> employeeIds)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    timesheetExportService.writeCsv(startOfPeriod, endOfPeriod, employeeIds, out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  private void persistAttendanceDay(Employee e, LocalDate shiftDate, boolean autoClosed,
+                                    String partOfShift) {
+    AttendanceDay day = new AttendanceDay();
+    day.setEmployeeId(e.getId());
+    day.setShiftDate(shiftDate);
+    day.setAutoClosed(autoClosed);
+    day.setPartOfShift(new BigDecimal(partOfShift));
+    entityManager.persist(day);
+  }
+}
@@ -15,6 +15,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -23,7 +24,9 @@ import static org.springframework.test.util.AssertionErrors.assertEquals;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -32,6 +35,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import ru.trae.backend.dto.PageDto;
 import ru.trae.backend.dto.mapper.PageToPageDtoMapper;
@@ -41,6 +45,8 @@ import ru.trae.backend.dto.type.NewTypeWorkDto;
 import ru.trae.backend.dto.type.TypeWorkDto;
 import ru.trae.backend.entity.TypeWork;
 import ru.trae.backend.exceptionhandler.exception.TypeWorkException;
+import ru.trae.backend.repository.KeysetRepository;
+import ru.trae.backend.repository.KeysetSlice;
 import ru.trae.backend.repository.TypeWorkRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -51,6 +57,8 @@ class TypeWorkServiceTest {
   TypeWorkDtoMapper typeWorkDtoMapper;
   @Mock
   PageToPageDtoMapper pageToPageDtoMapper;
+  @Mock
+  KeysetRepository keysetRepository;
   @InjectMocks
   private TypeWorkService typeWorkService;
   
@@ -99,6 +107,39 @@ class TypeWorkServiceTest {
     assertThrows(TypeWorkException.class, () -> typeWorkService.getTypeWorkById(typeWorkId));
   }
   
+  @Test
+  void getTypeWorksByIds_whenAllTypeWorksExist_returnTypeWorksById() {
+    // given
+    TypeWork first = new TypeWork();
+    first.setId(1L);
+    TypeWork second = new TypeWork();
+    second.setId(2L);
+    Set<Long> ids = Set.of(1L, 2L);
+    when(typeWorkRepository.findAllById(ids)).thenReturn(List.of(first, second));
+    
+    // when
+    Map<Long, TypeWork> typeWorks = typeWorkService.getTypeWorksByIds(ids);
+    
+    // then
+    assertEquals("result: ", Map.of(1L, first, 2L, second), typeWorks);
+    verify(typeWorkRepository, times(1)).findAllById(ids);
+  }
+  
+  @Test
+  void getTypeWorksByIds_whenTypeWorkNotExist_throwTypeWorkException() {
+    // given
+    TypeWork first = new TypeWork();
+    first.setId(1L);
+    Set<Long> ids = Set.of(1L, 2L);
+    when(typeWorkRepository.findAllById(ids)).thenReturn(List.of(first));
+    
+    // when
+    // then
+    TypeWorkException exception = assertThrows(TypeWorkException.class,
+        () -> typeWorkService.getTypeWorksByIds(ids));
+    assertEquals("status: ", HttpStatus.NOT_FOUND, exception.getStatus());
+  }
+  
   @Test
   void getTypeWorkDtoById_shouldReturnTypeWorkDto() {
     // given
@@ -367,4 +408,23 @@ class TypeWorkServiceTest {
     //then
     assertEquals("result: ", expectedTypeWorkDtoPage, typeWorkDtoPageResult);
   }
-}
\ No newline at end of file
+  
+  @Test
+  void shouldReturnTypeWorkDtoPageWhenGetTypeWorkDtoPageAfter() {
+    //given
+    Sort sort = Sort.by("name", "id");
+    KeysetSlice<TypeWork> slice = new KeysetSlice<>(Collections.emptyList(), null);
+    PageDto<TypeWorkDto> expectedTypeWorkDtoPage = new PageDto<>(Collections.emptyList(), null);
+    when(keysetRepository.findSlice(eq(TypeWork.class), any(), eq(sort), eq(""), eq(10)))
+        .thenReturn(slice);
+    when(pageToPageDtoMapper.sliceToPageDto(slice, typeWorkDtoMapper))
+        .thenReturn(expectedTypeWorkDtoPage);
+    
+    //when
+    PageDto<TypeWorkDto> typeWorkDtoPageResult =
+        typeWorkService.getTypeWorkDtoPageAfter(sort, 10, "", true);
+    
+    //then
+    assertEquals("result: ", expectedTypeWorkDtoPage, typeWorkDtoPageResult);
+  }
+}
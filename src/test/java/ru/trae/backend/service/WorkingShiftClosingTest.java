@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.trae.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.trae.backend.entity.TimeControl;
+import ru.trae.backend.entity.WorkingShift;
+import ru.trae.backend.entity.user.Employee;
+import ru.trae.backend.projection.WorkingShiftEmployeeDto;
+import ru.trae.backend.repository.AttendanceDayRepository;
+import ru.trae.backend.repository.JpaSliceTest;
+
+/**
+ * Checks the closing of the working shift with thousands of employees on shift: the open time
+ * controls are closed by a single update, without loading the shift with its time controls,
+ * and the attendance of the shift is added to the daily rollup.
+ */
+@Import({WorkingShiftService.class, TimeControlService.class, PresenceRegistry.class})
+class WorkingShiftClosingTest extends JpaSliceTest {
+  private static final int EMPLOYEES = 750;
+  private static final int ON_SHIFT_PER_EMPLOYEE = 4;
+  private static final int ON_SHIFT = EMPLOYEES * ON_SHIFT_PER_EMPLOYEE;
+  private static final int DEPARTED = 100;
+  @Autowired
+  private WorkingShiftService workingShiftService;
+  @Autowired
+  private AttendanceDayRepository attendanceDayRepository;
+
+  @Test
+  void closeWorkingShift_ShouldCloseAllOpenTimeControlsWithOneUpdate() {
+    LocalDateTime startShift = LocalDateTime.now().minusDays(1).with(LocalTime.of(7, 0));
+    LocalDateTime departed = startShift.with(LocalTime.of(12, 0));
+    WorkingShift previous = persistWorkingShift(startShift.minusDays(1), true);
+    WorkingShift active = persistWorkingShift(startShift, false);
+    //пин-код ограничен диапазоном 100-999, поэтому открытых отметок у сотрудника несколько
+    for (int i = 0; i < EMPLOYEES + DEPARTED; i++) {
+      Employee e = persistEmployee(100 + i, "Иван", "Иванов " + i);
+      if (i < EMPLOYEES) {
+        for (int j = 0; j < ON_SHIFT_PER_EMPLOYEE; j++) {
+          persistTimeControl(e, active, null);
+        }
+      } else {
+        persistTimeControl(e, active, departed);
+      }
+      if (i == 0) {
+        //отметка прошлой смены, оставшаяся открытой, не должна закрываться
+        persistTimeControl(e, previous, null);
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    Statistics statistics = statistics();
+    statistics.clear();
+
+    workingShiftService.closeWorkingShift();
+
+    //поиск активной смены, по одному обновлению отметок и смены и пополнение сводки
+    assertEquals(4, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(0, statistics.getCollectionLoadCount());
+
+    entityManager.clear();
+    WorkingShift closed = entityManager.find(WorkingShift.class, active.getId());
+    assertTrue(closed.isEnded());
+    assertEquals(startShift.with(LocalTime.of(23, 0)), closed.getEndShift());
+
+    List<TimeControl> timeControls = closed.getTimeControls();
+    assertEquals(ON_SHIFT + DEPARTED, timeControls.size());
+    assertEquals(ON_SHIFT, timeControls.stream().filter(TimeControl::isAutoClosingShift).count());
+    timeControls.forEach(tc -> {
+      assertFalse(tc.isOnShift());
+      assertEquals(tc.isAutoClosingShift() ? startShift.with(LocalTime.of(18, 0)) : departed,
+          tc.getDeparture());
+    });
+
+    //сводка: 4 автоматически закрытые отметки с 9:00 до 18:00 и уход в 12:00
+    List<WorkingShiftEmployeeDto> attendance = attendanceDayRepository.findByPeriod(
+        startShift.toLocalDate(), startShift.toLocalDate());
+    assertEquals(EMPLOYEES + DEPARTED, attendance.size());
+    attendance.forEach(a -> assertEquals(
+        a.isAutoClosed() ? (float) ON_SHIFT_PER_EMPLOYEE : 0.3f, a.getPartOfShift()));
+
+    TimeControl previousTimeControl = entityManager.find(WorkingShift.class, previous.getId())
+        .getTimeControls().get(0);
+    assertTrue(previousTimeControl.isOnShift());
+    assertNull(previousTimeControl.getDeparture());
+  }
+
+  @Test
+  void closeWorkingShift_ShouldDoNothingWithoutActiveWorkingShift() {
+    persistWorkingShift(LocalDateTime.now().minusDays(1), true);
+    entityManager.flush();
+    entityManager.clear();
+
+    Statistics statistics = statistics();
+    statistics.clear();
+
+    workingShiftService.closeWorkingShift();
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, attendanceDayRepository.count());
+  }
+
+  private void persistTimeControl(Employee e, WorkingShift ws, LocalDateTime departure) {
+    TimeControl tc = new TimeControl();
+    tc.setEmployee(e);
+    tc.setWorkingShift(ws);
+    tc.setArrival(ws.getStartShift().plusHours(1));
+    tc.setDeparture(departure);
+    tc.setOnShift(departure == null);
+    entityManager.persist(tc);
+  }
+}
@@ -11,17 +11,21 @@
 package ru.trae.backend.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -30,12 +34,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.trae.backend.dto.mapper.WorkingShiftDtoMapper;
+import ru.trae.backend.dto.workingshift.PresenceRegistryMetricsDto;
 import ru.trae.backend.dto.workingshift.WorkingShiftDto;
 import ru.trae.backend.entity.TimeControl;
 import ru.trae.backend.entity.WorkingShift;
 import ru.trae.backend.entity.user.Employee;
 import ru.trae.backend.exceptionhandler.exception.WorkingShiftException;
 import ru.trae.backend.projection.WorkingShiftEmployeeDto;
+import ru.trae.backend.projection.WorkingShiftIdStartDto;
+import ru.trae.backend.repository.AttendanceDayRepository;
 import ru.trae.backend.repository.WorkingShiftRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,9 +50,15 @@ class WorkingShiftServiceTest {
   @Mock
   private WorkingShiftRepository workingShiftRepository;
   @Mock
+  private AttendanceDayRepository attendanceDayRepository;
+  @Mock
   private TimeControlService timeControlService;
   @Mock
+  private PresenceRegistry presenceRegistry;
+  @Mock
   private WorkingShiftDtoMapper workingShiftDtoMapper;
+  @Mock
+  private ReportDashboardStatsCache reportDashboardStatsCache;
   @InjectMocks
   private WorkingShiftService workingShiftService;
 
@@ -97,37 +110,57 @@ class WorkingShiftServiceTest {
   @Test
   void testCloseWorkingShiftExists() {
     //given
-    WorkingShift workingShift = mock(WorkingShift.class);
-    TimeControl timeControl1 = mock(TimeControl.class);
-    TimeControl timeControl2 = mock(TimeControl.class);
+    LocalDateTime startShift = LocalDateTime.of(2023, 1, 1, 7, 1, 0);
+    WorkingShiftIdStartDto workingShift = mock(WorkingShiftIdStartDto.class);
 
     //when
-    when(workingShiftRepository.existsByIsEndedFalse()).thenReturn(true);
-    when(workingShiftRepository.findByIsEndedFalse()).thenReturn(workingShift);
+    when(workingShiftRepository.findActiveIdAndStartShift())
+        .thenReturn(Optional.of(workingShift));
+    when(workingShift.getId()).thenReturn(1L);
+    when(workingShift.getStartShift()).thenReturn(startShift);
+    when(workingShiftRepository.updateEndedById(1L, startShift.with(LocalTime.of(23, 0))))
+        .thenReturn(1);
 
-    when(timeControl1.isOnShift()).thenReturn(true);
-    when(timeControl2.isOnShift()).thenReturn(false);
-    when(workingShift.getTimeControls()).thenReturn(List.of(timeControl1, timeControl2));
+    workingShiftService.closeWorkingShift();
+
+    //then
+    verify(timeControlService).autoClosingShift(1L, startShift);
+    verify(workingShiftRepository).updateEndedById(1L, startShift.with(LocalTime.of(23, 0)));
+    verify(attendanceDayRepository).rollupWorkingShift(1L);
+    verify(workingShiftRepository, never()).findByIsEndedFalse();
+    verify(reportDashboardStatsCache).invalidate();
+  }
+
+  @Test
+  void testCloseWorkingShiftAlreadyEnded() {
+    //given
+    WorkingShiftIdStartDto workingShift = mock(WorkingShiftIdStartDto.class);
+
+    //when
+    when(workingShiftRepository.findActiveIdAndStartShift())
+        .thenReturn(Optional.of(workingShift));
+    when(workingShift.getId()).thenReturn(1L);
     when(workingShift.getStartShift()).thenReturn(LocalDateTime.of(2023, 1, 1, 7, 1, 0));
+    when(workingShiftRepository.updateEndedById(anyLong(), any(LocalDateTime.class)))
+        .thenReturn(0);
 
     workingShiftService.closeWorkingShift();
 
     //then
-    verify(timeControlService).autoClosingShift(timeControl1);
-    verify(workingShiftRepository).save(workingShift);
-    verify(workingShift).setEnded(true);
-    verify(workingShift).setEndShift(any(LocalDateTime.class));
+    verifyNoInteractions(attendanceDayRepository);
   }
 
   @Test
   void testCloseWorkingShiftNotExists() {
     //when
-    when(workingShiftRepository.existsByIsEndedFalse()).thenReturn(false);
+    when(workingShiftRepository.findActiveIdAndStartShift()).thenReturn(Optional.empty());
 
     workingShiftService.closeWorkingShift();
 
     //then
     verifyNoInteractions(timeControlService);
+    verify(workingShiftRepository, never()).updateEndedById(anyLong(), any(LocalDateTime.class));
+    verifyNoInteractions(attendanceDayRepository);
   }
 
   @Test
@@ -179,12 +212,13 @@ class WorkingShiftServiceTest {
   @Test
   void testEmployeeOnShiftExists() {
     //when
-    when(workingShiftRepository.existsEmpOnShift(true, 123L)).thenReturn(true);
+    when(presenceRegistry.isOnShift(123L)).thenReturn(true);
 
     boolean onShift = workingShiftService.employeeOnShift(true, 123L);
 
     //then
-    verify(workingShiftRepository).existsEmpOnShift(true, 123L);
+    verify(presenceRegistry).isOnShift(123L);
+    verifyNoInteractions(workingShiftRepository);
     Assertions.assertTrue(onShift);
   }
 
@@ -215,27 +249,64 @@ class WorkingShiftServiceTest {
   @Test
   void testEmployeeOnShiftNotExists() {
     //when
-    when(workingShiftRepository.existsEmpOnShift(true, 123L)).thenReturn(false);
+    when(presenceRegistry.isOnShift(123L)).thenReturn(false);
 
     boolean onShift = workingShiftService.employeeOnShift(true, 123L);
 
     //then
-    verify(workingShiftRepository).existsEmpOnShift(true, 123L);
+    verify(presenceRegistry).isOnShift(123L);
+    verifyNoInteractions(workingShiftRepository);
     Assertions.assertFalse(onShift);
   }
 
+  @Test
+  void testEmployeeNotOnShift() {
+    //when
+    when(presenceRegistry.isOnShift(123L)).thenReturn(false);
+
+    boolean notOnShift = workingShiftService.employeeOnShift(false, 123L);
+
+    //then
+    Assertions.assertTrue(notOnShift);
+  }
+
+  @Test
+  void testEmployeeOnShiftInDatabase() {
+    //when
+    when(workingShiftRepository.existsEmpOnShift(true, 123L)).thenReturn(true);
+
+    boolean onShift = workingShiftService.employeeOnShiftInDatabase(true, 123L);
+
+    //then
+    verify(workingShiftRepository).existsEmpOnShift(true, 123L);
+    verifyNoInteractions(presenceRegistry);
+    Assertions.assertTrue(onShift);
+  }
+
+  @Test
+  void testGetPresenceMetrics() {
+    //given
+    PresenceRegistryMetricsDto metrics = new PresenceRegistryMetricsDto(3, 2, 0, 1, 1);
+
+    //when
+    when(presenceRegistry.getMetrics()).thenReturn(metrics);
+
+    //then
+    assertEquals(metrics, workingShiftService.getPresenceMetrics());
+  }
+
   @Test
   void testGetWorkingShiftEmployeeByEmpIdsWithEmployeeIds() {
     //given
     List<WorkingShiftEmployeeDto> expectedList = Collections.singletonList(mock(WorkingShiftEmployeeDto.class));
-    when(workingShiftRepository.getWorkingShiftsDatesByEmpIds(any(LocalDate.class), any(LocalDate.class),
+    when(attendanceDayRepository.findByPeriodAndEmployeeIds(any(LocalDate.class), any(LocalDate.class),
         any(Set.class))).thenReturn(expectedList);
 
     List<WorkingShiftEmployeeDto> actualList = workingShiftService.getWorkingShiftEmployeeByEmpIds(
         LocalDate.now(), LocalDate.now(), Set.of(1L, 2L, 3L));
 
     //then
-    verify(workingShiftRepository).getWorkingShiftsDatesByEmpIds(any(LocalDate.class), any(LocalDate.class), any(Set.class));
+    verify(attendanceDayRepository).findByPeriodAndEmployeeIds(any(LocalDate.class), any(LocalDate.class), any(Set.class));
     assertEquals(expectedList, actualList);
   }
 
@@ -243,14 +314,14 @@ class WorkingShiftServiceTest {
   void testGetWorkingShiftEmployeeByEmpIdsWithoutEmployeeIds() {
     //given
     List<WorkingShiftEmployeeDto> expectedList = Collections.singletonList(mock(WorkingShiftEmployeeDto.class));
-    when(workingShiftRepository.getWorkingShiftsDates(any(LocalDate.class), any(LocalDate.class)))
+    when(attendanceDayRepository.findByPeriod(any(LocalDate.class), any(LocalDate.class)))
         .thenReturn(expectedList);
 
     List<WorkingShiftEmployeeDto> actualList = workingShiftService.getWorkingShiftEmployeeByEmpIds(
         LocalDate.now(), LocalDate.now(), null);
 
     //then
-    verify(workingShiftRepository).getWorkingShiftsDates(any(LocalDate.class), any(LocalDate.class));
+    verify(attendanceDayRepository).findByPeriod(any(LocalDate.class), any(LocalDate.class));
     assertEquals(expectedList, actualList);
   }
 
@@ -258,14 +329,14 @@ class WorkingShiftServiceTest {
   void testGetWorkingShiftEmployeeByEmpIdsWithEmptyEmployeeIds() {
     //given
     List<WorkingShiftEmployeeDto> expectedList = Collections.singletonList(mock(WorkingShiftEmployeeDto.class));
-    when(workingShiftRepository.getWorkingShiftsDates(any(LocalDate.class), any(LocalDate.class)))
+    when(attendanceDayRepository.findByPeriod(any(LocalDate.class), any(LocalDate.class)))
         .thenReturn(expectedList);
 
     List<WorkingShiftEmployeeDto> actualList = workingShiftService.getWorkingShiftEmployeeByEmpIds(
         LocalDate.now(), LocalDate.now(), Set.of());
 
     //then
-    verify(workingShiftRepository).getWorkingShiftsDates(any(LocalDate.class), any(LocalDate.class));
+    verify(attendanceDayRepository).findByPeriod(any(LocalDate.class), any(LocalDate.class));
     assertEquals(expectedList, actualList);
   }
 }
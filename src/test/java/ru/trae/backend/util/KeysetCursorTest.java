@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023. Vladimir Olennikov.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.trae.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import ru.trae.backend.exceptionhandler.exception.PaginationException;
+
+class KeysetCursorTest {
+  
+  @Test
+  void utilityClass_ThrowsIllegalStateException() {
+    assertThrows(IllegalStateException.class, KeysetCursor::new);
+  }
+  
+  @Test
+  void encodeAndDecode_ShouldReturnSameValues() {
+    //given
+    LocalDateTime date = LocalDateTime.of(2023, 5, 1, 10, 30, 15);
+    
+    //when
+    String cursor = KeysetCursor.encode(List.of(date, "Иванов|Иван", 15L));
+    
+    //then
+    assertEquals(List.of(date.toString(), "Иванов|Иван", "15"), KeysetCursor.decode(cursor, 3));
+  }
+  
+  @Test
+  void decode_WhenCursorIsNotBase64_ShouldThrowException() {
+    PaginationException exception = assertThrows(PaginationException.class,
+        () -> KeysetCursor.decode("not base64!", 2));
+    
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+  }
+  
+  @Test
+  void decode_WhenNumberOfKeysDoesNotMatch_ShouldThrowException() {
+    String cursor = KeysetCursor.encode(List.of("name", 1L));
+    
+    PaginationException exception = assertThrows(PaginationException.class,
+        () -> KeysetCursor.decode(cursor, 3));
+    
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+  }
+}